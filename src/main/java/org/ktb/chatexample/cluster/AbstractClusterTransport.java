@@ -0,0 +1,62 @@
+package org.ktb.chatexample.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// 수신 처리기 관리 공통 구현
+@Slf4j
+public abstract class AbstractClusterTransport implements ClusterTransport {
+
+    private final String localNodeId;
+    private final Map<String, Consumer<ClusterMessage>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> membershipListeners = new CopyOnWriteArrayList<>();
+
+    protected AbstractClusterTransport(String localNodeId) {
+        this.localNodeId = localNodeId;
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    @Override
+    public void registerHandler(String type, Consumer<ClusterMessage> handler) {
+        if (handlers.putIfAbsent(type, handler) != null) {
+            throw new IllegalStateException("이미 등록된 메시지 타입입니다: " + type);
+        }
+    }
+
+    @Override
+    public void addMembershipListener(Runnable listener) {
+        membershipListeners.add(listener);
+    }
+
+    protected void fireMembershipChanged() {
+        for (Runnable listener : membershipListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.error("클러스터 노드 변경 처리 실패", e);
+            }
+        }
+    }
+
+    protected void dispatch(ClusterMessage message) {
+        Consumer<ClusterMessage> handler = handlers.get(message.type());
+        if (handler == null) {
+            log.warn("처리기가 없는 클러스터 메시지입니다. (type={}, from={})", message.type(), message.sourceNodeId());
+            return;
+        }
+        try {
+            handler.accept(message);
+        } catch (RuntimeException e) {
+            log.error("클러스터 메시지 처리 실패 (type={}, from={})", message.type(), message.sourceNodeId(), e);
+        }
+    }
+}
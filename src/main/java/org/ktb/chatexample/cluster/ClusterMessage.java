@@ -0,0 +1,8 @@
+package org.ktb.chatexample.cluster;
+
+/**
+ * 노드 간에 주고받는 메시지
+ * type으로 처리기를 고르고, key는 보통 채팅방 roomId, payload는 이미 직렬화된 바이트다.
+ */
+public record ClusterMessage(String type, String sourceNodeId, String key, byte[] payload) {
+}
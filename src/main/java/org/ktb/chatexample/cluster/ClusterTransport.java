@@ -0,0 +1,31 @@
+package org.ktb.chatexample.cluster;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 노드 간 메시지 전달 계층
+ * 같은 노드에서 보낸 메시지는 같은 노드로 보낸 순서대로 도착한다. 전달은 최선 노력이며 재전송은 하지 않는다.
+ */
+public interface ClusterTransport extends AutoCloseable {
+
+    String getLocalNodeId();
+
+    // 현재 메시지를 보낼 수 있는 다른 노드 목록
+    Set<String> getPeerNodeIds();
+
+    // 노드 목록(getPeerNodeIds)이 바뀔 때 호출된다
+    void addMembershipListener(Runnable listener);
+
+    // type별 수신 처리기 등록 (수신 스레드에서 호출되므로 오래 걸리는 작업은 넘겨서 처리해야 한다)
+    void registerHandler(String type, Consumer<ClusterMessage> handler);
+
+    // 다른 모든 노드로 전송
+    void publish(String type, String key, byte[] payload);
+
+    // 특정 노드로 전송
+    void send(String nodeId, String type, String key, byte[] payload);
+
+    @Override
+    void close();
+}
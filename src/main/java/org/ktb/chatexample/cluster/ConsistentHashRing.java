@@ -0,0 +1,101 @@
+package org.ktb.chatexample.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 가상 노드를 사용하는 일관된 해시 링
+ * 노드가 추가/제거되어도 그 노드에 해당하는 구간의 키만 옮겨진다 (전체 키의 약 1/N).
+ * 조회는 불변 스냅샷을 읽으므로 잠금이 없고, 노드 변경 시에만 링을 새로 만든다.
+ */
+public class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int virtualNodes;
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptySortedSet(), new TreeMap<>());
+
+    private record Snapshot(Set<String> nodes, NavigableMap<Long, String> points) {
+    }
+
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes는 1 이상이어야 합니다: " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void addNode(String nodeId) {
+        Set<String> nodes = new TreeSet<>(snapshot.nodes());
+        if (nodes.add(nodeId)) {
+            snapshot = build(nodes);
+        }
+    }
+
+    public synchronized void removeNode(String nodeId) {
+        Set<String> nodes = new TreeSet<>(snapshot.nodes());
+        if (nodes.remove(nodeId)) {
+            snapshot = build(nodes);
+        }
+    }
+
+    public synchronized void setNodes(Collection<String> nodeIds) {
+        Set<String> nodes = new TreeSet<>(nodeIds);
+        if (!nodes.equals(snapshot.nodes())) {
+            snapshot = build(nodes);
+        }
+    }
+
+    public Set<String> getNodes() {
+        return snapshot.nodes();
+    }
+
+    // 키를 담당하는 노드 (링에서 키의 해시 이후 첫 가상 노드), 노드가 없으면 null
+    public String getNode(String key) {
+        NavigableMap<Long, String> points = snapshot.points();
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = points.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+
+    private Snapshot build(Set<String> nodes) {
+        NavigableMap<Long, String> points = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // 해시가 겹치면 노드 ID가 작은 쪽이 갖는다 (노드마다 같은 결과가 나오도록)
+                points.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        return new Snapshot(Collections.unmodifiableSet(nodes), points);
+    }
+
+    // FNV-1a 64비트 해시에 murmur3 finalizer를 더해 비슷한 문자열도 링 위에 고르게 퍼지게 한다
+    static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
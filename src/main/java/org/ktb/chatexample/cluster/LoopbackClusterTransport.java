@@ -0,0 +1,80 @@
+package org.ktb.chatexample.cluster;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * 같은 JVM 안에서 Hub를 공유하는 노드끼리 메시지를 주고받는 전송 계층
+ * 노드마다 수신 스레드 하나가 순서대로 처리한다. 혼자 있는 Hub는 단일 노드 모드(전송 없음)와 같다.
+ */
+public class LoopbackClusterTransport extends AbstractClusterTransport {
+
+    private final Hub hub;
+    private final ExecutorService inbox;
+
+    public static final class Hub {
+        private final Map<String, LoopbackClusterTransport> nodes = new ConcurrentHashMap<>();
+    }
+
+    public LoopbackClusterTransport(String localNodeId, Hub hub) {
+        super(localNodeId);
+        this.hub = hub;
+        this.inbox = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-loopback-" + localNodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (hub.nodes.putIfAbsent(localNodeId, this) != null) {
+            inbox.shutdown();
+            throw new IllegalStateException("이미 사용 중인 노드 ID입니다: " + localNodeId);
+        }
+        hub.nodes.values().forEach(AbstractClusterTransport::fireMembershipChanged);
+    }
+
+    @Override
+    public Set<String> getPeerNodeIds() {
+        return hub.nodes.keySet().stream()
+                .filter(nodeId -> !nodeId.equals(getLocalNodeId()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public void publish(String type, String key, byte[] payload) {
+        ClusterMessage message = new ClusterMessage(type, getLocalNodeId(), key, payload);
+        hub.nodes.forEach((nodeId, node) -> {
+            if (node != this) {
+                node.receive(message);
+            }
+        });
+    }
+
+    @Override
+    public void send(String nodeId, String type, String key, byte[] payload) {
+        LoopbackClusterTransport node = hub.nodes.get(nodeId);
+        if (node == null || node == this) {
+            throw new IllegalArgumentException("알 수 없는 노드입니다: " + nodeId);
+        }
+        node.receive(new ClusterMessage(type, getLocalNodeId(), key, payload));
+    }
+
+    @Override
+    public void close() {
+        if (hub.nodes.remove(getLocalNodeId(), this)) {
+            hub.nodes.values().forEach(AbstractClusterTransport::fireMembershipChanged);
+        }
+        inbox.shutdown();
+    }
+
+    private void receive(ClusterMessage message) {
+        try {
+            inbox.execute(() -> dispatch(message));
+        } catch (RejectedExecutionException e) {
+            // 종료된 노드로 가는 메시지는 버린다
+        }
+    }
+}
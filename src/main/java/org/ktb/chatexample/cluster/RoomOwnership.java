@@ -0,0 +1,49 @@
+package org.ktb.chatexample.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 채팅방(roomId)별 소유 노드 결정
+ * 현재 연결된 노드와 자신으로 일관된 해시 링을 만들고, 노드 목록이 바뀌면 다시 만든다.
+ * 노드마다 연결 상태를 보는 시점이 다르므로 변경 직후 잠깐은 노드 간 판단이 다를 수 있다.
+ */
+@Slf4j
+@Component
+public class RoomOwnership {
+
+    private final ClusterTransport clusterTransport;
+    private final ConsistentHashRing ring;
+
+    public RoomOwnership(ClusterTransport clusterTransport,
+                         @Value("${chat.cluster.virtual-nodes:" + ConsistentHashRing.DEFAULT_VIRTUAL_NODES + "}") int virtualNodes) {
+        this.clusterTransport = clusterTransport;
+        this.ring = new ConsistentHashRing(virtualNodes);
+        refresh();
+        clusterTransport.addMembershipListener(this::refresh);
+    }
+
+    public String ownerOf(String roomId) {
+        String owner = ring.getNode(roomId);
+        return owner != null ? owner : clusterTransport.getLocalNodeId();
+    }
+
+    public boolean isLocal(String roomId) {
+        return clusterTransport.getLocalNodeId().equals(ownerOf(roomId));
+    }
+
+    public Set<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    private void refresh() {
+        Set<String> nodes = new HashSet<>(clusterTransport.getPeerNodeIds());
+        nodes.add(clusterTransport.getLocalNodeId());
+        ring.setNodes(nodes);
+        log.info("채팅방 소유 노드 링 갱신: {}", ring.getNodes());
+    }
+}
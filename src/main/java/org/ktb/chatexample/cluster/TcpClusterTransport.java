@@ -0,0 +1,379 @@
+package org.ktb.chatexample.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * TCP 전송 계층
+ * 다른 노드마다 전송 연결 하나와 전용 송신 스레드를 두고, 연결이 끊기면 다시 연결한다.
+ * 전송 연결이 맺어져 있는 노드만 노드 목록(getPeerNodeIds)에 포함된다.
+ * 연결 직후 받는 쪽이 임의의 nonce를 보내고, 보내는 쪽은 자신의 노드 ID와 HMAC-SHA256(공유 비밀, nonce + 노드 ID)로 답한다.
+ * 받는 쪽은 노드 ID가 addPeer로 등록된 노드이고 연결 주소가 그 노드의 주소이며 HMAC이 맞을 때만 연결을 받아들인다.
+ * 이후 프레임은 [type(UTF)][key(UTF)][payload 길이(int)][payload] 형식이다. (암호화하지 않으므로 내부망에서만 사용)
+ * 송신 대기열이 가득 차거나 연결이 끊긴 사이의 메시지는 버려진다.
+ */
+@Slf4j
+public class TcpClusterTransport extends AbstractClusterTransport {
+
+    private static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    private static final long MAX_RECONNECT_BACKOFF_MS = 2000;
+    private static final int HANDSHAKE_TIMEOUT_MS = 3000;
+    private static final int NONCE_BYTES = 16;
+    private static final int PROOF_BYTES = 32;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int HANDSHAKE_ACCEPTED = 1;
+
+    private final InetSocketAddress bindAddress;
+    private final int queueCapacity;
+    private final SecretKeySpec secret;
+    private final SecureRandom random = new SecureRandom();
+
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    private final Set<Socket> inboundSockets = ConcurrentHashMap.newKeySet();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public TcpClusterTransport(String localNodeId, InetSocketAddress bindAddress, int queueCapacity, String secret) {
+        super(localNodeId);
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("클러스터 공유 비밀이 비어 있습니다.");
+        }
+        this.bindAddress = bindAddress;
+        this.queueCapacity = queueCapacity;
+        this.secret = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    public synchronized void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(bindAddress);
+        running = true;
+        startThread("cluster-accept-" + getLocalNodeId(), this::acceptLoop);
+        log.info("클러스터 TCP 전송 시작 (node={}, port={})", getLocalNodeId(), serverSocket.getLocalPort());
+    }
+
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void addPeer(String nodeId, InetSocketAddress address) {
+        if (nodeId.equals(getLocalNodeId())) {
+            return;
+        }
+        peers.computeIfAbsent(nodeId, key -> {
+            Peer peer = new Peer(key, address);
+            startThread("cluster-send-" + key, peer::sendLoop);
+            return peer;
+        });
+    }
+
+    public void removePeer(String nodeId) {
+        Peer peer = peers.remove(nodeId);
+        if (peer != null) {
+            peer.close();
+            if (peer.connected) {
+                fireMembershipChanged();
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    // 인증에 실패해 끊은 수신 연결 수
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public Set<String> getPeerNodeIds() {
+        return peers.values().stream()
+                .filter(peer -> peer.connected)
+                .map(peer -> peer.nodeId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public void publish(String type, String key, byte[] payload) {
+        ClusterMessage message = new ClusterMessage(type, getLocalNodeId(), key, payload);
+        peers.values().forEach(peer -> peer.enqueue(message));
+    }
+
+    @Override
+    public void send(String nodeId, String type, String key, byte[] payload) {
+        Peer peer = peers.get(nodeId);
+        if (peer == null) {
+            throw new IllegalArgumentException("알 수 없는 노드입니다: " + nodeId);
+        }
+        peer.enqueue(new ClusterMessage(type, getLocalNodeId(), key, payload));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        closeQuietly(serverSocket);
+        peers.values().forEach(Peer::close);
+        peers.clear();
+        inboundSockets.forEach(TcpClusterTransport::closeQuietly);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                inboundSockets.add(socket);
+                startThread("cluster-receive-" + getLocalNodeId(), () -> receiveLoop(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("클러스터 연결 수락 실패", e);
+                }
+            }
+        }
+    }
+
+    private void receiveLoop(Socket socket) {
+        String remoteNodeId = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            remoteNodeId = authenticate(socket, in);
+            if (remoteNodeId == null) {
+                rejectedCount.increment();
+                return;
+            }
+            while (running) {
+                String type = in.readUTF();
+                String key = in.readUTF();
+                int length = in.readInt();
+                if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+                    throw new IOException("잘못된 프레임 길이: " + length);
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                dispatch(new ClusterMessage(type, remoteNodeId, key, payload));
+            }
+        } catch (EOFException | SocketException e) {
+            // 상대 노드 종료
+        } catch (IOException e) {
+            log.warn("클러스터 수신 실패 (from={})", remoteNodeId, e);
+        } finally {
+            inboundSockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    // 받는 쪽 핸드셰이크, 인증된 노드 ID (실패하면 null)
+    private String authenticate(Socket socket, DataInputStream in) throws IOException {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.write(nonce);
+        out.flush();
+
+        String nodeId = in.readUTF();
+        byte[] proof = new byte[PROOF_BYTES];
+        in.readFully(proof);
+        socket.setSoTimeout(0);
+
+        Peer peer = peers.get(nodeId);
+        if (peer == null || !peer.isAddress(socket.getInetAddress())) {
+            log.warn("등록되지 않은 노드의 연결을 거부합니다. (node={}, address={})", nodeId, socket.getInetAddress());
+            return null;
+        }
+        if (!MessageDigest.isEqual(proof, sign(nonce, nodeId))) {
+            log.warn("공유 비밀이 맞지 않는 연결을 거부합니다. (node={}, address={})", nodeId, socket.getInetAddress());
+            return null;
+        }
+        out.write(HANDSHAKE_ACCEPTED);
+        out.flush();
+        return nodeId;
+    }
+
+    private byte[] sign(byte[] nonce, String nodeId) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secret);
+            mac.update(nonce);
+            return mac.doFinal(nodeId.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // 종료 중 오류는 무시
+        }
+    }
+
+    // 다른 노드로의 전송 연결
+    private final class Peer {
+
+        private final String nodeId;
+        private final InetSocketAddress address;
+        private final BlockingQueue<ClusterMessage> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private volatile boolean open = true;
+        private volatile Socket socket;
+        private volatile boolean connected;
+
+        Peer(String nodeId, InetSocketAddress address) {
+            this.nodeId = nodeId;
+            this.address = address;
+        }
+
+        void enqueue(ClusterMessage message) {
+            if (!queue.offer(message)) {
+                droppedCount.increment();
+            }
+        }
+
+        void close() {
+            open = false;
+            closeQuietly(socket);
+        }
+
+        void sendLoop() {
+            long backoffMs = 50;
+            while (open && running) {
+                try (Socket connected = connect()) {
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connected.getOutputStream()));
+                    handshake(connected, out);
+                    backoffMs = 50;
+                    setConnected(true);
+
+                    while (open && running) {
+                        ClusterMessage message = queue.poll(500, TimeUnit.MILLISECONDS);
+                        if (message == null) {
+                            continue;
+                        }
+                        write(out, message);
+                        // 대기열이 빌 때까지 모아서 한 번에 flush
+                        while ((message = queue.poll()) != null) {
+                            write(out, message);
+                        }
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    setConnected(false);
+                    if (open && running) {
+                        log.debug("클러스터 노드 연결 실패, 재시도합니다. (node={}, address={})", nodeId, address);
+                        sleep(backoffMs);
+                        backoffMs = Math.min(backoffMs * 2, MAX_RECONNECT_BACKOFF_MS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void setConnected(boolean value) {
+            if (connected != value) {
+                connected = value;
+                if (peers.get(nodeId) == this) {
+                    fireMembershipChanged();
+                }
+            }
+        }
+
+        // 보내는 쪽 핸드셰이크 (받는 쪽이 거부하면 연결을 끊으므로 EOFException으로 다시 시도한다)
+        private void handshake(Socket connected, DataOutputStream out) throws IOException {
+            connected.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            DataInputStream in = new DataInputStream(connected.getInputStream());
+            byte[] nonce = new byte[NONCE_BYTES];
+            in.readFully(nonce);
+            out.writeUTF(getLocalNodeId());
+            out.write(sign(nonce, getLocalNodeId()));
+            out.flush();
+            if (in.readUnsignedByte() != HANDSHAKE_ACCEPTED) {
+                throw new IOException("클러스터 노드가 연결을 거부했습니다: " + nodeId);
+            }
+            connected.setSoTimeout(0);
+        }
+
+        // 설정된 주소를 해석한 결과 중 하나에서 온 연결인지
+        boolean isAddress(InetAddress remote) {
+            try {
+                return Arrays.asList(InetAddress.getAllByName(address.getHostString())).contains(remote);
+            } catch (UnknownHostException e) {
+                return false;
+            }
+        }
+
+        private Socket connect() throws IOException {
+            Socket connected = new Socket();
+            try {
+                connected.setTcpNoDelay(true);
+                // 연결할 때마다 주소를 다시 해석한다 (재시작 후 IP가 바뀌는 환경 대비)
+                connected.connect(new InetSocketAddress(address.getHostString(), address.getPort()), CONNECT_TIMEOUT_MS);
+            } catch (IOException e) {
+                closeQuietly(connected);
+                throw e;
+            }
+            socket = connected;
+            return connected;
+        }
+
+        private void write(DataOutputStream out, ClusterMessage message) throws IOException {
+            out.writeUTF(message.type());
+            out.writeUTF(message.key());
+            out.writeInt(message.payload().length);
+            out.write(message.payload());
+        }
+
+        private void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                open = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.ktb.chatexample.config;
+
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.LoopbackClusterTransport;
+import org.ktb.chatexample.cluster.TcpClusterTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+@Configuration
+public class ClusterConfig {
+
+    // loopback: 단일 노드 (다른 노드로 전송하지 않음), tcp: peers로 지정한 노드들과 TCP로 연결
+    @Value("${chat.cluster.transport:loopback}")
+    private String transport;
+
+    // 기본값은 Snowflake 노드 ID에서 만든다 (tcp 모드에서는 chat.id.node-id가 필수, IdGeneratorConfig)
+    @Value("${chat.cluster.node-id:node-${chat.id.node-id:0}}")
+    private String nodeId;
+
+    // 다른 호스트의 노드와 연결하려면 내부망 주소로 지정한다
+    @Value("${chat.cluster.bind-address:127.0.0.1}")
+    private String bindAddress;
+
+    @Value("${chat.cluster.port:7400}")
+    private int port;
+
+    // nodeId=host:port 목록 (자기 자신이 포함되어 있어도 된다)
+    @Value("${chat.cluster.peers:}")
+    private List<String> peers;
+
+    @Value("${chat.cluster.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // 노드 간 연결 인증에 쓰는 공유 비밀 (tcp 모드에서 필수, 모든 노드가 같은 값)
+    @Value("${chat.cluster.secret:}")
+    private String secret;
+
+    @Bean
+    public ClusterTransport clusterTransport() throws IOException {
+        if (!"tcp".equalsIgnoreCase(transport)) {
+            return new LoopbackClusterTransport(nodeId, new LoopbackClusterTransport.Hub());
+        }
+
+        if (secret.isBlank()) {
+            throw new IllegalStateException("tcp 클러스터 모드에서는 chat.cluster.secret을 설정해야 합니다.");
+        }
+        TcpClusterTransport tcpTransport = new TcpClusterTransport(nodeId, new InetSocketAddress(bindAddress, port),
+                queueCapacity, secret);
+        tcpTransport.start();
+        for (String peer : peers) {
+            if (peer.isBlank()) {
+                continue;
+            }
+            String[] nodeAndAddress = peer.trim().split("=", 2);
+            int colon = nodeAndAddress.length == 2 ? nodeAndAddress[1].lastIndexOf(':') : -1;
+            if (colon < 0) {
+                tcpTransport.close();
+                throw new IllegalArgumentException("chat.cluster.peers 형식이 올바르지 않습니다 (nodeId=host:port): " + peer);
+            }
+            String host = nodeAndAddress[1].substring(0, colon);
+            int peerPort = Integer.parseInt(nodeAndAddress[1].substring(colon + 1));
+            tcpTransport.addPeer(nodeAndAddress[0], InetSocketAddress.createUnresolved(host, peerPort));
+        }
+        return tcpTransport;
+    }
+}
@@ -0,0 +1,63 @@
+package org.ktb.chatexample.config;
+
+import org.ktb.chatexample.websocket.PerMessageDeflateFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 응답 압축 설정
+ * - REST: Accept-Encoding: gzip 요청이고 응답이 min-response-size 이상인 JSON/NDJSON만 Tomcat이 gzip으로 압축한다.
+ *   (길이를 미리 알 수 없는 스트리밍 응답은 크기와 관계없이 압축된다)
+ * - WebSocket: Tomcat이 permessage-deflate를 기본 지원하므로 활성화 여부와 context takeover만 조정한다.
+ *   Tomcat에는 메시지 크기 기준 압축 임계값이 없어 협상된 세션의 모든 메시지가 압축된다.
+ *   (SockJS의 HTTP 스트리밍/폴링 전송은 REST와 같은 gzip 설정을 따른다)
+ */
+@Configuration
+public class CompressionConfig {
+
+    @Value("${chat.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.compression.min-response-size:2KB}")
+    private DataSize minResponseSize;
+
+    @Value("${chat.compression.mime-types:application/json,application/x-ndjson,text/plain}")
+    private String[] mimeTypes;
+
+    @Value("${chat.websocket.deflate.enabled:true}")
+    private boolean deflateEnabled;
+
+    // false면 세션별 압축 사전을 유지하지 않는다 (연결 수가 많을 때 메모리 절약)
+    @Value("${chat.websocket.deflate.server-context-takeover:true}")
+    private boolean serverContextTakeover;
+
+    @Value("${chat.websocket.deflate.client-context-takeover:true}")
+    private boolean clientContextTakeover;
+
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> compressionCustomizer() {
+        return factory -> {
+            Compression compression = new Compression();
+            compression.setEnabled(enabled);
+            compression.setMinResponseSize(minResponseSize);
+            compression.setMimeTypes(mimeTypes);
+            factory.setCompression(compression);
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<PerMessageDeflateFilter> perMessageDeflateFilter() {
+        FilterRegistrationBean<PerMessageDeflateFilter> registration = new FilterRegistrationBean<>(
+                new PerMessageDeflateFilter(deflateEnabled, serverContextTakeover, clientContextTakeover));
+        registration.addUrlPatterns("/ws/*", "/ws-native");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
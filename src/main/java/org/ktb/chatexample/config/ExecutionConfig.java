@@ -0,0 +1,35 @@
+package org.ktb.chatexample.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * 요청 처리 실행 모드 (chat.execution.mode)
+ * platform: Tomcat 스레드 풀(server.tomcat.threads.*)과 STOMP 채널 기본 스레드 풀을 사용한다.
+ * virtual: HTTP 요청과 STOMP inbound 채널 작업을 작업마다 가상 스레드에서 실행한다.
+ * STOMP outbound 채널은 느린 클라이언트 대기열 상한(WebSocketFlowControl)을 지키도록 두 모드 모두 크기가 정해진 풀과 대기열을 쓴다.
+ * 가상 스레드 모드에서도 DB 동시 접근은 커넥션 풀 크기로 제한된다.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    public static final String MODE_PROPERTY = "chat.execution.mode";
+    public static final String VIRTUAL = "virtual";
+
+    @Bean
+    @ConditionalOnProperty(name = MODE_PROPERTY, havingValue = VIRTUAL)
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+    }
+
+    static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
@@ -0,0 +1,43 @@
+package org.ktb.chatexample.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.ktb.chatexample.entity.SnowflakeIdentifierGenerator;
+import org.ktb.chatexample.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    // 인스턴스마다 서로 다른 값이어야 한다 (0-1023), 설정하지 않으면 단일 노드로 보고 0을 쓴다
+    @Value("${chat.id.node-id:#{null}}")
+    private Long nodeId;
+
+    @Value("${chat.cluster.transport:loopback}")
+    private String clusterTransport;
+
+    @Value("${chat.jpa.batch-size:50}")
+    private int batchSize;
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator() {
+        // chat.cluster.node-id만 노드마다 바꾸면 모든 노드가 0으로 ID를 만들어 write-behind/배치 저장에서 충돌한다
+        if (nodeId == null && "tcp".equalsIgnoreCase(clusterTransport)) {
+            throw new IllegalStateException("tcp 클러스터 모드에서는 노드마다 다른 chat.id.node-id를 설정해야 합니다.");
+        }
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(nodeId != null ? nodeId : 0);
+        SnowflakeIdentifierGenerator.configure(generator);
+        return generator;
+    }
+
+    // 애플리케이션 생성 ID를 쓰는 엔티티의 INSERT를 JDBC 배치로 묶는다 (spring.jpa.properties 설정이 우선)
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+        };
+    }
+}
@@ -2,13 +2,18 @@ package org.ktb.chatexample.config;
 
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 
+// chat.storage.backend=local이면 S3 설정(aws.s3.*) 없이 실행할 수 있다
 @Configuration
+@ConditionalOnProperty(name = "chat.storage.backend", havingValue = "s3", matchIfMissing = true)
 public class S3Config {
     @Value("${aws.s3.accessKey}")
     private String accessKey;
@@ -19,12 +24,29 @@ public class S3Config {
     @Value("${aws.s3.region}")
     private String region;
 
+    // S3 호환 저장소(MinIO 등)를 쓸 때 엔드포인트 지정, 보통 경로 방식(path-style) 접근도 함께 켠다
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${aws.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
     @Bean
     public AmazonS3Client amazonS3Client() {
+        return createClient(accessKey, secretKey, region, endpoint, pathStyleAccess);
+    }
+
+    public static AmazonS3Client createClient(String accessKey, String secretKey, String region,
+                                              String endpoint, boolean pathStyleAccess) {
         BasicAWSCredentials awsCredentials = new BasicAWSCredentials(accessKey, secretKey);
-        return (AmazonS3Client) AmazonS3ClientBuilder.standard()
-                .withRegion(region)
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
                 .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
-                .build();
+                .withPathStyleAccessEnabled(pathStyleAccess);
+        if (StringUtils.hasText(endpoint)) {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region));
+        } else {
+            builder.withRegion(region);
+        }
+        return (AmazonS3Client) builder.build();
     }
 }
@@ -0,0 +1,19 @@
+package org.ktb.chatexample.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${chat.export.async-timeout-ms:600000}")
+    private long asyncTimeoutMs;
+
+    // StreamingResponseBody 내보내기가 컨테이너 기본 비동기 타임아웃(30초)에 끊기지 않도록 한다
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+}
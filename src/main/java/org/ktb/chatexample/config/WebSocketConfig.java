@@ -1,20 +1,78 @@
 package org.ktb.chatexample.config;
 
+import lombok.RequiredArgsConstructor;
+import org.ktb.chatexample.service.RoomBroadcaster;
+import org.ktb.chatexample.websocket.ChatMessageBinaryMessageConverter;
+import org.ktb.chatexample.websocket.CountingRejectedExecutionHandler;
+import org.ktb.chatexample.websocket.WebSocketFlowControl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketFlowControl webSocketFlowControl;
+
+    @Value("${" + ExecutionConfig.MODE_PROPERTY + ":platform}")
+    private String executionMode;
+
+    // 한 세션의 전송이 이 시간 이상 걸리거나 전송 버퍼가 이 크기를 넘으면 연결을 끊는다
+    @Value("${chat.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${chat.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${chat.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // 0이면 CPU 코어 수 * 2
+    @Value("${chat.websocket.inbound.pool-size:0}")
+    private int inboundPoolSize;
+
+    @Value("${chat.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${chat.websocket.outbound.pool-size:0}")
+    private int outboundPoolSize;
+
+    @Value("${chat.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+
+        // SockJS 없이 바로 연결하는 엔드포인트, 바이너리 프레임을 받을 수 있으므로 바이너리 인코딩 구독을 허용한다
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(new BinaryCapableInterceptor());
+    }
+
+    // 기본 변환기(JSON 등)는 그대로 두고 content-type이 application/octet-stream인 ChatMessageDto만 추가로 처리
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new ChatMessageBinaryMessageConverter());
+        return true;
     }
 
     @Override
@@ -22,4 +80,68 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setApplicationDestinationPrefixes("/app");
         registry.enableSimpleBroker("/topic", "/queue");
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(webSocketFlowControl::decorate);
+    }
+
+    // 가상 스레드 모드에서는 메시지마다 가상 스레드에서 처리 (JDBC/S3 대기가 채널 스레드 풀을 막지 않도록)
+    // 그 외에는 크기가 정해진 스레드 풀을 쓰고, 대기열이 가득 차 거부된 작업 수를 센다
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (isVirtualThreadMode()) {
+            registration.executor(ExecutionConfig.virtualThreadExecutor("ws-inbound-"));
+        } else {
+            registration.taskExecutor(sizedExecutor("clientInboundChannel-", inboundPoolSize, inboundQueueCapacity,
+                    webSocketFlowControl.getInboundRejectionHandler()));
+        }
+    }
+
+    // 출력 채널은 모드와 관계없이 크기가 정해진 대기열을 쓴다 (WebSocketFlowControl의 메모리 상한이 이 대기열을 전제로 한다)
+    // 가상 스레드 모드에서는 같은 크기의 풀을 가상 스레드로 채운다 (소켓 쓰기가 막혀도 플랫폼 스레드를 잡지 않도록)
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(webSocketFlowControl);
+        ThreadPoolTaskExecutor executor = sizedExecutor("clientOutboundChannel-", outboundPoolSize, outboundQueueCapacity,
+                webSocketFlowControl.getOutboundRejectionHandler());
+        executor.setVirtualThreads(isVirtualThreadMode());
+        registration.taskExecutor(executor);
+    }
+
+    private static class BinaryCapableInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            attributes.put(RoomBroadcaster.BINARY_CAPABLE_ATTRIBUTE, Boolean.TRUE);
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
+    }
+
+    private boolean isVirtualThreadMode() {
+        return ExecutionConfig.VIRTUAL.equalsIgnoreCase(executionMode);
+    }
+
+    // 채널 실행기 빈으로 등록되어 컨테이너가 초기화/종료한다
+    private static ThreadPoolTaskExecutor sizedExecutor(String threadNamePrefix, int poolSize, int queueCapacity,
+                                                        CountingRejectedExecutionHandler rejectionHandler) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setRejectedExecutionHandler(rejectionHandler);
+        return executor;
+    }
+}
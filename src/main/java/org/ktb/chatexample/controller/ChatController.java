@@ -4,12 +4,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.ktb.chatexample.dto.*;
 import org.ktb.chatexample.service.ChatService;
-import org.ktb.chatexample.service.S3Service;
+import org.ktb.chatexample.service.ImageUploadPipeline;
+import org.ktb.chatexample.service.PresenceService;
+import org.ktb.chatexample.service.ReadReceiptService;
+import org.ktb.chatexample.service.RoomMessageRouter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -23,8 +26,10 @@ import java.util.List;
 public class ChatController {
 
     private final ChatService chatService;
-    private final S3Service s3Service;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ImageUploadPipeline imageUploadPipeline;
+    private final RoomMessageRouter roomMessageRouter;
+    private final ReadReceiptService readReceiptService;
+    private final PresenceService presenceService;
 
     // 채팅방 생성
     @PostMapping("/rooms")
@@ -46,10 +51,21 @@ public class ChatController {
         return ResponseEntity.ok(chatService.getChatRoomByRoomId(roomId));
     }
 
-    // 채팅 메시지 목록 조회
+    // 채팅방 접속/입력 중 사용자 (이후 변경분은 /topic/chat/{roomId}/presence로 전송된다)
+    @GetMapping("/rooms/{roomId}/presence")
+    public ResponseEntity<PresenceDto> getPresence(@PathVariable String roomId) {
+        return ResponseEntity.ok(presenceService.getPresence(roomId));
+    }
+
+    // 채팅 메시지 목록 조회 (커서 기반 페이징)
+    // ?before={messageId}: 이전 메시지, ?after={messageId}: 이후 메시지(재접속 시 따라잡기), 없으면 최신 메시지
     @GetMapping("/messages/{roomId}")
-    public ResponseEntity<List<ChatMessageDto>> getChatMessages(@PathVariable String roomId) {
-        return ResponseEntity.ok(chatService.getChatMessages(roomId));
+    public ResponseEntity<List<ChatMessageDto>> getChatMessages(
+            @PathVariable String roomId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(chatService.getChatMessages(roomId, before, after, limit));
     }
 
     // REST API로 메시지 전송 (WebSocket 사용 불가능한 경우 대비)
@@ -65,59 +81,56 @@ public class ChatController {
                         .build()));
     }
 
+    // 여러 메시지 일괄 전송 (봇/연동용), 항목별 성공/실패를 요청 순서대로 반환
+    @PostMapping("/messages/batch")
+    public ResponseEntity<ChatMessageBatchResponseDto> sendMessages(
+            @Valid @RequestBody ChatMessageBatchRequestDto requestDto) {
+        return ResponseEntity.ok(chatService.sendMessages(requestDto.getMessages()));
+    }
+
     // 이미지 메시지 전송
+    // 업로드 중(PENDING)인 이미지 메시지를 바로 반환하고, 업로드가 끝나면 같은 ID의 메시지가 /topic/chat/{roomId}로 다시 전송된다
     @PostMapping("/messages/image")
-    public ResponseEntity<ImageUploadResponseDto> sendImageMessage(
+    public ResponseEntity<ChatMessageDto> sendImageMessage(
             @RequestParam("roomId") String roomId,
             @RequestParam("senderId") Long senderId,
-            @RequestParam("image") MultipartFile image) {
-        
-        try {
-            String imageUrl = s3Service.uploadImage(image);
-            
-            // 이미지 메시지 저장 및 전송
-            ChatMessageDto messageDto = ChatMessageDto.builder()
-                    .roomId(roomId)
-                    .senderId(senderId)
-                    .content("[이미지]")
-                    .imageUrl(imageUrl)
-                    .type(MessageType.IMAGE)
-                    .build();
-            
-            chatService.sendMessage(messageDto);
-            
-            return ResponseEntity.ok(ImageUploadResponseDto.builder()
-                    .imageUrl(imageUrl)
-                    .message("이미지가 성공적으로 업로드되었습니다.")
-                    .build());
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ImageUploadResponseDto.builder()
-                            .message("이미지 업로드에 실패했습니다: " + e.getMessage())
-                            .build());
-        }
+            @RequestParam("image") MultipartFile image) throws IOException {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(imageUploadPipeline.submitImageMessage(roomId, senderId, image));
     }
 
-    // WebSocket 메시지 핸들링 (STOMP)
+    // WebSocket 메시지 핸들링 (STOMP), 채팅방 브로드캐스트는 chatService.sendMessage에서 한 번만 한다
+    // 채팅방 소유 노드에서 순서대로 처리되도록 RoomMessageRouter를 거친다
     @MessageMapping("/chat.sendMessage")
     public void handleChatMessage(@Payload ChatMessageDto messageDto) {
-        ChatMessageDto savedMessage = chatService.sendMessage(messageDto);
-        messagingTemplate.convertAndSend("/topic/chat/" + messageDto.getRoomId(), savedMessage);
+        presenceService.stopTyping(messageDto.getRoomId(), messageDto.getSenderId());
+        roomMessageRouter.route(messageDto);
     }
 
+    // 접속할 때마다 호출된다: 접속 상태는 메모리에만 반영하고, JOIN 메시지는 처음 입장할 때만 저장한다
     @MessageMapping("/chat.join")
-    public void handleJoin(@Payload ChatMessageDto messageDto) {
+    public void handleJoin(@Payload ChatMessageDto messageDto, SimpMessageHeaderAccessor headerAccessor) {
+        presenceService.join(headerAccessor.getSessionId(), messageDto.getRoomId(), messageDto.getSenderId());
         messageDto.setType(MessageType.JOIN);
         messageDto.setContent(messageDto.getSenderName() + "님이 입장했습니다.");
-        ChatMessageDto savedMessage = chatService.sendMessage(messageDto);
-        messagingTemplate.convertAndSend("/topic/chat/" + messageDto.getRoomId(), savedMessage);
+        roomMessageRouter.route(messageDto);
     }
 
+    // 퇴장은 접속 상태로만 알린다 (LEAVE 메시지는 저장하지 않음)
     @MessageMapping("/chat.leave")
-    public void handleLeave(@Payload ChatMessageDto messageDto) {
-        messageDto.setType(MessageType.LEAVE);
-        messageDto.setContent(messageDto.getSenderName() + "님이 퇴장했습니다.");
-        ChatMessageDto savedMessage = chatService.sendMessage(messageDto);
-        messagingTemplate.convertAndSend("/topic/chat/" + messageDto.getRoomId(), savedMessage);
+    public void handleLeave(@Payload ChatMessageDto messageDto, SimpMessageHeaderAccessor headerAccessor) {
+        presenceService.leave(headerAccessor.getSessionId(), messageDto.getRoomId(), messageDto.getSenderId());
+    }
+
+    // 입력 중 표시, 변경분은 모아서 /topic/chat/{roomId}/presence로 전송된다
+    @MessageMapping("/chat.typing")
+    public void handleTyping(@Valid @Payload TypingDto typing, SimpMessageHeaderAccessor headerAccessor) {
+        presenceService.typing(headerAccessor.getSessionId(), typing.getRoomId(), typing.getUserId(), typing.isTyping());
+    }
+
+    // 읽음 처리, 읽음 표시는 모아서 /topic/chat/{roomId}/read로 전송된다
+    @MessageMapping("/chat.read")
+    public void handleRead(@Valid @Payload ReadReceiptDto receipt) {
+        readReceiptService.markRead(receipt);
     }
-}
\ No newline at end of file
+}
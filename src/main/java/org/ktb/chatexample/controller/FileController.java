@@ -1,14 +1,21 @@
 package org.ktb.chatexample.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.ktb.chatexample.dto.ImageUploadResponseDto;
-import org.ktb.chatexample.service.S3Service;
+import org.ktb.chatexample.dto.PresignedUploadRequestDto;
+import org.ktb.chatexample.dto.PresignedUploadResponseDto;
+import org.ktb.chatexample.service.ContentStore;
+import org.ktb.chatexample.service.DirectUploadService;
+import org.ktb.chatexample.service.ImageUploadPipeline;
+import org.ktb.chatexample.service.StorageService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/files")
@@ -16,32 +23,54 @@ import java.io.IOException;
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class FileController {
 
-    private final S3Service s3Service;
+    private final StorageService storageService;
+    private final ContentStore contentStore;
+    private final ImageUploadPipeline imageUploadPipeline;
+    private final DirectUploadService directUploadService;
 
-    // 단일 파일 업로드
+    // 단일 파일 업로드 (업로드는 업로드 스레드 풀에서 진행되고 요청 스레드는 바로 반환된다)
     @PostMapping("/upload")
-    public ResponseEntity<ImageUploadResponseDto> uploadFile(
-            @RequestParam("file") MultipartFile file) {
+    public CompletableFuture<ResponseEntity<ImageUploadResponseDto>> uploadFile(
+            @RequestParam("file") MultipartFile file) throws IOException {
 
-        try {
-            String fileUrl = s3Service.uploadImage(file);
-
-            return ResponseEntity.ok(ImageUploadResponseDto.builder()
-                    .imageUrl(fileUrl)
-                    .message("파일이 성공적으로 업로드되었습니다.")
-                    .build());
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ImageUploadResponseDto.builder()
-                            .message("파일 업로드에 실패했습니다: " + e.getMessage())
-                            .build());
-        }
+        return imageUploadPipeline.submitFile(file)
+                .thenApply(stored -> ResponseEntity.ok(ImageUploadResponseDto.builder()
+                        .imageUrl(stored.url())
+                        .fileId(stored.referenceId())
+                        .message("파일이 성공적으로 업로드되었습니다.")
+                        .build()))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ImageUploadResponseDto.builder()
+                                .message("파일 업로드에 실패했습니다: " + (e.getCause() != null ? e.getCause() : e).getMessage())
+                                .build()));
     }
 
-    // 파일 삭제
+    // 직접 업로드 URL 발급 (파일은 응답의 uploadUrl로 저장소에 직접 PUT)
+    @PostMapping("/presigned")
+    public ResponseEntity<PresignedUploadResponseDto> createPresignedUpload(
+            @Valid @RequestBody PresignedUploadRequestDto requestDto) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(directUploadService.createUpload(requestDto));
+    }
+
+    // 직접 업로드 완료 확인 (채팅방 업로드면 이미지 메시지 생성 및 전송)
+    @PostMapping("/presigned/{uploadId}/confirm")
+    public ResponseEntity<ImageUploadResponseDto> confirmPresignedUpload(@PathVariable String uploadId) {
+        return ResponseEntity.ok(directUploadService.confirm(uploadId));
+    }
+
+    // 파일 삭제 (같은 내용을 참조하는 업로드가 남아 있으면 참조만 해제된다, 같은 fileId로 다시 요청해도 한 번만 반영)
     @DeleteMapping
-    public ResponseEntity<Void> deleteFile(@RequestParam String fileUrl) {
-        s3Service.deleteFile(fileUrl);
+    public ResponseEntity<Void> deleteFile(@RequestParam String fileUrl,
+                                           @RequestParam(required = false) String fileId) {
+        if (storageService.getKey(fileUrl) == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            contentStore.release(fileUrl, fileId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package org.ktb.chatexample.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.ktb.chatexample.service.LocalStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 로컬 저장소 파일 제공 (chat.storage.backend=local)
+ * - GET/HEAD: ETag/If-None-Match(304)와 단일 구간 Range(206)를 지원한다. 여러 구간 요청은 전체를 보낸다.
+ *   Tomcat NIO 커넥터가 sendfile을 지원하면 요청 속성으로 파일을 넘겨 커넥터가 소켓으로 바로 전송하고,
+ *   그렇지 않으면 FileChannel.transferTo로 응답 스트림에 쓴다.
+ * - PUT: LocalStorageService.createUploadUrl로 발급한 서명된 직접 업로드
+ * Content-Type은 업로드한 클라이언트가 정한 값이므로 래스터 이미지 형식만 그대로 보내고,
+ * 나머지(HTML, SVG 등)는 application/octet-stream 첨부 파일로 내려 브라우저가 페이지로 열지 않게 한다. (nosniff 포함)
+ */
+@RestController
+@RequestMapping("/api/files/objects")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", allowedHeaders = "*", exposedHeaders = {"ETag", "Content-Range", "Accept-Ranges"})
+@ConditionalOnProperty(name = "chat.storage.backend", havingValue = "local")
+public class LocalStorageController {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 브라우저가 문서/스크립트로 해석하지 않는 이미지 형식 (SVG 제외)
+    private static final Set<String> INLINE_CONTENT_TYPES = Set.of(
+            "image/png", "image/jpeg", "image/gif", "image/webp", "image/avif", "image/bmp");
+
+    private final LocalStorageService localStorageService;
+
+    // 작은 파일은 sendfile 대기열을 거치는 것보다 바로 쓰는 편이 빠르다 (Tomcat DefaultServlet 기본값과 같음)
+    @Value("${chat.storage.local.sendfile-min-size:48KB}")
+    private DataSize sendfileMinSize;
+
+    @Value("${chat.upload.max-size:10MB}")
+    private DataSize maxUploadSize;
+
+    @RequestMapping(path = "/{*key}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void download(@PathVariable String key, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<LocalStorageService.StoredFile> found = localStorageService.find(objectKey(key));
+        if (found.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        LocalStorageService.StoredFile file = found.get();
+
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), file.lastModified().toEpochMilli())) {
+            return; // 304 (ETag, Last-Modified는 설정됨)
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        setContentHeaders(response, objectKey(key), file.contentType());
+
+        long start = 0;
+        long count = file.size();
+        List<HttpRange> ranges = requestedRanges(request, file);
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(file.size());
+                count = ranges.get(0).getRangeEnd(file.size()) - start + 1;
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size());
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + start + "-" + (start + count - 1) + "/" + file.size());
+        }
+        response.setContentLengthLong(count);
+
+        if (RequestMethod.HEAD.name().equals(request.getMethod()) || count == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED)) && count >= sendfileMinSize.toBytes()) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        localStorageService.transferTo(file, start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    @PutMapping("/{*key}")
+    public ResponseEntity<Void> upload(@PathVariable String key,
+                                       @RequestParam long expires,
+                                       @RequestParam String signature,
+                                       @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                       HttpServletRequest request) throws IOException {
+        String objectKey = objectKey(key);
+        if (!localStorageService.verifyUpload(objectKey, contentType, expires, signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+        if (contentLength > maxUploadSize.toBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        localStorageService.store(objectKey, request.getInputStream(), contentLength, contentType);
+        return ResponseEntity.ok().build();
+    }
+
+    private static void setContentHeaders(HttpServletResponse response, String key, String contentType) {
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        String inlineType = inlineContentType(contentType);
+        if (inlineType != null) {
+            response.setContentType(inlineType);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        String fileName = key.substring(key.lastIndexOf('/') + 1);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString());
+    }
+
+    // 허용된 이미지 형식이면 매개변수를 뗀 Content-Type, 아니면 null
+    private static String inlineContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            String type = (mediaType.getType() + "/" + mediaType.getSubtype()).toLowerCase();
+            return INLINE_CONTENT_TYPES.contains(type) ? type : null;
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+    }
+
+    // {*key}로 받은 경로는 '/'로 시작한다
+    private static String objectKey(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    // If-Range가 현재 ETag와 다르면 (파일이 바뀌었으면) 전체를 보낸다
+    private static List<HttpRange> requestedRanges(HttpServletRequest request,
+                                                   LocalStorageService.StoredFile file) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null) {
+            return List.of();
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(file.etag())) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of(); // 해석할 수 없는 Range 헤더는 무시
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.ktb.chatexample.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.ktb.chatexample.dto.CacheStatsDto;
+import org.ktb.chatexample.dto.WebSocketStatsDto;
+import org.ktb.chatexample.service.LookupCache;
+import org.ktb.chatexample.service.RecentMessageCache;
+import org.ktb.chatexample.websocket.WebSocketFlowControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class MetricsController {
+
+    private final RecentMessageCache recentMessageCache;
+    private final LookupCache lookupCache;
+    private final WebSocketFlowControl webSocketFlowControl;
+
+    // 최근 메시지 버퍼 적중률 조회
+    @GetMapping("/recent-messages")
+    public ResponseEntity<CacheStatsDto> getRecentMessageCacheStats() {
+        return ResponseEntity.ok(recentMessageCache.getStats());
+    }
+
+    // 채팅방/사용자 조회 캐시 적중률 조회
+    @GetMapping("/lookups")
+    public ResponseEntity<List<CacheStatsDto>> getLookupCacheStats() {
+        return ResponseEntity.ok(lookupCache.getStats());
+    }
+
+    // WebSocket 세션별 전송 대기열과 느린 클라이언트 처리 현황 조회
+    @GetMapping("/websocket")
+    public ResponseEntity<WebSocketStatsDto> getWebSocketStats() {
+        return ResponseEntity.ok(webSocketFlowControl.getStats());
+    }
+}
@@ -9,8 +9,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -29,6 +31,14 @@ public class PostController {
         return ResponseEntity.ok(postService.getPaginatedPosts(pageable));
     }
 
+    // 게시글 전체 내보내기 (NDJSON 스트리밍)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPosts() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(postService::exportPosts);
+    }
+
     // 게시글 상세 조회
     @GetMapping("/{id}")
     public ResponseEntity<PostResponseDto> getPost(@PathVariable Long id) {
@@ -63,9 +73,11 @@ public class PostController {
         return ResponseEntity.ok(postService.getPostsByAuthor(author));
     }
 
-    // 키워드로 게시글 검색
+    // 키워드로 게시글 검색 (관련도 순, 페이징)
     @GetMapping("/search")
-    public ResponseEntity<List<PostResponseDto>> searchPosts(@RequestParam String keyword) {
-        return ResponseEntity.ok(postService.getPostsByTitleOrContent(keyword));
+    public ResponseEntity<Page<PostResponseDto>> searchPosts(
+            @RequestParam String keyword,
+            @PageableDefault(size = 10) Pageable pageable) {
+        return ResponseEntity.ok(postService.searchPosts(keyword, pageable));
     }
 }
\ No newline at end of file
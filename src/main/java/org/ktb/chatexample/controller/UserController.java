@@ -6,8 +6,10 @@ import org.ktb.chatexample.dto.UserDto;
 import org.ktb.chatexample.dto.UserResponseDto;
 import org.ktb.chatexample.service.UserService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -25,6 +27,14 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsers());
     }
 
+    // 사용자 전체 내보내기 (NDJSON 스트리밍)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userService::exportUsers);
+    }
+
     // 사용자 상세 조회
     @GetMapping("/{id}")
     public ResponseEntity<UserResponseDto> getUser(@PathVariable Long id) {
@@ -0,0 +1,21 @@
+package org.ktb.chatexample.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// 각 메시지는 개별로 검증해 실패한 항목만 결과에 담는다 (@Valid로 전체를 거절하지 않음)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageBatchRequestDto {
+    @NotEmpty(message = "전송할 메시지가 없습니다.")
+    @Size(max = 1000, message = "한 번에 최대 1000개까지 전송할 수 있습니다.")
+    private List<ChatMessageRequestDto> messages;
+}
@@ -0,0 +1,18 @@
+package org.ktb.chatexample.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageBatchResponseDto {
+    private int successCount;
+    private int failureCount;
+    private List<ChatMessageBatchResultDto> results; // 요청 순서와 같다
+}
@@ -0,0 +1,17 @@
+package org.ktb.chatexample.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageBatchResultDto {
+    private int index; // 요청 목록에서의 위치
+    private boolean success;
+    private ChatMessageDto message; // 성공 시 저장된 메시지
+    private String error; // 실패 사유
+}
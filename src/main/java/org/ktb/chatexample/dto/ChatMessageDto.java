@@ -1,5 +1,7 @@
 package org.ktb.chatexample.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,10 +10,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ChatMessageDto {
+    @JsonSerialize(using = ToStringSerializer.class) // 64비트 ID는 JS Number 정밀도를 넘으므로 문자열로 전송
     private Long id;
     private String roomId;
     private Long senderId;
@@ -20,4 +23,7 @@ public class ChatMessageDto {
     private String imageUrl;
     private MessageType type;
     private LocalDateTime createdAt;
+    private UploadStatus uploadStatus; // 이미지 메시지만
+    private String thumbnailUrl;       // 이미지 메시지의 축소본 (생성 후 같은 ID로 다시 전송됨)
+    private String previewUrl;
 }
\ No newline at end of file
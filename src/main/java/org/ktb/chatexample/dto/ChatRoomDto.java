@@ -23,4 +23,5 @@ public class ChatRoomDto {
     private LocalDateTime createdAt;
     private String lastMessage;
     private LocalDateTime lastMessageTime;
+    private long unreadCount; // 조회한 사용자 기준 안 읽은 메시지 수 (목록 조회에서만 채워진다)
 }
\ No newline at end of file
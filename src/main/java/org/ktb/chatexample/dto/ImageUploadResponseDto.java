@@ -11,5 +11,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class ImageUploadResponseDto {
     private String imageUrl;
+    private String fileId; // 파일 삭제 시 함께 보내는 참조 ID (공유 저장된 파일)
     private String message;
+    private ChatMessageDto chatMessage; // 채팅방 이미지로 업로드한 경우 생성된 메시지
 }
\ No newline at end of file
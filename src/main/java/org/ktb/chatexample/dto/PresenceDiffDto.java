@@ -0,0 +1,21 @@
+package org.ktb.chatexample.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// /topic/chat/{roomId}/presence 전송 항목 (직전 전송 이후 바뀐 사용자만)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceDiffDto {
+    private String roomId;
+    private List<Long> joined;
+    private List<Long> left;
+    private List<Long> typing;
+    private List<Long> stoppedTyping;
+}
@@ -0,0 +1,19 @@
+package org.ktb.chatexample.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// 채팅방 현재 접속/입력 중 사용자 (구독 직후 한 번 조회하고 이후에는 변경분을 받는다)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceDto {
+    private String roomId;
+    private List<Long> online;
+    private List<Long> typing;
+}
@@ -0,0 +1,29 @@
+package org.ktb.chatexample.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadRequestDto {
+    @NotBlank(message = "파일 이름은 필수 입력 항목입니다.")
+    private String fileName;
+
+    @NotBlank(message = "Content-Type은 필수 입력 항목입니다.")
+    private String contentType;
+
+    @NotNull(message = "파일 크기는 필수 입력 항목입니다.")
+    @Positive(message = "파일 크기는 0보다 커야 합니다.")
+    private Long size;
+
+    // 채팅방 이미지 메시지로 보낼 때만 지정 (확인 시 이미지 메시지 생성)
+    private String roomId;
+    private Long senderId;
+}
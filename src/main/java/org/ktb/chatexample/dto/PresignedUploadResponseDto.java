@@ -0,0 +1,22 @@
+package org.ktb.chatexample.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadResponseDto {
+    private String uploadId;
+    private String uploadUrl;      // 이 URL로 직접 PUT
+    private String method;
+    private Map<String, String> headers; // PUT 요청에 그대로 포함해야 하는 헤더
+    private String imageUrl;       // 업로드 완료 후 접근 URL
+    private LocalDateTime expiresAt;
+}
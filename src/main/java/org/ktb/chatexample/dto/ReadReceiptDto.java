@@ -0,0 +1,27 @@
+package org.ktb.chatexample.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// /app/chat.read 요청 및 /topic/chat/{roomId}/read 전송 항목
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadReceiptDto {
+    @NotBlank
+    private String roomId;
+
+    @NotNull
+    private Long userId;
+
+    @NotNull
+    @JsonSerialize(using = ToStringSerializer.class) // ChatMessageDto.id와 같이 문자열로 전송
+    private Long messageId; // 이 메시지까지 읽음
+}
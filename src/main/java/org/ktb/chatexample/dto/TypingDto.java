@@ -0,0 +1,23 @@
+package org.ktb.chatexample.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// /app/chat.typing 요청 (입력 중이면 주기적으로 다시 보내고, 멈추면 typing=false)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypingDto {
+    @NotBlank
+    private String roomId;
+
+    @NotNull
+    private Long userId;
+
+    private boolean typing;
+}
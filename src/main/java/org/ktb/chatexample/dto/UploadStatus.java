@@ -0,0 +1,12 @@
+package org.ktb.chatexample.dto;
+
+/**
+ * 이미지 메시지의 업로드 상태
+ * 업로드가 끝나기 전에 PENDING 상태로 먼저 전송되고, 완료되면 같은 메시지 ID로 COMPLETED/FAILED가 다시 전송된다.
+ * 이미지가 아닌 메시지는 null
+ */
+public enum UploadStatus {
+    PENDING,    // 업로드 중
+    COMPLETED,  // 업로드 완료 (imageUrl 사용 가능)
+    FAILED      // 업로드 실패
+}
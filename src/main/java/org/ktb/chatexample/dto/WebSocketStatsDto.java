@@ -0,0 +1,35 @@
+package org.ktb.chatexample.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketStatsDto {
+    private int sessions;
+    private long pendingFrames;
+    private long droppedFrames;
+    private long coalescedFrames;
+    private long slowConsumerDisconnects;
+    private long inboundRejected;
+    private long outboundRejected;
+    private List<SessionQueueDto> slowestSessions; // 대기 프레임이 많은 순
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SessionQueueDto {
+        private String sessionId;
+        private int pendingFrames;
+        private long pendingBytes;
+        private long droppedFrames;
+        private long coalescedFrames;
+    }
+}
@@ -3,24 +3,29 @@ package org.ktb.chatexample.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
 import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.UploadStatus;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
-@Data
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_room_id_id", columnList = "chat_room_id, id") // 커서 페이징용
+})
+@Getter
+@Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class ChatMessage {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
+    @SnowflakeId
+    private Long id; // 시간순 정렬되는 Snowflake ID
     
     @ManyToOne
     @JoinColumn(name = "chat_room_id", nullable = false)
@@ -41,5 +46,14 @@ public class ChatMessage {
     
     @CreationTimestamp
     private LocalDateTime createdAt;
+    
+    @Enumerated(EnumType.STRING)
+    private UploadStatus uploadStatus; // 이미지 메시지의 업로드 상태
+    
+    @Column
+    private String thumbnailUrl; // 채팅 말풍선용 축소 이미지 URL
+    
+    @Column
+    private String previewUrl; // 미리보기용 축소 이미지 URL
 
 }
\ No newline at end of file
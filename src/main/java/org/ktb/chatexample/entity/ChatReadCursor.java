@@ -0,0 +1,57 @@
+package org.ktb.chatexample.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 채팅방별 사용자 읽음 위치와 안 읽은 메시지 수
+ * 메시지마다 갱신하지 않고 UnreadCounters가 메모리에 모은 변화량을 주기적으로 upsert한다.
+ * 행이 없으면 안 읽은 메시지가 없는 것으로 본다.
+ */
+@Entity
+@Table(name = "chat_read_cursors")
+@IdClass(ChatReadCursor.Key.class)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatReadCursor {
+
+    @Id
+    @Column(name = "chat_room_id")
+    private Long chatRoomId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_read_message_id", nullable = false)
+    private long lastReadMessageId;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long chatRoomId;
+        private Long userId;
+    }
+}
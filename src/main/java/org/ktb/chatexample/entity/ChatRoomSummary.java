@@ -0,0 +1,46 @@
+package org.ktb.chatexample.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 채팅방 요약 정보 (마지막 메시지, 마지막 활동 시각, 메시지 수)
+ * 메시지가 저장될 때 ChatRoomRepository.updateSummary / ChatMessageBatchWriter에서 UPDATE 한 번으로 갱신된다.
+ */
+@Embeddable
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatRoomSummary {
+
+    public static final int PREVIEW_LENGTH = 100;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_message_preview", length = PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+
+    // 목록에 표시할 미리보기 (최대 PREVIEW_LENGTH자)
+    // 이모지 같은 서로게이트 쌍이 잘리지 않도록 코드 포인트 단위로 자른다 (짝 없는 서로게이트는 utf8mb4에 저장되지 않음)
+    public static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH
+                || content.codePointCount(0, content.length()) <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, content.offsetByCodePoints(0, PREVIEW_LENGTH));
+    }
+}
@@ -0,0 +1,28 @@
+package org.ktb.chatexample.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.ktb.chatexample.util.SnowflakeIdGenerator;
+
+/**
+ * {@link SnowflakeId}가 붙은 식별자를 생성하는 Hibernate 생성기
+ * Hibernate가 직접 인스턴스를 만들기 때문에 노드 ID가 설정된 생성기는 IdGeneratorConfig에서 주입한다.
+ * 주입 전에 ID를 만들면 다른 노드와 겹칠 수 있으므로 기본 노드로 대신하지 않고 실패한다.
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    private static volatile SnowflakeIdGenerator delegate;
+
+    public static void configure(SnowflakeIdGenerator generator) {
+        delegate = generator;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        SnowflakeIdGenerator generator = delegate;
+        if (generator == null) {
+            throw new IllegalStateException("Snowflake ID 생성기가 설정되지 않았습니다. (IdGeneratorConfig)");
+        }
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,49 @@
+package org.ktb.chatexample.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 내용 주소 방식(SHA-256)으로 저장된 업로드 객체와 참조 수
+ * 같은 내용은 한 번만 저장되고, 참조 수가 0이 되면 저장소에서 삭제된다.
+ */
+@Entity
+@Table(name = "stored_objects")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObject {
+
+    @Id
+    @Column(length = 64)
+    private String hash; // SHA-256 (16진수 소문자)
+
+    @Column(nullable = false)
+    private String storageKey;
+
+    private long size;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private long refCount;
+
+    // PUT이 끝나 저장소에 실제로 있는지 (선점 직후에는 false)
+    @Column(nullable = false)
+    private boolean stored;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package org.ktb.chatexample.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 내용 주소 객체(StoredObject)에 대한 참조 하나 (업로드 한 건 또는 이미지 메시지 하나)
+ * 참조 해제는 이 행을 지울 수 있을 때만 참조 수를 줄이므로 같은 참조를 두 번 해제해도 한 번만 반영된다.
+ */
+@Entity
+@Table(name = "stored_object_refs", indexes = @Index(name = "idx_stored_object_refs_hash", columnList = "hash"))
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObjectReference {
+
+    @Id
+    @Column(length = 64)
+    private String referenceId; // 업로드: UUID, 이미지 메시지: message:{id}
+
+    @Column(length = 64, nullable = false)
+    private String hash;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -3,15 +3,17 @@ package org.ktb.chatexample.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "users")
-@Data
+@Getter
+@Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,12 +32,15 @@ public class User {
     @Column(nullable = false, unique = true)
     private String email;
     
+    @Builder.Default
     @OneToMany(mappedBy = "sender")
     private List<ChatMessage> sentMessages = new ArrayList<>();
     
+    @Builder.Default
     @OneToMany(mappedBy = "user1")
     private List<ChatRoom> chatRooms1 = new ArrayList<>();
     
+    @Builder.Default
     @OneToMany(mappedBy = "user2")
     private List<ChatRoom> chatRooms2 = new ArrayList<>();
 }
\ No newline at end of file
@@ -1,35 +1,72 @@
 package org.ktb.chatexample.repository;
 
 import org.ktb.chatexample.entity.ChatMessage;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.UploadStatus;
 import org.ktb.chatexample.entity.ChatRoom;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     
-    // 특정 채팅방의 모든 메시지 조회 (생성 시간 오름차순)
-    List<ChatMessage> findByChatRoomOrderByCreatedAtAsc(ChatRoom chatRoom);
-    
     // 특정 채팅방의 모든 메시지 조회 (페이징 처리)
     Page<ChatMessage> findByChatRoom(ChatRoom chatRoom, Pageable pageable);
     
-    // 채팅방의 마지막 메시지 조회
-    @Query("SELECT m FROM ChatMessage m WHERE m.chatRoom = ?1 ORDER BY m.createdAt DESC")
-    List<ChatMessage> findLatestMessageByChatRoom(ChatRoom chatRoom, Pageable pageable);
+    // 커서 페이징: 최신 메시지부터 조회 (ID 내림차순)
+    @EntityGraph(attributePaths = "sender")
+    List<ChatMessage> findByChatRoomOrderByIdDesc(ChatRoom chatRoom, Pageable pageable);
+    
+    // 커서 페이징: 특정 메시지 이전 메시지 조회 (ID 내림차순)
+    @EntityGraph(attributePaths = "sender")
+    List<ChatMessage> findByChatRoomAndIdLessThanOrderByIdDesc(ChatRoom chatRoom, Long id, Pageable pageable);
+    
+    // 커서 페이징: 특정 메시지 이후 메시지 조회 (ID 오름차순)
+    @EntityGraph(attributePaths = "sender")
+    List<ChatMessage> findByChatRoomAndIdGreaterThanOrderByIdAsc(ChatRoom chatRoom, Long id, Pageable pageable);
     
     // roomId로 마지막 메시지 조회
-    @Query("SELECT m FROM ChatMessage m WHERE m.chatRoom.roomId = ?1 ORDER BY m.createdAt DESC")
+    @Query("SELECT m FROM ChatMessage m WHERE m.chatRoom.roomId = ?1 ORDER BY m.id DESC")
     List<ChatMessage> findLatestMessageByRoomId(String roomId, Pageable pageable);
     
     // 메시지 수 카운트
     long countByChatRoom(ChatRoom chatRoom);
     
+    // 읽음 위치 이후 상대방이 보낸 메시지 ID (PK 범위 조회, 중간까지 읽었을 때만 사용)
+    // 수와 함께 어느 메시지까지 셌는지 알아야 이후에 도착하는 변화량과 겹치지 않는다
+    @Query("SELECT m.id FROM ChatMessage m WHERE m.chatRoom.id = :chatRoomId AND m.id > :messageId " +
+           "AND m.sender.id <> :userId AND m.type IN :types")
+    List<Long> findUnreadIdsAfter(@Param("chatRoomId") Long chatRoomId,
+                          @Param("messageId") Long messageId,
+                          @Param("userId") Long userId,
+                          @Param("types") Collection<MessageType> types);
+    
+    // 사용자가 채팅방에 입장 메시지를 남긴 적이 있는지 (처음 입장할 때만 JOIN 메시지를 저장하기 위해)
+    boolean existsByChatRoom_IdAndSender_IdAndType(Long chatRoomId, Long senderId, MessageType type);
+    
     // 특정 사용자가 전송한 메시지 조회
     List<ChatMessage> findBySender_Id(Long senderId);
+    
+    // 이미지 업로드 결과 반영 (write-behind 모드에서 아직 저장되지 않았으면 0 반환)
+    @Modifying
+    @Query("UPDATE ChatMessage m SET m.imageUrl = :imageUrl, m.uploadStatus = :uploadStatus WHERE m.id = :id")
+    int updateImageUpload(@Param("id") Long id,
+                          @Param("imageUrl") String imageUrl,
+                          @Param("uploadStatus") UploadStatus uploadStatus);
+    
+    // 이미지 축소본 URL 반영 (write-behind 모드에서 아직 저장되지 않았으면 0 반환)
+    @Modifying
+    @Query("UPDATE ChatMessage m SET m.thumbnailUrl = :thumbnailUrl, m.previewUrl = :previewUrl WHERE m.id = :id")
+    int updateImageVariants(@Param("id") Long id,
+                            @Param("thumbnailUrl") String thumbnailUrl,
+                            @Param("previewUrl") String previewUrl);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.ktb.chatexample.repository;
+
+import org.ktb.chatexample.entity.ChatReadCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+// 갱신은 UnreadCounters가 JDBC upsert로 하고, 목록 조회는 ChatRoomRepository의 LEFT JOIN으로 읽는다
+@Repository
+public interface ChatReadCursorRepository extends JpaRepository<ChatReadCursor, ChatReadCursor.Key> {
+}
@@ -1,14 +1,20 @@
 package org.ktb.chatexample.repository;
 
+import org.ktb.chatexample.dto.ChatRoomDto;
 import org.ktb.chatexample.entity.ChatRoom;
 import org.ktb.chatexample.entity.Post;
 import org.ktb.chatexample.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
@@ -16,6 +22,9 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
     // roomId로 채팅방 조회
     Optional<ChatRoom> findByRoomId(String roomId);
     
+    // 여러 roomId의 채팅방 한 번에 조회 (일괄 전송용)
+    List<ChatRoom> findByRoomIdIn(Collection<String> roomIds);
+    
     // 특정 사용자가 참여한 모든 채팅방 조회
     List<ChatRoom> findByUser1OrUser2(User user1, User user2);
     
@@ -25,10 +34,43 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
     // 특정 게시글과 두 사용자 간의 채팅방 조회
     Optional<ChatRoom> findByPostAndUser1AndUser2(Post post, User user1, User user2);
     
-    // 사용자 ID로 참여중인 모든 채팅방 조회
-    @Query("SELECT c FROM ChatRoom c WHERE c.user1.id = ?1 OR c.user2.id = ?1")
-    List<ChatRoom> findChatRoomsByUserId(Long userId);
+    // 사용자 ID로 참여중인 채팅방 목록을 DTO로 바로 조회 (최근 활동 순, 필요한 컬럼만 한 번의 쿼리로)
+    // 안 읽은 메시지 수는 읽음 위치 테이블을 같이 조인해 가져온다 (채팅방마다 COUNT 하지 않음)
+    @Query("SELECT new org.ktb.chatexample.dto.ChatRoomDto(" +
+           "c.id, c.roomId, p.id, p.title, u1.id, u1.username, u2.id, u2.username, " +
+           "c.createdAt, c.summary.lastMessagePreview, c.summary.lastMessageAt, COALESCE(rc.unreadCount, 0L)) " +
+           "FROM ChatRoom c JOIN c.post p JOIN c.user1 u1 JOIN c.user2 u2 " +
+           "LEFT JOIN ChatReadCursor rc ON rc.chatRoomId = c.id AND rc.userId = ?1 " +
+           "WHERE u1.id = ?1 OR u2.id = ?1 " +
+           "ORDER BY COALESCE(c.summary.lastMessageAt, c.createdAt) DESC")
+    List<ChatRoomDto> findChatRoomDtosByUserId(Long userId);
+    
+    // 메시지 저장 시 채팅방 요약 갱신 (더 최신 메시지일 때만 마지막 메시지를 교체)
+    // MySQL은 SET 절을 왼쪽부터 적용하므로 lastMessageId는 반드시 마지막에 갱신한다
+    @Modifying
+    @Query("UPDATE ChatRoom c SET " +
+           "c.summary.messageCount = c.summary.messageCount + :count, " +
+           "c.summary.lastMessagePreview = CASE WHEN c.summary.lastMessageId IS NULL OR c.summary.lastMessageId < :messageId " +
+           "THEN :preview ELSE c.summary.lastMessagePreview END, " +
+           "c.summary.lastMessageAt = CASE WHEN c.summary.lastMessageId IS NULL OR c.summary.lastMessageId < :messageId " +
+           "THEN :createdAt ELSE c.summary.lastMessageAt END, " +
+           "c.summary.lastMessageId = CASE WHEN c.summary.lastMessageId IS NULL OR c.summary.lastMessageId < :messageId " +
+           "THEN :messageId ELSE c.summary.lastMessageId END " +
+           "WHERE c.id = :chatRoomId")
+    int updateSummary(@Param("chatRoomId") Long chatRoomId,
+                      @Param("messageId") Long messageId,
+                      @Param("preview") String preview,
+                      @Param("createdAt") LocalDateTime createdAt,
+                      @Param("count") long count);
+    
+    // 특정 게시글의 채팅방 roomId 목록 조회 (게시글 삭제 시 캐시 무효화용)
+    @Query("SELECT c.roomId FROM ChatRoom c WHERE c.post.id = ?1")
+    List<String> findRoomIdsByPostId(Long postId);
     
     // 특정 게시글과 관련된 채팅방이 존재하는지 확인
     boolean existsByPost(Post post);
+    
+    // 주어진 게시글 중 채팅방이 있는 게시글 ID 조회 (목록의 hasChat을 한 번에 계산)
+    @Query("SELECT DISTINCT c.post.id FROM ChatRoom c WHERE c.post.id IN ?1")
+    Set<Long> findPostIdsWithChatRoom(Collection<Long> postIds);
 }
\ No newline at end of file
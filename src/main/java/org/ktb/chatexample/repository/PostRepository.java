@@ -1,14 +1,17 @@
 package org.ktb.chatexample.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.ktb.chatexample.entity.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
@@ -19,14 +22,26 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     // 제목으로 게시글 검색 (부분 일치)
     List<Post> findByTitleContaining(String title);
     
-    // 제목 또는 내용으로 게시글 검색 (부분 일치)
-    List<Post> findByTitleContainingOrContentContaining(String title, String content);
-    
     // 페이징 처리된 게시글 목록 조회
     Page<Post> findAll(Pageable pageable);
     
     // 작성자별 페이징 처리된 게시글 목록 조회
     Page<Post> findByAuthor(String author, Pageable pageable);
-
+    
+    // 제목 또는 내용으로 게시글 검색 (페이징, 검색 색인 준비 전 대체 경로)
+    Page<Post> findByTitleContainingOrContentContaining(String title, String content, Pageable pageable);
+    
+    // ID 순으로 끊어 읽기 (검색 색인 재구성용)
+    List<Post> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // 전체 게시글과 채팅방 존재 여부 스트리밍 조회 (내보내기용)
+    // 스트리밍 중에는 같은 커넥션으로 다른 쿼리를 실행할 수 없으므로 hasChat도 함께 조회한다
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p, CASE WHEN EXISTS (SELECT c.id FROM ChatRoom c WHERE c.post = p) THEN true ELSE false END " +
+           "FROM Post p")
+    Stream<Object[]> streamAllWithHasChat();
 
 }
\ No newline at end of file
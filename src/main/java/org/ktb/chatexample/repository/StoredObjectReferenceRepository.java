@@ -0,0 +1,19 @@
+package org.ktb.chatexample.repository;
+
+import org.ktb.chatexample.entity.StoredObjectReference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface StoredObjectReferenceRepository extends JpaRepository<StoredObjectReference, String> {
+
+    // 참조 해제 (이미 해제되었거나 다른 객체의 참조면 0 반환)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StoredObjectReference r WHERE r.referenceId = :referenceId AND r.hash = :hash")
+    int deleteByReferenceIdAndHash(@Param("referenceId") String referenceId, @Param("hash") String hash);
+}
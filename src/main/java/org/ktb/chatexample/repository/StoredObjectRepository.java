@@ -0,0 +1,50 @@
+package org.ktb.chatexample.repository;
+
+import jakarta.persistence.LockModeType;
+import org.ktb.chatexample.entity.StoredObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+
+    // PUT이 끝난 객체의 참조 수 증가 (없거나 아직 PUT 중이면 0 반환)
+    // 다른 노드에서 삭제 후 다시 선점된 행을 오래된 로컬 인덱스로 참조하지 않도록 stored를 함께 확인한다
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredObject o SET o.refCount = o.refCount + 1 WHERE o.hash = :hash AND o.stored = true")
+    int incrementRefCount(@Param("hash") String hash);
+
+    // 새 객체 선점, 이미 있으면 참조 수 증가 (MySQL: 새로 추가되면 1, 기존 행이 갱신되면 2 반환)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO stored_objects (hash, storage_key, size, content_type, ref_count, stored, created_at) " +
+                   "VALUES (:hash, :storageKey, :size, :contentType, 1, FALSE, NOW()) " +
+                   "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1",
+           nativeQuery = true)
+    int claim(@Param("hash") String hash,
+              @Param("storageKey") String storageKey,
+              @Param("size") long size,
+              @Param("contentType") String contentType);
+
+    // 선점한 객체의 PUT 완료 표시
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredObject o SET o.stored = true WHERE o.hash = :hash")
+    int markStored(@Param("hash") String hash);
+
+    @Query("SELECT o.stored FROM StoredObject o WHERE o.hash = :hash")
+    Optional<Boolean> findStoredByHash(@Param("hash") String hash);
+
+    // 참조 해제용 조회 (행 잠금, 잠금이 풀릴 때까지 같은 객체의 선점/참조 증가가 대기한다)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM StoredObject o WHERE o.hash = :hash")
+    Optional<StoredObject> findForUpdate(@Param("hash") String hash);
+}
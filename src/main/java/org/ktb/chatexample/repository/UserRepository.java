@@ -1,10 +1,15 @@
 package org.ktb.chatexample.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.ktb.chatexample.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -20,4 +25,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // 이메일이 이미 존재하는지 확인
     boolean existsByEmail(String email);
+    
+    // 전체 사용자 스트리밍 조회 (내보내기용, MySQL은 fetch size가 Integer.MIN_VALUE일 때 한 행씩 읽어온다)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u")
+    Stream<User> streamAll();
 }
\ No newline at end of file
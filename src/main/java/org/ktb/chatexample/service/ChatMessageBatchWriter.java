@@ -0,0 +1,509 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.UploadStatus;
+import org.ktb.chatexample.entity.ChatMessage;
+import org.ktb.chatexample.entity.ChatRoom;
+import org.ktb.chatexample.entity.ChatRoomSummary;
+import org.ktb.chatexample.entity.User;
+import org.ktb.chatexample.util.NdjsonWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 채팅 메시지 write-behind 저장기
+ * 메시지는 브로드캐스트 직후 제한된 크기의 큐에 적재되고,
+ * 백그라운드 스레드가 max-batch-size / max-linger-ms 기준으로 모아 JDBC 배치 INSERT로 저장한다.
+ * (MySQL은 rewriteBatchedStatements=true 설정 시 multi-row INSERT로 재작성된다)
+ * 이미 브로드캐스트된 메시지이므로 버리지 않는다.
+ * - max-retries 만큼 실패한 배치는 재시도 대기열로 옮겨 retry-interval-ms마다 다시 저장한다.
+ * - 종료 시에도 저장하지 못한 메시지는 dead-letter-file(NDJSON)에 남기고, 다음 기동 때 읽어 다시 저장한다.
+ * 큐에 넣은 메시지는 커밋될 때까지 getPendingMessages로 조회할 수 있다. (최근 메시지 버퍼 초기 적재 시 DB 결과와 합친다)
+ */
+@Slf4j
+@Service
+public class ChatMessageBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_messages (id, chat_room_id, sender_id, content, image_url, type, created_at, upload_status, thumbnail_url, preview_url) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // ChatRoomRepository.updateSummary와 같은 규칙 (last_message_id는 마지막에 갱신)
+    private static final String UPDATE_SUMMARY_SQL =
+            "UPDATE chat_rooms SET message_count = message_count + ?, " +
+            "last_message_preview = CASE WHEN last_message_id IS NULL OR last_message_id < ? THEN ? ELSE last_message_preview END, " +
+            "last_message_at = CASE WHEN last_message_id IS NULL OR last_message_id < ? THEN ? ELSE last_message_at END, " +
+            "last_message_id = CASE WHEN last_message_id IS NULL OR last_message_id < ? THEN ? ELSE last_message_id END " +
+            "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final long maxLingerMs;
+    private final QueueFullPolicy queueFullPolicy;
+    private final long offerTimeoutMs;
+    private final int maxRetries;
+    private final long retryIntervalMs;
+    private final long shutdownTimeoutMs;
+    private final Path deadLetterFile;
+
+    private BlockingQueue<ChatMessage> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    // 적재와 종료를 가른다: running 확인과 offer 사이에 종료가 끼어들어 큐에 남는 메시지가 없도록
+    private final ReentrantReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+
+    // max-retries 만큼 실패한 배치 (retry-interval-ms마다 다시 저장)
+    private final Deque<List<ChatMessage>> failedBatches = new ConcurrentLinkedDeque<>();
+    // 큐에 넣은 뒤 아직 커밋되지 않은 메시지 (id -> 메시지)
+    private final Map<Long, ChatMessage> unwritten = new ConcurrentHashMap<>();
+    // 작성 스레드와 stop()이 함께 읽고 쓴다
+    private volatile long nextRetryAt;
+    private boolean deadLettersLoaded;
+
+    private final LongAdder enqueuedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder deadLetteredCount = new LongAdder();
+
+    // 큐가 가득 찼을 때의 처리 정책
+    public enum QueueFullPolicy {
+        BLOCK,        // offer-timeout-ms 동안 대기 후 실패
+        CALLER_RUNS,  // 호출 스레드에서 즉시 동기 저장
+        REJECT        // 즉시 실패
+    }
+
+    // dead-letter-file 한 줄 (엔티티 대신 컬럼 값만)
+    record DeadLetter(Long id, Long chatRoomId, Long senderId, String content, String imageUrl, MessageType type,
+                      LocalDateTime createdAt, UploadStatus uploadStatus, String thumbnailUrl, String previewUrl) {
+
+        static DeadLetter of(ChatMessage message) {
+            return new DeadLetter(message.getId(), message.getChatRoom().getId(), message.getSender().getId(),
+                    message.getContent(), message.getImageUrl(), message.getType(), message.getCreatedAt(),
+                    message.getUploadStatus(), message.getThumbnailUrl(), message.getPreviewUrl());
+        }
+
+        ChatMessage toMessage() {
+            return ChatMessage.builder()
+                    .id(id)
+                    .chatRoom(ChatRoom.builder().id(chatRoomId).build())
+                    .sender(User.builder().id(senderId).build())
+                    .content(content)
+                    .imageUrl(imageUrl)
+                    .type(type)
+                    .createdAt(createdAt)
+                    .uploadStatus(uploadStatus)
+                    .thumbnailUrl(thumbnailUrl)
+                    .previewUrl(previewUrl)
+                    .build();
+        }
+    }
+
+    public ChatMessageBatchWriter(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${chat.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${chat.write-behind.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${chat.write-behind.max-batch-size:500}") int maxBatchSize,
+                                  @Value("${chat.write-behind.max-linger-ms:50}") long maxLingerMs,
+                                  @Value("${chat.write-behind.queue-full-policy:BLOCK}") QueueFullPolicy queueFullPolicy,
+                                  @Value("${chat.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs,
+                                  @Value("${chat.write-behind.max-retries:3}") int maxRetries,
+                                  @Value("${chat.write-behind.retry-interval-ms:5000}") long retryIntervalMs,
+                                  @Value("${chat.write-behind.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                                  @Value("${chat.write-behind.dead-letter-file:${java.io.tmpdir}/chat-write-behind-dead-letter.ndjson}") Path deadLetterFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerMs = maxLingerMs;
+        this.queueFullPolicy = queueFullPolicy;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.retryIntervalMs = retryIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.deadLetterFile = deadLetterFile;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        loadDeadLetters();
+        running = true;
+        writerThread = new Thread(this::drainLoop, "chat-write-behind");
+        writerThread.start();
+        log.info("채팅 메시지 write-behind 모드 활성화 (capacity={}, batch={}, linger={}ms, policy={})",
+                queueCapacity, maxBatchSize, maxLingerMs, queueFullPolicy);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 저장 대기열에 메시지 적재
+    public void enqueue(ChatMessage chatMessage) {
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                // 종료 중에는 유실되지 않도록 호출 스레드에서 바로 저장
+                writeBatch(List.of(chatMessage));
+                return;
+            }
+
+            // 큐에 넣기 전에 등록해야 작성 스레드가 꺼내 저장하는 사이에도 조회된다
+            unwritten.put(chatMessage.getId(), chatMessage);
+            if (queue.offer(chatMessage)) {
+                enqueuedCount.increment();
+                return;
+            }
+
+            switch (queueFullPolicy) {
+                case BLOCK -> {
+                    boolean offered;
+                    try {
+                        offered = queue.offer(chatMessage, offerTimeoutMs, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        offered = false;
+                    }
+                    if (!offered) {
+                        unwritten.remove(chatMessage.getId());
+                        throw new IllegalStateException("메시지 저장 대기열이 가득 찼습니다.");
+                    }
+                    enqueuedCount.increment();
+                }
+                case CALLER_RUNS -> {
+                    unwritten.remove(chatMessage.getId());
+                    writeBatch(List.of(chatMessage));
+                }
+                case REJECT -> {
+                    unwritten.remove(chatMessage.getId());
+                    throw new IllegalStateException("메시지 저장 대기열이 가득 찼습니다.");
+                }
+            }
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    // 대기열을 거치지 않고 호출 스레드에서 바로 배치 INSERT (일괄 전송용, 호출자의 트랜잭션이 있으면 함께 커밋된다)
+    public void write(List<ChatMessage> chatMessages) {
+        for (int from = 0; from < chatMessages.size(); from += maxBatchSize) {
+            writeBatch(chatMessages.subList(from, Math.min(from + maxBatchSize, chatMessages.size())));
+        }
+    }
+
+    // 채팅방의 아직 커밋되지 않은 메시지 (큐 / 저장 중 / 재시도 대기), ID 오름차순
+    // DB를 읽기 전에 호출해야 그 사이 커밋된 메시지가 양쪽에서 모두 빠지지 않는다
+    public List<ChatMessage> getPendingMessages(Long chatRoomId) {
+        return unwritten.values().stream()
+                .filter(message -> chatRoomId.equals(message.getChatRoom().getId()))
+                .sorted(Comparator.comparing(ChatMessage::getId))
+                .toList();
+    }
+
+    public int getQueueSize() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.sum();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    // 재시도 대기 중인 메시지 수
+    public int getRetryPendingCount() {
+        return failedBatches.stream().mapToInt(List::size).sum();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLetteredCount.sum();
+    }
+
+    @PreDestroy
+    void stop() {
+        // 쓰기 잠금을 잡는 동안 진행 중인 enqueue가 끝나고, 이후의 enqueue는 호출 스레드에서 바로 저장한다
+        lifecycleLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+
+        // 백그라운드 스레드가 남은 메시지를 모두 저장할 때까지 대기
+        try {
+            writerThread.join(shutdownTimeoutMs);
+            if (writerThread.isAlive()) {
+                writerThread.interrupt();
+                writerThread.join(shutdownTimeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 시간 내에 비우지 못한 메시지는 종료 스레드에서 마저 저장
+        List<ChatMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += maxBatchSize) {
+            flush(remaining.subList(from, Math.min(from + maxBatchSize, remaining.size())));
+        }
+        retryFailedBatches();
+        writeDeadLetters();
+        log.info("채팅 메시지 write-behind 종료 (written={}, failed={}, deadLettered={})",
+                getWrittenCount(), getFailedCount(), getDeadLetteredCount());
+    }
+
+    private void drainLoop() {
+        List<ChatMessage> batch = new ArrayList<>(maxBatchSize);
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!failedBatches.isEmpty() && System.nanoTime() - nextRetryAt >= 0) {
+                    retryFailedBatches();
+                }
+
+                ChatMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 첫 메시지 이후 max-linger-ms 동안 배치를 채운다
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    ChatMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    // 실패 시 max-retries 만큼 재시도, 그래도 실패하면 재시도 대기열로 옮긴다
+    private void flush(List<ChatMessage> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeSkippingDuplicates(batch);
+                return;
+            } catch (DataAccessException e) {
+                if (attempt >= maxRetries) {
+                    failedCount.add(batch.size());
+                    failedBatches.addLast(new ArrayList<>(batch));
+                    nextRetryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryIntervalMs);
+                    log.error("채팅 메시지 {}건 저장 실패 (시도 {}회), {}ms 후 다시 저장합니다.",
+                            batch.size(), attempt, retryIntervalMs, e);
+                    return;
+                }
+                log.warn("채팅 메시지 배치 저장 실패, 재시도합니다. (시도 {}회)", attempt, e);
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // 재시도 대기열을 앞에서부터 저장, 실패하면 그 배치부터 다음 주기에 다시 시도한다
+    private void retryFailedBatches() {
+        List<ChatMessage> batch;
+        while ((batch = failedBatches.pollFirst()) != null) {
+            try {
+                writeSkippingDuplicates(batch);
+            } catch (DataAccessException e) {
+                failedBatches.addFirst(batch);
+                nextRetryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryIntervalMs);
+                log.warn("재시도 대기 중인 채팅 메시지 저장 실패 (대기 {}건)", getRetryPendingCount(), e);
+                return;
+            }
+        }
+        if (deadLettersLoaded) {
+            deadLettersLoaded = false;
+            deleteDeadLetterFile();
+        }
+    }
+
+    // 이전 시도가 커밋된 뒤 실패로 보고됐을 수 있으므로, 중복 키 오류면 한 건씩 저장하고 이미 있는 메시지는 건너뛴다
+    private void writeSkippingDuplicates(List<ChatMessage> batch) {
+        try {
+            writeBatch(batch);
+        } catch (DuplicateKeyException e) {
+            for (ChatMessage message : batch) {
+                try {
+                    writeBatch(List.of(message));
+                } catch (DuplicateKeyException ignored) {
+                    unwritten.remove(message.getId());
+                    log.warn("이미 저장된 채팅 메시지를 건너뜁니다. (id={})", message.getId());
+                }
+            }
+        }
+    }
+
+    // 종료 시 저장하지 못한 메시지를 파일로 남긴다 (다음 기동 때 다시 저장)
+    private void writeDeadLetters() {
+        if (failedBatches.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(deadLetterFile.toAbsolutePath().getParent());
+            Path temp = deadLetterFile.resolveSibling(deadLetterFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                NdjsonWriter writer = new NdjsonWriter(objectMapper, out);
+                for (List<ChatMessage> batch : failedBatches) {
+                    for (ChatMessage message : batch) {
+                        writer.write(DeadLetter.of(message));
+                    }
+                }
+                writer.flush();
+            }
+            Files.move(temp, deadLetterFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deadLetteredCount.add(getRetryPendingCount());
+            log.error("저장하지 못한 채팅 메시지 {}건을 {}에 남겼습니다.", getRetryPendingCount(), deadLetterFile);
+        } catch (IOException e) {
+            log.error("저장하지 못한 채팅 메시지 {}건을 파일로 남기지 못했습니다.", getRetryPendingCount(), e);
+        }
+    }
+
+    // 이전 종료 때 남긴 메시지를 재시도 대기열에 올린다 (모두 저장되면 파일을 지운다)
+    private void loadDeadLetters() {
+        if (!Files.exists(deadLetterFile)) {
+            return;
+        }
+        List<ChatMessage> messages = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(deadLetterFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    messages.add(objectMapper.readValue(line, DeadLetter.class).toMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("이전에 저장하지 못한 채팅 메시지를 읽지 못했습니다. ({})", deadLetterFile, e);
+            return;
+        }
+        messages.forEach(message -> unwritten.put(message.getId(), message));
+        for (int from = 0; from < messages.size(); from += maxBatchSize) {
+            failedBatches.addLast(new ArrayList<>(messages.subList(from, Math.min(from + maxBatchSize, messages.size()))));
+        }
+        deadLettersLoaded = true;
+        nextRetryAt = System.nanoTime();
+        log.warn("이전에 저장하지 못한 채팅 메시지 {}건을 다시 저장합니다. ({})", messages.size(), deadLetterFile);
+    }
+
+    private void deleteDeadLetterFile() {
+        try {
+            Files.deleteIfExists(deadLetterFile);
+        } catch (IOException e) {
+            log.warn("dead-letter 파일을 지우지 못했습니다. ({})", deadLetterFile, e);
+        }
+    }
+
+    private void writeBatch(List<ChatMessage> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, message) -> {
+                ps.setLong(1, message.getId());
+                ps.setLong(2, message.getChatRoom().getId());
+                ps.setLong(3, message.getSender().getId());
+                ps.setString(4, message.getContent());
+                ps.setString(5, message.getImageUrl());
+                ps.setString(6, message.getType() != null ? message.getType().name() : null);
+                ps.setTimestamp(7, Timestamp.valueOf(message.getCreatedAt()));
+                ps.setString(8, message.getUploadStatus() != null ? message.getUploadStatus().name() : null);
+                ps.setString(9, message.getThumbnailUrl());
+                ps.setString(10, message.getPreviewUrl());
+            });
+            updateRoomSummaries(batch);
+        });
+        batch.forEach(message -> unwritten.remove(message.getId()));
+        writtenCount.add(batch.size());
+    }
+
+    // 채팅방마다 메시지 수와 가장 최신 메시지로 한 번씩만 갱신 (채팅방 ID 순서로 잠가 교착 방지)
+    private void updateRoomSummaries(List<ChatMessage> batch) {
+        Map<Long, List<ChatMessage>> messagesByRoom = batch.stream()
+                .collect(Collectors.groupingBy(message -> message.getChatRoom().getId(), TreeMap::new, Collectors.toList()));
+
+        List<Object[]> args = new ArrayList<>(messagesByRoom.size());
+        messagesByRoom.forEach((chatRoomId, messages) -> {
+            ChatMessage latest = messages.stream()
+                    .max(Comparator.comparing(ChatMessage::getId))
+                    .orElseThrow();
+            args.add(new Object[]{
+                    messages.size(),
+                    latest.getId(), ChatRoomSummary.preview(latest.getContent()),
+                    latest.getId(), Timestamp.valueOf(latest.getCreatedAt()),
+                    latest.getId(), latest.getId(),
+                    chatRoomId
+            });
+        });
+        jdbcTemplate.batchUpdate(UPDATE_SUMMARY_SQL, args);
+    }
+}
@@ -0,0 +1,72 @@
+package org.ktb.chatexample.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.entity.ChatRoomSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 요약 컬럼(message_count, last_message_*)이 생기기 전에 메시지가 쌓인 채팅방의 요약 채우기
+ * 요약이 한 번도 갱신되지 않은 채팅방(last_message_id IS NULL)만 batch-size개씩 채팅방 ID 순으로 다시 계산한다.
+ * 한 번 채워지면 last_message_id가 생기므로 다음 기동부터는 메시지 없는 채팅방만 훑고 끝난다.
+ * 요청을 받기 전(빈 초기화 시점)에 실행해 새 메시지의 증분 갱신과 겹치지 않게 한다.
+ */
+@Slf4j
+@Service
+public class ChatRoomSummaryBackfill {
+
+    private static final String SELECT_ROOMS_SQL =
+            "SELECT id FROM chat_rooms WHERE id > ? AND last_message_id IS NULL ORDER BY id LIMIT ?";
+
+    // 채팅방별 메시지 수와 마지막 메시지를 한 번에 채운다 (그 사이 증분 갱신된 채팅방은 건드리지 않음)
+    private static final String BACKFILL_SQL =
+            "UPDATE chat_rooms c " +
+            "JOIN (SELECT chat_room_id, COUNT(*) AS message_count, MAX(id) AS last_id " +
+            "      FROM chat_messages WHERE chat_room_id IN (%s) GROUP BY chat_room_id) s ON s.chat_room_id = c.id " +
+            "JOIN chat_messages m ON m.id = s.last_id " +
+            "SET c.message_count = s.message_count, " +
+            "c.last_message_preview = LEFT(m.content, " + ChatRoomSummary.PREVIEW_LENGTH + "), " +
+            "c.last_message_at = m.created_at, " +
+            "c.last_message_id = m.id " +
+            "WHERE c.last_message_id IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ChatRoomSummaryBackfill(JdbcTemplate jdbcTemplate,
+                                   @Value("${chat.room-summary.backfill.enabled:true}") boolean enabled,
+                                   @Value("${chat.room-summary.backfill.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void backfill() {
+        if (!enabled) {
+            return;
+        }
+        long lastRoomId = 0;
+        int updated = 0;
+        List<Long> roomIds;
+        do {
+            roomIds = jdbcTemplate.queryForList(SELECT_ROOMS_SQL, Long.class, lastRoomId, batchSize);
+            if (roomIds.isEmpty()) {
+                break;
+            }
+            String placeholders = String.join(",", Collections.nCopies(roomIds.size(), "?"));
+            updated += jdbcTemplate.update(BACKFILL_SQL.formatted(placeholders), roomIds.toArray());
+            lastRoomId = roomIds.get(roomIds.size() - 1);
+        } while (roomIds.size() == batchSize);
+
+        if (updated > 0) {
+            log.info("채팅방 {}개의 요약(메시지 수, 마지막 메시지)을 채웠습니다.", updated);
+        }
+    }
+}
@@ -1,28 +1,43 @@
 package org.ktb.chatexample.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.dto.ChatMessageBatchResponseDto;
+import org.ktb.chatexample.dto.ChatMessageBatchResultDto;
 import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.ChatMessageRequestDto;
 import org.ktb.chatexample.dto.ChatRoomCreateRequestDto;
 import org.ktb.chatexample.dto.ChatRoomDto;
 import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.UploadStatus;
 import org.ktb.chatexample.entity.ChatMessage;
 import org.ktb.chatexample.entity.ChatRoom;
+import org.ktb.chatexample.entity.ChatRoomSummary;
 import org.ktb.chatexample.entity.Post;
 import org.ktb.chatexample.entity.User;
 import org.ktb.chatexample.repository.ChatMessageRepository;
 import org.ktb.chatexample.repository.ChatRoomRepository;
 import org.ktb.chatexample.repository.PostRepository;
 import org.ktb.chatexample.repository.UserRepository;
+import org.ktb.chatexample.util.SnowflakeIdGenerator;
+import org.ktb.chatexample.util.TransactionUtils;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -31,12 +46,25 @@ import java.util.stream.Collectors;
 @Transactional
 public class ChatService {
     
+    private static final int MAX_MESSAGE_PAGE_SIZE = 200;
+    
     private final ChatRoomRepository chatRoomRepository;
     private final ChatMessageRepository chatMessageRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
-    private final S3Service s3Service;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomBroadcaster roomBroadcaster;
+    private final ChatMessageBatchWriter chatMessageBatchWriter;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final RecentMessageCache recentMessageCache;
+    private final LookupCache lookupCache;
+    private final RoomOwnership roomOwnership;
+    private final Validator validator;
+    private final UnreadCounters unreadCounters;
+    
+    // 입장 메시지가 이미 저장된 (채팅방, 사용자), 재접속마다 존재 여부를 조회하지 않기 위해
+    private final Cache<String, Boolean> joinedMembers = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
     
     // 채팅방 생성
     public ChatRoomDto createChatRoom(ChatRoomCreateRequestDto requestDto) {
@@ -68,17 +96,23 @@ public class ChatService {
         ChatRoom savedChatRoom = chatRoomRepository.save(chatRoom);
         
         // JOIN 메시지 전송
-        sendJoinMessage(savedChatRoom, requestUser);
+        ChatMessageDto joinMessage = sendJoinMessage(savedChatRoom, requestUser);
         
-        return convertToChatRoomDto(savedChatRoom);
+        // 요약은 UPDATE 쿼리로 갱신되므로 방금 만든 엔티티에는 반영되어 있지 않다
+        ChatRoomDto chatRoomDto = convertToChatRoomDto(savedChatRoom);
+        chatRoomDto.setLastMessage(ChatRoomSummary.preview(joinMessage.getContent()));
+        chatRoomDto.setLastMessageTime(joinMessage.getCreatedAt());
+        return chatRoomDto;
     }
     
     // 사용자 ID로 채팅방 목록 조회
     @Transactional(readOnly = true)
     public List<ChatRoomDto> getChatRoomsByUserId(Long userId) {
-        return chatRoomRepository.findChatRoomsByUserId(userId).stream()
-                .map(this::convertToChatRoomDto)
-                .collect(Collectors.toList());
+        // 아직 DB에 반영되지 않은 안 읽은 수 변화량을 더한다
+        List<ChatRoomDto> chatRooms = chatRoomRepository.findChatRoomDtosByUserId(userId);
+        chatRooms.forEach(chatRoom -> chatRoom.setUnreadCount(
+                unreadCounters.overlay(chatRoom.getId(), userId, chatRoom.getUnreadCount())));
+        return chatRooms;
     }
     
     // 채팅방 ID로 채팅방 조회
@@ -91,94 +125,315 @@ public class ChatService {
     }
     
     // 채팅 메시지 저장 및 전송
+    // 채팅방/사용자는 조회 캐시에서 가져오고 엔티티는 프록시 참조만 사용하므로 캐시 적중 시 조회 쿼리가 없다
     public ChatMessageDto sendMessage(ChatMessageDto messageDto) {
-        ChatRoom chatRoom = chatRoomRepository.findByRoomId(messageDto.getRoomId())
-                .orElseThrow(() -> new EntityNotFoundException("채팅방을 찾을 수 없습니다. RoomID: " + messageDto.getRoomId()));
-        
-        User sender = userRepository.findById(messageDto.getSenderId())
-                .orElseThrow(() -> new EntityNotFoundException("사용자를 찾을 수 없습니다. ID: " + messageDto.getSenderId()));
+        LookupCache.CachedRoom chatRoom = lookupCache.getRoom(messageDto.getRoomId());
+        LookupCache.CachedUser sender = lookupCache.getUser(messageDto.getSenderId());
         
         ChatMessage chatMessage = ChatMessage.builder()
-                .chatRoom(chatRoom)
-                .sender(sender)
+                .chatRoom(chatRoomRepository.getReferenceById(chatRoom.id()))
+                .sender(userRepository.getReferenceById(sender.id()))
                 .content(messageDto.getContent())
                 .imageUrl(messageDto.getImageUrl())
                 .type(messageDto.getType())
                 .build();
         
-        ChatMessage savedMessage = chatMessageRepository.save(chatMessage);
-        ChatMessageDto savedMessageDto = convertToChatMessageDto(savedMessage);
+        ChatMessageDto savedMessageDto = persistMessage(chatMessage, chatRoom.roomId(), sender.username());
         
         // WebSocket을 통해 메시지 전송
-        messagingTemplate.convertAndSend("/topic/chat/" + messageDto.getRoomId(), savedMessageDto);
+        roomBroadcaster.broadcast(savedMessageDto.getRoomId(), savedMessageDto);
         
         return savedMessageDto;
     }
     
-    // 이미지 메시지 전송
-    public ChatMessageDto sendImageMessage(String roomId, Long senderId, MultipartFile image) throws IOException {
-        String imageUrl = s3Service.uploadImage(image);
+    // 채팅방 입장: 처음 입장할 때만 JOIN 메시지를 저장/전송하고 이미 입장한 적이 있으면 null
+    // 재접속/새로고침마다 들어오는 입장은 PresenceService의 접속 상태로만 알린다
+    // 같은 채팅방의 요청은 RoomMessageRouter가 레인 잠금으로 하나씩 처리하므로 중복 저장되지 않는다
+    public ChatMessageDto joinRoom(ChatMessageDto messageDto) {
+        LookupCache.CachedRoom chatRoom = lookupCache.getRoom(messageDto.getRoomId());
+        String member = memberKey(chatRoom.id(), messageDto.getSenderId());
+        if (joinedMembers.getIfPresent(member) != null) {
+            return null;
+        }
+        if (chatMessageRepository.existsByChatRoom_IdAndSender_IdAndType(
+                chatRoom.id(), messageDto.getSenderId(), MessageType.JOIN)) {
+            joinedMembers.put(member, Boolean.TRUE);
+            return null;
+        }
         
-        ChatMessageDto imageMessage = ChatMessageDto.builder()
-                .roomId(roomId)
-                .senderId(senderId)
-                .content("이미지 메시지")
+        messageDto.setType(MessageType.JOIN);
+        ChatMessageDto joinMessage = sendMessage(messageDto);
+        TransactionUtils.runAfterCommit(() -> joinedMembers.put(member, Boolean.TRUE));
+        return joinMessage;
+    }
+    
+    // 여러 메시지 일괄 저장 및 전송 (봇/연동용)
+    // 채팅방/발신자는 IN 쿼리로 한 번에 조회하고, 저장은 JDBC 배치 INSERT 한 번으로 처리한다
+    // 검증 실패나 없는 채팅방/발신자는 해당 항목만 실패로 보고하고 나머지는 그대로 전송한다
+    public ChatMessageBatchResponseDto sendMessages(List<ChatMessageRequestDto> requests) {
+        ChatMessageBatchResultDto[] results = new ChatMessageBatchResultDto[requests.size()];
+        
+        Set<String> roomIds = new HashSet<>();
+        Set<Long> senderIds = new HashSet<>();
+        for (ChatMessageRequestDto request : requests) {
+            if (request != null && request.getRoomId() != null && request.getSenderId() != null) {
+                roomIds.add(request.getRoomId());
+                senderIds.add(request.getSenderId());
+            }
+        }
+        Map<String, LookupCache.CachedRoom> chatRooms = lookupCache.getRooms(roomIds);
+        Map<Long, LookupCache.CachedUser> senders = lookupCache.getUsers(senderIds);
+        
+        List<ChatMessage> chatMessages = new ArrayList<>(requests.size());
+        List<ChatMessageDto> savedMessages = new ArrayList<>(requests.size());
+        List<Integer> savedIndexes = new ArrayList<>(requests.size());
+        List<LookupCache.CachedRoom> savedRooms = new ArrayList<>(requests.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < requests.size(); i++) {
+            ChatMessageRequestDto request = requests.get(i);
+            String error = validateBatchItem(request, chatRooms, senders);
+            if (error != null) {
+                results[i] = ChatMessageBatchResultDto.builder().index(i).success(false).error(error).build();
+                continue;
+            }
+            LookupCache.CachedRoom chatRoom = chatRooms.get(request.getRoomId());
+            LookupCache.CachedUser sender = senders.get(request.getSenderId());
+            
+            ChatMessage chatMessage = ChatMessage.builder()
+                    .id(snowflakeIdGenerator.nextId())
+                    .chatRoom(chatRoomRepository.getReferenceById(chatRoom.id()))
+                    .sender(userRepository.getReferenceById(sender.id()))
+                    .content(request.getContent())
+                    .type(request.getType())
+                    .createdAt(now)
+                    .build();
+            chatMessages.add(chatMessage);
+            savedMessages.add(convertToChatMessageDto(chatMessage, chatRoom.roomId(), sender.username()));
+            savedIndexes.add(i);
+            savedRooms.add(chatRoom);
+        }
+        
+        chatMessageBatchWriter.write(chatMessages);
+        TransactionUtils.runAfterCommit(() -> {
+            savedMessages.forEach(recentMessageCache::append);
+            for (int i = 0; i < chatMessages.size(); i++) {
+                ChatMessage chatMessage = chatMessages.get(i);
+                if (isCountedAsUnread(chatMessage)) {
+                    unreadCounters.onMessage(savedRooms.get(i), chatMessage.getSender().getId(), chatMessage.getId());
+                }
+            }
+        });
+        
+        for (int i = 0; i < savedMessages.size(); i++) {
+            ChatMessageDto savedMessage = savedMessages.get(i);
+            roomBroadcaster.broadcast(savedMessage.getRoomId(), savedMessage);
+            results[savedIndexes.get(i)] = ChatMessageBatchResultDto.builder()
+                    .index(savedIndexes.get(i))
+                    .success(true)
+                    .message(savedMessage)
+                    .build();
+        }
+        
+        return ChatMessageBatchResponseDto.builder()
+                .successCount(savedMessages.size())
+                .failureCount(requests.size() - savedMessages.size())
+                .results(List.of(results))
+                .build();
+    }
+    
+    // 이미지 메시지 저장 및 전송 (업로드 중이면 imageUrl 없이 PENDING 상태)
+    public ChatMessageDto sendImageMessage(String roomId, Long senderId, String imageUrl, UploadStatus uploadStatus) {
+        LookupCache.CachedRoom chatRoom = lookupCache.getRoom(roomId);
+        LookupCache.CachedUser sender = lookupCache.getUser(senderId);
+        
+        ChatMessage chatMessage = ChatMessage.builder()
+                .chatRoom(chatRoomRepository.getReferenceById(chatRoom.id()))
+                .sender(userRepository.getReferenceById(sender.id()))
+                .content("[이미지]")
                 .imageUrl(imageUrl)
                 .type(MessageType.IMAGE)
+                .uploadStatus(uploadStatus)
                 .build();
         
-        return sendMessage(imageMessage);
+        ChatMessageDto savedMessageDto = persistMessage(chatMessage, chatRoom.roomId(), sender.username());
+        roomBroadcaster.broadcast(savedMessageDto.getRoomId(), savedMessageDto);
+        return savedMessageDto;
     }
     
-    // 채팅방의 메시지 목록 조회
-    @Transactional(readOnly = true)
-    public List<ChatMessageDto> getChatMessages(String roomId) {
+    // 이미지 업로드 결과 반영 후 같은 메시지 ID로 다시 전송 (클라이언트는 ID로 기존 메시지를 교체)
+    // write-behind 모드에서 메시지가 아직 저장되지 않았으면 false를 반환하며 아무것도 바꾸지 않는다
+    public boolean completeImageUpload(ChatMessageDto pendingMessage, String imageUrl, UploadStatus uploadStatus) {
+        if (chatMessageRepository.updateImageUpload(pendingMessage.getId(), imageUrl, uploadStatus) == 0) {
+            return false;
+        }
+        
+        ChatMessageDto updatedMessage = pendingMessage.toBuilder()
+                .imageUrl(imageUrl)
+                .uploadStatus(uploadStatus)
+                .build();
+        TransactionUtils.runAfterCommit(() -> recentMessageCache.replace(updatedMessage));
+        roomBroadcaster.broadcast(updatedMessage.getRoomId(), updatedMessage);
+        return true;
+    }
+    
+    // 이미지 축소본 URL 반영 후 같은 메시지 ID로 다시 전송 (메시지가 아직 저장되지 않았으면 false)
+    public boolean completeImageVariants(ChatMessageDto imageMessage, String thumbnailUrl, String previewUrl) {
+        if (chatMessageRepository.updateImageVariants(imageMessage.getId(), thumbnailUrl, previewUrl) == 0) {
+            return false;
+        }
+        
+        ChatMessageDto updatedMessage = imageMessage.toBuilder()
+                .thumbnailUrl(thumbnailUrl)
+                .previewUrl(previewUrl)
+                .build();
+        TransactionUtils.runAfterCommit(() -> recentMessageCache.replace(updatedMessage));
+        roomBroadcaster.broadcast(updatedMessage.getRoomId(), updatedMessage);
+        return true;
+    }
+    
+    // 채팅방의 메시지 목록 조회 (커서 기반 페이징, 항상 오래된 순으로 반환)
+    // after가 있으면 그 이후 메시지, before가 있으면 그 이전 메시지, 둘 다 없으면 최신 메시지
+    // 최근 메시지 버퍼로 답할 수 있으면 커넥션을 잡지 않도록 트랜잭션을 열지 않는다
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ChatMessageDto> getChatMessages(String roomId, Long before, Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_MESSAGE_PAGE_SIZE));
+        
+        // 최근 메시지 버퍼는 메시지가 저장되는 채팅방 소유 노드에만 둔다
+        if (!roomOwnership.isLocal(roomId)) {
+            return queryMessages(roomId, before, after, pageSize);
+        }
+        return recentMessageCache.find(roomId, before, after, pageSize, () -> loadRecentMessages(roomId))
+                .orElseGet(() -> queryMessages(roomId, before, after, pageSize));
+    }
+    
+    // 최근 메시지 버퍼 초기 적재용 조회
+    // write-behind 모드에서는 아직 저장되지 않은 메시지를 합친다 (버퍼가 생기기 전에 보내져 append되지 않았으므로)
+    // 대기 메시지를 DB보다 먼저 읽어야 그 사이 커밋된 메시지도 어느 한쪽에는 남는다
+    private List<ChatMessageDto> loadRecentMessages(String roomId) {
+        if (!chatMessageBatchWriter.isEnabled()) {
+            return queryMessages(roomId, null, null, recentMessageCache.getRoomCapacity());
+        }
+        LookupCache.CachedRoom chatRoom = lookupCache.getRoom(roomId);
+        List<ChatMessage> pending = chatMessageBatchWriter.getPendingMessages(chatRoom.id());
+        List<ChatMessageDto> stored = queryMessages(roomId, null, null, recentMessageCache.getRoomCapacity());
+        if (pending.isEmpty()) {
+            return stored;
+        }
+        
+        Map<Long, ChatMessageDto> merged = new TreeMap<>();
+        stored.forEach(message -> merged.put(message.getId(), message));
+        pending.forEach(message -> merged.putIfAbsent(message.getId(), convertToChatMessageDto(message, roomId,
+                lookupCache.getUser(message.getSender().getId()).username())));
+        // 버퍼 크기를 넘으면 버퍼가 오래된 쪽부터 밀어내고 완전하지 않은 것으로 표시한다
+        return new ArrayList<>(merged.values());
+    }
+    
+    private List<ChatMessageDto> queryMessages(String roomId, Long before, Long after, int pageSize) {
         ChatRoom chatRoom = chatRoomRepository.findByRoomId(roomId)
                 .orElseThrow(() -> new EntityNotFoundException("채팅방을 찾을 수 없습니다. RoomID: " + roomId));
         
-        return chatMessageRepository.findByChatRoomOrderByCreatedAtAsc(chatRoom).stream()
+        PageRequest page = PageRequest.of(0, pageSize);
+        
+        List<ChatMessage> messages;
+        if (after != null) {
+            messages = chatMessageRepository.findByChatRoomAndIdGreaterThanOrderByIdAsc(chatRoom, after, page);
+        } else {
+            messages = new ArrayList<>(before != null
+                    ? chatMessageRepository.findByChatRoomAndIdLessThanOrderByIdDesc(chatRoom, before, page)
+                    : chatMessageRepository.findByChatRoomOrderByIdDesc(chatRoom, page));
+            Collections.reverse(messages);
+        }
+        
+        return messages.stream()
                 .map(this::convertToChatMessageDto)
                 .collect(Collectors.toList());
     }
     
     // JOIN 메시지 전송 (내부 메서드)
-    private void sendJoinMessage(ChatRoom chatRoom, User user) {
-        ChatMessageDto joinMessage = ChatMessageDto.builder()
-                .roomId(chatRoom.getRoomId())
-                .senderId(user.getId())
-                .senderName(user.getUsername())
-                .content(user.getUsername() + "님이 채팅방에 입장했습니다.")
-                .type(MessageType.JOIN)
-                .createdAt(LocalDateTime.now())
-                .build();
-        
-        // JOIN 메시지 저장
+    private ChatMessageDto sendJoinMessage(ChatRoom chatRoom, User user) {
         ChatMessage chatMessage = ChatMessage.builder()
                 .chatRoom(chatRoom)
                 .sender(user)
-                .content(joinMessage.getContent())
+                .content(user.getUsername() + "님이 채팅방에 입장했습니다.")
                 .type(MessageType.JOIN)
                 .build();
         
-        chatMessageRepository.save(chatMessage);
+        ChatMessageDto joinMessage = persistMessage(chatMessage, chatRoom.getRoomId(), user.getUsername());
+        String member = memberKey(chatRoom.getId(), user.getId());
+        TransactionUtils.runAfterCommit(() -> joinedMembers.put(member, Boolean.TRUE));
         
         // WebSocket을 통해 메시지 전송
-        messagingTemplate.convertAndSend("/topic/chat/" + chatRoom.getRoomId(), joinMessage);
+        roomBroadcaster.broadcast(chatRoom.getRoomId(), joinMessage);
+        
+        return joinMessage;
     }
     
-    // ChatRoom 엔티티를 ChatRoomDto로 변환
-    private ChatRoomDto convertToChatRoomDto(ChatRoom chatRoom) {
-        // 마지막 메시지 정보 가져오기
-        List<ChatMessage> lastMessages = chatMessageRepository.findLatestMessageByChatRoom(
-                chatRoom, PageRequest.of(0, 1));
-        
-        String lastMessage = null;
-        LocalDateTime lastMessageTime = null;
+    // 메시지 저장 및 채팅방 요약 갱신 (write-behind 모드에서는 대기열에 적재하고 백그라운드에서 일괄 저장)
+    // 커밋되면 최근 메시지 버퍼에도 추가한다
+    // 채팅방/발신자는 프록시일 수 있으므로 DTO에 필요한 roomId와 발신자 이름은 따로 받는다
+    private ChatMessageDto persistMessage(ChatMessage chatMessage, String roomId, String senderName) {
+        ChatMessage savedMessage;
+        if (chatMessageBatchWriter.isEnabled()) {
+            chatMessage.setId(snowflakeIdGenerator.nextId());
+            chatMessage.setCreatedAt(LocalDateTime.now());
+            chatMessageBatchWriter.enqueue(chatMessage);
+            savedMessage = chatMessage;
+        } else {
+            savedMessage = chatMessageRepository.save(chatMessage);
+            chatRoomRepository.updateSummary(
+                    savedMessage.getChatRoom().getId(),
+                    savedMessage.getId(),
+                    ChatRoomSummary.preview(savedMessage.getContent()),
+                    savedMessage.getCreatedAt(),
+                    1);
+        }
         
-        if (!lastMessages.isEmpty()) {
-            lastMessage = lastMessages.get(0).getContent();
-            lastMessageTime = lastMessages.get(0).getCreatedAt();
+        ChatMessageDto savedMessageDto = convertToChatMessageDto(savedMessage, roomId, senderName);
+        TransactionUtils.runAfterCommit(() -> {
+            recentMessageCache.append(savedMessageDto);
+            if (isCountedAsUnread(savedMessage)) {
+                unreadCounters.onMessage(lookupCache.getRoom(roomId), savedMessage.getSender().getId(), savedMessage.getId());
+            }
+        });
+        return savedMessageDto;
+    }
+    
+    private static String memberKey(Long chatRoomId, Long userId) {
+        return chatRoomId + ":" + userId;
+    }
+    
+    // 상대방의 안 읽은 메시지 수에 포함되는 메시지인지 (입장/퇴장 메시지는 세지 않는다)
+    private static boolean isCountedAsUnread(ChatMessage chatMessage) {
+        return chatMessage.getType() != MessageType.JOIN && chatMessage.getType() != MessageType.LEAVE;
+    }
+    
+    // 일괄 전송 항목 검증 (실패 사유 반환, 정상이면 null)
+    private String validateBatchItem(ChatMessageRequestDto request,
+                                     Map<String, LookupCache.CachedRoom> chatRooms,
+                                     Map<Long, LookupCache.CachedUser> senders) {
+        if (request == null) {
+            return "메시지가 비어 있습니다.";
+        }
+        Set<ConstraintViolation<ChatMessageRequestDto>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" "));
         }
+        if (!chatRooms.containsKey(request.getRoomId())) {
+            return "채팅방을 찾을 수 없습니다. RoomID: " + request.getRoomId();
+        }
+        if (!senders.containsKey(request.getSenderId())) {
+            return "사용자를 찾을 수 없습니다. ID: " + request.getSenderId();
+        }
+        return null;
+    }
+    
+    // ChatRoom 엔티티를 ChatRoomDto로 변환
+    private ChatRoomDto convertToChatRoomDto(ChatRoom chatRoom) {
+        // 마지막 메시지 정보는 채팅방 요약에서 가져온다 (메시지 테이블 조회 없음)
+        ChatRoomSummary summary = chatRoom.getSummary();
         
         return ChatRoomDto.builder()
                 .id(chatRoom.getId())
@@ -190,22 +445,29 @@ public class ChatService {
                 .user2Id(chatRoom.getUser2().getId())
                 .user2Name(chatRoom.getUser2().getUsername())
                 .createdAt(chatRoom.getCreatedAt())
-                .lastMessage(lastMessage)
-                .lastMessageTime(lastMessageTime)
+                .lastMessage(summary.getLastMessagePreview())
+                .lastMessageTime(summary.getLastMessageAt())
                 .build();
     }
     
     // ChatMessage 엔티티를 ChatMessageDto로 변환
     private ChatMessageDto convertToChatMessageDto(ChatMessage chatMessage) {
+        return convertToChatMessageDto(chatMessage, chatMessage.getChatRoom().getRoomId(), chatMessage.getSender().getUsername());
+    }
+    
+    private ChatMessageDto convertToChatMessageDto(ChatMessage chatMessage, String roomId, String senderName) {
         return ChatMessageDto.builder()
                 .id(chatMessage.getId())
-                .roomId(chatMessage.getChatRoom().getRoomId())
+                .roomId(roomId)
                 .senderId(chatMessage.getSender().getId())
-                .senderName(chatMessage.getSender().getUsername())
+                .senderName(senderName)
                 .content(chatMessage.getContent())
                 .imageUrl(chatMessage.getImageUrl())
                 .type(chatMessage.getType())
                 .createdAt(chatMessage.getCreatedAt())
+                .uploadStatus(chatMessage.getUploadStatus())
+                .thumbnailUrl(chatMessage.getThumbnailUrl())
+                .previewUrl(chatMessage.getPreviewUrl())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package org.ktb.chatexample.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 업로드 내용 해시 -> URL 로컬 인덱스 (크기 제한 LRU, 파일에 유지)
+ * 변경은 로그 파일 끝에 한 줄씩 추가되고("+ hash url" / "- hash"), 시작 시 다시 읽은 뒤 현재 항목만 남도록 압축한다.
+ * 로그가 max-entries만큼 더 쌓이면 실행 중에도 압축한다.
+ * 인덱스는 힌트일 뿐이며 실제 존재 여부와 참조 수는 stored_objects 테이블이 기준이다.
+ * 기본 위치는 임시 디렉터리이므로 재시작 후에도 유지하려면 chat.upload.hash-index.file을 설정한다. (없어도 동작은 같다)
+ */
+@Slf4j
+@Component
+public class ContentHashIndex {
+
+    private final Path file;
+    private final int maxEntries;
+    private final LinkedHashMap<String, String> entries;
+
+    private BufferedWriter journal;
+    private int appendedSinceCompaction;
+
+    public ContentHashIndex(@Value("${chat.upload.hash-index.file:${java.io.tmpdir}/chat-upload-hash-index.log}") Path file,
+                            @Value("${chat.upload.hash-index.max-entries:100000}") int maxEntries) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > ContentHashIndex.this.maxEntries;
+            }
+        };
+        try {
+            load();
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("업로드 해시 인덱스를 열 수 없습니다: " + file, e);
+        }
+    }
+
+    public synchronized String get(String hash) {
+        return entries.get(hash);
+    }
+
+    public synchronized void put(String hash, String url) {
+        if (url.equals(entries.put(hash, url))) {
+            return;
+        }
+        append("+ " + hash + " " + url);
+    }
+
+    public synchronized void remove(String hash) {
+        if (entries.remove(hash) != null) {
+            append("- " + hash);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } catch (IOException e) {
+            log.warn("업로드 해시 인덱스 닫기 실패", e);
+        }
+    }
+
+    // 로그 기록 실패는 인덱스 동작에 영향을 주지 않는다 (다음 시작 시 일부 항목이 빠질 뿐)
+    private void append(String line) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(line);
+            journal.newLine();
+            journal.flush();
+            if (++appendedSinceCompaction > maxEntries) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.warn("업로드 해시 인덱스 기록 실패: {}", file, e);
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ", 3);
+                if (parts.length == 3 && parts[0].equals("+")) {
+                    entries.put(parts[1], parts[2]);
+                } else if (parts.length == 2 && parts[0].equals("-")) {
+                    entries.remove(parts[1]);
+                }
+            }
+        }
+    }
+
+    // 현재 항목만 임시 파일에 쓰고 교체 (오래된 항목부터 써서 다시 읽으면 LRU 순서가 유지된다)
+    private void compact() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writer.write("+ " + entry.getKey() + " " + entry.getValue());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        appendedSinceCompaction = 0;
+    }
+}
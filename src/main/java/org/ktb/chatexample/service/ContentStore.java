@@ -0,0 +1,244 @@
+package org.ktb.chatexample.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.entity.StoredObject;
+import org.ktb.chatexample.entity.StoredObjectReference;
+import org.ktb.chatexample.repository.StoredObjectReferenceRepository;
+import org.ktb.chatexample.repository.StoredObjectRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 내용 주소 방식 업로드 저장 (key = images/{SHA-256})
+ * - 로컬 인덱스에 있고 PUT이 끝난(stored) 행이면 참조 수만 늘리고 저장소에는 접근하지 않는다.
+ * - 없으면 stored_objects 행을 선점(INSERT ... ON DUPLICATE KEY)해 새 객체일 때만 PUT한다.
+ * - 참조는 업로드/메시지마다 참조 ID로 stored_object_refs에 남긴다. 해제는 참조 ID를 지울 수 있을 때만 참조 수를 줄이므로
+ *   같은 참조를 다시 해제해도(재시도된 DELETE 등) 다른 업로드가 쓰는 객체를 지우지 않는다.
+ * - 참조 해제는 행을 잠근 채 참조 수를 줄이고, 0이 되면 같은 잠금 안에서 객체와 축소본을 삭제한다.
+ *   (잠금이 풀리기 전에는 같은 내용의 선점/참조 증가가 대기하므로 삭제 중인 객체를 다시 참조하지 않는다)
+ * 같은 내용이 동시에 처음 업로드되면 나중 요청은 참조 수만 늘린 뒤 PUT 완료(stored)를 확인하고 URL을 받는다.
+ *   같은 노드의 PUT이면 끝날 때까지 기다리고, 그 PUT이 실패했거나 다른 노드에서 진행 중이면 같은 key로 직접 PUT한다.
+ *   (내용 주소 key라 같은 바이트를 다시 쓰는 것이므로 안전하다)
+ */
+@Slf4j
+@Service
+public class ContentStore {
+
+    private static final String KEY_PREFIX = "images/";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final StorageService storageService;
+    private final StoredObjectRepository storedObjectRepository;
+    private final StoredObjectReferenceRepository storedObjectReferenceRepository;
+    private final ContentHashIndex contentHashIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    // 이 노드에서 PUT 중인 내용 (hash -> URL)
+    private final Map<String, CompletableFuture<String>> uploading = new ConcurrentHashMap<>();
+
+    private final LongAdder storedCount = new LongAdder();
+    private final LongAdder deduplicatedCount = new LongAdder();
+
+    // referenceId: 이 참조를 해제할 때 넘기는 ID
+    public record StoredContent(String url, boolean deduplicated, String referenceId) {
+    }
+
+    public ContentStore(StorageService storageService,
+                        StoredObjectRepository storedObjectRepository,
+                        StoredObjectReferenceRepository storedObjectReferenceRepository,
+                        ContentHashIndex contentHashIndex,
+                        TransactionTemplate transactionTemplate) {
+        this.storageService = storageService;
+        this.storedObjectRepository = storedObjectRepository;
+        this.storedObjectReferenceRepository = storedObjectReferenceRepository;
+        this.contentHashIndex = contentHashIndex;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String keyOf(String hash) {
+        return KEY_PREFIX + hash;
+    }
+
+    // 이미지 메시지가 가진 참조의 ID
+    public static String messageReference(Long messageId) {
+        return "message:" + messageId;
+    }
+
+    // 해시가 이미 계산된 파일 저장 (새 참조 ID로 참조 수 1 증가)
+    public StoredContent store(Path file, String hash, long size, String contentType) throws IOException {
+        return store(file, hash, size, contentType, UUID.randomUUID().toString());
+    }
+
+    public StoredContent store(Path file, String hash, long size, String contentType, String referenceId) throws IOException {
+        StoredContent stored = acquire(file, hash, size, contentType);
+        try {
+            storedObjectReferenceRepository.save(StoredObjectReference.builder()
+                    .referenceId(referenceId)
+                    .hash(hash)
+                    .build());
+        } catch (RuntimeException e) {
+            abandon(hash);
+            throw e;
+        }
+        return new StoredContent(stored.url(), stored.deduplicated(), referenceId);
+    }
+
+    // 참조 수를 1 늘리고 저장이 확인된 URL을 반환 (참조 ID는 아직 없다)
+    private StoredContent acquire(Path file, String hash, long size, String contentType) throws IOException {
+        String url = contentHashIndex.get(hash);
+        if (url != null) {
+            if (storedObjectRepository.incrementRefCount(hash) == 1) {
+                deduplicatedCount.increment();
+                return new StoredContent(url, true, null);
+            }
+            contentHashIndex.remove(hash); // 다른 노드에서 삭제됨 (다시 선점되어 PUT 중일 수도 있다)
+        }
+
+        String key = keyOf(hash);
+        if (storedObjectRepository.claim(hash, key, size, contentType) != 1) {
+            url = awaitStored(hash, key);
+            if (url != null) {
+                contentHashIndex.put(hash, url);
+                deduplicatedCount.increment();
+                return new StoredContent(url, true, null);
+            }
+            // 먼저 선점한 PUT이 실패했거나 다른 노드에서 아직 진행 중: 늘려 둔 참조로 직접 올린다
+        }
+        return upload(file, hash, key, size, contentType);
+    }
+
+    // 참조 해제, 마지막 참조였으면 저장소에서 삭제하고 true 반환 (이미 해제된 참조면 아무 일도 하지 않는다)
+    // 내용 주소 방식 이전에 저장된 객체와 직접 업로드 객체(images/{uuid}.ext)는 참조 수 없이 축소본과 함께 바로 삭제한다
+    public boolean release(String url, String referenceId) {
+        String key = storageService.getKey(url);
+        if (key == null) {
+            return false;
+        }
+        String hash = key.startsWith(KEY_PREFIX) ? key.substring(KEY_PREFIX.length()) : null;
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            deleteWithVariants(key);
+            return true;
+        }
+        if (referenceId == null) {
+            throw new IllegalArgumentException("공유 저장된 파일은 참조 ID가 있어야 삭제할 수 있습니다.");
+        }
+
+        Boolean deleted = transactionTemplate.execute(status -> {
+            Optional<StoredObject> found = storedObjectRepository.findForUpdate(hash);
+            if (found.isEmpty()) {
+                return false;
+            }
+            if (storedObjectReferenceRepository.deleteByReferenceIdAndHash(referenceId, hash) == 0) {
+                return false; // 이미 해제된 참조
+            }
+            return decrement(found.get(), key);
+        });
+        return Boolean.TRUE.equals(deleted);
+    }
+
+    public long getStoredCount() {
+        return storedCount.sum();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicatedCount.sum();
+    }
+
+    boolean isUploading(String hash) {
+        return uploading.containsKey(hash);
+    }
+
+    // 이미 있는 행을 참조한 경우 저장이 확인된 URL (같은 노드의 PUT이면 끝날 때까지 기다린다), 없으면 null
+    private String awaitStored(String hash, String key) {
+        CompletableFuture<String> inFlight = uploading.get(hash);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                return null;
+            }
+        }
+        return storedObjectRepository.findStoredByHash(hash).orElse(false) ? storageService.getUrl(key) : null;
+    }
+
+    // 참조는 이미 잡혀 있다. 실패하면 그 참조를 되돌린다.
+    private StoredContent upload(Path file, String hash, String key, long size, String contentType) throws IOException {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        boolean registered = uploading.putIfAbsent(hash, result) == null;
+        try (InputStream content = Files.newInputStream(file)) {
+            String url = storageService.store(key, content, size, contentType);
+            storedObjectRepository.markStored(hash);
+            contentHashIndex.put(hash, url);
+            storedCount.increment();
+            result.complete(url);
+            return new StoredContent(url, false, null);
+        } catch (IOException | RuntimeException e) {
+            abandon(hash);
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (registered) {
+                uploading.remove(hash, result);
+            }
+        }
+    }
+
+    // 잠근 행의 참조 수를 줄이고, 마지막 참조였으면 행과 객체를 삭제한다
+    private boolean decrement(StoredObject storedObject, String key) {
+        if (storedObject.getRefCount() > 1) {
+            storedObject.setRefCount(storedObject.getRefCount() - 1);
+            return false;
+        }
+        storedObjectRepository.delete(storedObject);
+        contentHashIndex.remove(storedObject.getHash());
+        if (storedObject.isStored()) {
+            deleteWithVariants(key);
+        }
+        return true;
+    }
+
+    private void deleteWithVariants(String key) {
+        storageService.delete(key);
+        String variantBaseKey = ImageVariantService.variantBaseKey(key);
+        storageService.delete(variantBaseKey + ImageVariantService.THUMBNAIL_SUFFIX);
+        storageService.delete(variantBaseKey + ImageVariantService.PREVIEW_SUFFIX);
+    }
+
+    // PUT(또는 참조 기록)에 실패한 참조 취소
+    private void abandon(String hash) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> storedObjectRepository.findForUpdate(hash)
+                    .ifPresent(storedObject -> decrement(storedObject, keyOf(hash))));
+        } catch (RuntimeException e) {
+            log.error("업로드 선점 취소 실패 (hash={})", hash, e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.ktb.chatexample.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.ImageUploadResponseDto;
+import org.ktb.chatexample.dto.PresignedUploadRequestDto;
+import org.ktb.chatexample.dto.PresignedUploadResponseDto;
+import org.ktb.chatexample.dto.UploadStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * 서버를 거치지 않는 직접 업로드 (presigned PUT)
+ * 1. 업로드 요청: 저장소 key와 서명된 PUT URL을 발급하고 uploadId로 등록한다.
+ * 2. 클라이언트가 저장소에 직접 업로드한다.
+ * 3. 업로드 확인: 객체가 실제로 있고 크기 제한 이내인지 확인한 뒤 (채팅방 업로드면) 이미지 메시지를 만든다.
+ * 확인되지 않은 채 만료된 업로드는 저장소에서 삭제한다. 등록 정보는 노드 메모리에만 있으므로 확인 요청은 발급한 노드로 와야 한다.
+ */
+@Slf4j
+@Service
+public class DirectUploadService {
+
+    private final StorageService storageService;
+    private final ChatService chatService;
+    private final ImageVariantService imageVariantService;
+    private final Duration urlExpiry;
+    private final long maxSize;
+
+    private final Cache<String, PendingUpload> pendingUploads;
+
+    private record PendingUpload(String key, String roomId, Long senderId) {
+    }
+
+    public DirectUploadService(StorageService storageService,
+                               ChatService chatService,
+                               ImageVariantService imageVariantService,
+                               @Value("${chat.upload.presigned.url-expiry-seconds:300}") long urlExpirySeconds,
+                               @Value("${chat.upload.presigned.confirm-window-seconds:600}") long confirmWindowSeconds,
+                               @Value("${chat.upload.presigned.max-pending:100000}") long maxPending,
+                               @Value("${chat.upload.max-size:10MB}") DataSize maxSize) {
+        this.storageService = storageService;
+        this.chatService = chatService;
+        this.imageVariantService = imageVariantService;
+        this.urlExpiry = Duration.ofSeconds(urlExpirySeconds);
+        this.maxSize = maxSize.toBytes();
+        // URL 만료 직전에 시작된 업로드도 확인할 수 있도록 확인 가능 시간을 더 둔다
+        this.pendingUploads = Caffeine.newBuilder()
+                .maximumSize(maxPending)
+                .expireAfterWrite(urlExpiry.plusSeconds(confirmWindowSeconds))
+                .scheduler(Scheduler.systemScheduler())
+                .<String, PendingUpload>removalListener((uploadId, upload, cause) -> {
+                    if (upload != null && cause != RemovalCause.EXPLICIT) {
+                        discard(upload);
+                    }
+                })
+                .build();
+    }
+
+    public PresignedUploadResponseDto createUpload(PresignedUploadRequestDto request) {
+        if (request.getSize() > maxSize) {
+            throw new IllegalArgumentException("파일 크기 제한(" + maxSize + " bytes)을 넘었습니다.");
+        }
+        if (request.getRoomId() != null && request.getSenderId() == null) {
+            throw new IllegalArgumentException("채팅방 이미지 업로드에는 발신자 ID가 필요합니다.");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        String key = StorageService.newImageKey(request.getFileName());
+        StorageService.UploadTarget target = storageService.createUploadUrl(key, request.getContentType(), urlExpiry);
+        pendingUploads.put(uploadId, new PendingUpload(key, request.getRoomId(), request.getSenderId()));
+
+        return PresignedUploadResponseDto.builder()
+                .uploadId(uploadId)
+                .uploadUrl(target.url())
+                .method("PUT")
+                .headers(target.headers())
+                .imageUrl(storageService.getUrl(key))
+                .expiresAt(LocalDateTime.now().plus(urlExpiry))
+                .build();
+    }
+
+    // 업로드 확인 (한 번만 성공, 아직 업로드되지 않았으면 등록을 유지해 다시 확인할 수 있다)
+    public ImageUploadResponseDto confirm(String uploadId) {
+        PendingUpload upload = pendingUploads.getIfPresent(uploadId);
+        if (upload == null) {
+            throw new EntityNotFoundException("업로드 정보를 찾을 수 없습니다. (만료되었거나 이미 확인됨) uploadId: " + uploadId);
+        }
+
+        OptionalLong size = storageService.getSize(upload.key());
+        if (size.isEmpty()) {
+            throw new IllegalStateException("업로드된 파일이 없습니다. uploadId: " + uploadId);
+        }
+        if (!pendingUploads.asMap().remove(uploadId, upload)) {
+            throw new EntityNotFoundException("이미 확인된 업로드입니다. uploadId: " + uploadId);
+        }
+        if (size.getAsLong() > maxSize) {
+            storageService.delete(upload.key());
+            throw new IllegalArgumentException("파일 크기 제한(" + maxSize + " bytes)을 넘었습니다.");
+        }
+
+        String imageUrl = storageService.getUrl(upload.key());
+        ChatMessageDto chatMessage = upload.roomId() != null
+                ? chatService.sendImageMessage(upload.roomId(), upload.senderId(), imageUrl, UploadStatus.COMPLETED)
+                : null;
+        if (chatMessage != null) {
+            imageVariantService.submit(chatMessage);
+        }
+
+        return ImageUploadResponseDto.builder()
+                .imageUrl(imageUrl)
+                .message("파일이 성공적으로 업로드되었습니다.")
+                .chatMessage(chatMessage)
+                .build();
+    }
+
+    public long getPendingCount() {
+        return pendingUploads.estimatedSize();
+    }
+
+    // 확인되지 않고 만료된 업로드 (업로드되지 않았으면 삭제는 아무 일도 하지 않는다)
+    private void discard(PendingUpload upload) {
+        try {
+            storageService.delete(upload.key());
+        } catch (RuntimeException e) {
+            log.warn("만료된 업로드 정리 실패: {}", upload.key(), e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.ktb.chatexample.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.UploadStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 이미지 업로드를 요청 스레드 밖에서 처리하는 파이프라인
+ * 요청 스레드는 업로드된 파일을 임시 파일로 옮기기만 하고 (Tomcat이 디스크에 받아 둔 파일이면 이동만 한다),
+ * 저장소 전송은 크기가 제한된 업로드 스레드 풀에서 진행한다. 대기열이 가득 차면 즉시 거절한다.
+ * (실행 중 + 대기 작업 수는 pool-size + queue-capacity개의 자리로 센다)
+ * 이미지 메시지는 자리를 먼저 잡은 뒤 PENDING 상태로 전송되고, 업로드가 끝나면 같은 메시지 ID로 URL이 담긴 메시지가 다시 전송된다.
+ * 자리가 없으면 메시지를 만들지 않고 거절하므로 PENDING으로 남는 메시지가 생기지 않는다.
+ * 업로드가 끝난 이미지는 ImageVariantService에 넘겨 축소본을 만든다.
+ * 임시 파일로 옮기면서 SHA-256을 계산해 두고, 같은 내용이 이미 저장되어 있으면 ContentStore가 PUT을 생략한다.
+ */
+@Slf4j
+@Service
+public class ImageUploadPipeline {
+
+    private final ContentStore contentStore;
+    private final ChatService chatService;
+    private final ImageVariantService imageVariantService;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    // PENDING 메시지가 아직 저장되지 않았을 때 결과 반영을 다시 시도 (업로드 스레드를 재우지 않는다)
+    private final ScheduledExecutorService retryScheduler;
+    private final int completeRetries;
+    private final long completeRetryDelayMs;
+
+    public ImageUploadPipeline(ContentStore contentStore,
+                               ChatService chatService,
+                               ImageVariantService imageVariantService,
+                               @Value("${chat.upload.pool-size:4}") int poolSize,
+                               @Value("${chat.upload.queue-capacity:100}") int queueCapacity,
+                               @Value("${chat.upload.complete-retries:20}") int completeRetries,
+                               @Value("${chat.upload.complete-retry-delay-ms:100}") long completeRetryDelayMs) {
+        this.contentStore = contentStore;
+        this.chatService = chatService;
+        this.imageVariantService = imageVariantService;
+        this.completeRetries = completeRetries;
+        this.completeRetryDelayMs = completeRetryDelayMs;
+        this.slots = new Semaphore(poolSize + queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        // 대기열 크기는 slots가 제한한다 (작업이 끝나 자리를 돌려준 스레드가 다음 작업을 가져가기 전에도 거절되지 않도록)
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "image-upload-" + threadCount.incrementAndGet()));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-upload-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 이미지 메시지: PENDING 메시지를 바로 반환하고 업로드가 끝나면 결과를 채팅방에 다시 전송
+    public ChatMessageDto submitImageMessage(String roomId, Long senderId, MultipartFile image) throws IOException {
+        SpooledFile spooled = spool(image);
+        try {
+            reserveSlot();
+        } catch (RuntimeException e) {
+            deleteQuietly(spooled.path());
+            throw e;
+        }
+
+        ChatMessageDto pendingMessage;
+        try {
+            pendingMessage = chatService.sendImageMessage(roomId, senderId, null, UploadStatus.PENDING);
+        } catch (RuntimeException e) {
+            slots.release();
+            deleteQuietly(spooled.path());
+            throw e;
+        }
+        try {
+            dispatch(spooled, image.getContentType(), ContentStore.messageReference(pendingMessage.getId()))
+                    .whenComplete((stored, failure) ->
+                            complete(pendingMessage, stored != null ? stored.url() : null, failure, 0));
+        } catch (RuntimeException e) {
+            // 자리를 잡은 뒤 실패하는 경우는 종료 중뿐이다. 이미 전송된 PENDING 메시지는 FAILED로 마무리한다.
+            deleteQuietly(spooled.path());
+            complete(pendingMessage, null, e, 0);
+            throw e;
+        }
+        return pendingMessage;
+    }
+
+    // 일반 파일: 업로드가 끝나면 URL과 참조 ID로 완료되는 future (요청 스레드는 바로 반환된다)
+    public CompletableFuture<ContentStore.StoredContent> submitFile(MultipartFile file) throws IOException {
+        SpooledFile spooled = spool(file);
+        try {
+            reserveSlot();
+            return dispatch(spooled, file.getContentType(), UUID.randomUUID().toString());
+        } catch (RuntimeException e) {
+            deleteQuietly(spooled.path());
+            throw e;
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private void reserveSlot() {
+        if (!slots.tryAcquire()) {
+            throw new IllegalStateException("이미지 업로드 대기열이 가득 찼습니다.");
+        }
+    }
+
+    // reserveSlot()으로 자리를 잡은 뒤 호출한다. 자리와 임시 파일은 업로드가 끝나면 (성공/실패 모두) 돌려준다.
+    private CompletableFuture<ContentStore.StoredContent> dispatch(SpooledFile spooled, String contentType, String referenceId) {
+        CompletableFuture<ContentStore.StoredContent> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(contentStore.store(spooled.path(), spooled.hash(), spooled.size(), contentType, referenceId));
+                } catch (IOException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    deleteQuietly(spooled.path());
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            throw new IllegalStateException("이미지 업로드를 받을 수 없습니다. (종료 중)", e);
+        }
+        return result;
+    }
+
+    // write-behind 모드에서는 PENDING 메시지가 아직 저장되지 않았을 수 있어 잠시 후 다시 시도한다
+    private void complete(ChatMessageDto pendingMessage, String url, Throwable failure, int attempt) {
+        if (failure != null && attempt == 0) {
+            log.error("이미지 업로드 실패 (messageId={})", pendingMessage.getId(), failure);
+        }
+        UploadStatus status = failure == null ? UploadStatus.COMPLETED : UploadStatus.FAILED;
+        try {
+            if (chatService.completeImageUpload(pendingMessage, url, status)) {
+                if (failure == null) {
+                    imageVariantService.submit(pendingMessage.toBuilder().imageUrl(url).uploadStatus(status).build());
+                }
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.error("이미지 업로드 결과 반영 실패 (messageId={})", pendingMessage.getId(), e);
+            return;
+        }
+        if (attempt >= completeRetries) {
+            log.error("이미지 메시지를 찾을 수 없어 업로드 결과를 반영하지 못했습니다. (messageId={})", pendingMessage.getId());
+            return;
+        }
+        try {
+            retryScheduler.schedule(() -> complete(pendingMessage, url, failure, attempt + 1),
+                    completeRetryDelayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("종료 중이라 업로드 결과 반영을 다시 시도하지 않습니다. (messageId={})", pendingMessage.getId());
+        }
+    }
+
+    // 요청이 끝나면 컨테이너가 multipart 임시 파일을 지우므로 업로드 전용 임시 파일로 복사해 둔다
+    // 복사하는 김에 내용 해시를 계산한다 (파일을 다시 읽지 않도록)
+    private static SpooledFile spool(MultipartFile file) throws IOException {
+        Path spooled = Files.createTempFile("chat-upload-", ".tmp");
+        try {
+            MessageDigest digest = ContentStore.newDigest();
+            long size;
+            try (InputStream content = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(content, spooled, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new SpooledFile(spooled, ContentStore.toHex(digest), size);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(spooled);
+            throw e;
+        }
+    }
+
+    private record SpooledFile(Path path, String hash, long size) {
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("임시 파일 삭제 실패: {}", path, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        // 이미 예약된 재시도는 마저 돌린다
+        retryScheduler.shutdown();
+        try {
+            if (!retryScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                retryScheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            retryScheduler.shutdownNow();
+        }
+    }
+}
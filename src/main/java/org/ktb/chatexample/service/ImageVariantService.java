@@ -0,0 +1,272 @@
+package org.ktb.chatexample.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 이미지 메시지의 축소본(thumbnail/preview) 생성
+ * 업로드가 끝난 이미지를 저장소에서 읽어 긴 변 기준 고정 크기 JPEG로 다시 인코딩해 저장하고,
+ * URL을 메시지에 반영해 같은 메시지 ID로 다시 전송한다.
+ * 작업은 크기가 제한된 전용 스레드 풀에서만 실행되며, 대기열이 가득 차면 축소본 없이 건너뛴다. (전송 경로를 막지 않음)
+ * 큰 원본은 디코딩 단계에서 샘플링해 읽으므로 원본 해상도 전체를 메모리에 올리지 않는다.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    static final String THUMBNAIL_SUFFIX = "_thumb.jpg";
+    static final String PREVIEW_SUFFIX = "_preview.jpg";
+
+    private final StorageService storageService;
+    private final ChatService chatService;
+    private final ThreadPoolExecutor executor;
+    // 메시지 반영 재시도 (작업 스레드가 대기하며 대기열을 막지 않도록 따로 예약한다)
+    private final ScheduledExecutorService retryScheduler;
+    private final int thumbnailSize;
+    private final int previewSize;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final int completeRetries;
+    private final long completeRetryDelayMs;
+
+    private final LongAdder generatedCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+    private final LongAdder reusedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    public ImageVariantService(StorageService storageService,
+                               ChatService chatService,
+                               @Value("${chat.image-variants.pool-size:2}") int poolSize,
+                               @Value("${chat.image-variants.queue-capacity:200}") int queueCapacity,
+                               @Value("${chat.image-variants.thumbnail-size:240}") int thumbnailSize,
+                               @Value("${chat.image-variants.preview-size:1080}") int previewSize,
+                               @Value("${chat.image-variants.jpeg-quality:0.8}") float jpegQuality,
+                               @Value("${chat.image-variants.max-pixels:50000000}") long maxPixels,
+                               @Value("${chat.upload.complete-retries:20}") int completeRetries,
+                               @Value("${chat.upload.complete-retry-delay-ms:100}") long completeRetryDelayMs) {
+        this.storageService = storageService;
+        this.chatService = chatService;
+        this.thumbnailSize = thumbnailSize;
+        this.previewSize = previewSize;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        this.completeRetries = completeRetries;
+        this.completeRetryDelayMs = completeRetryDelayMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadCount.incrementAndGet());
+                    thread.setPriority(Thread.NORM_PRIORITY - 1); // 채팅 처리 스레드보다 낮게
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-variant-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 업로드가 끝난 이미지 메시지의 축소본 생성 예약 (호출 스레드에서는 대기열에 넣기만 한다)
+    public void submit(ChatMessageDto imageMessage) {
+        String key = storageService.getKey(imageMessage.getImageUrl());
+        if (key == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> generate(imageMessage, key));
+        } catch (RejectedExecutionException e) {
+            skippedCount.increment();
+            log.warn("축소본 생성 대기열이 가득 차 건너뜁니다. (messageId={})", imageMessage.getId());
+        }
+    }
+
+    public long getGeneratedCount() {
+        return generatedCount.sum();
+    }
+
+    public long getReusedCount() {
+        return reusedCount.sum();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    private void generate(ChatMessageDto imageMessage, String key) {
+        try {
+            // 같은 내용의 이미지(내용 주소 키)는 이미 만든 축소본을 그대로 쓴다
+            String baseKey = variantBaseKey(key);
+            if (storageService.getSize(baseKey + PREVIEW_SUFFIX).isPresent()
+                    && storageService.getSize(baseKey + THUMBNAIL_SUFFIX).isPresent()) {
+                complete(imageMessage, storageService.getUrl(baseKey + THUMBNAIL_SUFFIX),
+                        storageService.getUrl(baseKey + PREVIEW_SUFFIX), 0);
+                reusedCount.increment();
+                return;
+            }
+
+            BufferedImage source = read(key);
+            if (source == null) {
+                skippedCount.increment();
+                return;
+            }
+            BufferedImage preview = resize(source, previewSize);
+            BufferedImage thumbnail = resize(preview, thumbnailSize);
+
+            String previewUrl = store(baseKey + PREVIEW_SUFFIX, preview);
+            String thumbnailUrl = store(baseKey + THUMBNAIL_SUFFIX, thumbnail);
+
+            complete(imageMessage, thumbnailUrl, previewUrl, 0);
+            generatedCount.increment();
+        } catch (IOException | RuntimeException e) {
+            failedCount.increment();
+            log.error("축소본 생성 실패 (messageId={}, key={})", imageMessage.getId(), key, e);
+        }
+    }
+
+    // 크기를 먼저 확인해 너무 큰 이미지는 건너뛰고, 미리보기 크기의 2배 이상을 유지하는 선에서 샘플링해 디코딩
+    private BufferedImage read(String key) throws IOException {
+        byte[] bytes;
+        try (InputStream content = storageService.open(key)) {
+            bytes = content.readAllBytes();
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                log.debug("지원하지 않는 이미지 형식이라 축소본을 만들지 않습니다: {}", key);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("이미지가 너무 커서 축소본을 만들지 않습니다: {} ({}x{})", key, width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (previewSize * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 긴 변을 maxSize에 맞춰 축소 (이미 작으면 크기는 그대로 두고 JPEG 변환만 한다), 투명 영역은 흰색으로 채운다
+    static BufferedImage resize(BufferedImage source, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private String store(String key, BufferedImage image) throws IOException {
+        byte[] jpeg = encodeJpeg(image);
+        return storageService.store(key, new ByteArrayInputStream(jpeg), jpeg.length, "image/jpeg");
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT); // 미리보기는 점진적으로 표시되도록
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // images/{uuid}.png -> variants/{uuid}
+    static String variantBaseKey(String key) {
+        String name = key.startsWith("images/") ? key.substring("images/".length()) : key;
+        int dot = name.lastIndexOf('.');
+        return "variants/" + (dot > 0 ? name.substring(0, dot) : name);
+    }
+
+    // write-behind 모드에서는 메시지가 아직 저장되지 않았을 수 있어 잠시 후 다시 시도한다
+    private void complete(ChatMessageDto imageMessage, String thumbnailUrl, String previewUrl, int attempt) {
+        try {
+            if (chatService.completeImageVariants(imageMessage, thumbnailUrl, previewUrl)) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            failedCount.increment();
+            log.error("축소본 반영 실패 (messageId={})", imageMessage.getId(), e);
+            return;
+        }
+        if (attempt >= completeRetries) {
+            log.error("이미지 메시지를 찾을 수 없어 축소본을 반영하지 못했습니다. (messageId={})", imageMessage.getId());
+            return;
+        }
+        try {
+            retryScheduler.schedule(() -> complete(imageMessage, thumbnailUrl, previewUrl, attempt + 1),
+                    completeRetryDelayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("종료 중이라 축소본 반영을 다시 시도하지 않습니다. (messageId={})", imageMessage.getId());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        retryScheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,283 @@
+package org.ktb.chatexample.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.regex.Pattern;
+
+/**
+ * 로컬 디스크 저장소 (chat.storage.backend=local)
+ * key의 파일 이름으로 두 단계 샤드 디렉터리를 만들어 한 디렉터리에 파일이 몰리지 않게 한다.
+ * (예: images/abc.png -> {root}/images/3f/a2/abc.png)
+ * 저장은 같은 디렉터리의 임시 파일에 채널로 쓴 뒤 원자적으로 이름을 바꾸므로 읽는 쪽에서 쓰다 만 파일을 보지 않는다.
+ * Content-Type은 파일 확장 속성에 기록하고, 지원하지 않는 파일 시스템에서는 확장자로 추정한다.
+ * 파일은 LocalStorageController(/api/files/objects/{key})로 제공되며, 직접 업로드 URL은 같은 경로에 HMAC 서명을 붙여 만든다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "chat.storage.backend", havingValue = "local")
+public class LocalStorageService implements StorageService {
+
+    private static final String CONTENT_TYPE_ATTRIBUTE = "chat.content-type";
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9._-]+(/[A-Za-z0-9._-]+)*");
+
+    private final Path root;
+    private final String publicUrl;
+    private final boolean fsync;
+    private final byte[] signingKey;
+
+    public record StoredFile(Path path, long size, Instant lastModified, String contentType, String etag) {
+    }
+
+    public LocalStorageService(@Value("${chat.storage.local.root:data/storage}") Path root,
+                               @Value("${chat.storage.local.public-url:/api/files/objects/}") String publicUrl,
+                               @Value("${chat.storage.local.fsync:false}") boolean fsync,
+                               @Value("${chat.storage.local.signing-secret:}") String signingSecret) {
+        this.root = root.toAbsolutePath().normalize();
+        this.publicUrl = publicUrl.endsWith("/") ? publicUrl : publicUrl + "/";
+        this.fsync = fsync;
+        // 비워 두면 노드마다 임의로 만든다 (여러 노드가 같은 디스크를 쓰면 같은 값을 설정해야 한다)
+        if (StringUtils.hasText(signingSecret)) {
+            this.signingKey = signingSecret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            this.signingKey = new byte[32];
+            new SecureRandom().nextBytes(this.signingKey);
+        }
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("로컬 저장소 디렉터리를 만들 수 없습니다: " + this.root, e);
+        }
+    }
+
+    @Override
+    public String store(String key, InputStream content, long contentLength, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(content)) {
+                long written = 0;
+                while (written < contentLength) {
+                    long transferred = out.transferFrom(in, written, contentLength - written);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    written += transferred;
+                }
+                if (written != contentLength || in.read(ByteBuffer.allocate(1)) != -1) {
+                    throw new IOException("업로드 크기가 Content-Length와 다릅니다: " + key);
+                }
+                if (fsync) {
+                    out.force(true);
+                }
+            }
+            writeContentType(temp, contentType);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return getUrl(key);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(key);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return publicUrl + key;
+    }
+
+    @Override
+    public String getKey(String url) {
+        if (url == null || !url.startsWith(publicUrl)) {
+            return null;
+        }
+        String key = url.substring(publicUrl.length());
+        return isValidKey(key) ? key : null;
+    }
+
+    // 같은 경로로의 PUT에 만료 시각과 서명을 붙인다 (LocalStorageController가 verifyUpload로 확인)
+    @Override
+    public UploadTarget createUploadUrl(String key, String contentType, Duration expiry) {
+        long expires = Instant.now().plus(expiry).getEpochSecond();
+        String url = getUrl(key) + "?expires=" + expires
+                + "&signature=" + UriUtils.encodeQueryParam(sign(key, contentType, expires), StandardCharsets.UTF_8);
+        return new UploadTarget(url, Map.of("Content-Type", contentType));
+    }
+
+    @Override
+    public OptionalLong getSize(String key) {
+        try {
+            return OptionalLong.of(Files.size(resolve(key)));
+        } catch (NoSuchFileException e) {
+            return OptionalLong.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 다운로드 응답에 필요한 정보 (없거나 잘못된 key면 empty)
+    public Optional<StoredFile> find(String key) throws IOException {
+        if (!isValidKey(key)) {
+            return Optional.empty();
+        }
+        Path path = resolve(key);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        if (!attributes.isRegularFile()) {
+            return Optional.empty();
+        }
+        long size = attributes.size();
+        Instant lastModified = attributes.lastModifiedTime().toInstant();
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified.toEpochMilli()) + "\"";
+        return Optional.of(new StoredFile(path, size, lastModified, readContentType(path), etag));
+    }
+
+    // 파일의 [position, position + count) 구간을 FileChannel.transferTo로 전송
+    // (대상이 소켓 채널이면 커널에서 바로 복사되고, 그 밖의 채널은 JDK가 내부 버퍼로 복사한다)
+    public void transferTo(StoredFile file, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel in = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long transferred = in.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("파일이 전송 중에 줄어들었습니다: " + file.path());
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    public boolean verifyUpload(String key, String contentType, long expires, String signature) {
+        if (!isValidKey(key) || signature == null || Instant.now().getEpochSecond() > expires) {
+            return false;
+        }
+        byte[] expected = sign(key, contentType, expires).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static boolean isValidKey(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            return false;
+        }
+        for (String segment : key.split("/")) {
+            if (segment.equals(".") || segment.equals("..")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // {root}/{key의 디렉터리}/{샤드1}/{샤드2}/{파일 이름}
+    Path resolve(String key) {
+        if (!isValidKey(key)) {
+            throw new IllegalArgumentException("잘못된 저장소 key입니다: " + key);
+        }
+        int slash = key.lastIndexOf('/');
+        String directory = slash >= 0 ? key.substring(0, slash) : "";
+        String name = key.substring(slash + 1);
+        int hash = name.hashCode() * 0x9E3779B9; // String.hashCode는 명세로 고정되어 있어 재시작 후에도 같은 위치가 나온다
+        String shard = String.format("%02x/%02x", (hash >>> 24) & 0xff, (hash >>> 16) & 0xff);
+        return root.resolve(directory).resolve(shard).resolve(name);
+    }
+
+    private String sign(String key, String contentType, long expires) {
+        try {
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(new SecretKeySpec(signingKey, SIGNATURE_ALGORITHM));
+            byte[] signature = mac.doFinal(("PUT\n" + key + "\n" + contentType + "\n" + expires)
+                    .getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeContentType(Path path, String contentType) {
+        if (contentType == null) {
+            return;
+        }
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(path, UserDefinedFileAttributeView.class);
+        if (view == null) {
+            return;
+        }
+        try {
+            view.write(CONTENT_TYPE_ATTRIBUTE, StandardCharsets.UTF_8.encode(contentType));
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Content-Type 속성을 기록할 수 없습니다: {}", path, e);
+        }
+    }
+
+    private static String readContentType(Path path) {
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(path, UserDefinedFileAttributeView.class);
+        if (view != null) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(view.size(CONTENT_TYPE_ATTRIBUTE));
+                view.read(CONTENT_TYPE_ATTRIBUTE, buffer);
+                return StandardCharsets.UTF_8.decode(buffer.flip()).toString();
+            } catch (IOException | UnsupportedOperationException e) {
+                // 속성이 없으면 확장자로 추정
+            }
+        }
+        return MediaTypeFactory.getMediaType(path.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+    }
+}
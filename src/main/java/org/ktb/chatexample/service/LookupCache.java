@@ -0,0 +1,146 @@
+package org.ktb.chatexample.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityNotFoundException;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.dto.CacheStatsDto;
+import org.ktb.chatexample.entity.ChatRoom;
+import org.ktb.chatexample.entity.User;
+import org.ktb.chatexample.repository.ChatRoomRepository;
+import org.ktb.chatexample.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 메시지 전송 경로의 채팅방(roomId 기준) / 사용자(ID 기준) 조회 캐시
+ * 엔티티 대신 전송에 필요한 값만 담은 record를 캐시하므로 트랜잭션이나 지연 로딩과 무관하게 안전하다.
+ * 크기 상한과 TTL로 정리되며, 수정/삭제 시에는 각 서비스가 커밋 후 명시적으로 무효화한다.
+ * 캐시는 노드마다 따로 있으므로 무효화는 다른 노드에도 전달한다.
+ */
+@Service
+public class LookupCache {
+
+    private static final String CLUSTER_MESSAGE_TYPE = "lookup-evict";
+    private static final String ROOM_KEY_PREFIX = "room:";
+    private static final String USER_KEY_PREFIX = "user:";
+
+    private final ChatRoomRepository chatRoomRepository;
+    private final UserRepository userRepository;
+    private final ClusterTransport clusterTransport;
+
+    private final Cache<String, CachedRoom> rooms;
+    private final Cache<Long, CachedUser> users;
+
+    public record CachedRoom(Long id, String roomId, Long user1Id, Long user2Id) {
+    }
+
+    public record CachedUser(Long id, String username) {
+    }
+
+    public LookupCache(
+            ChatRoomRepository chatRoomRepository,
+            UserRepository userRepository,
+            ClusterTransport clusterTransport,
+            @Value("${chat.lookup-cache.max-rooms:10000}") long maxRooms,
+            @Value("${chat.lookup-cache.max-users:10000}") long maxUsers,
+            @Value("${chat.lookup-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.chatRoomRepository = chatRoomRepository;
+        this.userRepository = userRepository;
+        this.clusterTransport = clusterTransport;
+        this.rooms = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        clusterTransport.registerHandler(CLUSTER_MESSAGE_TYPE, message -> {
+            if (message.key().startsWith(ROOM_KEY_PREFIX)) {
+                invalidateRoom(message.key().substring(ROOM_KEY_PREFIX.length()));
+            } else if (message.key().startsWith(USER_KEY_PREFIX)) {
+                invalidateUser(Long.valueOf(message.key().substring(USER_KEY_PREFIX.length())));
+            }
+        });
+    }
+
+    // roomId로 채팅방 조회 (없으면 EntityNotFoundException, 실패는 캐시하지 않는다)
+    public CachedRoom getRoom(String roomId) {
+        return rooms.get(roomId, key -> {
+            ChatRoom chatRoom = chatRoomRepository.findByRoomId(key)
+                    .orElseThrow(() -> new EntityNotFoundException("채팅방을 찾을 수 없습니다. RoomID: " + key));
+            // 연관 프록시의 ID 조회는 초기화를 일으키지 않는다
+            return new CachedRoom(chatRoom.getId(), chatRoom.getRoomId(),
+                    chatRoom.getUser1().getId(), chatRoom.getUser2().getId());
+        });
+    }
+
+    // 사용자 ID로 사용자 조회 (없으면 EntityNotFoundException, 실패는 캐시하지 않는다)
+    public CachedUser getUser(Long userId) {
+        return users.get(userId, key -> {
+            User user = userRepository.findById(key)
+                    .orElseThrow(() -> new EntityNotFoundException("사용자를 찾을 수 없습니다. ID: " + key));
+            return new CachedUser(user.getId(), user.getUsername());
+        });
+    }
+
+    // 여러 채팅방을 한 번에 조회 (캐시에 없는 것만 IN 쿼리 한 번으로 읽고, 없는 roomId는 결과에서 빠진다)
+    public Map<String, CachedRoom> getRooms(Collection<String> roomIds) {
+        return rooms.getAll(roomIds, missing -> chatRoomRepository.findByRoomIdIn(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(ChatRoom::getRoomId, chatRoom -> new CachedRoom(chatRoom.getId(),
+                        chatRoom.getRoomId(), chatRoom.getUser1().getId(), chatRoom.getUser2().getId()))));
+    }
+
+    // 여러 사용자를 한 번에 조회 (없는 ID는 결과에서 빠진다)
+    public Map<Long, CachedUser> getUsers(Collection<Long> userIds) {
+        return users.getAll(userIds, missing -> userRepository.findAllById(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(User::getId, user -> new CachedUser(user.getId(), user.getUsername()))));
+    }
+
+    public void evictRoom(String roomId) {
+        invalidateRoom(roomId);
+        clusterTransport.publish(CLUSTER_MESSAGE_TYPE, ROOM_KEY_PREFIX + roomId, new byte[0]);
+    }
+
+    // 사용자와 그 사용자가 참여한 채팅방 정보를 함께 무효화
+    public void evictUser(Long userId) {
+        invalidateUser(userId);
+        clusterTransport.publish(CLUSTER_MESSAGE_TYPE, USER_KEY_PREFIX + userId, new byte[0]);
+    }
+
+    public List<CacheStatsDto> getStats() {
+        return List.of(
+                toStatsDto("rooms", rooms.estimatedSize(), rooms.stats()),
+                toStatsDto("users", users.estimatedSize(), users.stats()));
+    }
+
+    private void invalidateRoom(String roomId) {
+        rooms.invalidate(roomId);
+    }
+
+    private void invalidateUser(Long userId) {
+        users.invalidate(userId);
+        rooms.asMap().values().removeIf(room -> userId.equals(room.user1Id()) || userId.equals(room.user2Id()));
+    }
+
+    private CacheStatsDto toStatsDto(String name, long size, CacheStats stats) {
+        return CacheStatsDto.builder()
+                .name(name)
+                .size(size)
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
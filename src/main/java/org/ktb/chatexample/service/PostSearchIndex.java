@@ -0,0 +1,295 @@
+package org.ktb.chatexample.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.entity.Post;
+import org.ktb.chatexample.repository.PostRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 게시글 제목/내용 역색인 (문자 bigram 토큰화)
+ * 한국어는 띄어쓰기 단위가 검색어와 잘 맞지 않으므로 형태소 분석 대신 2글자 단위로 색인한다.
+ * 시작 시 별도 스레드에서 DB 전체를 다시 만들고, 이후 게시글 작성/수정/삭제 시 해당 게시글만 갱신한다.
+ * 재구성 중에 갱신된 게시글은 기록해 두고 재구성이 읽은 (더 오래된) 내용으로 덮어쓰지 않는다.
+ * 색인은 노드마다 따로 두므로 갱신된 게시글 ID를 다른 노드에 알리고, 받은 노드는 DB에서 다시 읽어 반영한다.
+ */
+@Slf4j
+@Service
+public class PostSearchIndex {
+
+    private static final String CLUSTER_MESSAGE_TYPE = "post-index";
+    private static final int TITLE_WEIGHT = 3;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final PostRepository postRepository;
+    private final ClusterTransport clusterTransport;
+
+    // 재구성과 다른 노드에서 온 갱신을 순서대로 처리 (클러스터 수신 스레드를 막지 않도록)
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "post-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // term -> (postId -> 가중 빈도)
+    private final Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+    // 글자 -> (postId -> 그 글자를 포함한 term의 가중 빈도 합), 한 글자 검색용
+    private final Map<String, Map<Long, Integer>> charPostings = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedPost> indexedPosts = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    // 재구성 중에 갱신/삭제된 게시글 (writeLock 안에서만 접근)
+    private boolean rebuilding;
+    private final Set<Long> updatedDuringRebuild = new HashSet<>();
+
+    private volatile boolean ready;
+
+    public record SearchResult(List<Long> postIds, long totalHits) {
+    }
+
+    private record IndexedPost(Set<String> terms, Set<String> chars, int length) {
+    }
+
+    public PostSearchIndex(PostRepository postRepository, ClusterTransport clusterTransport) {
+        this.postRepository = postRepository;
+        this.clusterTransport = clusterTransport;
+        clusterTransport.registerHandler(CLUSTER_MESSAGE_TYPE,
+                message -> worker.execute(() -> refresh(Long.valueOf(message.key()))));
+    }
+
+    // 시작 시 전체 게시글 색인을 백그라운드에서 시작 (완료 전까지 검색은 DB로 처리)
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild() {
+        worker.execute(this::rebuild);
+    }
+
+    @PreDestroy
+    void stop() {
+        worker.shutdownNow();
+    }
+
+    void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        long lastId = 0;
+        int count = 0;
+        synchronized (writeLock) {
+            rebuilding = true;
+            updatedDuringRebuild.clear();
+        }
+
+        try {
+            while (true) {
+                List<Post> posts = postRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                if (posts.isEmpty()) {
+                    break;
+                }
+                for (Post post : posts) {
+                    apply(post.getId(), post.getTitle(), post.getContent(), true);
+                }
+                lastId = posts.get(posts.size() - 1).getId();
+                count += posts.size();
+            }
+        } catch (RuntimeException e) {
+            log.error("게시글 검색 색인 재구성 실패, 검색은 계속 DB로 처리합니다.", e);
+            return;
+        } finally {
+            synchronized (writeLock) {
+                rebuilding = false;
+                updatedDuringRebuild.clear();
+            }
+        }
+
+        ready = true;
+        log.info("게시글 검색 색인 완료: {}건, {}개 term, {}ms",
+                count, postings.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 게시글 색인 (이미 있으면 교체), 커밋 후 호출한다
+    public void index(Long postId, String title, String content) {
+        apply(postId, title, content, false);
+        clusterTransport.publish(CLUSTER_MESSAGE_TYPE, String.valueOf(postId), new byte[0]);
+    }
+
+    public void remove(Long postId) {
+        applyRemove(postId);
+        clusterTransport.publish(CLUSTER_MESSAGE_TYPE, String.valueOf(postId), new byte[0]);
+    }
+
+    // 다른 노드에서 갱신된 게시글을 DB에서 다시 읽어 반영 (알림이 뒤바뀌어 와도 최신 내용으로 맞춰진다)
+    void refresh(Long postId) {
+        try {
+            postRepository.findById(postId).ifPresentOrElse(
+                    post -> apply(post.getId(), post.getTitle(), post.getContent(), false),
+                    () -> applyRemove(postId));
+        } catch (RuntimeException e) {
+            log.warn("다른 노드에서 갱신된 게시글을 색인하지 못했습니다. (postId={})", postId, e);
+        }
+    }
+
+    private void apply(Long postId, String title, String content, boolean fromRebuild) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(title).forEach(term -> frequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(content).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        Map<String, Integer> charFrequencies = new HashMap<>();
+        frequencies.forEach((term, frequency) -> term.chars().distinct()
+                .forEach(ch -> charFrequencies.merge(Character.toString(ch), frequency, Integer::sum)));
+
+        synchronized (writeLock) {
+            if (!markUpdated(postId, fromRebuild)) {
+                return;
+            }
+            removeFromPostings(postId);
+            addPostings(postings, postId, frequencies);
+            addPostings(charPostings, postId, charFrequencies);
+            indexedPosts.put(postId, new IndexedPost(frequencies.keySet(), charFrequencies.keySet(), length));
+        }
+    }
+
+    private void applyRemove(Long postId) {
+        synchronized (writeLock) {
+            markUpdated(postId, false);
+            removeFromPostings(postId);
+        }
+    }
+
+    // 재구성이 읽은 내용은 그 사이 갱신/삭제된 게시글에 쓰지 않는다 (writeLock 안에서 호출)
+    private boolean markUpdated(Long postId, boolean fromRebuild) {
+        if (fromRebuild) {
+            return !updatedDuringRebuild.contains(postId);
+        }
+        if (rebuilding) {
+            updatedDuringRebuild.add(postId);
+        }
+        return true;
+    }
+
+    // 검색어의 모든 term을 포함하는 게시글을 관련도 순으로 조회
+    public SearchResult search(String keyword, long offset, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(keyword));
+        if (queryTerms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        List<Map<Long, Integer>> termPostings = new ArrayList<>();
+        for (String term : queryTerms) {
+            Map<Long, Integer> posts = term.length() == 1 ? charPostings.get(term) : postings.get(term);
+            if (posts == null || posts.isEmpty()) {
+                return new SearchResult(List.of(), 0);
+            }
+            termPostings.add(posts);
+        }
+
+        // 가장 짧은 posting list를 기준으로 교집합을 구하며 TF-IDF 점수 계산
+        termPostings.sort(Comparator.comparingInt(Map::size));
+        int totalPosts = Math.max(1, indexedPosts.size());
+        Map<Long, Double> scores = new HashMap<>();
+
+        for (Long postId : termPostings.get(0).keySet()) {
+            double score = 0;
+            boolean matchesAll = true;
+            for (Map<Long, Integer> posts : termPostings) {
+                Integer frequency = posts.get(postId);
+                if (frequency == null) {
+                    matchesAll = false;
+                    break;
+                }
+                score += frequency * Math.log(1 + (double) totalPosts / posts.size());
+            }
+            if (matchesAll) {
+                IndexedPost indexedPost = indexedPosts.get(postId);
+                double lengthNorm = indexedPost != null ? Math.sqrt(Math.max(1, indexedPost.length())) : 1;
+                scores.put(postId, score / lengthNorm);
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int byScore = Double.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : Long.compare(b.getKey(), a.getKey()); // 동점이면 최신 글 먼저
+        });
+
+        List<Long> postIds = ranked.stream()
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+        return new SearchResult(postIds, ranked.size());
+    }
+
+    // 정규화(NFKC, 소문자) 후 글자/숫자 구간마다 bigram 생성, 한 글자 구간은 그대로 사용
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        int runStart = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letterOrDigit = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letterOrDigit && runStart < 0) {
+                runStart = i;
+            } else if (!letterOrDigit && runStart >= 0) {
+                if (i - runStart == 1) {
+                    tokens.add(normalized.substring(runStart, i));
+                } else {
+                    for (int j = runStart; j < i - 1; j++) {
+                        tokens.add(normalized.substring(j, j + 2));
+                    }
+                }
+                runStart = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addPostings(Map<String, Map<Long, Integer>> target, Long postId, Map<String, Integer> frequencies) {
+        frequencies.forEach((term, frequency) ->
+                target.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(postId, frequency));
+    }
+
+    private static void removePostings(Map<String, Map<Long, Integer>> target, Long postId, Set<String> terms) {
+        for (String term : terms) {
+            Map<Long, Integer> posts = target.get(term);
+            if (posts != null) {
+                posts.remove(postId);
+                if (posts.isEmpty()) {
+                    target.remove(term);
+                }
+            }
+        }
+    }
+
+    private void removeFromPostings(Long postId) {
+        IndexedPost indexedPost = indexedPosts.remove(postId);
+        if (indexedPost == null) {
+            return;
+        }
+        removePostings(postings, postId, indexedPost.terms());
+        removePostings(charPostings, postId, indexedPost.chars());
+    }
+}
@@ -1,6 +1,8 @@
 package org.ktb.chatexample.service;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.ktb.chatexample.dto.PostDto;
@@ -8,35 +10,69 @@ import org.ktb.chatexample.dto.PostResponseDto;
 import org.ktb.chatexample.entity.Post;
 import org.ktb.chatexample.repository.ChatRoomRepository;
 import org.ktb.chatexample.repository.PostRepository;
+import org.ktb.chatexample.util.NdjsonWriter;
+import org.ktb.chatexample.util.TransactionUtils;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class PostService {
     
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+    
     private final PostRepository postRepository;
     private final ChatRoomRepository chatRoomRepository;
+    private final PostSearchIndex postSearchIndex;
+    private final LookupCache lookupCache;
+    private final RecentMessageCache recentMessageCache;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
     
     // 모든 게시글 조회
     @Transactional(readOnly = true)
     public List<PostResponseDto> getAllPosts() {
-        return postRepository.findAll().stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+        return convertToResponseDtos(postRepository.findAll());
+    }
+    
+    // 모든 게시글 NDJSON 내보내기 (한 행씩 읽고 쓰며 영속성 컨텍스트에서 분리해 메모리 사용량을 일정하게 유지)
+    @Transactional(readOnly = true)
+    public void exportPosts(OutputStream outputStream) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+        try (Stream<Object[]> rows = postRepository.streamAllWithHasChat()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                Post post = (Post) row[0];
+                writer.write(convertToResponseDto(post, (Boolean) row[1]));
+                entityManager.detach(post);
+            }
+        }
+        writer.flush();
     }
     
     // 페이징된 게시글 목록 조회
     @Transactional(readOnly = true)
     public Page<PostResponseDto> getPaginatedPosts(Pageable pageable) {
-        return postRepository.findAll(pageable)
-                .map(this::convertToResponseDto);
+        Page<Post> posts = postRepository.findAll(pageable);
+        Set<Long> postIdsWithChat = findPostIdsWithChat(posts.getContent());
+        return posts.map(post -> convertToResponseDto(post, postIdsWithChat.contains(post.getId())));
     }
     
     // 게시글 ID로 조회
@@ -56,7 +92,8 @@ public class PostService {
                 .build();
         
         Post savedPost = postRepository.save(post);
-        return convertToResponseDto(savedPost);
+        indexAfterCommit(savedPost);
+        return convertToResponseDto(savedPost, false); // 새 게시글에는 채팅방이 없다
     }
     
     // 게시글 수정
@@ -68,6 +105,7 @@ public class PostService {
         post.setContent(postDto.getContent());
         
         Post updatedPost = postRepository.save(post);
+        indexAfterCommit(updatedPost);
         return convertToResponseDto(updatedPost);
     }
     
@@ -76,36 +114,85 @@ public class PostService {
         if (!postRepository.existsById(id)) {
             throw new EntityNotFoundException("게시글을 찾을 수 없습니다. ID: " + id);
         }
+        // 게시글과 함께 삭제되는 채팅방의 캐시도 정리한다
+        List<String> roomIds = chatRoomRepository.findRoomIdsByPostId(id);
         postRepository.deleteById(id);
+        TransactionUtils.runAfterCommit(() -> {
+            postSearchIndex.remove(id);
+            roomIds.forEach(roomId -> {
+                lookupCache.evictRoom(roomId);
+                recentMessageCache.evict(roomId);
+            });
+        });
     }
     
     // 작성자로 게시글 검색
     @Transactional(readOnly = true)
     public List<PostResponseDto> getPostsByAuthor(String author) {
-        return postRepository.findByAuthor(author).stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+        return convertToResponseDtos(postRepository.findByAuthor(author));
     }
     
     // 제목으로 게시글 검색
     @Transactional(readOnly = true)
     public List<PostResponseDto> getPostsByTitle(String title) {
-        return postRepository.findByTitleContaining(title).stream()
-                .map(this::convertToResponseDto)
-                .collect(Collectors.toList());
+        return convertToResponseDtos(postRepository.findByTitleContaining(title));
     }
     
-    // 제목 또는 내용으로 게시글 검색
+    // 키워드로 게시글 검색 (역색인 기반, 관련도 순 페이징)
     @Transactional(readOnly = true)
-    public List<PostResponseDto> getPostsByTitleOrContent(String keyword) {
-        return postRepository.findByTitleContainingOrContentContaining(keyword, keyword).stream()
-                .map(this::convertToResponseDto)
+    public Page<PostResponseDto> searchPosts(String keyword, Pageable pageable) {
+        if (!postSearchIndex.isReady()) {
+            Page<Post> posts = postRepository.findByTitleContainingOrContentContaining(keyword, keyword, pageable);
+            Set<Long> postIdsWithChat = findPostIdsWithChat(posts.getContent());
+            return posts.map(post -> convertToResponseDto(post, postIdsWithChat.contains(post.getId())));
+        }
+        
+        PostSearchIndex.SearchResult result = postSearchIndex.search(keyword, pageable.getOffset(), pageable.getPageSize());
+        Map<Long, Post> postsById = postRepository.findAllById(result.postIds()).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        
+        // 색인의 관련도 순서를 유지 (그 사이 삭제된 게시글은 제외)
+        List<Post> posts = result.postIds().stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        return new PageImpl<>(convertToResponseDtos(posts), pageable, result.totalHits());
+    }
+    
+    // 커밋된 뒤 검색 색인 갱신
+    private void indexAfterCommit(Post post) {
+        Long id = post.getId();
+        String title = post.getTitle();
+        String content = post.getContent();
+        TransactionUtils.runAfterCommit(() -> postSearchIndex.index(id, title, content));
+    }
+    
+    // Post 목록을 PostResponseDto로 변환 (hasChat은 IN 쿼리로 한 번에 계산)
+    private List<PostResponseDto> convertToResponseDtos(List<Post> posts) {
+        Set<Long> postIdsWithChat = findPostIdsWithChat(posts);
+        return posts.stream()
+                .map(post -> convertToResponseDto(post, postIdsWithChat.contains(post.getId())))
+                .collect(Collectors.toList());
+    }
+    
+    // 채팅방이 있는 게시글 ID 조회 (IN 절이 너무 길어지지 않도록 나눠서 조회)
+    private Set<Long> findPostIdsWithChat(List<Post> posts) {
+        Set<Long> postIdsWithChat = new HashSet<>();
+        for (int from = 0; from < posts.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> postIds = posts.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, posts.size())).stream()
+                    .map(Post::getId)
+                    .collect(Collectors.toList());
+            postIdsWithChat.addAll(chatRoomRepository.findPostIdsWithChatRoom(postIds));
+        }
+        return postIdsWithChat;
     }
     
     // Post 엔티티를 PostResponseDto로 변환
     private PostResponseDto convertToResponseDto(Post post) {
-        boolean hasChat = chatRoomRepository.existsByPost(post);
+        return convertToResponseDto(post, chatRoomRepository.existsByPost(post));
+    }
+    
+    private PostResponseDto convertToResponseDto(Post post, boolean hasChat) {
         return PostResponseDto.builder()
                 .id(post.getId())
                 .title(post.getTitle())
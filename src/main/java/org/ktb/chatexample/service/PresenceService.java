@@ -0,0 +1,555 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.dto.PresenceDiffDto;
+import org.ktb.chatexample.dto.PresenceDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅방 접속/입력 중 상태 (메모리에만 두고 DB에는 쓰지 않는다)
+ * - /app/chat.join으로 (세션, 채팅방, 사용자)를 등록하고 /app/chat.leave나 연결 종료(SessionDisconnectEvent)로 해제한다.
+ *   사용자는 채팅방에 세션이 하나라도 있으면 접속 중이므로 재접속/다중 탭은 상태를 바꾸지 않는다.
+ * - 채팅방 상태는 소유 노드(RoomOwnership) 한 곳에 모은다. 다른 노드의 세션 변경은 소유 노드로 보내므로
+ *   여러 노드에 탭이 열린 사용자도 마지막 세션이 닫혀야 나간 것으로 본다.
+ * - 소유 노드는 상태를 roomId 해시로 나눈 shard에 두고, tick-ms마다 직전 전송 이후 실제로 바뀐 사용자만 모아
+ *   채팅방당 한 건으로 /topic/chat/{roomId}/presence에 보내고 다른 노드에도 전달한다. (한 주기 안에 나갔다 들어오면 보내지 않음)
+ * - 다른 노드는 자기 세션이 들어가 있는 채팅방만 소유 노드에서 받은 상태와 변경분으로 복사본을 두고 조회에 쓴다.
+ * - 노드 목록이 바뀌면 각 노드는 자기 세션을 소유 노드에 다시 등록하고, 소유 노드는 빠진 노드의 세션을 정리한다.
+ *   (소유 노드가 바뀌는 동안에는 잠깐 상태가 어긋날 수 있다)
+ * - 입력 중 표시는 typing-ttl-ms 안에 다시 보내지 않으면 끝난 것으로 본다.
+ */
+@Slf4j
+@Service
+public class PresenceService {
+
+    public static final String PRESENCE_TOPIC_SUFFIX = "/presence";
+    static final String CLUSTER_MESSAGE_TYPE = "presence-diff";
+    static final String CLUSTER_EVENT_TYPE = "presence-event";
+    static final String CLUSTER_SNAPSHOT_TYPE = "presence-snapshot";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ClusterTransport clusterTransport;
+    private final RoomOwnership roomOwnership;
+    private final Shard[] shards;
+    private final long tickMs;
+    private final long typingTtlMs;
+    private ScheduledExecutorService ticker;
+
+    // sessionId -> 이 노드 세션이 들어가 있는 (채팅방, 사용자), 연결 종료 시 정리와 재등록용
+    // 집합을 잠근 채 바꾸고 소유 노드로 보내므로 같은 세션의 변경은 보낸 순서대로 도착한다
+    private final Map<String, Set<Member>> membersBySession = new ConcurrentHashMap<>();
+    // 채팅방별 이 노드의 참여 수 (0이 되면 복사본을 버린다)
+    private final Map<String, Integer> localMemberCounts = new ConcurrentHashMap<>();
+    // 소유하지 않은 채팅방의 상태 복사본
+    private final Map<String, RoomView> views = new ConcurrentHashMap<>();
+
+    record Member(String roomId, Long userId) {
+    }
+
+    // 어느 노드의 세션인지
+    record SessionRef(String nodeId, String sessionId) {
+    }
+
+    enum EventType {
+        JOIN, LEAVE, TYPING, STOP_TYPING
+    }
+
+    // 소유 노드에서 반영하는 변경 (STOP_TYPING은 메시지 전송으로 끄는 것이라 세션이 없다)
+    record PresenceEvent(EventType type, String roomId, Long userId, SessionRef session, boolean typing) {
+    }
+
+    // 채팅방 상태, 소속 shard 잠금 안에서만 접근한다
+    private static final class RoomPresence {
+        final Map<Long, Set<SessionRef>> sessionsByUser = new HashMap<>();
+        final Map<Long, Long> typingUntil = new HashMap<>();
+        // 마지막 전송 이후 바뀐 사용자의 전송 당시 상태
+        final Map<Long, Boolean> onlineBefore = new HashMap<>();
+        final Map<Long, Boolean> typingBefore = new HashMap<>();
+
+        boolean isIdle() {
+            return sessionsByUser.isEmpty() && typingUntil.isEmpty()
+                    && onlineBefore.isEmpty() && typingBefore.isEmpty();
+        }
+    }
+
+    private static final class Shard {
+        final Map<String, RoomPresence> rooms = new HashMap<>();
+        // 보낼 변경이 있거나 입력 중인 사용자가 있는 채팅방
+        final Set<String> dirtyRooms = new HashSet<>();
+    }
+
+    // 복사본, 자신을 잠그고 접근한다
+    private static final class RoomView {
+        final Set<Long> online = new TreeSet<>();
+        final Set<Long> typing = new TreeSet<>();
+    }
+
+    public PresenceService(SimpMessageSendingOperations messagingTemplate,
+                           ObjectMapper objectMapper,
+                           ClusterTransport clusterTransport,
+                           RoomOwnership roomOwnership,
+                           @Value("${chat.presence.shards:16}") int shardCount,
+                           @Value("${chat.presence.tick-ms:250}") long tickMs,
+                           @Value("${chat.presence.typing-ttl-ms:5000}") long typingTtlMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.clusterTransport = clusterTransport;
+        this.roomOwnership = roomOwnership;
+        this.tickMs = tickMs;
+        this.typingTtlMs = typingTtlMs;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        clusterTransport.registerHandler(CLUSTER_MESSAGE_TYPE, this::receiveDiff);
+        clusterTransport.registerHandler(CLUSTER_EVENT_TYPE, this::receiveEvent);
+        clusterTransport.registerHandler(CLUSTER_SNAPSHOT_TYPE, this::receiveSnapshot);
+        // RoomOwnership이 먼저 등록되어 있으므로 소유 노드가 다시 계산된 뒤에 호출된다
+        clusterTransport.addMembershipListener(this::onMembershipChanged);
+    }
+
+    @PostConstruct
+    void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presence-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> publishDiffs(System.currentTimeMillis()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    // 세션이 채팅방에 들어옴
+    public void join(String sessionId, String roomId, Long userId) {
+        if (sessionId == null || roomId == null || userId == null) {
+            return;
+        }
+        Member member = new Member(roomId, userId);
+        while (true) {
+            Set<Member> members = membersBySession.computeIfAbsent(sessionId, k -> new HashSet<>());
+            synchronized (members) {
+                if (membersBySession.get(sessionId) != members) {
+                    continue; // 그 사이 연결이 종료되어 정리됨
+                }
+                if (members.add(member)) {
+                    localMemberCounts.merge(roomId, 1, Integer::sum);
+                }
+                route(new PresenceEvent(EventType.JOIN, roomId, userId, localSession(sessionId), false));
+                return;
+            }
+        }
+    }
+
+    // 세션이 채팅방에서 나감
+    public void leave(String sessionId, String roomId, Long userId) {
+        if (sessionId == null || roomId == null) {
+            return;
+        }
+        Set<Member> members = membersBySession.get(sessionId);
+        if (members == null) {
+            return;
+        }
+        synchronized (members) {
+            leave(sessionId, members, new Member(roomId, userId));
+        }
+    }
+
+    // 입력 중 표시 (이 세션으로 채팅방에 들어와 있지 않으면 무시)
+    public void typing(String sessionId, String roomId, Long userId, boolean typing) {
+        if (sessionId == null || roomId == null) {
+            return;
+        }
+        route(new PresenceEvent(EventType.TYPING, roomId, userId, localSession(sessionId), typing));
+    }
+
+    // 메시지를 보내면 입력 중 표시를 끈다
+    public void stopTyping(String roomId, Long userId) {
+        if (roomId == null) {
+            return;
+        }
+        route(new PresenceEvent(EventType.STOP_TYPING, roomId, userId, null, false));
+    }
+
+    // 채팅방에 접속 중/입력 중인 사용자 (소유 노드가 아니면 복사본, 아직 받지 못했으면 빈 상태)
+    public PresenceDto getPresence(String roomId) {
+        if (!roomOwnership.isLocal(roomId)) {
+            RoomView view = views.get(roomId);
+            if (view == null) {
+                return PresenceDto.builder().roomId(roomId).online(List.of()).typing(List.of()).build();
+            }
+            synchronized (view) {
+                return PresenceDto.builder()
+                        .roomId(roomId)
+                        .online(new ArrayList<>(view.online))
+                        .typing(new ArrayList<>(view.typing))
+                        .build();
+            }
+        }
+        Shard shard = shardOf(roomId);
+        synchronized (shard) {
+            return snapshot(roomId, shard.rooms.get(roomId));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Set<Member> members = membersBySession.remove(event.getSessionId());
+        if (members == null) {
+            return;
+        }
+        synchronized (members) {
+            for (Member member : new ArrayList<>(members)) {
+                leave(event.getSessionId(), members, member);
+            }
+        }
+    }
+
+    // 직전 전송 이후 바뀐 채팅방마다 변경분 한 건씩 전송
+    void publishDiffs(long now) {
+        List<PresenceDiffDto> diffs = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<String> dirty = shard.dirtyRooms.iterator();
+                while (dirty.hasNext()) {
+                    String roomId = dirty.next();
+                    RoomPresence room = shard.rooms.get(roomId);
+                    if (room == null) {
+                        dirty.remove();
+                        continue;
+                    }
+                    PresenceDiffDto diff = diff(roomId, room, now);
+                    if (diff != null) {
+                        diffs.add(diff);
+                    }
+                    if (room.typingUntil.isEmpty()) {
+                        dirty.remove(); // 입력 중인 사용자가 있으면 만료 확인을 위해 남겨 둔다
+                    }
+                    if (room.isIdle()) {
+                        shard.rooms.remove(roomId);
+                    }
+                }
+            }
+        }
+
+        if (diffs.isEmpty()) {
+            return;
+        }
+        boolean clustered = !clusterTransport.getPeerNodeIds().isEmpty();
+        for (PresenceDiffDto diff : diffs) {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(diff);
+                deliver(diff.getRoomId(), json);
+                if (clustered) {
+                    clusterTransport.publish(CLUSTER_MESSAGE_TYPE, diff.getRoomId(), json);
+                }
+            } catch (Exception e) {
+                // 다음 주기가 취소되지 않도록 한다
+                log.warn("접속 상태 전송 실패 (roomId={})", diff.getRoomId(), e);
+            }
+        }
+    }
+
+    // members 잠금 안에서 호출
+    private void leave(String sessionId, Set<Member> members, Member member) {
+        if (!members.remove(member)) {
+            return;
+        }
+        localMemberCounts.computeIfPresent(member.roomId(), (roomId, count) -> count > 1 ? count - 1 : null);
+        if (!localMemberCounts.containsKey(member.roomId())) {
+            views.remove(member.roomId());
+        }
+        route(new PresenceEvent(EventType.LEAVE, member.roomId(), member.userId(), localSession(sessionId), false));
+    }
+
+    private SessionRef localSession(String sessionId) {
+        return new SessionRef(clusterTransport.getLocalNodeId(), sessionId);
+    }
+
+    // 소유 노드에서 반영 (보내지 못하면 이 노드에서 반영한다)
+    private void route(PresenceEvent event) {
+        if (roomOwnership.isLocal(event.roomId()) || !relay(event)) {
+            apply(event);
+        }
+    }
+
+    private boolean relay(PresenceEvent event) {
+        String owner = roomOwnership.ownerOf(event.roomId());
+        try {
+            clusterTransport.send(owner, CLUSTER_EVENT_TYPE, event.roomId(), objectMapper.writeValueAsBytes(event));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("접속 상태 변경을 소유 노드로 보내지 못해 직접 반영합니다. (roomId={}, owner={})", event.roomId(), owner, e);
+            return false;
+        }
+    }
+
+    private void apply(PresenceEvent event) {
+        String roomId = event.roomId();
+        Long userId = event.userId();
+        Shard shard = shardOf(roomId);
+        synchronized (shard) {
+            RoomPresence room = shard.rooms.get(roomId);
+            switch (event.type()) {
+                case JOIN -> {
+                    if (room == null) {
+                        room = new RoomPresence();
+                        shard.rooms.put(roomId, room);
+                    }
+                    Set<SessionRef> sessions = room.sessionsByUser.get(userId);
+                    if (sessions == null) {
+                        sessions = new HashSet<>();
+                        room.sessionsByUser.put(userId, sessions);
+                        room.onlineBefore.putIfAbsent(userId, false);
+                        shard.dirtyRooms.add(roomId);
+                    }
+                    sessions.add(event.session());
+                }
+                case LEAVE -> {
+                    Set<SessionRef> sessions = room != null ? room.sessionsByUser.get(userId) : null;
+                    if (sessions != null && sessions.remove(event.session()) && sessions.isEmpty()) {
+                        goOffline(shard, roomId, room, userId);
+                    }
+                }
+                case TYPING -> {
+                    Set<SessionRef> sessions = room != null ? room.sessionsByUser.get(userId) : null;
+                    if (sessions == null || !sessions.contains(event.session())) {
+                        return;
+                    }
+                    if (!event.typing()) {
+                        stopTyping(room, userId);
+                    } else if (room.typingUntil.put(userId, System.currentTimeMillis() + typingTtlMs) == null) {
+                        room.typingBefore.putIfAbsent(userId, false);
+                    }
+                    shard.dirtyRooms.add(roomId);
+                }
+                case STOP_TYPING -> {
+                    if (room != null && stopTyping(room, userId)) {
+                        shard.dirtyRooms.add(roomId);
+                    }
+                }
+            }
+        }
+    }
+
+    // shard 잠금 안에서 호출
+    private static void goOffline(Shard shard, String roomId, RoomPresence room, Long userId) {
+        room.sessionsByUser.remove(userId);
+        room.onlineBefore.putIfAbsent(userId, true);
+        stopTyping(room, userId);
+        shard.dirtyRooms.add(roomId);
+    }
+
+    // 다른 노드에서 보낸 변경, 새로 들어온 세션의 노드에는 복사본을 만들 현재 상태를 보낸다
+    private void receiveEvent(ClusterMessage message) {
+        PresenceEvent event;
+        try {
+            event = objectMapper.readValue(message.payload(), PresenceEvent.class);
+        } catch (IOException e) {
+            log.warn("다른 노드에서 받은 접속 상태 변경을 읽지 못했습니다. (roomId={})", message.key(), e);
+            return;
+        }
+        apply(event);
+        if (event.type() == EventType.JOIN) {
+            sendSnapshot(message.sourceNodeId(), event.roomId());
+        }
+    }
+
+    private void sendSnapshot(String nodeId, String roomId) {
+        PresenceDto snapshot;
+        Shard shard = shardOf(roomId);
+        synchronized (shard) {
+            snapshot = snapshot(roomId, shard.rooms.get(roomId));
+        }
+        try {
+            clusterTransport.send(nodeId, CLUSTER_SNAPSHOT_TYPE, roomId, objectMapper.writeValueAsBytes(snapshot));
+        } catch (IOException | RuntimeException e) {
+            log.warn("접속 상태를 다른 노드로 보내지 못했습니다. (roomId={}, node={})", roomId, nodeId, e);
+        }
+    }
+
+    // 소유 노드의 현재 상태로 복사본을 새로 만든다 (이 노드에 세션이 남아 있는 채팅방만)
+    private void receiveSnapshot(ClusterMessage message) {
+        PresenceDto snapshot;
+        try {
+            snapshot = objectMapper.readValue(message.payload(), PresenceDto.class);
+        } catch (IOException e) {
+            log.warn("다른 노드에서 받은 접속 상태를 읽지 못했습니다. (roomId={})", message.key(), e);
+            return;
+        }
+        if (!localMemberCounts.containsKey(snapshot.getRoomId())) {
+            return;
+        }
+        RoomView view = new RoomView();
+        view.online.addAll(snapshot.getOnline());
+        view.typing.addAll(snapshot.getTyping());
+        views.put(snapshot.getRoomId(), view);
+    }
+
+    // 소유 노드가 보낸 변경분: 이 노드 구독자에게 전달하고 복사본에 반영한다
+    private void receiveDiff(ClusterMessage message) {
+        deliver(message.key(), message.payload());
+        RoomView view = views.get(message.key());
+        if (view == null) {
+            return;
+        }
+        try {
+            PresenceDiffDto diff = objectMapper.readValue(message.payload(), PresenceDiffDto.class);
+            synchronized (view) {
+                view.online.addAll(diff.getJoined());
+                view.online.removeAll(diff.getLeft());
+                view.typing.addAll(diff.getTyping());
+                view.typing.removeAll(diff.getStoppedTyping());
+            }
+        } catch (IOException e) {
+            log.warn("다른 노드에서 받은 접속 상태 변경분을 읽지 못했습니다. (roomId={})", message.key(), e);
+        }
+    }
+
+    // 더 이상 소유하지 않는 채팅방과 빠진 노드의 세션을 정리하고, 이 노드의 세션을 (새) 소유 노드에 다시 등록한다
+    private void onMembershipChanged() {
+        Set<String> nodes = new HashSet<>(clusterTransport.getPeerNodeIds());
+        nodes.add(clusterTransport.getLocalNodeId());
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<Map.Entry<String, RoomPresence>> rooms = shard.rooms.entrySet().iterator();
+                while (rooms.hasNext()) {
+                    Map.Entry<String, RoomPresence> entry = rooms.next();
+                    String roomId = entry.getKey();
+                    RoomPresence room = entry.getValue();
+                    if (!roomOwnership.isLocal(roomId)) {
+                        rooms.remove();
+                        shard.dirtyRooms.remove(roomId);
+                        continue;
+                    }
+                    for (Long userId : new ArrayList<>(room.sessionsByUser.keySet())) {
+                        Set<SessionRef> sessions = room.sessionsByUser.get(userId);
+                        if (sessions.removeIf(session -> !nodes.contains(session.nodeId())) && sessions.isEmpty()) {
+                            goOffline(shard, roomId, room, userId);
+                        }
+                    }
+                }
+            }
+        }
+
+        membersBySession.forEach((sessionId, members) -> {
+            synchronized (members) {
+                for (Member member : members) {
+                    route(new PresenceEvent(EventType.JOIN, member.roomId(), member.userId(), localSession(sessionId), false));
+                }
+            }
+        });
+    }
+
+    private static boolean stopTyping(RoomPresence room, Long userId) {
+        if (room.typingUntil.remove(userId) == null) {
+            return false;
+        }
+        room.typingBefore.putIfAbsent(userId, true);
+        return true;
+    }
+
+    // 전송 당시와 달라진 사용자만 (바뀌었다가 되돌아온 사용자는 제외)
+    private static PresenceDiffDto diff(String roomId, RoomPresence room, long now) {
+        room.typingUntil.entrySet().removeIf(entry -> {
+            if (entry.getValue() > now) {
+                return false;
+            }
+            room.typingBefore.putIfAbsent(entry.getKey(), true);
+            return true;
+        });
+
+        List<Long> joined = new ArrayList<>();
+        List<Long> left = new ArrayList<>();
+        room.onlineBefore.forEach((userId, before) -> {
+            boolean online = room.sessionsByUser.containsKey(userId);
+            if (online != before) {
+                (online ? joined : left).add(userId);
+            }
+        });
+        room.onlineBefore.clear();
+
+        List<Long> typing = new ArrayList<>();
+        List<Long> stoppedTyping = new ArrayList<>();
+        room.typingBefore.forEach((userId, before) -> {
+            boolean typingNow = room.typingUntil.containsKey(userId);
+            if (typingNow != before) {
+                (typingNow ? typing : stoppedTyping).add(userId);
+            }
+        });
+        room.typingBefore.clear();
+
+        if (joined.isEmpty() && left.isEmpty() && typing.isEmpty() && stoppedTyping.isEmpty()) {
+            return null;
+        }
+        return PresenceDiffDto.builder()
+                .roomId(roomId)
+                .joined(joined)
+                .left(left)
+                .typing(typing)
+                .stoppedTyping(stoppedTyping)
+                .build();
+    }
+
+    // 이 노드의 /topic/chat/{roomId}/presence 구독자에게 전송 (simple broker 경유)
+    private void deliver(String roomId, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+        messagingTemplate.send(RoomBroadcaster.ROOM_TOPIC_PREFIX + roomId + PRESENCE_TOPIC_SUFFIX, message);
+    }
+
+    // shard 잠금 안에서 호출
+    private static PresenceDto snapshot(String roomId, RoomPresence room) {
+        return PresenceDto.builder()
+                .roomId(roomId)
+                .online(room != null ? sorted(room.sessionsByUser.keySet()) : List.of())
+                .typing(room != null ? sorted(room.typingUntil.keySet()) : List.of())
+                .build();
+    }
+
+    private Shard shardOf(String roomId) {
+        return shards[Math.floorMod(roomId.hashCode(), shards.length)];
+    }
+
+    private static List<Long> sorted(Set<Long> userIds) {
+        List<Long> result = new ArrayList<>(userIds);
+        result.sort(null);
+        return result;
+    }
+}
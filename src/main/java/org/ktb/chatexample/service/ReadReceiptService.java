@@ -0,0 +1,236 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.ReadReceiptDto;
+import org.ktb.chatexample.entity.ChatMessage;
+import org.ktb.chatexample.repository.ChatMessageRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 읽음 처리와 읽음 표시 전송
+ * - 읽음 처리는 안 읽은 수 변화량이 모이는 채팅방 소유 노드에서 한다. (다른 노드에서 받은 요청은 소유 노드로 보낸다)
+ * - 읽음 위치가 소유 노드가 본 최신 메시지 이상이면 남은 수는 0, 그보다 앞이면 그 뒤의 메시지만 범위 조회로 센다.
+ *   write-behind 모드에서 아직 저장되지 않은 메시지도 함께 센다.
+ * - 읽음 표시는 채팅방/사용자별 마지막 위치만 남겨 두었다가 interval-ms마다 채팅방당 한 번 /topic/chat/{roomId}/read로 보낸다.
+ *   (스크롤하며 연달아 읽어도 채팅방에는 주기당 한 건만 전송된다) 같은 바이트를 다른 노드에도 전달한다.
+ */
+@Slf4j
+@Service
+public class ReadReceiptService {
+
+    public static final String READ_TOPIC_SUFFIX = "/read";
+    static final String CLUSTER_MESSAGE_TYPE = "read-receipts";
+    static final String CLUSTER_MARK_TYPE = "read-mark";
+
+    private static final Set<MessageType> COUNTED_TYPES = Set.of(MessageType.CHAT, MessageType.IMAGE);
+
+    private final LookupCache lookupCache;
+    private final UnreadCounters unreadCounters;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessageBatchWriter chatMessageBatchWriter;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ClusterTransport clusterTransport;
+    private final RoomOwnership roomOwnership;
+    private final long intervalMs;
+    private ScheduledExecutorService publisher;
+    // 다른 노드에서 보낸 읽음 처리 (조회가 있을 수 있어 수신 스레드에서 하지 않는다)
+    private ExecutorService relayedReads;
+
+    // roomId -> (userId -> 읽은 위치), compute 안에서만 수정하고 전송할 때 채팅방 단위로 통째로 꺼낸다
+    private final Map<String, Map<Long, Long>> pendingReceipts = new ConcurrentHashMap<>();
+
+    public ReadReceiptService(LookupCache lookupCache,
+                              UnreadCounters unreadCounters,
+                              ChatMessageRepository chatMessageRepository,
+                              ChatMessageBatchWriter chatMessageBatchWriter,
+                              SimpMessageSendingOperations messagingTemplate,
+                              ObjectMapper objectMapper,
+                              ClusterTransport clusterTransport,
+                              RoomOwnership roomOwnership,
+                              @Value("${chat.read-receipts.interval-ms:500}") long intervalMs) {
+        this.lookupCache = lookupCache;
+        this.unreadCounters = unreadCounters;
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatMessageBatchWriter = chatMessageBatchWriter;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.clusterTransport = clusterTransport;
+        this.roomOwnership = roomOwnership;
+        this.intervalMs = intervalMs;
+        clusterTransport.registerHandler(CLUSTER_MESSAGE_TYPE, message -> deliver(message.key(), message.payload()));
+        clusterTransport.registerHandler(CLUSTER_MARK_TYPE, this::receive);
+    }
+
+    @PostConstruct
+    void start() {
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-receipt-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::publishReceipts, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        relayedReads = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-receipt-relayed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (publisher != null) {
+            publisher.shutdownNow();
+        }
+        if (relayedReads != null) {
+            relayedReads.shutdownNow();
+        }
+    }
+
+    // 사용자가 messageId까지 읽음 (채팅방 참여자가 아니면 IllegalArgumentException)
+    public void markRead(ReadReceiptDto receipt) {
+        LookupCache.CachedRoom room = lookupCache.getRoom(receipt.getRoomId());
+        Long userId = receipt.getUserId();
+        if (!userId.equals(room.user1Id()) && !userId.equals(room.user2Id())) {
+            throw new IllegalArgumentException("채팅방 참여자가 아닙니다. userId: " + userId);
+        }
+        if (!roomOwnership.isLocal(room.roomId()) && relay(receipt)) {
+            return;
+        }
+        apply(room, receipt);
+    }
+
+    // 소유 노드에서의 읽음 처리
+    private void apply(LookupCache.CachedRoom room, ReadReceiptDto receipt) {
+        Long userId = receipt.getUserId();
+        long messageId = receipt.getMessageId();
+        Long latest = unreadCounters.getLatestMessageId(room.id());
+        long remaining = 0;
+        long counted = messageId;
+        if (latest == null || messageId < latest) {
+            TreeSet<Long> unreadIds = findUnreadIdsAfter(room.id(), messageId, userId);
+            remaining = unreadIds.size();
+            counted = unreadIds.isEmpty() ? messageId : unreadIds.last();
+        }
+        if (!unreadCounters.markRead(room.id(), userId, messageId, remaining, counted)) {
+            return; // 이미 더 뒤까지 읽음
+        }
+
+        pendingReceipts.compute(room.roomId(), (roomId, receipts) -> {
+            Map<Long, Long> result = receipts != null ? receipts : new HashMap<>();
+            result.merge(userId, receipt.getMessageId(), Math::max);
+            return result;
+        });
+    }
+
+    // 저장된 메시지와 (write-behind 모드) 아직 저장 대기 중인 메시지 중 읽음 위치 뒤의 상대방 메시지
+    private TreeSet<Long> findUnreadIdsAfter(long chatRoomId, long messageId, Long userId) {
+        TreeSet<Long> unreadIds = new TreeSet<>(
+                chatMessageRepository.findUnreadIdsAfter(chatRoomId, messageId, userId, COUNTED_TYPES));
+        if (chatMessageBatchWriter.isEnabled()) {
+            for (ChatMessage message : chatMessageBatchWriter.getPendingMessages(chatRoomId)) {
+                if (message.getId() > messageId && !userId.equals(message.getSender().getId())
+                        && COUNTED_TYPES.contains(message.getType())) {
+                    unreadIds.add(message.getId());
+                }
+            }
+        }
+        return unreadIds;
+    }
+
+    // 보내지 못하면 (소유 노드와 연결이 끊긴 경우) false를 반환해 이 노드에서 처리한다
+    private boolean relay(ReadReceiptDto receipt) {
+        String owner = roomOwnership.ownerOf(receipt.getRoomId());
+        try {
+            clusterTransport.send(owner, CLUSTER_MARK_TYPE, receipt.getRoomId(), objectMapper.writeValueAsBytes(receipt));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("읽음 처리를 소유 노드로 보내지 못해 직접 처리합니다. (roomId={}, owner={})", receipt.getRoomId(), owner, e);
+            return false;
+        }
+    }
+
+    // 다른 노드에서 보낸 읽음 처리 (보낸 노드에서 참여자 확인을 마쳤다)
+    private void receive(ClusterMessage message) {
+        ReadReceiptDto receipt;
+        try {
+            receipt = objectMapper.readValue(message.payload(), ReadReceiptDto.class);
+        } catch (IOException e) {
+            log.warn("다른 노드에서 받은 읽음 처리를 읽지 못했습니다. (roomId={})", message.key(), e);
+            return;
+        }
+        relayedReads.execute(() -> {
+            try {
+                apply(lookupCache.getRoom(receipt.getRoomId()), receipt);
+            } catch (RuntimeException e) {
+                log.warn("다른 노드에서 받은 읽음 처리 실패 (roomId={}, userId={})", receipt.getRoomId(), receipt.getUserId(), e);
+            }
+        });
+    }
+
+    // 모인 읽음 표시를 채팅방마다 한 번씩 전송
+    void publishReceipts() {
+        boolean clustered = !clusterTransport.getPeerNodeIds().isEmpty();
+        for (String roomId : pendingReceipts.keySet()) {
+            Map<Long, Long> receipts = pendingReceipts.remove(roomId);
+            if (receipts == null) {
+                continue;
+            }
+            List<ReadReceiptDto> payload = new ArrayList<>(receipts.size());
+            receipts.forEach((userId, messageId) -> payload.add(new ReadReceiptDto(roomId, userId, messageId)));
+
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(payload);
+            } catch (JsonProcessingException e) {
+                log.error("읽음 표시 직렬화 실패 (roomId={})", roomId, e);
+                continue;
+            }
+            try {
+                deliver(roomId, json);
+                if (clustered) {
+                    clusterTransport.publish(CLUSTER_MESSAGE_TYPE, roomId, json);
+                }
+            } catch (RuntimeException e) {
+                // 다음 주기가 취소되지 않도록 한다
+                log.warn("읽음 표시 전송 실패 (roomId={})", roomId, e);
+            }
+        }
+    }
+
+    // 이 노드의 /topic/chat/{roomId}/read 구독자에게 전송 (simple broker 경유)
+    private void deliver(String roomId, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+        messagingTemplate.send(RoomBroadcaster.ROOM_TOPIC_PREFIX + roomId + READ_TOPIC_SUFFIX, message);
+    }
+}
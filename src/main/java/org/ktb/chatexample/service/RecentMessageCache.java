@@ -0,0 +1,373 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.dto.CacheStatsDto;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 채팅방별 최근 메시지 링 버퍼
+ * 첫 조회 시 DB에서 최근 room-capacity개를 읽어 채우고, 이후에는 sendMessage가 커밋될 때마다 추가된다.
+ * 전체 메모리 상한(max-total-messages)을 넘으면 가장 오래 사용되지 않은 채팅방부터 제거한다.
+ * 채팅방 소유 노드가 바뀌면 다른 노드에서 저장된 메시지가 빠져 있을 수 있으므로 노드 목록이 바뀔 때 모두 비운다.
+ * 채팅방 삭제 등으로 인한 제거(evict)는 버퍼를 가진 소유 노드가 따로 있을 수 있으므로 다른 노드에도 전달한다.
+ * 버퍼는 채팅방 소유 노드에만 두므로, 다른 노드에서 저장/수정된 메시지(REST 전송, 이미지 업로드 등)는 소유 노드로 보내 반영한다.
+ * 소유 노드에 아직 버퍼가 없으면 relay-ttl-ms 동안 보관했다가 버퍼를 만들 때 합친다.
+ * (write-behind 모드에서는 보낸 노드의 대기열에만 있어 DB에서 읽히지 않을 수 있으므로)
+ */
+@Slf4j
+@Service
+public class RecentMessageCache {
+
+    private static final String CLUSTER_EVICT_TYPE = "recent-messages-evict";
+    private static final String CLUSTER_APPEND_TYPE = "recent-messages-append";
+    private static final String CLUSTER_REPLACE_TYPE = "recent-messages-replace";
+
+    private final int roomCapacity;
+    private final int maxRooms;
+    private final ClusterTransport clusterTransport;
+    private final RoomOwnership roomOwnership;
+    private final ObjectMapper objectMapper;
+
+    // 버퍼가 없을 때 다른 노드에서 받은 메시지 (roomId -> ID 순 메시지, 최대 room-capacity개)
+    private final Cache<String, Map<Long, ChatMessageDto>> relayedWithoutBuffer;
+
+    private final Map<String, RoomBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public RecentMessageCache(
+            @Value("${chat.recent-messages.room-capacity:100}") int roomCapacity,
+            @Value("${chat.recent-messages.max-total-messages:200000}") int maxTotalMessages,
+            @Value("${chat.recent-messages.relay-ttl-ms:60000}") long relayTtlMs,
+            ClusterTransport clusterTransport,
+            RoomOwnership roomOwnership,
+            ObjectMapper objectMapper) {
+        this.roomCapacity = roomCapacity;
+        this.maxRooms = Math.max(1, maxTotalMessages / roomCapacity);
+        this.clusterTransport = clusterTransport;
+        this.roomOwnership = roomOwnership;
+        this.objectMapper = objectMapper;
+        this.relayedWithoutBuffer = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterWrite(Duration.ofMillis(relayTtlMs))
+                .build();
+        clusterTransport.addMembershipListener(() -> {
+            buffers.clear();
+            relayedWithoutBuffer.invalidateAll();
+        });
+        clusterTransport.registerHandler(CLUSTER_EVICT_TYPE, message -> {
+            buffers.remove(message.key());
+            relayedWithoutBuffer.invalidate(message.key());
+        });
+        clusterTransport.registerHandler(CLUSTER_APPEND_TYPE, message -> receive(message, true));
+        clusterTransport.registerHandler(CLUSTER_REPLACE_TYPE, message -> receive(message, false));
+    }
+
+    public int getRoomCapacity() {
+        return roomCapacity;
+    }
+
+    // 메시지 목록 조회 (ChatService.getChatMessages와 같은 규칙), 버퍼로 답할 수 없으면 empty
+    // loader는 버퍼가 없을 때 최근 room-capacity개 메시지를 오래된 순으로 읽어온다
+    public Optional<List<ChatMessageDto>> find(String roomId, Long before, Long after, int limit,
+                                               Supplier<List<ChatMessageDto>> loader) {
+        Optional<List<ChatMessageDto>> result = getOrLoad(roomId, loader).find(before, after, limit);
+
+        if (result.isPresent()) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return result;
+    }
+
+    // 저장된 메시지 추가 (커밋 후 호출, 소유 노드가 아니면 소유 노드로 보낸다)
+    public void append(ChatMessageDto message) {
+        if (!roomOwnership.isLocal(message.getRoomId())) {
+            relay(CLUSTER_APPEND_TYPE, message);
+            return;
+        }
+        RoomBuffer buffer = buffers.get(message.getRoomId());
+        if (buffer != null) {
+            buffer.add(message);
+        }
+    }
+
+    // 이미 담긴 메시지를 같은 ID의 새 내용으로 교체 (이미지 업로드 완료 등, 소유 노드가 아니면 소유 노드로 보낸다)
+    public void replace(ChatMessageDto message) {
+        if (!roomOwnership.isLocal(message.getRoomId())) {
+            relay(CLUSTER_REPLACE_TYPE, message);
+            return;
+        }
+        RoomBuffer buffer = buffers.get(message.getRoomId());
+        if (buffer != null) {
+            buffer.replace(message);
+        }
+    }
+
+    public void evict(String roomId) {
+        buffers.remove(roomId);
+        relayedWithoutBuffer.invalidate(roomId);
+        clusterTransport.publish(CLUSTER_EVICT_TYPE, roomId, new byte[0]);
+    }
+
+    public CacheStatsDto getStats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        return CacheStatsDto.builder()
+                .name("recent-messages")
+                .size(buffers.size())
+                .hitCount(hits)
+                .missCount(misses)
+                .hitRate(hits + misses == 0 ? 0.0 : (double) hits / (hits + misses))
+                .evictionCount(evictionCount.sum())
+                .build();
+    }
+
+    private RoomBuffer getOrLoad(String roomId, Supplier<List<ChatMessageDto>> loader) {
+        RoomBuffer buffer = buffers.get(roomId);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        // 먼저 빈 버퍼를 등록해 로딩 중에 들어온 메시지도 놓치지 않게 한다
+        RoomBuffer fresh = new RoomBuffer(roomCapacity);
+        RoomBuffer existing = buffers.putIfAbsent(roomId, fresh);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            List<ChatMessageDto> loaded = loader.get();
+            Map<Long, ChatMessageDto> relayed = relayedWithoutBuffer.asMap().remove(roomId);
+            fresh.load(loaded, relayed != null ? relayed.values() : List.of(), loaded.size() < roomCapacity);
+        } catch (RuntimeException e) {
+            buffers.remove(roomId, fresh);
+            throw e;
+        }
+
+        evictIfNeeded();
+        return fresh;
+    }
+
+    private void relay(String type, ChatMessageDto message) {
+        String owner = roomOwnership.ownerOf(message.getRoomId());
+        try {
+            clusterTransport.send(owner, type, message.getRoomId(), objectMapper.writeValueAsBytes(message));
+        } catch (IOException | RuntimeException e) {
+            log.warn("최근 메시지를 소유 노드로 보내지 못했습니다. (roomId={}, owner={})", message.getRoomId(), owner, e);
+        }
+    }
+
+    // 다른 노드에서 저장/수정된 메시지 반영
+    private void receive(ClusterMessage clusterMessage, boolean append) {
+        ChatMessageDto message;
+        try {
+            message = objectMapper.readValue(clusterMessage.payload(), ChatMessageDto.class);
+        } catch (IOException e) {
+            log.warn("다른 노드에서 받은 최근 메시지를 읽지 못했습니다. (roomId={})", clusterMessage.key(), e);
+            return;
+        }
+
+        RoomBuffer buffer = buffers.get(message.getRoomId());
+        if (buffer != null) {
+            if (append) {
+                buffer.add(message);
+            } else {
+                buffer.replace(message);
+            }
+            return;
+        }
+        relayedWithoutBuffer.asMap().compute(message.getRoomId(), (roomId, messages) -> {
+            if (messages == null) {
+                if (!append) {
+                    return null;
+                }
+                messages = new TreeMap<>();
+            }
+            if (append || messages.containsKey(message.getId())) {
+                messages.put(message.getId(), message);
+            }
+            while (messages.size() > roomCapacity) {
+                messages.remove(messages.keySet().iterator().next());
+            }
+            return messages;
+        });
+
+        // 그 사이 버퍼가 만들어졌으면 직접 넣는다 (중복은 버퍼가 무시)
+        RoomBuffer created = buffers.get(message.getRoomId());
+        if (created != null) {
+            if (append) {
+                created.add(message);
+            } else {
+                created.replace(message);
+            }
+        }
+    }
+
+    // 상한을 넘으면 최근 사용 시각이 가장 오래된 채팅방부터 90%까지 정리
+    private void evictIfNeeded() {
+        if (buffers.size() <= maxRooms) {
+            return;
+        }
+        int target = maxRooms * 9 / 10;
+
+        // 정렬 중에 값이 바뀌지 않도록 접근 시각을 먼저 복사해 둔다
+        List<Map.Entry<Long, Map.Entry<String, RoomBuffer>>> entries = new ArrayList<>();
+        buffers.entrySet().forEach(entry -> entries.add(Map.entry(entry.getValue().lastAccess, entry)));
+        entries.sort(Map.Entry.comparingByKey());
+
+        for (Map.Entry<Long, Map.Entry<String, RoomBuffer>> entry : entries) {
+            if (buffers.size() <= target) {
+                break;
+            }
+            if (buffers.remove(entry.getValue().getKey(), entry.getValue().getValue())) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * ID 오름차순으로 정렬된 고정 크기 링 버퍼
+     * 버퍼에 담긴 구간(가장 오래된 메시지 ~ 최신)은 빠짐없이 연속이다.
+     */
+    private static final class RoomBuffer {
+
+        private final ChatMessageDto[] ring;
+        private int start;  // 가장 오래된 메시지 위치
+        private int size;
+        private boolean loaded;
+        private boolean complete; // 채팅방 전체 메시지를 담고 있는지
+        private volatile long lastAccess = System.nanoTime();
+
+        RoomBuffer(int capacity) {
+            this.ring = new ChatMessageDto[capacity];
+        }
+
+        synchronized void load(List<ChatMessageDto> messages, Collection<ChatMessageDto> relayed, boolean wholeRoom) {
+            List<ChatMessageDto> merged = new ArrayList<>(messages);
+            merged.addAll(relayed);
+            merged.addAll(snapshot()); // 로딩 중에 추가된 메시지
+            merged.sort(Comparator.comparing(ChatMessageDto::getId));
+
+            start = 0;
+            size = 0;
+            Long lastId = null;
+            for (ChatMessageDto message : merged) {
+                if (!message.getId().equals(lastId)) {
+                    push(message);
+                    lastId = message.getId();
+                }
+            }
+            complete = wholeRoom && merged.size() <= ring.length;
+            loaded = true;
+        }
+
+        synchronized void add(ChatMessageDto message) {
+            int newest = size - 1;
+            if (size == 0 || message.getId() > get(newest).getId()) {
+                push(message);
+                return;
+            }
+
+            // 동시 커밋으로 순서가 바뀐 경우 (드묾): 정렬 위치에 끼워 넣는다
+            List<ChatMessageDto> messages = snapshot();
+            for (ChatMessageDto existing : messages) {
+                if (existing.getId().equals(message.getId())) {
+                    return;
+                }
+            }
+            if (size == ring.length && message.getId() < get(0).getId()) {
+                return; // 버퍼 범위보다 오래된 메시지
+            }
+            messages.add(message);
+            messages.sort(Comparator.comparing(ChatMessageDto::getId));
+            start = 0;
+            size = 0;
+            messages.forEach(this::push);
+        }
+
+        synchronized void replace(ChatMessageDto message) {
+            for (int i = 0; i < size; i++) {
+                if (get(i).getId().equals(message.getId())) {
+                    ring[(start + i) % ring.length] = message;
+                    return;
+                }
+            }
+        }
+
+        synchronized Optional<List<ChatMessageDto>> find(Long before, Long after, int limit) {
+            if (!loaded) {
+                return Optional.empty();
+            }
+            lastAccess = System.nanoTime();
+            List<ChatMessageDto> messages = snapshot();
+
+            if (after != null) {
+                // 버퍼가 after 시점부터 연속으로 담고 있어야 빠짐이 없다
+                if (!complete && (messages.isEmpty() || messages.get(0).getId() > after)) {
+                    return Optional.empty();
+                }
+                return Optional.of(messages.stream()
+                        .filter(message -> message.getId() > after)
+                        .limit(limit)
+                        .toList());
+            }
+
+            List<ChatMessageDto> candidates = before == null ? messages : messages.stream()
+                    .filter(message -> message.getId() < before)
+                    .toList();
+            if (candidates.size() < limit && !complete) {
+                return Optional.empty();
+            }
+            return Optional.of(candidates.subList(Math.max(0, candidates.size() - limit), candidates.size()));
+        }
+
+        private void push(ChatMessageDto message) {
+            if (size < ring.length) {
+                ring[(start + size) % ring.length] = message;
+                size++;
+            } else {
+                // 가득 차면 가장 오래된 메시지를 덮어쓴다
+                ring[start] = message;
+                start = (start + 1) % ring.length;
+                complete = false;
+            }
+        }
+
+        private ChatMessageDto get(int index) {
+            return ring[(start + index) % ring.length];
+        }
+
+        private List<ChatMessageDto> snapshot() {
+            List<ChatMessageDto> messages = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                messages.add(get(i));
+            }
+            return messages;
+        }
+    }
+}
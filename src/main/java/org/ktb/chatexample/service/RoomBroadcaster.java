@@ -0,0 +1,214 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.websocket.ChatMessageBinaryCodec;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 채팅방 브로드캐스트 전용 디스패처
+ * /topic/chat/{roomId} 구독을 채팅방별로 직접 관리하고, 메시지는 한 번만 JSON 바이트로 직렬화해
+ * 같은 버퍼를 구독 세션마다 clientOutboundChannel로 바로 보낸다. (simple broker의 패턴 매칭과 재변환을 거치지 않음)
+ * 같은 바이트를 ClusterTransport로 다른 노드에도 전달하고, 받은 노드는 자신의 구독자에게만 전송한다.
+ * 바이너리 인코딩을 요청한 구독(x-chat-encoding: binary)에는 ChatMessageDto를 ChatMessageBinaryCodec으로 한 번 더 인코딩해 보낸다.
+ */
+@Slf4j
+@Service
+public class RoomBroadcaster {
+
+    public static final String ROOM_TOPIC_PREFIX = "/topic/chat/";
+    static final String CLUSTER_MESSAGE_TYPE = "room-broadcast";
+    // ChatMessageDto는 받은 노드에서 바이너리로 다시 인코딩할 수 있도록 별도 타입으로 보낸다
+    static final String CLUSTER_CHAT_MESSAGE_TYPE = "room-broadcast-chat";
+
+    // 구독 시 이 헤더 값이 binary이면 바이너리 인코딩으로 전송
+    public static final String ENCODING_HEADER = "x-chat-encoding";
+    public static final String BINARY_ENCODING = "binary";
+    // 바이너리 프레임을 받을 수 있는 세션(SockJS가 아닌 WebSocket 엔드포인트)에만 설정되는 세션 속성
+    public static final String BINARY_CAPABLE_ATTRIBUTE = "chat.binaryCapable";
+
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectMapper objectMapper;
+    private final ClusterTransport clusterTransport;
+
+    // roomId -> 구독 목록
+    private final Map<String, Set<Subscriber>> subscribersByRoom = new ConcurrentHashMap<>();
+    // sessionId -> (subscriptionId -> 구독), 구독 해제와 연결 종료 시 정리용
+    private final Map<String, Map<String, Subscriber>> roomsBySession = new ConcurrentHashMap<>();
+    // roomId -> 바이너리 구독 수
+    private final Map<String, Integer> binarySubscriberCounts = new ConcurrentHashMap<>();
+
+    private record Subscriber(String roomId, String sessionId, String subscriptionId, boolean binary) {
+    }
+
+    public RoomBroadcaster(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                           ObjectMapper objectMapper,
+                           ClusterTransport clusterTransport) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.objectMapper = objectMapper;
+        this.clusterTransport = clusterTransport;
+        clusterTransport.registerHandler(CLUSTER_MESSAGE_TYPE, message -> deliver(message.key(), message.payload(), null));
+        clusterTransport.registerHandler(CLUSTER_CHAT_MESSAGE_TYPE,
+                message -> deliver(message.key(), message.payload(), encodeBinary(message.key(), message.payload())));
+    }
+
+    // 모든 노드의 채팅방 구독자에게 메시지 전송 (직렬화는 인코딩별로 한 번만)
+    public void broadcast(String roomId, Object payload) {
+        boolean clustered = !clusterTransport.getPeerNodeIds().isEmpty();
+        if (!clustered && !hasSubscribers(roomId)) {
+            return;
+        }
+        byte[] json = serialize(payload);
+        boolean chatMessage = payload instanceof ChatMessageDto;
+        byte[] binary = chatMessage && hasBinarySubscribers(roomId)
+                ? ChatMessageBinaryCodec.encode((ChatMessageDto) payload)
+                : null;
+        deliver(roomId, json, binary);
+        if (clustered) {
+            clusterTransport.publish(chatMessage ? CLUSTER_CHAT_MESSAGE_TYPE : CLUSTER_MESSAGE_TYPE, roomId, json);
+        }
+    }
+
+    // 이미 직렬화된 메시지를 이 서버의 구독자에게 전송 (binary가 없으면 모두 JSON으로)
+    public void deliver(String roomId, byte[] json, byte[] binary) {
+        Set<Subscriber> subscribers = subscribersByRoom.get(roomId);
+        if (subscribers == null) {
+            return;
+        }
+        String destination = ROOM_TOPIC_PREFIX + roomId;
+        for (Subscriber subscriber : subscribers) {
+            clientOutboundChannel.send(subscriber.binary() && binary != null
+                    ? createMessage(destination, subscriber, binary, MimeTypeUtils.APPLICATION_OCTET_STREAM)
+                    : createMessage(destination, subscriber, json, MimeTypeUtils.APPLICATION_JSON));
+        }
+    }
+
+    public boolean hasSubscribers(String roomId) {
+        Set<Subscriber> subscribers = subscribersByRoom.get(roomId);
+        return subscribers != null && !subscribers.isEmpty();
+    }
+
+    public boolean hasBinarySubscribers(String roomId) {
+        return binarySubscriberCounts.containsKey(roomId);
+    }
+
+    public byte[] serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("메시지 직렬화에 실패했습니다.", e);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String roomId = toRoomId(accessor.getDestination());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        if (roomId == null || sessionId == null || subscriptionId == null) {
+            return;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        boolean binary = BINARY_ENCODING.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))
+                && attributes != null && Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE));
+        Subscriber subscriber = new Subscriber(roomId, sessionId, subscriptionId, binary);
+
+        roomsBySession.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>()).put(subscriptionId, subscriber);
+        // 빈 목록 제거와 겹치지 않도록 compute 안에서 추가한다
+        subscribersByRoom.compute(roomId, (key, subscribers) -> {
+            Set<Subscriber> result = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            if (result.add(subscriber) && binary) {
+                binarySubscriberCounts.merge(roomId, 1, Integer::sum);
+            }
+            return result;
+        });
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+
+        Map<String, Subscriber> subscriptions = roomsBySession.get(sessionId);
+        Subscriber subscriber = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (subscriber != null) {
+            removeSubscriber(subscriber);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Subscriber> subscriptions = roomsBySession.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::removeSubscriber);
+        }
+    }
+
+    private void removeSubscriber(Subscriber subscriber) {
+        subscribersByRoom.computeIfPresent(subscriber.roomId(), (key, subscribers) -> {
+            if (subscribers.remove(subscriber) && subscriber.binary()) {
+                binarySubscriberCounts.computeIfPresent(key, (room, count) -> count > 1 ? count - 1 : null);
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    // 다른 노드에서 받은 ChatMessageDto JSON을 이 노드에 바이너리 구독자가 있을 때만 다시 인코딩
+    private byte[] encodeBinary(String roomId, byte[] json) {
+        if (!hasBinarySubscribers(roomId)) {
+            return null;
+        }
+        try {
+            return ChatMessageBinaryCodec.encode(objectMapper.readValue(json, ChatMessageDto.class));
+        } catch (IOException e) {
+            log.warn("바이너리 인코딩 실패, JSON으로 전송합니다. roomId={}", roomId, e);
+            return null;
+        }
+    }
+
+    // /topic/chat/{roomId} 형태만 관리한다 (하위 경로는 simple broker가 처리)
+    private static String toRoomId(String destination) {
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) {
+            return null;
+        }
+        String roomId = destination.substring(ROOM_TOPIC_PREFIX.length());
+        return roomId.isEmpty() || roomId.indexOf('/') >= 0 ? null : roomId;
+    }
+
+    // simple broker가 구독자에게 보내는 것과 같은 형태의 MESSAGE (payload 배열은 공유)
+    private Message<byte[]> createMessage(String destination, Subscriber subscriber, byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(subscriber.sessionId());
+        accessor.setSubscriptionId(subscriber.subscriptionId());
+        accessor.setDestination(destination);
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,216 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.config.ExecutionConfig;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * STOMP로 들어온 채팅 메시지를 채팅방 소유 노드에서 처리하도록 라우팅
+ * 소유 노드가 아니면 ClusterTransport로 전달한다. 소유 노드에서는 채팅방을 레인(lane)으로 나눠
+ * 같은 레인의 메시지가 겹쳐 처리되지 않게 하므로 한 채팅방의 메시지 순서는 소유 노드 한 곳에서 정해진다.
+ * - 직접 받은 메시지: 호출한 inbound 채널 스레드에서 레인 잠금을 잡고 바로 처리 (실패는 @MessageMapping 호출자로 전달)
+ * - 다른 노드가 전달한 메시지: 수신 스레드를 막지 않도록 레인 대기열에 넣고 실행 모드(chat.execution.mode)에 맞는 스레드가 처리
+ *   레인 대기열은 크기가 정해져 있어 가득 차면 버리고 수를 센다 (DB가 느려져도 메모리가 늘지 않도록)
+ */
+@Slf4j
+@Service
+public class RoomMessageRouter {
+
+    static final String CLUSTER_MESSAGE_TYPE = "room-send";
+
+    private final ChatService chatService;
+    private final RoomOwnership roomOwnership;
+    private final ClusterTransport clusterTransport;
+    private final ObjectMapper objectMapper;
+    private final Lane[] lanes;
+    private final int laneCapacity;
+    // 레인마다 처리 작업은 많아야 하나만 들어가므로 대기열은 레인 수를 넘지 않는다
+    private final ExecutorService laneExecutor;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public RoomMessageRouter(ChatService chatService,
+                             RoomOwnership roomOwnership,
+                             ClusterTransport clusterTransport,
+                             ObjectMapper objectMapper,
+                             @Value("${chat.cluster.room-lanes:256}") int laneCount,
+                             @Value("${chat.cluster.room-lane-capacity:1000}") int laneCapacity,
+                             // platform 모드에서 전달받은 메시지를 처리하는 스레드 수
+                             @Value("${chat.cluster.room-workers:16}") int workerCount,
+                             @Value("${" + ExecutionConfig.MODE_PROPERTY + ":platform}") String executionMode) {
+        this.chatService = chatService;
+        this.roomOwnership = roomOwnership;
+        this.clusterTransport = clusterTransport;
+        this.objectMapper = objectMapper;
+        this.laneCapacity = laneCapacity;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane();
+        }
+        this.laneExecutor = ExecutionConfig.VIRTUAL.equalsIgnoreCase(executionMode)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("room-lane-", 0).factory())
+                : platformExecutor(workerCount);
+        clusterTransport.registerHandler(CLUSTER_MESSAGE_TYPE, this::receive);
+    }
+
+    // 채팅방 소유 노드에서 메시지 처리
+    public void route(ChatMessageDto messageDto) {
+        String owner = roomOwnership.ownerOf(messageDto.getRoomId());
+        if (owner.equals(clusterTransport.getLocalNodeId())) {
+            laneFor(messageDto.getRoomId()).process(messageDto);
+            return;
+        }
+
+        try {
+            clusterTransport.send(owner, CLUSTER_MESSAGE_TYPE, messageDto.getRoomId(), serialize(messageDto));
+        } catch (IllegalArgumentException e) {
+            // 그 사이 소유 노드와의 연결이 끊겼으면 여기서 처리한다
+            log.warn("채팅방 소유 노드로 전달하지 못해 직접 처리합니다. (roomId={}, owner={})", messageDto.getRoomId(), owner);
+            laneFor(messageDto.getRoomId()).process(messageDto);
+        }
+    }
+
+    // 레인 대기열이 가득 차 버린 전달 메시지 수
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    // 다른 노드가 전달한 메시지 (소유권이 그 사이 바뀌었더라도 다시 전달하지 않고 처리해 전달이 반복되지 않게 한다)
+    private void receive(ClusterMessage message) {
+        ChatMessageDto messageDto;
+        try {
+            messageDto = objectMapper.readValue(message.payload(), ChatMessageDto.class);
+        } catch (IOException e) {
+            log.error("전달된 채팅 메시지를 읽을 수 없습니다. (from={})", message.sourceNodeId(), e);
+            return;
+        }
+
+        try {
+            laneFor(messageDto.getRoomId()).enqueue(messageDto);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            log.warn("채팅방 처리 대기열이 가득 차 전달된 메시지를 버립니다. (roomId={}, from={})",
+                    messageDto.getRoomId(), message.sourceNodeId());
+        }
+    }
+
+    private void handle(ChatMessageDto messageDto) {
+        if (messageDto.getType() == MessageType.JOIN) {
+            chatService.joinRoom(messageDto);
+        } else {
+            chatService.sendMessage(messageDto);
+        }
+    }
+
+    private Lane laneFor(String roomId) {
+        return lanes[Math.floorMod(roomId.hashCode(), lanes.length)];
+    }
+
+    private byte[] serialize(ChatMessageDto messageDto) {
+        try {
+            return objectMapper.writeValueAsBytes(messageDto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("메시지 직렬화에 실패했습니다.", e);
+        }
+    }
+
+    private static ExecutorService platformExecutor(int workerCount) {
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "room-lane-" + sequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        laneExecutor.shutdown();
+        laneExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // 같은 레인의 처리는 잠금으로 한 번에 하나씩, 전달받은 메시지는 크기가 정해진 대기열에서 순서대로 꺼내 처리한다
+    // (가상 스레드가 잠금을 기다리며 캐리어 스레드를 잡지 않도록 synchronized 대신 ReentrantLock을 쓴다)
+    private final class Lane {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<ChatMessageDto> pending = new ArrayDeque<>();
+        private boolean draining; // pending으로 보호
+
+        void process(ChatMessageDto messageDto) {
+            lock.lock();
+            try {
+                handle(messageDto);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void enqueue(ChatMessageDto messageDto) {
+            synchronized (pending) {
+                if (pending.size() >= laneCapacity) {
+                    throw new RejectedExecutionException("채팅방 처리 대기열이 가득 찼습니다.");
+                }
+                pending.add(messageDto);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+
+            try {
+                laneExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 종료 중
+                synchronized (pending) {
+                    pending.clear();
+                    draining = false;
+                }
+                throw e;
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                ChatMessageDto messageDto;
+                synchronized (pending) {
+                    messageDto = pending.poll();
+                    if (messageDto == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+
+                try {
+                    process(messageDto);
+                } catch (RuntimeException e) {
+                    log.warn("전달된 채팅 메시지 처리 실패 (roomId={}, senderId={})",
+                            messageDto.getRoomId(), messageDto.getSenderId(), e);
+                }
+            }
+        }
+    }
+}
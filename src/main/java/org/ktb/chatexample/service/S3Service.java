@@ -1,48 +1,141 @@
 package org.ktb.chatexample.service;
 
+import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
-import lombok.RequiredArgsConstructor;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.util.unit.DataSize;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.UUID;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.OptionalLong;
 
+/**
+ * S3 저장소
+ * multipart-threshold 이상인 파일은 TransferManager로 part-size 단위 멀티파트 업로드를 한다.
+ * (스트림은 part 단위로만 읽으므로 파일 전체를 메모리에 올리지 않는다)
+ * chat.storage.backend=s3(기본값)일 때만 사용한다. 로컬 디스크는 LocalStorageService 참고.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
-public class S3Service {
+@ConditionalOnProperty(name = "chat.storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3Service implements StorageService {
     
     private final AmazonS3Client amazonS3Client;
+    private final TransferManager transferManager;
+    private final String bucketName;
+    private final long multipartThreshold;
     
-    @Value("${aws.s3.bucket-name}")
-    private String bucketName;
+    public S3Service(AmazonS3Client amazonS3Client,
+                     @Value("${aws.s3.bucket-name}") String bucketName,
+                     @Value("${aws.s3.multipart-threshold:16MB}") DataSize multipartThreshold,
+                     @Value("${aws.s3.multipart-part-size:8MB}") DataSize partSize) {
+        this.amazonS3Client = amazonS3Client;
+        this.bucketName = bucketName;
+        this.multipartThreshold = multipartThreshold.toBytes();
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonS3Client)
+                .withMultipartUploadThreshold(this.multipartThreshold)
+                .withMinimumUploadPartSize(partSize.toBytes())
+                .build();
+    }
     
-    public String uploadImage(MultipartFile file) throws IOException {
-        String fileName = generateUniqueFileName(file.getOriginalFilename());
-        
+    @Override
+    public String store(String key, InputStream content, long contentLength, String contentType) throws IOException {
         ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentType(file.getContentType());
-        metadata.setContentLength(file.getSize());
+        metadata.setContentType(contentType);
+        metadata.setContentLength(contentLength);
         
-        amazonS3Client.putObject(
-            new PutObjectRequest(bucketName, fileName, file.getInputStream(), metadata)
-                .withCannedAcl(CannedAccessControlList.PublicRead)
-        );
+        PutObjectRequest request = new PutObjectRequest(bucketName, key, content, metadata)
+                .withCannedAcl(CannedAccessControlList.PublicRead);
         
-        return amazonS3Client.getUrl(bucketName, fileName).toString();
+        if (contentLength < multipartThreshold) {
+            amazonS3Client.putObject(request);
+        } else {
+            try {
+                transferManager.upload(request).waitForCompletion();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("S3 업로드가 중단되었습니다: " + key);
+            }
+        }
+        
+        return getUrl(key);
+    }
+    
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return amazonS3Client.getObject(bucketName, key).getObjectContent();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                throw new FileNotFoundException(key);
+            }
+            throw e;
+        }
+    }
+    
+    @Override
+    public void delete(String key) {
+        amazonS3Client.deleteObject(bucketName, key);
+    }
+    
+    @Override
+    public String getUrl(String key) {
+        return amazonS3Client.getUrl(bucketName, key).toString();
+    }
+    
+    @Override
+    public String getKey(String url) {
+        String probe = getUrl("_");
+        String baseUrl = probe.substring(0, probe.length() - 1); // 버킷 URL (엔드포인트/경로 방식에 따라 다르다)
+        return url != null && url.startsWith(baseUrl) && url.length() > baseUrl.length()
+                ? url.substring(baseUrl.length())
+                : null;
+    }
+    
+    // 직접 업로드한 객체도 공개 읽기여야 하므로 ACL 헤더를 서명에 포함한다
+    @Override
+    public UploadTarget createUploadUrl(String key, String contentType, Duration expiry) {
+        String acl = CannedAccessControlList.PublicRead.toString();
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, key, HttpMethod.PUT)
+                .withContentType(contentType)
+                .withExpiration(new Date(System.currentTimeMillis() + expiry.toMillis()));
+        request.putCustomRequestHeader("x-amz-acl", acl);
+        return new UploadTarget(amazonS3Client.generatePresignedUrl(request).toString(),
+                Map.of("Content-Type", contentType, "x-amz-acl", acl));
     }
     
-    public void deleteFile(String fileUrl) {
-        String fileName = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
-        amazonS3Client.deleteObject(bucketName, fileName);
+    @Override
+    public OptionalLong getSize(String key) {
+        try {
+            return OptionalLong.of(amazonS3Client.getObjectMetadata(bucketName, key).getContentLength());
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return OptionalLong.empty();
+            }
+            throw e;
+        }
     }
     
-    private String generateUniqueFileName(String originalFileName) {
-        String extension = originalFileName.substring(originalFileName.lastIndexOf("."));
-        return "images/" + UUID.randomUUID().toString() + extension;
+    // S3 클라이언트는 빈으로 따로 관리되므로 TransferManager 스레드만 정리한다
+    @PreDestroy
+    public void shutdown() {
+        transferManager.shutdownNow(false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package org.ktb.chatexample.service;
+
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * 업로드 파일 저장소
+ * 저장 위치는 key(예: images/{uuid}.png)로 구분하고, 클라이언트에는 getUrl로 만든 URL을 전달한다.
+ */
+public interface StorageService {
+
+    // content를 끝까지 읽어 저장하고 접근 URL 반환 (호출 스레드에서 완료될 때까지 블로킹)
+    String store(String key, InputStream content, long contentLength, String contentType) throws IOException;
+
+    // 저장된 객체 읽기 (없으면 FileNotFoundException)
+    InputStream open(String key) throws IOException;
+
+    void delete(String key);
+
+    String getUrl(String key);
+
+    // 이 저장소의 URL이면 key, 아니면 null
+    String getKey(String url);
+
+    // 클라이언트가 서버를 거치지 않고 직접 PUT할 수 있는 서명된 URL
+    UploadTarget createUploadUrl(String key, String contentType, Duration expiry);
+
+    // 저장된 객체 크기 (없으면 empty)
+    OptionalLong getSize(String key);
+
+    // 새 이미지 key (images/{uuid}.{원래 확장자})
+    static String newImageKey(String originalFileName) {
+        String extension = StringUtils.getFilenameExtension(originalFileName);
+        return "images/" + UUID.randomUUID() + (extension != null ? "." + extension : "");
+    }
+
+    // 직접 업로드 대상, 클라이언트는 headers를 그대로 PUT 요청에 포함해야 한다 (서명에 포함됨)
+    record UploadTarget(String url, Map<String, String> headers) {
+    }
+}
@@ -0,0 +1,353 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 채팅방별 사용자 안 읽은 메시지 수 (chat_read_cursors)
+ * 메시지가 저장될 때마다 상대방 카운터를 메모리에서 올리고, 읽음 처리는 읽은 위치와 남은 수로 덮어쓴다.
+ * 변화량은 (채팅방, 사용자) 해시로 나눈 stripe에 센 메시지 ID로 모았다가 flush-interval-ms마다 JDBC 배치 upsert로 한 번에 반영한다.
+ * 변화량과 읽음 처리는 채팅방 소유 노드 한 곳에만 모인다. (다른 노드에서 저장된 메시지는 소유 노드로 보내고,
+ * 읽음 처리는 ReadReceiptService가 소유 노드로 보낸다) 그래서 늦게 반영된 변화량이 읽음 처리를 덮어쓰지 않는다.
+ * 읽음 처리는 남은 수를 셀 때 포함한 메시지 ID의 상한을 함께 받아, 그 이하의 변화량은 버리고 이후에 도착해도 세지 않는다.
+ * 소유 노드가 바뀌는 동안 이전 소유 노드에 남은 변화량은 DB의 읽음 위치가 그 메시지들보다 앞일 때만 더한다.
+ * 목록 조회 시에는 DB 값에 아직 반영하지 않은 이 노드의 변화량을 더해 보여준다. (다른 노드의 변화량은 다음 반영 이후 보인다)
+ */
+@Slf4j
+@Service
+public class UnreadCounters {
+
+    static final String CLUSTER_MESSAGE_TYPE = "unread-message";
+
+    // 변화량만 더한다 (이미 센 메시지 중 가장 뒤의 것까지 읽었으면 더하지 않음)
+    private static final String ADD_SQL =
+            "INSERT INTO chat_read_cursors (chat_room_id, user_id, last_read_message_id, unread_count, updated_at) " +
+            "VALUES (?, ?, 0, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE unread_count = unread_count + " +
+            "CASE WHEN last_read_message_id < ? THEN VALUES(unread_count) ELSE 0 END, " +
+            "updated_at = VALUES(updated_at)";
+
+    // 읽음 위치가 앞으로 갈 때만 남은 수로 덮어쓴다 (늦게 도착한 이전 위치는 변화량만 더함)
+    // MySQL은 SET 절을 왼쪽부터 적용하므로 last_read_message_id는 unread_count 다음에 갱신한다
+    private static final String READ_SQL =
+            "INSERT INTO chat_read_cursors (chat_room_id, user_id, last_read_message_id, unread_count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "unread_count = CASE WHEN VALUES(last_read_message_id) >= last_read_message_id " +
+            "THEN VALUES(unread_count) ELSE unread_count + ? END, " +
+            "last_read_message_id = GREATEST(last_read_message_id, VALUES(last_read_message_id)), " +
+            "updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomOwnership roomOwnership;
+    private final ClusterTransport clusterTransport;
+    private final ObjectMapper objectMapper;
+    private final Stripe[] stripes;
+    private final long flushIntervalMs;
+    private ScheduledExecutorService flusher;
+
+    // 채팅방별 이 노드가 본 마지막 메시지 ID (읽음 위치가 최신이면 남은 수를 조회하지 않기 위해)
+    private final Cache<Long, Long> latestMessageIds;
+
+    // 마지막 읽음 처리가 남은 수에 포함한 메시지 ID 상한 (그 이하 메시지는 늦게 도착해도 세지 않는다)
+    private final Cache<CursorKey, Long> countedThrough;
+
+    private final LongAdder flushedCount = new LongAdder();
+    private final LongAdder failedFlushCount = new LongAdder();
+
+    record CursorKey(long chatRoomId, long userId) {
+    }
+
+    // 소유 노드로 보내는 저장된 메시지
+    record RelayedMessage(LookupCache.CachedRoom room, Long senderId, long messageId) {
+    }
+
+    // 마지막 반영 이후의 변화 (읽음 처리가 있었으면 그 시점의 남은 수 + 이후에 센 메시지)
+    static final class PendingCursor {
+        final List<Long> unreadIds = new ArrayList<>();
+        Long readMessageId;
+        long unreadAtRead;
+
+        long apply(long base) {
+            return readMessageId != null ? unreadAtRead + unreadIds.size() : base + unreadIds.size();
+        }
+
+        long maxUnreadId() {
+            return unreadIds.stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+
+        // older 다음에 this가 일어난 것으로 합친다 (this에 읽음 처리가 있으면 older의 메시지는 이미 반영되어 있다)
+        void mergeOlder(PendingCursor older) {
+            if (readMessageId == null) {
+                readMessageId = older.readMessageId;
+                unreadAtRead = older.unreadAtRead;
+                unreadIds.addAll(older.unreadIds);
+            }
+        }
+    }
+
+    private static final class Stripe {
+        Map<CursorKey, PendingCursor> pending = new HashMap<>();
+        Map<CursorKey, PendingCursor> flushing = Map.of(); // 반영 중 (커밋 전까지 조회에 포함)
+    }
+
+    public UnreadCounters(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          RoomOwnership roomOwnership,
+                          ClusterTransport clusterTransport,
+                          ObjectMapper objectMapper,
+                          @Value("${chat.unread.stripes:64}") int stripeCount,
+                          @Value("${chat.unread.max-tracked-rooms:100000}") long maxTrackedRooms,
+                          @Value("${chat.unread.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.roomOwnership = roomOwnership;
+        this.clusterTransport = clusterTransport;
+        this.objectMapper = objectMapper;
+        this.flushIntervalMs = flushIntervalMs;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.latestMessageIds = Caffeine.newBuilder()
+                .maximumSize(maxTrackedRooms)
+                .build();
+        // 다른 노드에서 보낸 메시지가 늦게 도착하는 시간보다 충분히 길게 둔다
+        this.countedThrough = Caffeine.newBuilder()
+                .maximumSize(maxTrackedRooms)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        clusterTransport.registerHandler(CLUSTER_MESSAGE_TYPE, this::receive);
+    }
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "unread-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // 저장된 메시지: 발신자가 아닌 참여자의 안 읽은 수 증가 (커밋 후 호출, 소유 노드가 아니면 소유 노드로 보낸다)
+    public void onMessage(LookupCache.CachedRoom room, Long senderId, Long messageId) {
+        if (!roomOwnership.isLocal(room.roomId()) && relay(new RelayedMessage(room, senderId, messageId))) {
+            return;
+        }
+        count(room, senderId, messageId);
+    }
+
+    private void count(LookupCache.CachedRoom room, Long senderId, long messageId) {
+        latestMessageIds.asMap().merge(room.id(), messageId, Math::max);
+        for (Long userId : new Long[]{room.user1Id(), room.user2Id()}) {
+            if (userId != null && !userId.equals(senderId)) {
+                CursorKey key = new CursorKey(room.id(), userId);
+                Stripe stripe = stripeOf(key);
+                synchronized (stripe) {
+                    Long counted = countedThrough.getIfPresent(key);
+                    if (counted != null && messageId <= counted) {
+                        continue; // 읽음 처리가 이미 셌거나 읽은 메시지
+                    }
+                    stripe.pending.computeIfAbsent(key, k -> new PendingCursor()).unreadIds.add(messageId);
+                }
+            }
+        }
+    }
+
+    // 보내지 못하면 (소유 노드와 연결이 끊긴 경우) false를 반환해 이 노드에서 센다
+    private boolean relay(RelayedMessage message) {
+        String owner = roomOwnership.ownerOf(message.room().roomId());
+        try {
+            clusterTransport.send(owner, CLUSTER_MESSAGE_TYPE, message.room().roomId(), objectMapper.writeValueAsBytes(message));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("안 읽은 메시지를 소유 노드로 보내지 못해 직접 셉니다. (roomId={}, owner={})", message.room().roomId(), owner, e);
+            return false;
+        }
+    }
+
+    private void receive(ClusterMessage clusterMessage) {
+        try {
+            RelayedMessage message = objectMapper.readValue(clusterMessage.payload(), RelayedMessage.class);
+            count(message.room(), message.senderId(), message.messageId());
+        } catch (IOException e) {
+            log.warn("다른 노드에서 받은 안 읽은 메시지를 읽지 못했습니다. (roomId={})", clusterMessage.key(), e);
+        }
+    }
+
+    // 이 노드가 본 채팅방의 마지막 메시지 ID (모르면 null)
+    public Long getLatestMessageId(long chatRoomId) {
+        return latestMessageIds.getIfPresent(chatRoomId);
+    }
+
+    // 읽음 처리 (소유 노드에서 호출), 이미 더 뒤까지 읽었으면 false
+    // remaining은 counted(>= messageId) 이하의 메시지 중 안 읽은 수이고, 그보다 뒤에 센 메시지만 변화량으로 남긴다
+    public boolean markRead(long chatRoomId, long userId, long messageId, long remaining, long counted) {
+        CursorKey key = new CursorKey(chatRoomId, userId);
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            PendingCursor cursor = stripe.pending.get(key);
+            PendingCursor flushing = stripe.flushing.get(key);
+            Long lastRead = cursor != null ? cursor.readMessageId : null;
+            if (lastRead == null) {
+                lastRead = flushing != null ? flushing.readMessageId : null;
+            }
+            if (lastRead != null && lastRead >= messageId) {
+                return false;
+            }
+            PendingCursor read = new PendingCursor();
+            read.readMessageId = messageId;
+            read.unreadAtRead = remaining;
+            // 반영 중인 변화량은 읽음 처리가 덮어쓰므로 아직 세지 않은 메시지만 옮겨 온다
+            for (PendingCursor older : new PendingCursor[]{flushing, cursor}) {
+                if (older != null) {
+                    older.unreadIds.stream().filter(id -> id > counted).forEach(read.unreadIds::add);
+                }
+            }
+            stripe.pending.put(key, read);
+            countedThrough.asMap().merge(key, counted, Math::max);
+            return true;
+        }
+    }
+
+    // DB에서 읽은 값에 아직 반영되지 않은 변화량 적용
+    public long overlay(long chatRoomId, long userId, long persisted) {
+        CursorKey key = new CursorKey(chatRoomId, userId);
+        Stripe stripe = stripeOf(key);
+        long value = persisted;
+        synchronized (stripe) {
+            PendingCursor flushing = stripe.flushing.get(key);
+            if (flushing != null) {
+                value = flushing.apply(value);
+            }
+            PendingCursor pending = stripe.pending.get(key);
+            if (pending != null) {
+                value = pending.apply(value);
+            }
+        }
+        return Math.max(0, value);
+    }
+
+    // 모인 변화량을 한 트랜잭션으로 반영, 실패하면 다음 주기에 다시 시도한다
+    public synchronized void flush() {
+        Map<CursorKey, PendingCursor> batch = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (!stripe.pending.isEmpty()) {
+                    stripe.flushing = stripe.pending;
+                    stripe.pending = new HashMap<>();
+                    batch.putAll(stripe.flushing);
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        boolean written = false;
+        try {
+            write(batch);
+            written = true;
+            flushedCount.add(batch.size());
+        } catch (RuntimeException e) {
+            failedFlushCount.increment();
+            log.warn("안 읽은 메시지 수 반영 실패, 다음 주기에 다시 시도합니다. ({}건)", batch.size(), e);
+        }
+
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (!written) {
+                    // 반영 중에 새로 쌓인 변화가 더 나중 것이다
+                    stripe.flushing.forEach((key, older) -> stripe.pending.merge(key, older, (newer, old) -> {
+                        newer.mergeOlder(old);
+                        return newer;
+                    }));
+                }
+                stripe.flushing = Map.of();
+            }
+        }
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.sum();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushCount.sum();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(flushIntervalMs * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    // (채팅방, 사용자) 순서로 반영해 노드 간 교착을 막는다
+    private void write(Map<CursorKey, PendingCursor> batch) {
+        List<Map.Entry<CursorKey, PendingCursor>> entries = new ArrayList<>(batch.entrySet());
+        entries.sort(Map.Entry.comparingByKey(Comparator.comparingLong(CursorKey::chatRoomId)
+                .thenComparingLong(CursorKey::userId)));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> additions = new ArrayList<>();
+        List<Object[]> reads = new ArrayList<>();
+        for (Map.Entry<CursorKey, PendingCursor> entry : entries) {
+            CursorKey key = entry.getKey();
+            PendingCursor cursor = entry.getValue();
+            long unreadDelta = cursor.unreadIds.size();
+            if (cursor.readMessageId == null) {
+                additions.add(new Object[]{key.chatRoomId(), key.userId(), unreadDelta, now, cursor.maxUnreadId()});
+            } else {
+                reads.add(new Object[]{key.chatRoomId(), key.userId(), cursor.readMessageId,
+                        cursor.unreadAtRead + unreadDelta, now, unreadDelta});
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!additions.isEmpty()) {
+                jdbcTemplate.batchUpdate(ADD_SQL, additions);
+            }
+            if (!reads.isEmpty()) {
+                jdbcTemplate.batchUpdate(READ_SQL, reads);
+            }
+        });
+    }
+
+    private Stripe stripeOf(CursorKey key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+}
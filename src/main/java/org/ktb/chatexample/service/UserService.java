@@ -1,17 +1,25 @@
 package org.ktb.chatexample.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.ktb.chatexample.dto.UserDto;
 import org.ktb.chatexample.dto.UserResponseDto;
 import org.ktb.chatexample.entity.User;
 import org.ktb.chatexample.repository.UserRepository;
+import org.ktb.chatexample.util.NdjsonWriter;
+import org.ktb.chatexample.util.TransactionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +27,9 @@ import java.util.stream.Collectors;
 public class UserService {
     
     private final UserRepository userRepository;
+    private final LookupCache lookupCache;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
     
     // 모든 사용자 조회
     @Transactional(readOnly = true)
@@ -28,6 +39,21 @@ public class UserService {
                 .collect(Collectors.toList());
     }
     
+    // 모든 사용자 NDJSON 내보내기 (한 행씩 읽고 쓰며 영속성 컨텍스트에서 분리해 메모리 사용량을 일정하게 유지)
+    @Transactional(readOnly = true)
+    public void exportUsers(OutputStream outputStream) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+        try (Stream<User> users = userRepository.streamAll()) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                writer.write(convertToResponseDto(user));
+                entityManager.detach(user);
+            }
+        }
+        writer.flush();
+    }
+    
     // 사용자 ID로 조회
     @Transactional(readOnly = true)
     public UserResponseDto getUserById(Long id) {
@@ -91,6 +117,7 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        TransactionUtils.runAfterCommit(() -> lookupCache.evictUser(id));
         return convertToResponseDto(updatedUser);
     }
     
@@ -100,6 +127,7 @@ public class UserService {
             throw new EntityNotFoundException("사용자를 찾을 수 없습니다. ID: " + id);
         }
         userRepository.deleteById(id);
+        TransactionUtils.runAfterCommit(() -> lookupCache.evictUser(id));
     }
     
     // User 엔티티를 UserResponseDto로 변환
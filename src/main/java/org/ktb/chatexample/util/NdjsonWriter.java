@@ -0,0 +1,30 @@
+package org.ktb.chatexample.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 한 줄에 JSON 객체 하나씩 쓰는 NDJSON(application/x-ndjson) 출력기
+ * 출력 스트림은 닫지 않는다.
+ */
+public class NdjsonWriter {
+
+    private final ObjectMapper objectMapper;
+    private final OutputStream outputStream;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+        this.objectMapper = objectMapper;
+        this.outputStream = outputStream;
+    }
+
+    public void write(Object value) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(value));
+        outputStream.write('\n');
+    }
+
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+}
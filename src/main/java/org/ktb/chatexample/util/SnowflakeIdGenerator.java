@@ -0,0 +1,77 @@
+package org.ktb.chatexample.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake 방식의 64비트 ID 생성기
+ * [1bit 부호][41bit 타임스탬프(ms, epoch 기준)][10bit 노드 ID][12bit 시퀀스]
+ *
+ * 마지막 타임스탬프와 시퀀스를 하나의 AtomicLong에 담아 CAS로 갱신하므로 락이 없다.
+ * 같은 ms 안에서 시퀀스를 모두 쓰거나 시계가 뒤로 가면 논리 시각을 1ms씩 앞당겨
+ * 노드 내에서는 항상 단조 증가하는 ID를 보장한다.
+ */
+public class SnowflakeIdGenerator {
+
+    public static final long DEFAULT_EPOCH = 1735689600000L; // 2025-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final long epoch;
+    private final LongSupplier clock;
+
+    // (마지막 타임스탬프 << SEQUENCE_BITS) | 시퀀스
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, DEFAULT_EPOCH, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long nodeId, long epoch, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("노드 ID는 0-" + MAX_NODE_ID + " 사이여야 합니다: " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.epoch = epoch;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = Math.max(0, clock.getAsLong() - epoch);
+
+            // 새 ms면 시퀀스 0부터, 아니면 +1 (시퀀스가 넘치면 타임스탬프 자리로 올림되어 다음 ms가 된다)
+            long next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    // ID에 기록된 생성 시각 (epoch millis)
+    public long extractTimestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + epoch;
+    }
+
+    public static long extractNodeId(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    public static long extractSequence(long id) {
+        return id & SEQUENCE_MASK;
+    }
+}
@@ -0,0 +1,245 @@
+package org.ktb.chatexample.websocket;
+
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.UploadStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * ChatMessageDto 전용 바이너리 인코딩
+ * [version(1)][필드 플래그(varint)] 뒤에 값이 있는 필드만 정해진 순서로 쓴다.
+ * - id: 8바이트 고정, senderId: zigzag varint
+ * - roomId: UUID 형식이면 16바이트, 아니면 문자열
+ * - 문자열: 길이(varint) + UTF-8
+ * - type, uploadStatus: enum ordinal 1바이트 (새 값은 enum 끝에만 추가해야 한다)
+ * - createdAt: 1970-01-01T00:00 기준 마이크로초 (varint, 시간대 변환 없이 LocalDateTime 값 그대로)
+ */
+public final class ChatMessageBinaryCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int ID = 1;
+    private static final int ROOM_ID = 1 << 1;
+    private static final int ROOM_UUID = 1 << 2;
+    private static final int SENDER_ID = 1 << 3;
+    private static final int SENDER_NAME = 1 << 4;
+    private static final int CONTENT = 1 << 5;
+    private static final int IMAGE_URL = 1 << 6;
+    private static final int TYPE = 1 << 7;
+    private static final int CREATED_AT = 1 << 8;
+    private static final int UPLOAD_STATUS = 1 << 9;
+    private static final int THUMBNAIL_URL = 1 << 10;
+    private static final int PREVIEW_URL = 1 << 11;
+
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final UploadStatus[] UPLOAD_STATUSES = UploadStatus.values();
+
+    private ChatMessageBinaryCodec() {
+    }
+
+    public static byte[] encode(ChatMessageDto message) {
+        UUID roomUuid = parseUuid(message.getRoomId());
+        int flags = (message.getId() != null ? ID : 0)
+                | (roomUuid != null ? ROOM_UUID : message.getRoomId() != null ? ROOM_ID : 0)
+                | (message.getSenderId() != null ? SENDER_ID : 0)
+                | (message.getSenderName() != null ? SENDER_NAME : 0)
+                | (message.getContent() != null ? CONTENT : 0)
+                | (message.getImageUrl() != null ? IMAGE_URL : 0)
+                | (message.getType() != null ? TYPE : 0)
+                | (message.getCreatedAt() != null ? CREATED_AT : 0)
+                | (message.getUploadStatus() != null ? UPLOAD_STATUS : 0)
+                | (message.getThumbnailUrl() != null ? THUMBNAIL_URL : 0)
+                | (message.getPreviewUrl() != null ? PREVIEW_URL : 0);
+
+        Writer out = new Writer(64 + length(message.getContent()) + length(message.getImageUrl())
+                + length(message.getThumbnailUrl()) + length(message.getPreviewUrl()));
+        out.write(VERSION);
+        out.writeVarLong(flags);
+        if ((flags & ID) != 0) {
+            out.writeLong(message.getId());
+        }
+        if ((flags & ROOM_UUID) != 0) {
+            out.writeLong(roomUuid.getMostSignificantBits());
+            out.writeLong(roomUuid.getLeastSignificantBits());
+        } else if ((flags & ROOM_ID) != 0) {
+            out.writeString(message.getRoomId());
+        }
+        if ((flags & SENDER_ID) != 0) {
+            out.writeVarLong(zigZag(message.getSenderId()));
+        }
+        if ((flags & SENDER_NAME) != 0) {
+            out.writeString(message.getSenderName());
+        }
+        if ((flags & CONTENT) != 0) {
+            out.writeString(message.getContent());
+        }
+        if ((flags & IMAGE_URL) != 0) {
+            out.writeString(message.getImageUrl());
+        }
+        if ((flags & TYPE) != 0) {
+            out.write(message.getType().ordinal());
+        }
+        if ((flags & CREATED_AT) != 0) {
+            out.writeVarLong(zigZag(toEpochMicros(message.getCreatedAt())));
+        }
+        if ((flags & UPLOAD_STATUS) != 0) {
+            out.write(message.getUploadStatus().ordinal());
+        }
+        if ((flags & THUMBNAIL_URL) != 0) {
+            out.writeString(message.getThumbnailUrl());
+        }
+        if ((flags & PREVIEW_URL) != 0) {
+            out.writeString(message.getPreviewUrl());
+        }
+        return out.toByteArray();
+    }
+
+    public static ChatMessageDto decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("지원하지 않는 메시지 인코딩 버전입니다: " + version);
+            }
+            long flags = readVarLong(in);
+
+            ChatMessageDto message = new ChatMessageDto();
+            if ((flags & ID) != 0) {
+                message.setId(in.getLong());
+            }
+            if ((flags & ROOM_UUID) != 0) {
+                message.setRoomId(new UUID(in.getLong(), in.getLong()).toString());
+            } else if ((flags & ROOM_ID) != 0) {
+                message.setRoomId(readString(in));
+            }
+            if ((flags & SENDER_ID) != 0) {
+                message.setSenderId(unZigZag(readVarLong(in)));
+            }
+            if ((flags & SENDER_NAME) != 0) {
+                message.setSenderName(readString(in));
+            }
+            if ((flags & CONTENT) != 0) {
+                message.setContent(readString(in));
+            }
+            if ((flags & IMAGE_URL) != 0) {
+                message.setImageUrl(readString(in));
+            }
+            if ((flags & TYPE) != 0) {
+                message.setType(readEnum(in, MESSAGE_TYPES));
+            }
+            if ((flags & CREATED_AT) != 0) {
+                message.setCreatedAt(fromEpochMicros(unZigZag(readVarLong(in))));
+            }
+            if ((flags & UPLOAD_STATUS) != 0) {
+                message.setUploadStatus(readEnum(in, UPLOAD_STATUSES));
+            }
+            if ((flags & THUMBNAIL_URL) != 0) {
+                message.setThumbnailUrl(readString(in));
+            }
+            if ((flags & PREVIEW_URL) != 0) {
+                message.setPreviewUrl(readString(in));
+            }
+            return message;
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IllegalArgumentException("잘린 메시지입니다.", e);
+        }
+    }
+
+    // 정규 형식(소문자 36자)일 때만 16바이트로 줄인다 (디코딩 결과가 원래 문자열과 같도록)
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), dateTime);
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() * 3 : 0;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] values) {
+        int ordinal = in.get() & 0xff;
+        if (ordinal >= values.length) {
+            throw new IllegalArgumentException("알 수 없는 " + values.getClass().getComponentType().getSimpleName() + " 값입니다: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("잘못된 varint입니다.");
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("잘못된 문자열 길이입니다: " + length);
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), (int) length, StandardCharsets.UTF_8);
+        in.position(in.position() + (int) length);
+        return value;
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer(int size) {
+            super(size);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.ktb.chatexample.websocket;
+
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * content-type이 application/octet-stream인 STOMP 프레임과 ChatMessageDto를 변환 (ChatMessageBinaryCodec 형식)
+ * content-type이 명시된 경우에만 사용되므로 헤더가 없는 프레임은 기존처럼 JSON으로 처리된다.
+ * WebSocket에서는 octet-stream 프레임이 바이너리 프레임으로 전송된다. (SockJS는 텍스트만 지원하므로 사용하지 않는다)
+ */
+public class ChatMessageBinaryMessageConverter extends AbstractMessageConverter {
+
+    public ChatMessageBinaryMessageConverter() {
+        super(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ChatMessageDto.class == clazz;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        return message.getPayload() instanceof byte[] bytes ? ChatMessageBinaryCodec.decode(bytes) : null;
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return ChatMessageBinaryCodec.encode((ChatMessageDto) payload);
+    }
+}
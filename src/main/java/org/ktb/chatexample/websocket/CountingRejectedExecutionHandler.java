@@ -0,0 +1,42 @@
+package org.ktb.chatexample.websocket;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 거부된 작업 수를 세는 RejectedExecutionHandler
+ * discard가 true면 조용히 버리고, false면 RejectedExecutionException으로 호출자에게 알린다.
+ * onRejected는 거부된 작업마다 호출된다. (버린 작업에 대해 잡아 둔 자원을 돌려놓는 용도)
+ */
+public class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+
+    private final boolean discard;
+    private final Consumer<Runnable> onRejected;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public CountingRejectedExecutionHandler(boolean discard) {
+        this(discard, task -> {
+        });
+    }
+
+    public CountingRejectedExecutionHandler(boolean discard, Consumer<Runnable> onRejected) {
+        this.discard = discard;
+        this.onRejected = onRejected;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        rejectedCount.increment();
+        onRejected.accept(task);
+        if (!discard) {
+            throw new RejectedExecutionException("작업 대기열이 가득 찼습니다. (" + executor + ")");
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -0,0 +1,109 @@
+package org.ktb.chatexample.websocket;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * WebSocket 핸드셰이크의 permessage-deflate 제안을 서버 설정에 맞게 고친다.
+ * Tomcat은 클라이언트가 보낸 Sec-WebSocket-Extensions 헤더를 그대로 협상에 쓰므로 (Spring의 확장 필터링 결과는 반영되지 않음)
+ * 헤더 단계에서 제안을 제거하거나 *_no_context_takeover 파라미터를 추가한다.
+ * - enabled=false: permessage-deflate 제안 제거 (압축하지 않음)
+ * - server-context-takeover=false: 서버가 메시지마다 압축 사전을 초기화 (세션별 압축 상태 메모리 절약, 압축률 감소)
+ * - client-context-takeover=false: 클라이언트에게도 메시지마다 초기화하도록 요구 (서버의 압축 해제 상태 메모리 절약)
+ */
+public class PerMessageDeflateFilter extends OncePerRequestFilter {
+
+    static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final boolean enabled;
+    private final boolean serverContextTakeover;
+    private final boolean clientContextTakeover;
+
+    public PerMessageDeflateFilter(boolean enabled, boolean serverContextTakeover, boolean clientContextTakeover) {
+        this.enabled = enabled;
+        this.serverContextTakeover = serverContextTakeover;
+        this.clientContextTakeover = clientContextTakeover;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"websocket".equalsIgnoreCase(request.getHeader("Upgrade"))
+                || request.getHeader(EXTENSIONS_HEADER) == null
+                || (enabled && serverContextTakeover && clientContextTakeover);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        List<String> offers = rewrite(Collections.list(request.getHeaders(EXTENSIONS_HEADER)));
+        filterChain.doFilter(new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+                if (!EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                    return super.getHeader(name);
+                }
+                return offers.isEmpty() ? null : String.join(", ", offers);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                if (!EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                    return super.getHeaders(name);
+                }
+                return Collections.enumeration(offers.isEmpty() ? List.of() : List.of(String.join(", ", offers)));
+            }
+        }, response);
+    }
+
+    // 헤더 값들을 확장 제안 단위(쉼표)로 나눠 permessage-deflate 제안만 고친다
+    List<String> rewrite(List<String> headerValues) {
+        List<String> offers = new ArrayList<>();
+        for (String headerValue : headerValues) {
+            for (String offer : headerValue.split(",")) {
+                String trimmed = offer.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (!isPermessageDeflate(trimmed)) {
+                    offers.add(trimmed);
+                } else if (enabled) {
+                    offers.add(withParameters(trimmed));
+                }
+            }
+        }
+        return offers;
+    }
+
+    private static boolean isPermessageDeflate(String offer) {
+        int end = offer.indexOf(';');
+        String name = (end >= 0 ? offer.substring(0, end) : offer).trim();
+        return PERMESSAGE_DEFLATE.equalsIgnoreCase(name);
+    }
+
+    // 같은 파라미터가 두 번 들어가면 협상이 실패하므로 없을 때만 추가
+    private String withParameters(String offer) {
+        String lower = offer.toLowerCase(Locale.ROOT);
+        StringBuilder result = new StringBuilder(offer);
+        if (!serverContextTakeover && !lower.contains(SERVER_NO_CONTEXT_TAKEOVER)) {
+            result.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (!clientContextTakeover && !lower.contains(CLIENT_NO_CONTEXT_TAKEOVER)) {
+            result.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,8 @@
+package org.ktb.chatexample.websocket;
+
+// 전송 대기 프레임이 한도(max-pending-frames)를 넘은 세션에 대한 처리
+public enum SlowConsumerPolicy {
+    DROP,       // 중요하지 않은 프레임은 버린다
+    COALESCE,   // 중요하지 않은 프레임은 destination별 최신 것만 남겼다가 대기열이 줄면 보낸다
+    DISCONNECT  // 연결을 끊는다
+}
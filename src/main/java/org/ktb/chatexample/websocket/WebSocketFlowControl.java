@@ -0,0 +1,290 @@
+package org.ktb.chatexample.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ktb.chatexample.dto.WebSocketStatsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket 세션별 전송 대기열 관리 (느린 클라이언트 보호)
+ * clientOutboundChannel에 들어온 프레임 수와 실제 소켓에 쓴 프레임 수의 차이로 세션별 대기 프레임을 센다.
+ * (채널 작업 대기열 + ConcurrentWebSocketSessionDecorator 버퍼 + 쓰는 중인 프레임)
+ * 채널 대기열이 가득 차 버려진 프레임은 소켓에 쓰이지 않으므로 거부 처리기에서 뺀다.
+ * 대기 프레임이 max-pending-frames 이상이면 정책(DROP/COALESCE/DISCONNECT)을 적용하고,
+ * hard-max-pending-frames 이상이면 정책과 관계없이 연결을 끊는다.
+ * 바이트 기준 상한은 send-buffer-size-limit / send-time-limit(WebSocketConfig)이 맡는다.
+ */
+@Slf4j
+@Component
+public class WebSocketFlowControl implements ChannelInterceptor {
+
+    private static final int MAX_REPORTED_SESSIONS = 20;
+
+    private final SlowConsumerPolicy policy;
+    private final int maxPendingFrames;
+    private final int hardMaxPendingFrames;
+    private final List<String> nonEssentialDestinations;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder disconnectCount = new LongAdder();
+
+    private final CountingRejectedExecutionHandler inboundRejectionHandler = new CountingRejectedExecutionHandler(false);
+    private final CountingRejectedExecutionHandler outboundRejectionHandler =
+            new CountingRejectedExecutionHandler(true, this::onOutboundRejected);
+
+    public WebSocketFlowControl(
+            @Value("${chat.websocket.slow-consumer.policy:DROP}") SlowConsumerPolicy policy,
+            @Value("${chat.websocket.slow-consumer.max-pending-frames:256}") int maxPendingFrames,
+            @Value("${chat.websocket.slow-consumer.hard-max-pending-frames:1024}") int hardMaxPendingFrames,
+            @Value("${chat.websocket.slow-consumer.non-essential-destinations:/topic/chat/*/presence,/topic/chat/*/typing,/topic/chat/*/read}")
+            List<String> nonEssentialDestinations) {
+        this.policy = policy;
+        this.maxPendingFrames = maxPendingFrames;
+        this.hardMaxPendingFrames = Math.max(maxPendingFrames, hardMaxPendingFrames);
+        this.nonEssentialDestinations = List.copyOf(nonEssentialDestinations);
+    }
+
+    // 입력 채널은 거부 시 예외로 알리고, 출력 채널은 조용히 버린다 (둘 다 수를 센다)
+    public CountingRejectedExecutionHandler getInboundRejectionHandler() {
+        return inboundRejectionHandler;
+    }
+
+    public CountingRejectedExecutionHandler getOutboundRejectionHandler() {
+        return outboundRejectionHandler;
+    }
+
+    // 세션 등록과 소켓에 쓴 프레임 집계를 위한 WebSocketHandler 데코레이터
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(new CountingSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state == null) {
+            return message;
+        }
+
+        int pending = state.pendingFrames.get();
+        if (pending >= hardMaxPendingFrames) {
+            disconnect(state, pending);
+            return null;
+        }
+        if (pending >= maxPendingFrames) {
+            switch (policy) {
+                case DROP -> {
+                    if (!isEssential(message)) {
+                        state.droppedFrames.increment();
+                        droppedCount.increment();
+                        return null;
+                    }
+                }
+                case COALESCE -> {
+                    if (!isEssential(message)) {
+                        state.coalesce(message, channel);
+                        coalescedCount.increment();
+                        return null;
+                    }
+                }
+                case DISCONNECT -> {
+                    disconnect(state, pending);
+                    return null;
+                }
+            }
+        }
+
+        state.pendingFrames.incrementAndGet();
+        state.pendingBytes.addAndGet(payloadLength(message));
+        return message;
+    }
+
+    // 출력 채널 대기열이 가득 차 버려진 프레임 (preSend에서 센 대기 프레임을 되돌린다)
+    private void onOutboundRejected(Runnable task) {
+        if (!(task instanceof MessageHandlingRunnable runnable)) {
+            return;
+        }
+        Message<?> message = runnable.getMessage();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state != null) {
+            state.onWritten(payloadLength(message));
+        }
+    }
+
+    public WebSocketStatsDto getStats() {
+        List<SessionState> states = new ArrayList<>(sessions.values());
+        long pendingFrames = states.stream().mapToLong(state -> state.pendingFrames.get()).sum();
+
+        List<WebSocketStatsDto.SessionQueueDto> slowest = states.stream()
+                .map(SessionState::toDto)
+                .sorted(Comparator.comparingInt(WebSocketStatsDto.SessionQueueDto::getPendingFrames).reversed())
+                .limit(MAX_REPORTED_SESSIONS)
+                .toList();
+
+        return WebSocketStatsDto.builder()
+                .sessions(states.size())
+                .pendingFrames(pendingFrames)
+                .droppedFrames(droppedCount.sum())
+                .coalescedFrames(coalescedCount.sum())
+                .slowConsumerDisconnects(disconnectCount.sum())
+                .inboundRejected(inboundRejectionHandler.getRejectedCount())
+                .outboundRejected(outboundRejectionHandler.getRejectedCount())
+                .slowestSessions(slowest)
+                .build();
+    }
+
+    // 연결/수신 확인, 오류 프레임과 채팅 메시지는 버리지 않는다
+    private boolean isEssential(Message<?> message) {
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (messageType == SimpMessageType.HEARTBEAT) {
+            return false;
+        }
+        if (messageType != SimpMessageType.MESSAGE) {
+            return true;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return true;
+        }
+        for (String pattern : nonEssentialDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 끊는 동안 쓰기가 막혀 있을 수 있으므로 호출 스레드를 잡지 않도록 별도 스레드에서 닫는다
+    private void disconnect(SessionState state, int pending) {
+        if (!state.disconnecting.compareAndSet(false, true)) {
+            return;
+        }
+        disconnectCount.increment();
+        log.warn("느린 WebSocket 세션 연결 종료 (sessionId={}, pendingFrames={}, pendingBytes={})",
+                state.session.getId(), pending, state.pendingBytes.get());
+        Thread.ofVirtual().name("ws-slow-consumer-close").start(() -> {
+            try {
+                state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("WebSocket 세션 종료 실패 (sessionId={})", state.session.getId(), e);
+            }
+        });
+    }
+
+    private static int payloadLength(Message<?> message) {
+        return message.getPayload() instanceof byte[] bytes ? bytes.length : 0;
+    }
+
+    private final class SessionState {
+
+        private final WebSocketSession session;
+        private final AtomicInteger pendingFrames = new AtomicInteger();
+        private final AtomicLong pendingBytes = new AtomicLong();
+        private final LongAdder droppedFrames = new LongAdder();
+        private final LongAdder coalescedFrames = new LongAdder();
+        private final AtomicBoolean disconnecting = new AtomicBoolean();
+
+        // destination -> 가장 최근의 보류된 프레임
+        private final Map<String, Message<?>> coalesced = new ConcurrentHashMap<>();
+        private volatile MessageChannel channel;
+
+        SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void coalesce(Message<?> message, MessageChannel outboundChannel) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            channel = outboundChannel;
+            coalesced.put(destination != null ? destination : "", message);
+            coalescedFrames.increment();
+        }
+
+        // 소켓에 프레임을 쓴 뒤(또는 버려진 뒤) 호출 (채널을 거치지 않은 오류 프레임 등은 0 아래로 내려가지 않게 한다)
+        void onWritten(int payloadLength) {
+            int pending = pendingFrames.updateAndGet(value -> Math.max(0, value - 1));
+            pendingBytes.updateAndGet(value -> Math.max(0, value - payloadLength));
+
+            // 대기열이 충분히 줄면 보류해 둔 최신 프레임을 보낸다 (다시 밀리면 preSend에서 또 합쳐진다)
+            if (pending <= maxPendingFrames / 2 && !coalesced.isEmpty() && channel != null) {
+                for (String destination : List.copyOf(coalesced.keySet())) {
+                    Message<?> message = coalesced.remove(destination);
+                    if (message != null) {
+                        channel.send(message);
+                    }
+                }
+            }
+        }
+
+        WebSocketStatsDto.SessionQueueDto toDto() {
+            return WebSocketStatsDto.SessionQueueDto.builder()
+                    .sessionId(session.getId())
+                    .pendingFrames(pendingFrames.get())
+                    .pendingBytes(pendingBytes.get())
+                    .droppedFrames(droppedFrames.sum())
+                    .coalescedFrames(coalescedFrames.sum())
+                    .build();
+        }
+    }
+
+    // 실제 소켓에 쓴 프레임을 집계하는 세션 래퍼 (Spring의 ConcurrentWebSocketSessionDecorator 안쪽에 위치)
+    private static final class CountingSession extends WebSocketSessionDecorator {
+
+        private final SessionState state;
+
+        CountingSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.onWritten(message.getPayloadLength());
+            }
+        }
+    }
+}
@@ -1,11 +1,26 @@
 package org.ktb.chatexample;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
 
 @SpringBootTest
 class ChatExampleApplicationTests {
 
+    // 기동 시 만들어지는 파일은 체크아웃이 아닌 테스트 임시 디렉터리에 둔다
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataFiles(DynamicPropertyRegistry registry) {
+        registry.add("chat.upload.hash-index.file", () -> dataDir.resolve("upload-hash-index.log").toString());
+        registry.add("chat.write-behind.dead-letter-file", () -> dataDir.resolve("dead-letter.ndjson").toString());
+    }
+
     @Test
     void contextLoads() {
     }
@@ -0,0 +1,185 @@
+package org.ktb.chatexample.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClusterTransportTest {
+
+    private static final String TYPE = "test";
+    private static final String SECRET = "cluster-secret";
+
+    private final List<ClusterTransport> transports = new ArrayList<>();
+    private final Map<String, BlockingQueue<ClusterMessage>> received = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void tearDown() {
+        transports.forEach(ClusterTransport::close);
+    }
+
+    @Test
+    void loopbackPublishReachesEveryOtherNode() throws Exception {
+        LoopbackClusterTransport.Hub hub = new LoopbackClusterTransport.Hub();
+        ClusterTransport a = register(new LoopbackClusterTransport("a", hub));
+        register(new LoopbackClusterTransport("b", hub));
+        register(new LoopbackClusterTransport("c", hub));
+
+        a.publish(TYPE, "room-1", bytes("hello"));
+
+        assertReceived("b", "a", "room-1", "hello");
+        assertReceived("c", "a", "room-1", "hello");
+        assertThat(received.get("a").poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(a.getPeerNodeIds()).containsExactlyInAnyOrder("b", "c");
+    }
+
+    @Test
+    void loopbackSendReachesOnlyTarget() throws Exception {
+        LoopbackClusterTransport.Hub hub = new LoopbackClusterTransport.Hub();
+        ClusterTransport a = register(new LoopbackClusterTransport("a", hub));
+        register(new LoopbackClusterTransport("b", hub));
+        register(new LoopbackClusterTransport("c", hub));
+
+        a.send("c", TYPE, "room-1", bytes("direct"));
+
+        assertReceived("c", "a", "room-1", "direct");
+        assertThat(received.get("b").poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThatThrownBy(() -> a.send("unknown", TYPE, "room-1", bytes("x")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tcpPublishReachesEveryOtherNode() throws Exception {
+        List<TcpClusterTransport> nodes = startTcpCluster("a", "b", "c");
+
+        nodes.get(0).publish(TYPE, "room-1", bytes("안녕하세요"));
+        nodes.get(1).send("c", TYPE, "room-2", bytes("direct"));
+
+        assertReceived("b", "a", "room-1", "안녕하세요");
+        assertReceived("c", "a", "room-1", "안녕하세요");
+        assertReceived("c", "b", "room-2", "direct");
+        assertThat(received.get("a").poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void tcpPreservesOrderPerSender() throws Exception {
+        List<TcpClusterTransport> nodes = startTcpCluster("a", "b");
+        int count = 10_000;
+
+        for (int i = 0; i < count; i++) {
+            nodes.get(0).publish(TYPE, "room-1", bytes(Integer.toString(i)));
+        }
+
+        for (int i = 0; i < count; i++) {
+            ClusterMessage message = received.get("b").poll(5, TimeUnit.SECONDS);
+            assertThat(message).isNotNull();
+            assertThat(new String(message.payload(), StandardCharsets.UTF_8)).isEqualTo(Integer.toString(i));
+        }
+        assertThat(nodes.get(0).getDroppedCount()).isZero();
+    }
+
+    @Test
+    void tcpRejectsNodesWithWrongSecretOrUnknownId() throws Exception {
+        TcpClusterTransport a = startTcp("a", SECRET);
+        TcpClusterTransport wrongSecret = startTcp("b", "guess");
+        TcpClusterTransport unknown = startTcp("c", SECRET);
+        a.addPeer("b", new InetSocketAddress("127.0.0.1", wrongSecret.getLocalPort()));
+        InetSocketAddress aAddress = new InetSocketAddress("127.0.0.1", a.getLocalPort());
+        wrongSecret.addPeer("a", aAddress);
+        unknown.addPeer("a", aAddress); // a는 c를 노드로 등록하지 않았다
+
+        wrongSecret.send("a", TYPE, "room-1", bytes("forged"));
+        unknown.send("a", TYPE, "room-1", bytes("forged"));
+
+        waitUntil(() -> a.getRejectedCount() >= 2);
+        assertThat(received.get("a").poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(wrongSecret.getPeerNodeIds()).isEmpty();
+        assertThat(unknown.getPeerNodeIds()).isEmpty();
+        assertThatThrownBy(() -> new TcpClusterTransport("d", new InetSocketAddress("127.0.0.1", 0), 10, " "))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // 시간 측정이므로 기본 test 작업에서는 제외 (./gradlew perfTest)
+    @Test
+    @Tag("perf")
+    void tcpDeliveryLatency() throws Exception {
+        List<TcpClusterTransport> nodes = startTcpCluster("a", "b");
+        int warmup = 1_000;
+        int samples = 2_000;
+        long[] latencies = new long[samples];
+
+        for (int i = 0; i < warmup + samples; i++) {
+            long sentAt = System.nanoTime();
+            nodes.get(0).send("b", TYPE, "room-1", bytes("ping"));
+            ClusterMessage message = received.get("b").poll(5, TimeUnit.SECONDS);
+            assertThat(message).isNotNull();
+            if (i >= warmup) {
+                latencies[i - warmup] = System.nanoTime() - sentAt;
+            }
+        }
+
+        Arrays.sort(latencies);
+        assertThat(latencies[samples / 2]).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    private List<TcpClusterTransport> startTcpCluster(String... nodeIds) throws Exception {
+        List<TcpClusterTransport> nodes = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            nodes.add(startTcp(nodeId, SECRET));
+        }
+        for (TcpClusterTransport node : nodes) {
+            for (TcpClusterTransport other : nodes) {
+                node.addPeer(other.getLocalNodeId(), new InetSocketAddress("127.0.0.1", other.getLocalPort()));
+            }
+        }
+        return nodes;
+    }
+
+    private TcpClusterTransport startTcp(String nodeId, String secret) throws Exception {
+        TcpClusterTransport node = new TcpClusterTransport(nodeId, new InetSocketAddress("127.0.0.1", 0), 100_000, secret);
+        node.start();
+        return register(node);
+    }
+
+    private <T extends ClusterTransport> T register(T transport) {
+        BlockingQueue<ClusterMessage> queue = new LinkedBlockingQueue<>();
+        received.put(transport.getLocalNodeId(), queue);
+        transport.registerHandler(TYPE, queue::add);
+        transports.add(transport);
+        return transport;
+    }
+
+    private void assertReceived(String nodeId, String from, String key, String payload) throws InterruptedException {
+        ClusterMessage message = received.get(nodeId).poll(5, TimeUnit.SECONDS);
+        assertThat(message).isNotNull();
+        assertThat(message.sourceNodeId()).isEqualTo(from);
+        assertThat(message.key()).isEqualTo(key);
+        assertThat(new String(message.payload(), StandardCharsets.UTF_8)).isEqualTo(payload);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("조건을 기다리다 시간 초과").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
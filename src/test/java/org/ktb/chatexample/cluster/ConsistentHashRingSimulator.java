@@ -0,0 +1,119 @@
+package org.ktb.chatexample.cluster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * 일관된 해시 링의 키 분포와 노드 변경 시 이동하는 키 수를 계산하는 시뮬레이터
+ * main으로 실행하면 노드 추가/제거 시나리오 결과를 출력한다.
+ */
+public class ConsistentHashRingSimulator {
+
+    record Distribution(Map<String, Integer> keysPerNode, double mean, int min, int max, double stddev) {
+
+        double maxToMean() {
+            return max / mean;
+        }
+
+        double minToMean() {
+            return min / mean;
+        }
+    }
+
+    record Movement(String change, int movedKeys, int totalKeys, double idealRatio, boolean onlyChangedNodeInvolved) {
+
+        double movedRatio() {
+            return (double) movedKeys / totalKeys;
+        }
+    }
+
+    // 채팅방 roomId와 같은 형식(UUID)의 키 생성
+    static List<String> roomIds(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(new UUID(random.nextLong(), random.nextLong()).toString());
+        }
+        return keys;
+    }
+
+    static Map<String, String> assign(ConsistentHashRing ring, List<String> keys) {
+        Map<String, String> assignment = new HashMap<>(keys.size() * 2);
+        for (String key : keys) {
+            assignment.put(key, ring.getNode(key));
+        }
+        return assignment;
+    }
+
+    static Distribution distribution(Map<String, String> assignment, Set<String> nodes) {
+        Map<String, Integer> counts = new TreeMap<>();
+        nodes.forEach(node -> counts.put(node, 0));
+        assignment.values().forEach(node -> counts.merge(node, 1, Integer::sum));
+
+        double mean = (double) assignment.size() / nodes.size();
+        double variance = counts.values().stream().mapToDouble(count -> (count - mean) * (count - mean)).sum() / nodes.size();
+        int min = counts.values().stream().mapToInt(Integer::intValue).min().orElse(0);
+        int max = counts.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        return new Distribution(counts, mean, min, max, Math.sqrt(variance));
+    }
+
+    // 노드 하나가 추가/제거되었을 때 담당 노드가 바뀐 키 수 (이상적으로는 추가 시 1/(N+1), 제거 시 1/N)
+    static Movement movement(String change, Map<String, String> before, Map<String, String> after,
+                             String changedNode, int nodesAfter, boolean added) {
+        int moved = 0;
+        boolean onlyChangedNodeInvolved = true;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String oldOwner = entry.getValue();
+            String newOwner = after.get(entry.getKey());
+            if (!oldOwner.equals(newOwner)) {
+                moved++;
+                String involved = added ? newOwner : oldOwner;
+                onlyChangedNodeInvolved &= involved.equals(changedNode);
+            }
+        }
+        double idealRatio = added ? 1.0 / nodesAfter : 1.0 / (nodesAfter + 1);
+        return new Movement(change, moved, before.size(), idealRatio, onlyChangedNodeInvolved);
+    }
+
+    public static void main(String[] args) {
+        int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int virtualNodes = args.length > 1 ? Integer.parseInt(args[1]) : ConsistentHashRing.DEFAULT_VIRTUAL_NODES;
+        List<String> keys = roomIds(keyCount, 42);
+
+        ConsistentHashRing ring = new ConsistentHashRing(virtualNodes);
+        for (int i = 0; i < 4; i++) {
+            ring.addNode("node-" + i);
+        }
+        Map<String, String> assignment = assign(ring, keys);
+        print(distribution(assignment, ring.getNodes()));
+
+        String[][] changes = {{"add", "node-4"}, {"add", "node-5"}, {"remove", "node-1"}, {"remove", "node-4"}};
+        for (String[] change : changes) {
+            boolean added = change[0].equals("add");
+            if (added) {
+                ring.addNode(change[1]);
+            } else {
+                ring.removeNode(change[1]);
+            }
+            Map<String, String> next = assign(ring, keys);
+            Movement movement = movement(change[0] + " " + change[1], assignment, next, change[1], ring.getNodes().size(), added);
+            System.out.printf("%-16s moved=%d (%.2f%%, ideal %.2f%%), only %s involved=%s%n",
+                    movement.change(), movement.movedKeys(), movement.movedRatio() * 100, movement.idealRatio() * 100,
+                    change[1], movement.onlyChangedNodeInvolved());
+            print(distribution(next, ring.getNodes()));
+            assignment = next;
+        }
+    }
+
+    private static void print(Distribution distribution) {
+        System.out.printf("  keys per node %s, max/mean=%.3f, min/mean=%.3f, stddev/mean=%.3f%n",
+                distribution.keysPerNode(), distribution.maxToMean(), distribution.minToMean(),
+                distribution.stddev() / distribution.mean());
+    }
+}
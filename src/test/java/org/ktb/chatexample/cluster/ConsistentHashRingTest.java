@@ -0,0 +1,96 @@
+package org.ktb.chatexample.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> KEYS = ConsistentHashRingSimulator.roomIds(100_000, 42);
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertThat(new ConsistentHashRing().getNode("room")).isNull();
+    }
+
+    @Test
+    void keysAreSpreadEvenlyAcrossNodes() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1", "node-2", "node-3", "node-4");
+
+        ConsistentHashRingSimulator.Distribution distribution =
+                ConsistentHashRingSimulator.distribution(ConsistentHashRingSimulator.assign(ring, KEYS), ring.getNodes());
+
+        assertThat(distribution.maxToMean()).isLessThan(1.2);
+        assertThat(distribution.minToMean()).isGreaterThan(0.8);
+    }
+
+    @Test
+    void addingNodeMovesOnlyKeysToTheNewNode() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1", "node-2", "node-3");
+        Map<String, String> before = ConsistentHashRingSimulator.assign(ring, KEYS);
+
+        ring.addNode("node-4");
+        Map<String, String> after = ConsistentHashRingSimulator.assign(ring, KEYS);
+
+        ConsistentHashRingSimulator.Movement movement =
+                ConsistentHashRingSimulator.movement("add node-4", before, after, "node-4", 5, true);
+        assertThat(movement.onlyChangedNodeInvolved()).isTrue();
+        assertThat(movement.movedRatio()).isCloseTo(movement.idealRatio(), within(0.04));
+    }
+
+    @Test
+    void removingNodeMovesOnlyItsKeys() {
+        ConsistentHashRing ring = ringOf("node-0", "node-1", "node-2", "node-3", "node-4");
+        Map<String, String> before = ConsistentHashRingSimulator.assign(ring, KEYS);
+        long ownedByRemoved = before.values().stream().filter("node-2"::equals).count();
+
+        ring.removeNode("node-2");
+        Map<String, String> after = ConsistentHashRingSimulator.assign(ring, KEYS);
+
+        ConsistentHashRingSimulator.Movement movement =
+                ConsistentHashRingSimulator.movement("remove node-2", before, after, "node-2", 4, false);
+        assertThat(movement.onlyChangedNodeInvolved()).isTrue();
+        assertThat(movement.movedKeys()).isEqualTo(ownedByRemoved);
+        assertThat(movement.movedRatio()).isCloseTo(movement.idealRatio(), within(0.04));
+    }
+
+    @Test
+    void sameMembersGiveSameOwnersRegardlessOfJoinOrder() {
+        ConsistentHashRing forward = ringOf("node-0", "node-1", "node-2");
+        ConsistentHashRing backward = ringOf("node-2", "node-1", "node-0");
+
+        assertThat(ConsistentHashRingSimulator.assign(forward, KEYS))
+                .isEqualTo(ConsistentHashRingSimulator.assign(backward, KEYS));
+    }
+
+    @Test
+    void roomOwnershipFollowsClusterMembership() {
+        LoopbackClusterTransport.Hub hub = new LoopbackClusterTransport.Hub();
+        LoopbackClusterTransport a = new LoopbackClusterTransport("node-a", hub);
+        RoomOwnership ownership = new RoomOwnership(a, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        try {
+            assertThat(KEYS.subList(0, 1000)).allMatch(ownership::isLocal);
+
+            LoopbackClusterTransport b = new LoopbackClusterTransport("node-b", hub);
+            assertThat(ownership.getNodes()).containsExactlyInAnyOrder("node-a", "node-b");
+            assertThat(KEYS.subList(0, 1000)).anyMatch(key -> ownership.ownerOf(key).equals("node-b"));
+
+            b.close();
+            assertThat(KEYS.subList(0, 1000)).allMatch(ownership::isLocal);
+        } finally {
+            a.close();
+        }
+    }
+
+    private static ConsistentHashRing ringOf(String... nodes) {
+        ConsistentHashRing ring = new ConsistentHashRing();
+        for (String node : nodes) {
+            ring.addNode(node);
+        }
+        return ring;
+    }
+}
@@ -0,0 +1,67 @@
+package org.ktb.chatexample.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ktb.chatexample.service.LocalStorageService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalStorageControllerTest {
+
+    @TempDir
+    Path root;
+
+    private LocalStorageService storage;
+    private LocalStorageController controller;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalStorageService(root, "/api/files/objects/", false, "secret");
+        controller = new LocalStorageController(storage);
+    }
+
+    @Test
+    void servesRasterImagesInline() throws Exception {
+        store("images/cat.png", "image/png; charset=binary");
+
+        MockHttpServletResponse response = download("images/cat.png");
+
+        assertThat(response.getContentType()).isEqualTo("image/png");
+        assertThat(response.getHeader("X-Content-Type-Options")).isEqualTo("nosniff");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isNull();
+    }
+
+    @Test
+    void servesOtherTypesAsAttachments() throws Exception {
+        // 클라이언트가 정한 Content-Type을 그대로 내보내면 같은 출처에서 스크립트가 실행된다
+        for (String contentType : new String[]{"text/html", "image/svg+xml", "application/xhtml+xml", "not a type"}) {
+            store("images/page.html", contentType);
+
+            MockHttpServletResponse response = download("images/page.html");
+
+            assertThat(response.getContentType()).isEqualTo("application/octet-stream");
+            assertThat(response.getHeader("X-Content-Type-Options")).isEqualTo("nosniff");
+            assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isEqualTo("attachment; filename=\"page.html\"");
+        }
+    }
+
+    private void store(String key, String contentType) throws Exception {
+        byte[] content = "<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8);
+        storage.store(key, new ByteArrayInputStream(content), content.length, contentType);
+    }
+
+    private MockHttpServletResponse download(String key) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/objects/" + key);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.download("/" + key, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,110 @@
+package org.ktb.chatexample.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.websocket.ChatMessageBinaryCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ChatMessageDto 인코딩별 메시지 크기와 인코딩 비용 비교 (./gradlew perfTest)
+ * - json: 애플리케이션과 같은 Jackson 설정으로 직렬화한 STOMP body
+ * - sockjs: JSON body를 STOMP 프레임으로 감싸 SockJS a["..."] 프레임에 넣었을 때의 크기
+ * - binary: ChatMessageBinaryCodec
+ */
+@Tag("perf")
+class ChatMessageCodecBenchmarkTest {
+
+    private static final int MESSAGES = 1_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURE_ROUNDS = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void binaryEncodingIsSmallerThanJson() throws Exception {
+        List<ChatMessageDto> messages = sampleMessages();
+
+        long jsonBytes = 0;
+        long sockJsBytes = 0;
+        long binaryBytes = 0;
+        for (ChatMessageDto message : messages) {
+            byte[] json = objectMapper.writeValueAsBytes(message);
+            jsonBytes += json.length;
+            sockJsBytes += sockJsFrameLength(message.getRoomId(), json);
+            binaryBytes += ChatMessageBinaryCodec.encode(message).length;
+        }
+
+        long jsonNanos = measure(messages, message -> objectMapper.writeValueAsBytes(message));
+        long binaryNanos = measure(messages, ChatMessageBinaryCodec::encode);
+
+        System.out.printf("json   %5.1f bytes/msg  %5d ns/op%n", (double) jsonBytes / MESSAGES, jsonNanos);
+        System.out.printf("sockjs %5.1f bytes/msg%n", (double) sockJsBytes / MESSAGES);
+        System.out.printf("binary %5.1f bytes/msg  %5d ns/op%n", (double) binaryBytes / MESSAGES, binaryNanos);
+
+        assertThat(binaryBytes).isLessThan(jsonBytes / 2);
+    }
+
+    interface Encoder {
+        byte[] encode(ChatMessageDto message) throws Exception;
+    }
+
+    // 라운드별 메시지당 평균 중 최솟값
+    private static long measure(List<ChatMessageDto> messages, Encoder encoder) throws Exception {
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long startedAt = System.nanoTime();
+            for (ChatMessageDto message : messages) {
+                sink += encoder.encode(message).length;
+            }
+            long perMessage = (System.nanoTime() - startedAt) / messages.size();
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, perMessage);
+            }
+        }
+        assertThat(sink).isPositive();
+        return best;
+    }
+
+    // STOMP MESSAGE 프레임을 JSON 문자열로 이스케이프해 SockJS 배열 프레임에 담은 길이
+    private long sockJsFrameLength(String roomId, byte[] json) throws Exception {
+        String frame = "MESSAGE\ndestination:/topic/chat/" + roomId
+                + "\ncontent-type:application/json\nsubscription:sub-0\nmessage-id:abcd1234-0\ncontent-length:"
+                + json.length + "\n\n" + new String(json, StandardCharsets.UTF_8) + "\0";
+        return ("a[" + objectMapper.writeValueAsString(frame) + "]").getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static List<ChatMessageDto> sampleMessages() {
+        String[] contents = {"안녕하세요", "네 확인했습니다!", "내일 오후 3시에 거래 가능할까요?",
+                "사진 보내드릴게요", "ok", "혹시 가격 조금 조정 가능한가요? 직거래 희망합니다."};
+        List<ChatMessageDto> messages = new ArrayList<>(MESSAGES);
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 9, 0);
+        String roomId = UUID.randomUUID().toString();
+        for (int i = 0; i < MESSAGES; i++) {
+            messages.add(ChatMessageDto.builder()
+                    .id(7_300_000_000_000_000_000L + i * 4_096L)
+                    .roomId(roomId)
+                    .senderId((long) (i % 2 + 1))
+                    .senderName(i % 2 == 0 ? "구매자" : "판매자")
+                    .content(contents[i % contents.length])
+                    .type(MessageType.CHAT)
+                    .createdAt(base.plusNanos(i * 1_234_567_000L))
+                    .build());
+        }
+        return messages;
+    }
+}
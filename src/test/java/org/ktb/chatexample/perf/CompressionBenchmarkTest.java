@@ -0,0 +1,201 @@
+package org.ktb.chatexample.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 압축 방식별 대역폭/CPU 비교 (./gradlew perfTest)
+ * - WebSocket: STOMP MESSAGE 프레임을 permessage-deflate와 같은 방식(raw deflate + SYNC_FLUSH)으로 압축
+ *   context takeover 유지(세션당 압축 사전 유지)와 메시지마다 초기화를 비교하고, 메시지 크기 구간별 압축률을 출력한다.
+ * - REST: 메시지 목록 응답(50건) 한 페이지를 gzip으로 압축
+ */
+@Tag("perf")
+class CompressionBenchmarkTest {
+
+    private static final int MESSAGES = 5_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int ROUNDS = 10;
+
+    private static final String[] PHRASES = {
+            "안녕하세요", "네", "감사합니다", "혹시 아직 판매 중인가요?", "내일 오후에 직거래 가능할까요",
+            "가격 조금만 조정 가능할까요?", "사진 더 보내주실 수 있나요", "택배 거래도 가능합니다",
+            "ㅋㅋㅋ", "알겠습니다!", "역 앞 편의점에서 뵐게요", "상태는 거의 새 것이에요", "박스 포함입니다",
+            "입금 확인했습니다", "도착하면 연락드릴게요", "조금 늦을 것 같아요 죄송합니다", "ok"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void reportsCompressionRatioAndCost() throws Exception {
+        List<ChatMessageDto> messages = corpus();
+        List<byte[]> frames = new ArrayList<>(messages.size());
+        for (ChatMessageDto message : messages) {
+            frames.add(stompFrame(message));
+        }
+
+        Result takeover = null;
+        Result noTakeover = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            takeover = deflateFrames(frames, true);
+            noTakeover = deflateFrames(frames, false);
+        }
+        System.out.println(takeover.describe("ws deflate (context takeover)"));
+        System.out.println(noTakeover.describe("ws deflate (no context takeover)"));
+        printBySize(frames);
+
+        Result gzip = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            gzip = gzipPages(messages);
+        }
+        System.out.println(gzip.describe("rest gzip (" + PAGE_SIZE + " messages/page)"));
+
+        assertThat(takeover.compressedBytes()).isLessThan(noTakeover.compressedBytes());
+        assertThat(gzip.ratio()).isLessThan(0.5);
+    }
+
+    record Result(long rawBytes, long compressedBytes, long nanos, int units) {
+
+        double ratio() {
+            return (double) compressedBytes / rawBytes;
+        }
+
+        String describe(String name) {
+            return String.format("%-40s raw=%8d compressed=%8d ratio=%.3f cost=%6d ns/unit (%.1f MB/s)",
+                    name, rawBytes, compressedBytes, ratio(), nanos / units, rawBytes * 1000.0 / nanos);
+        }
+    }
+
+    // permessage-deflate: 메시지마다 SYNC_FLUSH 후 끝의 00 00 ff ff 4바이트를 제거해 전송
+    private static Result deflateFrames(List<byte[]> frames, boolean contextTakeover) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] buffer = new byte[64 * 1024];
+        long raw = 0;
+        long compressed = 0;
+        long startedAt = System.nanoTime();
+        for (byte[] frame : frames) {
+            raw += frame.length;
+            compressed += deflate(deflater, buffer, frame) - 4;
+            if (!contextTakeover) {
+                deflater.reset();
+            }
+        }
+        long nanos = System.nanoTime() - startedAt;
+        deflater.end();
+        return new Result(raw, compressed, nanos, frames.size());
+    }
+
+    private static int deflate(Deflater deflater, byte[] buffer, byte[] input) {
+        deflater.setInput(input);
+        int length = 0;
+        int written;
+        do {
+            written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            length += written;
+        } while (written == buffer.length);
+        return length;
+    }
+
+    // 크기 구간별 압축률 (메시지마다 초기화 기준, 작은 메시지는 압축 이득이 거의 없다)
+    private static void printBySize(List<byte[]> frames) {
+        int[] bounds = {256, 384, 512, Integer.MAX_VALUE};
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] buffer = new byte[64 * 1024];
+        long[] raw = new long[bounds.length];
+        long[] compressed = new long[bounds.length];
+        for (byte[] frame : frames) {
+            int bucket = 0;
+            while (frame.length >= bounds[bucket]) {
+                bucket++;
+            }
+            raw[bucket] += frame.length;
+            compressed[bucket] += deflate(deflater, buffer, frame) - 4;
+            deflater.reset();
+        }
+        deflater.end();
+        for (int i = 0; i < bounds.length; i++) {
+            if (raw[i] > 0) {
+                System.out.printf("  frames < %-10s ratio=%.3f%n",
+                        bounds[i] == Integer.MAX_VALUE ? "max" : bounds[i] + "B", (double) compressed[i] / raw[i]);
+            }
+        }
+    }
+
+    private Result gzipPages(List<ChatMessageDto> messages) throws Exception {
+        long raw = 0;
+        long compressed = 0;
+        int pages = 0;
+        long startedAt = System.nanoTime();
+        for (int from = 0; from + PAGE_SIZE <= messages.size(); from += PAGE_SIZE) {
+            byte[] body = objectMapper.writeValueAsBytes(messages.subList(from, from + PAGE_SIZE));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(body);
+            }
+            raw += body.length;
+            compressed += out.size();
+            pages++;
+        }
+        return new Result(raw, compressed, System.nanoTime() - startedAt, pages);
+    }
+
+    private byte[] stompFrame(ChatMessageDto message) throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(message);
+        String headers = "MESSAGE\ndestination:/topic/chat/" + message.getRoomId()
+                + "\ncontent-type:application/json\nsubscription:sub-0\nmessage-id:" + message.getId()
+                + "\ncontent-length:" + json.length + "\n\n";
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(headers.getBytes(StandardCharsets.UTF_8));
+        frame.write(json);
+        frame.write(0);
+        return frame.toByteArray();
+    }
+
+    // 두 사람이 주고받는 채팅방 여러 개, 메시지는 1~3개 문구 조합
+    private static List<ChatMessageDto> corpus() {
+        Random random = new Random(42);
+        List<String> roomIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            roomIds.add(UUID.nameUUIDFromBytes(("room-" + i).getBytes(StandardCharsets.UTF_8)).toString());
+        }
+        LocalDateTime time = LocalDateTime.of(2025, 3, 1, 9, 0);
+        List<ChatMessageDto> messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            StringBuilder content = new StringBuilder();
+            int phrases = 1 + random.nextInt(3);
+            for (int p = 0; p < phrases; p++) {
+                content.append(p > 0 ? " " : "").append(PHRASES[random.nextInt(PHRASES.length)]);
+            }
+            boolean buyer = random.nextBoolean();
+            time = time.plusSeconds(1 + random.nextInt(120));
+            messages.add(ChatMessageDto.builder()
+                    .id(7_300_000_000_000_000_000L + i * 4_096L + random.nextInt(4_096))
+                    .roomId(roomIds.get(random.nextInt(roomIds.size())))
+                    .senderId(buyer ? 1L : 2L)
+                    .senderName(buyer ? "구매자" : "판매자")
+                    .content(content.toString())
+                    .type(MessageType.CHAT)
+                    .createdAt(time)
+                    .build());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,289 @@
+package org.ktb.chatexample.perf;
+
+import org.apache.coyote.AbstractProtocol;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.config.ClusterConfig;
+import org.ktb.chatexample.config.ExecutionConfig;
+import org.ktb.chatexample.config.WebSocketConfig;
+import org.ktb.chatexample.controller.ChatController;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.service.ChatService;
+import org.ktb.chatexample.service.ImageUploadPipeline;
+import org.ktb.chatexample.service.PresenceService;
+import org.ktb.chatexample.service.ReadReceiptService;
+import org.ktb.chatexample.service.RoomBroadcaster;
+import org.ktb.chatexample.service.RoomMessageRouter;
+import org.ktb.chatexample.websocket.WebSocketFlowControl;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 실행 모드별 처리량/지연 비교 (./gradlew perfTest)
+ * 실제 WebSocketConfig/ExecutionConfig로 내장 Tomcat과 STOMP 채널을 띄우고 (DB 없이)
+ * JDBC/S3 호출처럼 블로킹되는 HTTP 핸들러와 실제 채팅 경로(/app/chat.sendMessage -> ChatController -> RoomMessageRouter)에
+ * 같은 부하를 걸어 비교한다. 채팅 경로의 저장은 같은 시간만큼 블로킹한 뒤 채팅방 토픽으로 보내는 ChatService로 대신한다.
+ * - platform: Tomcat 기본 스레드 풀(200)과 clientInboundChannel 기본 풀(CPU 코어 수 * 2)
+ * - virtual: 요청/메시지마다 가상 스레드
+ */
+@Tag("perf")
+class ExecutionModeLoadTest {
+
+    private static final int TOMCAT_DEFAULT_MAX_THREADS = 200;
+    private static final long BLOCKING_MS = 50;
+    private static final int HTTP_CONCURRENCY = 400;
+    private static final int HTTP_REQUESTS = 8_000;
+    private static final int STOMP_CLIENTS = 100;
+    private static final int STOMP_ROUNDS = 40;
+
+    record Result(String mode, double throughput, long p50Micros, long p99Micros) {
+    }
+
+    @Test
+    void virtualThreadsSustainMoreBlockingWorkThanDefaultPools() throws Exception {
+        Result[] platform = run("platform");
+        Result[] virtual = run(ExecutionConfig.VIRTUAL);
+
+        for (Result result : new Result[]{platform[0], virtual[0], platform[1], virtual[1]}) {
+            System.out.printf("%-16s throughput=%.0f/s p50=%dms p99=%dms%n",
+                    result.mode(), result.throughput(), result.p50Micros() / 1000, result.p99Micros() / 1000);
+        }
+        assertThat(virtual[0].throughput()).isGreaterThan(platform[0].throughput());
+        assertThat(virtual[1].throughput()).isGreaterThan(platform[1].throughput());
+        assertThat(virtual[1].p99Micros()).isLessThan(platform[1].p99Micros());
+    }
+
+    // [HTTP 결과, STOMP 결과]
+    private Result[] run(String mode) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadTestApplication.class)
+                .properties("server.port=0", ExecutionConfig.MODE_PROPERTY + "=" + mode)
+                .run()) {
+            TomcatWebServer webServer = (TomcatWebServer) ((ServletWebServerApplicationContext) context).getWebServer();
+            if (!ExecutionConfig.VIRTUAL.equals(mode)) {
+                AbstractProtocol<?> protocol = (AbstractProtocol<?>) webServer.getTomcat().getConnector().getProtocolHandler();
+                assertThat(protocol.getMaxThreads()).isEqualTo(TOMCAT_DEFAULT_MAX_THREADS);
+            }
+            int port = webServer.getPort();
+
+            URI uri = URI.create("http://127.0.0.1:" + port + "/perf/work");
+            httpLoad(mode, uri, HTTP_CONCURRENCY * 2); // 연결과 JIT 예열
+            Result http = httpLoad(mode + "/http", uri, HTTP_REQUESTS);
+            Result stomp = stompLoad(mode + "/stomp", "ws://127.0.0.1:" + port + "/ws-native");
+            return new Result[]{http, stomp};
+        }
+    }
+
+    private Result httpLoad(String mode, URI uri, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(clients)
+                     .build()) {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+            long startedAt = System.nanoTime();
+
+            Future<?>[] workers = new Future<?>[HTTP_CONCURRENCY];
+            for (int i = 0; i < HTTP_CONCURRENCY; i++) {
+                workers[i] = clients.submit(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < requests) {
+                        long sentAt = System.nanoTime();
+                        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                        assertThat(response.statusCode()).isEqualTo(200);
+                        latencies[index] = System.nanoTime() - sentAt;
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return toResult(mode, latencies, (System.nanoTime() - startedAt) / 1e9);
+        }
+    }
+
+    // 클라이언트마다 자기 채팅방을 구독하고, 보낸 메시지가 채팅방 라우팅과 브로커를 거쳐 돌아올 때까지의 시간을 잰다
+    private Result stompLoad(String mode, String url) throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        List<StompSession> sessions = new ArrayList<>();
+        List<BlockingQueue<ChatMessageDto>> replies = new ArrayList<>();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < STOMP_CLIENTS; i++) {
+                StompSession session = stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+                session.setAutoReceipt(true);
+                BlockingQueue<ChatMessageDto> queue = new LinkedBlockingQueue<>();
+                CountDownLatch subscribed = new CountDownLatch(1);
+                session.subscribe(RoomBroadcaster.ROOM_TOPIC_PREFIX + roomId(i), new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders headers) {
+                        return ChatMessageDto.class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders headers, Object payload) {
+                        queue.add((ChatMessageDto) payload);
+                    }
+                }).addReceiptTask(subscribed::countDown);
+                assertThat(subscribed.await(10, TimeUnit.SECONDS)).isTrue();
+                sessions.add(session);
+                replies.add(queue);
+            }
+
+            runStompRounds(clients, sessions, replies, 2); // 예열
+            long[] latencies = new long[STOMP_CLIENTS * STOMP_ROUNDS];
+            long startedAt = System.nanoTime();
+            runStompRounds(clients, sessions, replies, STOMP_ROUNDS, latencies);
+            return toResult(mode, latencies, (System.nanoTime() - startedAt) / 1e9);
+        } finally {
+            sessions.forEach(StompSession::disconnect);
+            stompClient.stop();
+        }
+    }
+
+    private void runStompRounds(ExecutorService clients, List<StompSession> sessions,
+                                List<BlockingQueue<ChatMessageDto>> replies, int rounds) throws Exception {
+        runStompRounds(clients, sessions, replies, rounds, new long[sessions.size() * rounds]);
+    }
+
+    private void runStompRounds(ExecutorService clients, List<StompSession> sessions,
+                                List<BlockingQueue<ChatMessageDto>> replies, int rounds, long[] latencies) throws Exception {
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            int client = i;
+            workers.add(clients.submit(() -> {
+                for (int round = 0; round < rounds; round++) {
+                    long sentAt = System.nanoTime();
+                    sessions.get(client).send("/app/chat.sendMessage", ChatMessageDto.builder()
+                            .roomId(roomId(client))
+                            .senderId((long) client)
+                            .senderName("perf-user-" + client)
+                            .content(Integer.toString(round))
+                            .type(MessageType.CHAT)
+                            .build());
+                    ChatMessageDto reply = replies.get(client).poll(60, TimeUnit.SECONDS);
+                    assertThat(reply).isNotNull();
+                    assertThat(reply.getContent()).isEqualTo(Integer.toString(round));
+                    latencies[client * rounds + round] = System.nanoTime() - sentAt;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+    }
+
+    private static String roomId(int client) {
+        return "perf-room-" + client;
+    }
+
+    private static Result toResult(String mode, long[] latencies, double elapsedSeconds) {
+        Arrays.sort(latencies);
+        return new Result(mode, latencies.length / elapsedSeconds,
+                latencies[latencies.length / 2] / 1000, latencies[latencies.length * 99 / 100] / 1000);
+    }
+
+    // 실제 WebSocket/실행 모드/클러스터(단일 노드) 설정과 채팅 컨트롤러, 라우터만 올리는 최소 애플리케이션 (DB 없음)
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = DataSourceAutoConfiguration.class)
+    @Import({WebSocketConfig.class, ExecutionConfig.class, WebSocketFlowControl.class, ClusterConfig.class,
+            RoomOwnership.class, RoomMessageRouter.class, ChatController.class, StubServices.class,
+            BlockingController.class})
+    static class LoadTestApplication {
+    }
+
+    // DB를 쓰는 서비스 대신 쓰는 대역, 메시지 저장은 JDBC 호출처럼 블로킹한 뒤 채팅방 토픽으로 보낸다
+    @Configuration
+    static class StubServices {
+
+        @Bean
+        ChatService chatService(SimpMessageSendingOperations messagingTemplate) {
+            ChatService chatService = mock(ChatService.class);
+            when(chatService.sendMessage(any())).thenAnswer(invocation -> {
+                Thread.sleep(BLOCKING_MS);
+                ChatMessageDto messageDto = invocation.getArgument(0);
+                messagingTemplate.convertAndSend(RoomBroadcaster.ROOM_TOPIC_PREFIX + messageDto.getRoomId(), messageDto);
+                return messageDto;
+            });
+            return chatService;
+        }
+
+        @Bean
+        ImageUploadPipeline imageUploadPipeline() {
+            return mock(ImageUploadPipeline.class);
+        }
+
+        @Bean
+        ReadReceiptService readReceiptService() {
+            return mock(ReadReceiptService.class);
+        }
+
+        @Bean
+        PresenceService presenceService() {
+            return mock(PresenceService.class);
+        }
+    }
+
+    // JDBC/S3 호출을 흉내 내는 블로킹 HTTP 핸들러
+    @Controller
+    static class BlockingController {
+
+        @GetMapping("/perf/work")
+        @ResponseBody
+        public String work() throws InterruptedException {
+            Thread.sleep(BLOCKING_MS);
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.ktb.chatexample.perf;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ktb.chatexample.config.S3Config;
+import org.ktb.chatexample.service.FakeS3Server;
+import org.ktb.chatexample.service.LocalStorageService;
+import org.ktb.chatexample.service.S3Service;
+import org.ktb.chatexample.service.StorageService;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 저장소 백엔드별 처리량 비교 (./gradlew perfTest)
+ * - 저장: 로컬 디스크(채널 + 원자적 이름 변경) / S3 호환 테스트 서버(FakeS3Server, 루프백 HTTP)
+ * - 읽기: 파일을 루프백 소켓으로 보내 다운로드 응답을 흉내 낸다.
+ *   로컬은 FileChannel.transferTo(sendfile)와 스트림 복사를 비교하고, S3는 객체를 받아 소켓으로 다시 쓴다.
+ */
+@Tag("perf")
+class StorageBackendBenchmarkTest {
+
+    private static final int FILES = 200;
+    private static final int FILE_SIZE = 256 * 1024;
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    Path root;
+
+    private FakeS3Server s3Server;
+    private S3Service s3;
+    private LocalStorageService local;
+    private ServerSocketChannel sink;
+    private Thread drainThread;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3Server = new FakeS3Server();
+        s3 = new S3Service(S3Config.createClient("test", "test", "ap-northeast-2", s3Server.getEndpoint(), true),
+                "chat-bench", DataSize.ofMegabytes(16), DataSize.ofMegabytes(8));
+        local = new LocalStorageService(root, "/api/files/objects/", false, "secret");
+
+        // 받은 데이터를 버리기만 하는 루프백 소켓 (다운로드 클라이언트 역할)
+        sink = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        drainThread = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+            while (sink.isOpen()) {
+                try (SocketChannel client = sink.accept()) {
+                    while (client.read(buffer.clear()) >= 0) {
+                        // 버림
+                    }
+                } catch (Exception e) {
+                    return;
+                }
+            }
+        }, "storage-bench-sink");
+        drainThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        s3.shutdown();
+        s3Server.close();
+        sink.close();
+        drainThread.join(1_000);
+    }
+
+    @Test
+    void comparesLocalDiskWithS3StandIn() throws Exception {
+        byte[][] contents = contents();
+
+        Result localStore = null;
+        Result s3Store = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            localStore = store(local, contents);
+            s3Store = store(s3, contents);
+        }
+        System.out.println(localStore.describe("store local"));
+        System.out.println(s3Store.describe("store s3 stand-in"));
+
+        Result zeroCopy = null;
+        Result streamCopy = null;
+        Result s3Read = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            zeroCopy = serveWithTransferTo();
+            streamCopy = serveWithStream(local);
+            s3Read = serveWithStream(s3);
+        }
+        System.out.println(zeroCopy.describe("serve local (transferTo)"));
+        System.out.println(streamCopy.describe("serve local (stream copy)"));
+        System.out.println(s3Read.describe("serve s3 stand-in (stream copy)"));
+
+        assertThat(zeroCopy.bytes()).isEqualTo((long) FILES * FILE_SIZE);
+        assertThat(zeroCopy.nanos()).isLessThan(s3Read.nanos());
+        assertThat(localStore.nanos()).isLessThan(s3Store.nanos());
+    }
+
+    record Result(long bytes, long nanos, int files) {
+
+        String describe(String name) {
+            return String.format("%-35s files=%5d bytes=%10d %8.1f MB/s %7d us/file",
+                    name, files, bytes, bytes * 1000.0 / nanos, nanos / 1000 / files);
+        }
+    }
+
+    private static Result store(StorageService storage, byte[][] contents) throws Exception {
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < contents.length; i++) {
+            storage.store(key(i), new ByteArrayInputStream(contents[i]), contents[i].length, "image/jpeg");
+        }
+        return new Result((long) contents.length * FILE_SIZE, System.nanoTime() - startedAt, contents.length);
+    }
+
+    private Result serveWithTransferTo() throws Exception {
+        long startedAt = System.nanoTime();
+        long bytes = 0;
+        try (SocketChannel client = connect()) {
+            for (int i = 0; i < FILES; i++) {
+                LocalStorageService.StoredFile file = local.find(key(i)).orElseThrow();
+                local.transferTo(file, 0, file.size(), client);
+                bytes += file.size();
+            }
+        }
+        return new Result(bytes, System.nanoTime() - startedAt, FILES);
+    }
+
+    private Result serveWithStream(StorageService storage) throws Exception {
+        long startedAt = System.nanoTime();
+        long bytes = 0;
+        try (SocketChannel client = connect(); OutputStream out = Channels.newOutputStream(client)) {
+            for (int i = 0; i < FILES; i++) {
+                try (InputStream content = storage.open(key(i))) {
+                    bytes += content.transferTo(out);
+                }
+            }
+        }
+        return new Result(bytes, System.nanoTime() - startedAt, FILES);
+    }
+
+    private SocketChannel connect() throws Exception {
+        return SocketChannel.open(sink.getLocalAddress());
+    }
+
+    private static String key(int index) {
+        return "images/bench-" + index + ".jpg";
+    }
+
+    private static byte[][] contents() {
+        Random random = new Random(42);
+        byte[][] contents = new byte[FILES][FILE_SIZE];
+        for (byte[] content : contents) {
+            random.nextBytes(content);
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,238 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.entity.ChatMessage;
+import org.ktb.chatexample.entity.ChatRoom;
+import org.ktb.chatexample.entity.User;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ChatMessageBatchWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // INSERT가 호출될 때마다 저장된 메시지 ID 목록
+    private final List<List<Long>> batches = new CopyOnWriteArrayList<>();
+    private final List<String> writerThreads = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writerBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseWriter = new CountDownLatch(1);
+    private final AtomicBoolean blockWriter = new AtomicBoolean();
+    private final AtomicBoolean failWrites = new AtomicBoolean();
+
+    private ChatMessageBatchWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        releaseWriter.countDown();
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void writesInBatchesOfAtMostMaxBatchSize() throws Exception {
+        recordInserts();
+        writer = start(3, 20, 100, ChatMessageBatchWriter.QueueFullPolicy.BLOCK);
+
+        for (long id = 1; id <= 7; id++) {
+            writer.enqueue(message(id));
+        }
+
+        waitUntil(() -> writer.getWrittenCount() == 7);
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(3));
+        assertThat(batches.stream().flatMap(List::stream)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+    }
+
+    @Test
+    void lingersForMoreMessagesAfterTheFirst() throws Exception {
+        recordInserts();
+        writer = start(100, 500, 100, ChatMessageBatchWriter.QueueFullPolicy.BLOCK);
+
+        writer.enqueue(message(1));
+        Thread.sleep(50);
+        writer.enqueue(message(2));
+
+        waitUntil(() -> writer.getWrittenCount() == 2);
+        assertThat(batches).containsExactly(List.of(1L, 2L));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        recordInserts();
+        writer = start(10, 0, 1, ChatMessageBatchWriter.QueueFullPolicy.REJECT);
+        fillQueueWhileWriterIsBlocked();
+
+        assertThatThrownBy(() -> writer.enqueue(message(3))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void blocksThenFailsWhenQueueStaysFull() throws Exception {
+        recordInserts();
+        writer = start(10, 0, 1, ChatMessageBatchWriter.QueueFullPolicy.BLOCK);
+        fillQueueWhileWriterIsBlocked();
+
+        long startedAt = System.nanoTime();
+        assertThatThrownBy(() -> writer.enqueue(message(3))).isInstanceOf(IllegalStateException.class);
+        assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void writesOnCallerThreadWhenQueueIsFull() throws Exception {
+        recordInserts();
+        writer = start(10, 0, 1, ChatMessageBatchWriter.QueueFullPolicy.CALLER_RUNS);
+        fillQueueWhileWriterIsBlocked();
+
+        writer.enqueue(message(3));
+
+        assertThat(batches).contains(List.of(3L));
+        assertThat(writerThreads).contains(Thread.currentThread().getName());
+    }
+
+    @Test
+    void drainsQueueOnShutdownAndWritesLateMessagesDirectly() throws Exception {
+        recordInserts();
+        writer = start(2, 0, 100, ChatMessageBatchWriter.QueueFullPolicy.BLOCK);
+        blockWriter.set(true);
+        writer.enqueue(message(1));
+        assertThat(writerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long id = 2; id <= 5; id++) {
+            writer.enqueue(message(id));
+        }
+
+        Thread stopper = new Thread(writer::stop);
+        stopper.start();
+        releaseWriter.countDown();
+        stopper.join(10_000);
+        writer.enqueue(message(6));
+
+        assertThat(batches.stream().flatMap(List::stream)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(writer.getQueueSize()).isZero();
+    }
+
+    @Test
+    void keepsFailedBatchesAndReplaysThemAfterRestart() throws Exception {
+        recordInserts();
+        failWrites.set(true);
+        writer = start(10, 0, 100, ChatMessageBatchWriter.QueueFullPolicy.BLOCK);
+        writer.enqueue(message(1));
+        writer.enqueue(message(2));
+
+        waitUntil(() -> writer.getRetryPendingCount() == 2);
+        writer.stop();
+
+        Path deadLetters = dir.resolve("dead-letter.ndjson");
+        assertThat(writer.getDeadLetteredCount()).isEqualTo(2);
+        assertThat(Files.readAllLines(deadLetters)).hasSize(2);
+
+        // 다음 기동: 파일에서 읽어 다시 저장하고 파일을 지운다
+        failWrites.set(false);
+        writer = start(10, 0, 100, ChatMessageBatchWriter.QueueFullPolicy.BLOCK);
+
+        waitUntil(() -> writer.getWrittenCount() == 2);
+        assertThat(batches.stream().flatMap(List::stream)).containsExactly(1L, 2L);
+        waitUntil(() -> !Files.exists(deadLetters));
+    }
+
+    @Test
+    void exposesMessagesUntilTheyAreCommitted() throws Exception {
+        recordInserts();
+        writer = start(10, 0, 100, ChatMessageBatchWriter.QueueFullPolicy.BLOCK);
+        fillQueueWhileWriterIsBlocked();
+
+        // 1은 저장 중, 2는 큐에 있다
+        assertThat(writer.getPendingMessages(1L)).extracting(ChatMessage::getId).containsExactly(1L, 2L);
+        assertThat(writer.getPendingMessages(2L)).isEmpty();
+
+        releaseWriter.countDown();
+        waitUntil(() -> writer.getWrittenCount() == 2);
+        assertThat(writer.getPendingMessages(1L)).isEmpty();
+    }
+
+    // 작성 스레드가 첫 메시지를 저장하는 동안 멈춰 두고 큐(용량 1)를 채운다
+    private void fillQueueWhileWriterIsBlocked() throws InterruptedException {
+        blockWriter.set(true);
+        writer.enqueue(message(1));
+        assertThat(writerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.enqueue(message(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recordInserts() {
+        doAnswer(invocation -> {
+            if (failWrites.get()) {
+                throw new QueryTimeoutException("down");
+            }
+            if (blockWriter.get() && Thread.currentThread().getName().equals("chat-write-behind")) {
+                writerBlocked.countDown();
+                releaseWriter.await(10, TimeUnit.SECONDS);
+            }
+            List<Long> ids = new ArrayList<>();
+            for (ChatMessage message : (Collection<ChatMessage>) invocation.getArgument(1)) {
+                ids.add(message.getId());
+            }
+            batches.add(ids);
+            writerThreads.add(Thread.currentThread().getName());
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private ChatMessageBatchWriter start(int maxBatchSize, long maxLingerMs, int queueCapacity,
+                                         ChatMessageBatchWriter.QueueFullPolicy policy) {
+        ChatMessageBatchWriter batchWriter = new ChatMessageBatchWriter(jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ObjectMapper().findAndRegisterModules(),
+                true, queueCapacity, maxBatchSize, maxLingerMs, policy, 50, 1, 10, 5_000,
+                dir.resolve("dead-letter.ndjson"));
+        batchWriter.start();
+        return batchWriter;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("조건을 기다리다 시간 초과").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static ChatMessage message(long id) {
+        return ChatMessage.builder()
+                .id(id)
+                .chatRoom(ChatRoom.builder().id(1L).build())
+                .sender(User.builder().id(1L).build())
+                .content("메시지 " + id)
+                .type(MessageType.CHAT)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
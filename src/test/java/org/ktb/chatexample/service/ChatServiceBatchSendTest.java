@@ -0,0 +1,121 @@
+package org.ktb.chatexample.service;
+
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.dto.ChatMessageBatchResponseDto;
+import org.ktb.chatexample.dto.ChatMessageBatchResultDto;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.ChatMessageRequestDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.entity.ChatMessage;
+import org.ktb.chatexample.entity.ChatRoom;
+import org.ktb.chatexample.entity.User;
+import org.ktb.chatexample.repository.ChatMessageRepository;
+import org.ktb.chatexample.repository.ChatRoomRepository;
+import org.ktb.chatexample.repository.PostRepository;
+import org.ktb.chatexample.repository.UserRepository;
+import org.ktb.chatexample.util.SnowflakeIdGenerator;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatServiceBatchSendTest {
+
+    private final ChatRoomRepository chatRoomRepository = mock(ChatRoomRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final RoomBroadcaster roomBroadcaster = mock(RoomBroadcaster.class);
+    private final ChatMessageBatchWriter chatMessageBatchWriter = mock(ChatMessageBatchWriter.class);
+    private final RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+    private final LookupCache lookupCache = mock(LookupCache.class);
+    private final UnreadCounters unreadCounters = mock(UnreadCounters.class);
+
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        chatService = new ChatService(chatRoomRepository, mock(ChatMessageRepository.class), mock(PostRepository.class),
+                userRepository, roomBroadcaster, chatMessageBatchWriter, new SnowflakeIdGenerator(1),
+                recentMessageCache, lookupCache, mock(RoomOwnership.class),
+                Validation.buildDefaultValidatorFactory().getValidator(), unreadCounters);
+
+        when(lookupCache.getRooms(anyCollection())).thenReturn(Map.of(
+                "room-1", new LookupCache.CachedRoom(10L, "room-1", 1L, 2L),
+                "room-2", new LookupCache.CachedRoom(20L, "room-2", 1L, 3L)));
+        when(lookupCache.getUsers(anyCollection())).thenReturn(Map.of(
+                1L, new LookupCache.CachedUser(1L, "bot")));
+        when(chatRoomRepository.getReferenceById(anyLong()))
+                .thenAnswer(invocation -> ChatRoom.builder().id(invocation.getArgument(0)).build());
+        when(userRepository.getReferenceById(anyLong()))
+                .thenAnswer(invocation -> User.builder().id(invocation.getArgument(0)).build());
+    }
+
+    @Test
+    void sendsValidItemsAndReportsFailuresPerItem() {
+        ChatMessageBatchResponseDto response = chatService.sendMessages(List.of(
+                request("room-1", 1L, "공지 1"),
+                request("missing-room", 1L, "공지 2"),
+                request("room-2", 1L, "공지 3"),
+                request("room-1", 99L, "공지 4"),
+                request("room-2", 1L, " ")));
+
+        assertThat(response.getSuccessCount()).isEqualTo(2);
+        assertThat(response.getFailureCount()).isEqualTo(3);
+        assertThat(response.getResults()).extracting(ChatMessageBatchResultDto::getIndex)
+                .containsExactly(0, 1, 2, 3, 4);
+        assertThat(response.getResults()).extracting(ChatMessageBatchResultDto::isSuccess)
+                .containsExactly(true, false, true, false, false);
+        assertThat(response.getResults().get(1).getError()).contains("missing-room");
+        assertThat(response.getResults().get(3).getError()).contains("99");
+        assertThat(response.getResults().get(4).getError()).isEqualTo("메시지 내용은 필수 입력 항목입니다.");
+
+        ChatMessageDto first = response.getResults().get(0).getMessage();
+        assertThat(first.getRoomId()).isEqualTo("room-1");
+        assertThat(first.getSenderName()).isEqualTo("bot");
+        assertThat(first.getId()).isNotNull();
+
+        // 한 번의 배치 INSERT, 채팅방마다 브로드캐스트
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ChatMessage>> written = ArgumentCaptor.forClass(List.class);
+        verify(chatMessageBatchWriter).write(written.capture());
+        assertThat(written.getValue()).extracting(ChatMessage::getContent).containsExactly("공지 1", "공지 3");
+        verify(roomBroadcaster).broadcast(eq("room-1"), any(ChatMessageDto.class));
+        verify(roomBroadcaster).broadcast(eq("room-2"), any(ChatMessageDto.class));
+        verify(recentMessageCache, times(2)).append(any());
+        verify(unreadCounters).onMessage(eq(new LookupCache.CachedRoom(10L, "room-1", 1L, 2L)), eq(1L), anyLong());
+        verify(unreadCounters).onMessage(eq(new LookupCache.CachedRoom(20L, "room-2", 1L, 3L)), eq(1L), anyLong());
+    }
+
+    @Test
+    void looksUpRoomsAndSendersOnce() {
+        chatService.sendMessages(List.of(
+                request("room-1", 1L, "a"),
+                request("room-1", 1L, "b"),
+                request("room-2", 1L, "c")));
+
+        verify(lookupCache).getRooms(Set.of("room-1", "room-2"));
+        verify(lookupCache).getUsers(Set.of(1L));
+    }
+
+    private static ChatMessageRequestDto request(String roomId, Long senderId, String content) {
+        return ChatMessageRequestDto.builder()
+                .roomId(roomId)
+                .senderId(senderId)
+                .content(content)
+                .type(MessageType.CHAT)
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package org.ktb.chatexample.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentHashIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keepsEntriesAcrossRestarts() {
+        Path file = tempDir.resolve("index.log");
+        ContentHashIndex index = new ContentHashIndex(file, 10);
+        index.put("a", "https://storage.test/images/a");
+        index.put("b", "https://storage.test/images/b");
+        index.remove("a");
+        index.close();
+
+        ContentHashIndex reopened = new ContentHashIndex(file, 10);
+
+        assertThat(reopened.get("a")).isNull();
+        assertThat(reopened.get("b")).isEqualTo("https://storage.test/images/b");
+        reopened.close();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        ContentHashIndex index = new ContentHashIndex(tempDir.resolve("index.log"), 2);
+        index.put("a", "url-a");
+        index.put("b", "url-b");
+        index.get("a");
+        index.put("c", "url-c");
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get("b")).isNull();
+        assertThat(index.get("a")).isEqualTo("url-a");
+        index.close();
+    }
+
+    @Test
+    void compactsJournalOnOpen() throws Exception {
+        Path file = tempDir.resolve("index.log");
+        ContentHashIndex index = new ContentHashIndex(file, 10);
+        for (int i = 0; i < 5; i++) {
+            index.put("a", "url-" + i);
+        }
+        index.close();
+
+        new ContentHashIndex(file, 10).close();
+
+        assertThat(Files.readAllLines(file)).containsExactly("+ a url-4");
+    }
+}
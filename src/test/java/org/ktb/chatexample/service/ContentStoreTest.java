@@ -0,0 +1,215 @@
+package org.ktb.chatexample.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ContentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+    private final InMemoryStoredObjects storedObjects = new InMemoryStoredObjects();
+    private ContentStore contentStore;
+
+    @BeforeEach
+    void setUp() {
+        contentStore = storedObjects.contentStore(storage, tempDir.resolve("index.log"));
+    }
+
+    @Test
+    void storesSameContentOnce() throws Exception {
+        Path file = file("meme");
+        String hash = hash("meme");
+
+        ContentStore.StoredContent first = contentStore.store(file, hash, 4, "image/png");
+        ContentStore.StoredContent second = contentStore.store(file, hash, 4, "image/png");
+
+        assertThat(first.deduplicated()).isFalse();
+        assertThat(second.deduplicated()).isTrue();
+        assertThat(second.url()).isEqualTo(first.url());
+        assertThat(storage.getKey(first.url())).isEqualTo("images/" + hash);
+        assertThat(storage.size()).isEqualTo(1);
+        assertThat(storedObjects.refCount(hash)).isEqualTo(2);
+        // 두 번째는 로컬 인덱스로 처리되어 선점 쿼리도 필요 없다
+        verify(storedObjects.repository).claim(anyString(), anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    void skipsPutWhenAnotherNodeAlreadyStoredContent() throws Exception {
+        String hash = hash("meme");
+        contentStore.store(file("meme"), hash, 4, "image/png");
+
+        // 인덱스가 비어 있는 다른 노드
+        ContentStore otherNode = storedObjects.contentStore(storage, tempDir.resolve("other.log"));
+        storage.failWith(new IOException("should not upload"));
+
+        ContentStore.StoredContent stored = otherNode.store(file("meme"), hash, 4, "image/png");
+
+        assertThat(stored.deduplicated()).isTrue();
+        assertThat(storedObjects.refCount(hash)).isEqualTo(2);
+    }
+
+    @Test
+    void deletesObjectOnlyWhenLastReferenceIsReleased() throws Exception {
+        String hash = hash("meme");
+        ContentStore.StoredContent first = contentStore.store(file("meme"), hash, 4, "image/png");
+        ContentStore.StoredContent second = contentStore.store(file("meme"), hash, 4, "image/png");
+        String url = first.url();
+        storage.store("variants/" + hash + "_thumb.jpg", new ByteArrayInputStream(new byte[1]), 1, "image/jpeg");
+
+        assertThat(contentStore.release(url, first.referenceId())).isFalse();
+        assertThat(storage.get("images/" + hash)).isNotNull();
+
+        assertThat(contentStore.release(url, second.referenceId())).isTrue();
+        assertThat(storage.size()).isZero();
+        assertThat(storedObjects.rows).isEmpty();
+        assertThat(storedObjects.references).isEmpty();
+
+        // 삭제된 뒤 같은 내용을 다시 올리면 새로 저장된다
+        ContentStore.StoredContent again = contentStore.store(file("meme"), hash, 4, "image/png");
+        assertThat(again.deduplicated()).isFalse();
+        assertThat(storage.get("images/" + hash)).isNotNull();
+    }
+
+    @Test
+    void releasingTheSameReferenceTwiceOnlyCountsOnce() throws Exception {
+        String hash = hash("meme");
+        ContentStore.StoredContent first = contentStore.store(file("meme"), hash, 4, "image/png");
+        ContentStore.StoredContent message = contentStore.store(file("meme"), hash, 4, "image/png",
+                ContentStore.messageReference(100L));
+
+        // 재시도된 DELETE
+        assertThat(contentStore.release(first.url(), first.referenceId())).isFalse();
+        assertThat(contentStore.release(first.url(), first.referenceId())).isFalse();
+        // 다른 내용의 참조 ID로는 해제되지 않는다
+        assertThat(contentStore.release(first.url(), "unknown")).isFalse();
+
+        assertThat(storedObjects.refCount(hash)).isEqualTo(1);
+        assertThat(storage.get("images/" + hash)).isNotNull();
+        assertThat(storedObjects.references).containsOnlyKeys(message.referenceId());
+        assertThatThrownBy(() -> contentStore.release(first.url(), null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deletesLegacyRandomKeysDirectlyWithVariants() throws Exception {
+        String url = storage.store("images/legacy.png", new ByteArrayInputStream(new byte[1]), 1, "image/png");
+        storage.store("variants/legacy_thumb.jpg", new ByteArrayInputStream(new byte[1]), 1, "image/jpeg");
+        storage.store("variants/legacy_preview.jpg", new ByteArrayInputStream(new byte[1]), 1, "image/jpeg");
+
+        assertThat(contentStore.release(url, null)).isTrue();
+        assertThat(storage.size()).isZero();
+        verify(storedObjects.repository, never()).findForUpdate(anyString());
+    }
+
+    @Test
+    void abandonsClaimWhenUploadFails() throws Exception {
+        String hash = hash("meme");
+        storage.failWith(new IOException("storage unavailable"));
+
+        assertThatThrownBy(() -> contentStore.store(file("meme"), hash, 4, "image/png"))
+                .isInstanceOf(IOException.class);
+        assertThat(storedObjects.rows).isEmpty();
+    }
+
+    @Test
+    void concurrentIdenticalUploadWaitsForFirstPutAndReuploadsIfItFails() throws Exception {
+        String hash = hash("meme");
+        storage.block();
+        storage.failOnce(new IOException("storage unavailable"));
+
+        CompletableFuture<ContentStore.StoredContent> first = CompletableFuture.supplyAsync(() -> store(hash));
+        waitUntil(() -> contentStore.isUploading(hash));
+        CompletableFuture<ContentStore.StoredContent> second = CompletableFuture.supplyAsync(() -> store(hash));
+        waitUntil(() -> storedObjects.refCount(hash) == 2);
+        // 첫 PUT이 끝나기 전에는 두 번째 요청도 URL을 받지 않는다
+        assertThat(second).isNotDone();
+
+        storage.release();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasRootCauseInstanceOf(IOException.class);
+        ContentStore.StoredContent stored = second.get(5, TimeUnit.SECONDS);
+        assertThat(stored.deduplicated()).isFalse();
+        assertThat(storage.get("images/" + hash)).isNotNull();
+        assertThat(storedObjects.refCount(hash)).isEqualTo(1);
+        assertThat(storedObjects.rows.get(hash).isStored()).isTrue();
+    }
+
+    @Test
+    void uploadsItselfWhenAnotherNodeHasNotFinishedPut() throws Exception {
+        String hash = hash("meme");
+        // 다른 노드가 선점만 하고 아직 PUT 중
+        storedObjects.repository.claim(hash, "images/" + hash, 4, "image/png");
+
+        ContentStore.StoredContent stored = contentStore.store(file("meme"), hash, 4, "image/png");
+
+        assertThat(stored.deduplicated()).isFalse();
+        assertThat(storage.get("images/" + hash)).isNotNull();
+        assertThat(storedObjects.refCount(hash)).isEqualTo(2);
+        assertThat(storedObjects.rows.get(hash).isStored()).isTrue();
+    }
+
+    @Test
+    void staleLocalIndexDoesNotHandOutUrlOfContentBeingReuploaded() throws Exception {
+        String hash = hash("meme");
+        contentStore.store(file("meme"), hash, 4, "image/png");
+
+        // 다른 노드에서 마지막 참조가 해제되어 삭제된 뒤, 또 다른 노드가 같은 내용을 선점하고 아직 PUT 중
+        storedObjects.rows.remove(hash);
+        storage.delete("images/" + hash);
+        storedObjects.repository.claim(hash, "images/" + hash, 4, "image/png");
+
+        // 이 노드의 인덱스에는 아직 예전 URL이 남아 있다
+        ContentStore.StoredContent stored = contentStore.store(file("meme"), hash, 4, "image/png");
+
+        assertThat(stored.deduplicated()).isFalse();
+        assertThat(storage.get("images/" + hash)).isNotNull();
+        assertThat(storedObjects.refCount(hash)).isEqualTo(2);
+        assertThat(storedObjects.rows.get(hash).isStored()).isTrue();
+    }
+
+    private ContentStore.StoredContent store(String hash) {
+        try {
+            return contentStore.store(file("meme"), hash, 4, "image/png");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("조건을 기다리다 시간 초과").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private Path file(String content) throws IOException {
+        return Files.writeString(Files.createTempFile(tempDir, "upload-", ".tmp"), content);
+    }
+
+    private static String hash(String content) {
+        MessageDigest digest = ContentStore.newDigest();
+        digest.update(content.getBytes(StandardCharsets.UTF_8));
+        return ContentStore.toHex(digest);
+    }
+}
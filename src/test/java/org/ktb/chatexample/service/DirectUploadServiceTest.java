@@ -0,0 +1,124 @@
+package org.ktb.chatexample.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.config.S3Config;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.ImageUploadResponseDto;
+import org.ktb.chatexample.dto.PresignedUploadRequestDto;
+import org.ktb.chatexample.dto.PresignedUploadResponseDto;
+import org.ktb.chatexample.dto.UploadStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DirectUploadServiceTest {
+
+    private static final String BUCKET = "chat-test";
+
+    private final ChatService chatService = mock(ChatService.class);
+    private final ImageVariantService imageVariantService = mock(ImageVariantService.class);
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private FakeS3Server s3;
+    private S3Service storage;
+    private DirectUploadService directUploadService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new FakeS3Server();
+        storage = new S3Service(S3Config.createClient("test", "test", "ap-northeast-2", s3.getEndpoint(), true),
+                BUCKET, DataSize.ofMegabytes(16), DataSize.ofMegabytes(8));
+        directUploadService = new DirectUploadService(storage, chatService, imageVariantService, 300, 600, 1000, DataSize.ofKilobytes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+        s3.close();
+        httpClient.close();
+    }
+
+    @Test
+    void uploadsDirectlyToStorageAndCreatesImageMessageOnConfirm() throws Exception {
+        PresignedUploadResponseDto upload = directUploadService.createUpload(request("cat.png", 11, "room-1", 1L));
+        ChatMessageDto created = ChatMessageDto.builder().id(1L).roomId("room-1").build();
+        when(chatService.sendImageMessage(eq("room-1"), eq(1L), any(), eq(UploadStatus.COMPLETED))).thenReturn(created);
+
+        assertThat(put(upload, "image-bytes")).isEqualTo(200);
+        ImageUploadResponseDto confirmed = directUploadService.confirm(upload.getUploadId());
+
+        String key = storage.getKey(upload.getImageUrl());
+        assertThat(key).startsWith("images/").endsWith(".png");
+        assertThat(new String(s3.get(BUCKET + "/" + key), StandardCharsets.UTF_8)).isEqualTo("image-bytes");
+        assertThat(s3.getContentType(BUCKET + "/" + key)).isEqualTo("image/png");
+        assertThat(confirmed.getImageUrl()).isEqualTo(upload.getImageUrl());
+        assertThat(confirmed.getChatMessage()).isSameAs(created);
+        verify(chatService).sendImageMessage("room-1", 1L, upload.getImageUrl(), UploadStatus.COMPLETED);
+        verify(imageVariantService).submit(created);
+    }
+
+    @Test
+    void confirmFailsUntilObjectExistsAndSucceedsOnlyOnce() throws Exception {
+        PresignedUploadResponseDto upload = directUploadService.createUpload(request("a.png", 3, null, null));
+
+        assertThatThrownBy(() -> directUploadService.confirm(upload.getUploadId()))
+                .isInstanceOf(IllegalStateException.class);
+
+        put(upload, "abc");
+        assertThat(directUploadService.confirm(upload.getUploadId()).getChatMessage()).isNull();
+        assertThatThrownBy(() -> directUploadService.confirm(upload.getUploadId()))
+                .isInstanceOf(EntityNotFoundException.class);
+        verify(chatService, never()).sendImageMessage(any(), any(), any(), any());
+    }
+
+    @Test
+    void rejectsAndDeletesOversizedUpload() throws Exception {
+        PresignedUploadResponseDto upload = directUploadService.createUpload(request("big.png", 100, null, null));
+        String key = storage.getKey(upload.getImageUrl());
+
+        put(upload, "x".repeat(2048));
+
+        assertThatThrownBy(() -> directUploadService.confirm(upload.getUploadId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(s3.get(BUCKET + "/" + key)).isNull();
+    }
+
+    @Test
+    void rejectsDeclaredSizeOverLimit() {
+        assertThatThrownBy(() -> directUploadService.createUpload(request("big.png", 4096, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private int put(PresignedUploadResponseDto upload, String content) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(upload.getUploadUrl()))
+                .PUT(HttpRequest.BodyPublishers.ofString(content));
+        upload.getHeaders().forEach(builder::header);
+        return httpClient.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static PresignedUploadRequestDto request(String fileName, long size, String roomId, Long senderId) {
+        return PresignedUploadRequestDto.builder()
+                .fileName(fileName)
+                .contentType("image/png")
+                .size(size)
+                .roomId(roomId)
+                .senderId(senderId)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package org.ktb.chatexample.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 테스트용 S3 호환 서버 (경로 방식 /{bucket}/{key}의 PUT/GET/HEAD/DELETE만 지원)
+ * 서명은 검증하지 않고, presigned 요청에 서명 파라미터가 있는지만 확인한다.
+ */
+public class FakeS3Server implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+
+    public FakeS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    byte[] get(String bucketAndKey) {
+        return objects.get(bucketAndKey);
+    }
+
+    String getContentType(String bucketAndKey) {
+        return contentTypes.get(bucketAndKey);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        URI uri = exchange.getRequestURI();
+        String path = uri.getPath().substring(1);
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    String query = uri.getRawQuery();
+                    boolean signed = exchange.getRequestHeaders().containsKey("Authorization")
+                            || (query != null && query.contains("X-Amz-Signature="));
+                    if (!signed) {
+                        exchange.sendResponseHeaders(403, -1);
+                        return;
+                    }
+                    objects.put(path, body.readAllBytes());
+                    String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                    if (contentType != null) {
+                        contentTypes.put(path, contentType);
+                    }
+                    exchange.getResponseHeaders().add("ETag", "\"etag\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "HEAD" -> {
+                    byte[] content = objects.get(path);
+                    if (content == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                    exchange.getResponseHeaders().add("ETag", "\"etag\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET" -> {
+                    byte[] content = objects.get(path);
+                    if (content == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.sendResponseHeaders(200, content.length);
+                    exchange.getResponseBody().write(content);
+                }
+                case "DELETE" -> {
+                    objects.remove(path);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,183 @@
+package org.ktb.chatexample.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.UploadStatus;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageUploadPipelineTest {
+
+    private static final String ROOM_ID = "room-1";
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+    private final InMemoryStoredObjects storedObjects = new InMemoryStoredObjects();
+    private final ChatService chatService = mock(ChatService.class);
+    private final ImageVariantService imageVariantService = mock(ImageVariantService.class);
+    private ImageUploadPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        storage.release();
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void returnsPendingMessageBeforeUploadCompletes() throws Exception {
+        pipeline = pipeline(1, 10);
+        ChatMessageDto pending = pendingMessage();
+        when(chatService.sendImageMessage(ROOM_ID, 1L, null, UploadStatus.PENDING)).thenReturn(pending);
+        when(chatService.completeImageUpload(any(), any(), any())).thenReturn(true);
+        storage.block();
+
+        ChatMessageDto result = pipeline.submitImageMessage(ROOM_ID, 1L, image("cat.png", "image-bytes"));
+
+        assertThat(result.getUploadStatus()).isEqualTo(UploadStatus.PENDING);
+        assertThat(storage.size()).isZero();
+        verify(chatService, never()).completeImageUpload(any(), any(), any());
+
+        storage.release();
+
+        ArgumentCaptor<String> url = ArgumentCaptor.forClass(String.class);
+        verify(chatService, timeout(5_000)).completeImageUpload(eq(pending), url.capture(), eq(UploadStatus.COMPLETED));
+        String key = storage.getKey(url.getValue());
+        assertThat(key).matches("images/[0-9a-f]{64}");
+        assertThat(new String(storage.get(key), StandardCharsets.UTF_8)).isEqualTo("image-bytes");
+        verify(imageVariantService, timeout(5_000)).submit(any());
+        assertThat(storedObjects.references).containsEntry("message:100", key.substring("images/".length()));
+    }
+
+    @Test
+    void reportsFailedUpload() throws Exception {
+        pipeline = pipeline(1, 10);
+        ChatMessageDto pending = pendingMessage();
+        when(chatService.sendImageMessage(ROOM_ID, 1L, null, UploadStatus.PENDING)).thenReturn(pending);
+        when(chatService.completeImageUpload(any(), any(), any())).thenReturn(true);
+        storage.failWith(new IOException("storage unavailable"));
+
+        pipeline.submitImageMessage(ROOM_ID, 1L, image("cat.png", "image-bytes"));
+
+        verify(chatService, timeout(5_000)).completeImageUpload(eq(pending), isNull(), eq(UploadStatus.FAILED));
+        verify(imageVariantService, never()).submit(any());
+    }
+
+    @Test
+    void retriesUntilPendingMessageIsPersisted() throws Exception {
+        pipeline = pipeline(1, 10);
+        ChatMessageDto pending = pendingMessage();
+        when(chatService.sendImageMessage(ROOM_ID, 1L, null, UploadStatus.PENDING)).thenReturn(pending);
+        when(chatService.completeImageUpload(any(), any(), any())).thenReturn(false, false, true);
+
+        pipeline.submitImageMessage(ROOM_ID, 1L, image("cat.png", "image-bytes"));
+
+        verify(chatService, timeout(5_000).times(3)).completeImageUpload(eq(pending), any(), eq(UploadStatus.COMPLETED));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        pipeline = pipeline(1, 1);
+        storage.block();
+
+        pipeline.submitFile(image("a.png", "a"));
+        // 작업 스레드가 첫 작업을 가져갈 때까지 대기
+        while (pipeline.getActiveCount() == 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        pipeline.submitFile(image("b.png", "b"));
+
+        assertThatThrownBy(() -> pipeline.submitFile(image("c.png", "c")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsImageMessageBeforeCreatingPendingMessageWhenQueueIsFull() throws Exception {
+        pipeline = pipeline(1, 1);
+        storage.block();
+        pipeline.submitFile(image("a.png", "a"));
+        pipeline.submitFile(image("b.png", "b"));
+
+        assertThatThrownBy(() -> pipeline.submitImageMessage(ROOM_ID, 1L, image("c.png", "c")))
+                .isInstanceOf(IllegalStateException.class);
+        verify(chatService, never()).sendImageMessage(any(), any(), any(), any());
+
+        // 업로드가 끝나 자리가 나면 다시 받는다
+        storage.release();
+        when(chatService.sendImageMessage(ROOM_ID, 1L, null, UploadStatus.PENDING)).thenReturn(pendingMessage());
+        when(chatService.completeImageUpload(any(), any(), any())).thenReturn(true);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.getActiveCount() > 0 || pipeline.getQueueSize() > 0) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(pipeline.submitImageMessage(ROOM_ID, 1L, image("d.png", "d")).getUploadStatus())
+                .isEqualTo(UploadStatus.PENDING);
+    }
+
+    @Test
+    void completesFileUploadWithUrl() throws Exception {
+        pipeline = pipeline(2, 10);
+
+        String url = pipeline.submitFile(image("doc.txt", "hello")).get(5, TimeUnit.SECONDS).url();
+
+        assertThat(url).startsWith(InMemoryStorageService.BASE_URL + "images/");
+        assertThat(storage.get(storage.getKey(url))).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void uploadsIdenticalContentOnce() throws Exception {
+        pipeline = pipeline(2, 10);
+
+        String first = pipeline.submitFile(image("meme.png", "same-bytes")).get(5, TimeUnit.SECONDS).url();
+        String second = pipeline.submitFile(image("forwarded.png", "same-bytes")).get(5, TimeUnit.SECONDS).url();
+        String other = pipeline.submitFile(image("other.png", "other-bytes")).get(5, TimeUnit.SECONDS).url();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(other).isNotEqualTo(first);
+        assertThat(storage.size()).isEqualTo(2);
+        assertThat(storedObjects.refCount(storage.getKey(first).substring("images/".length()))).isEqualTo(2);
+    }
+
+    private ImageUploadPipeline pipeline(int poolSize, int queueCapacity) {
+        ContentStore contentStore = storedObjects.contentStore(storage, tempDir.resolve("index.log"));
+        return new ImageUploadPipeline(contentStore, chatService, imageVariantService, poolSize, queueCapacity, 5, 10);
+    }
+
+    private static ChatMessageDto pendingMessage() {
+        return ChatMessageDto.builder()
+                .id(100L)
+                .roomId(ROOM_ID)
+                .senderId(1L)
+                .content("[이미지]")
+                .type(MessageType.IMAGE)
+                .uploadStatus(UploadStatus.PENDING)
+                .build();
+    }
+
+    private static MockMultipartFile image(String fileName, String content) {
+        return new MockMultipartFile("image", fileName, "image/png", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
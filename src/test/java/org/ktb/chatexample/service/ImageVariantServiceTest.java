@@ -0,0 +1,136 @@
+package org.ktb.chatexample.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.UploadStatus;
+import org.mockito.ArgumentCaptor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageVariantServiceTest {
+
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+    private final ChatService chatService = mock(ChatService.class);
+    private final ImageVariantService variantService =
+            new ImageVariantService(storage, chatService, 1, 10, 240, 1080, 0.8f, 50_000_000L, 5, 10);
+
+    @AfterEach
+    void tearDown() {
+        variantService.shutdown();
+    }
+
+    @Test
+    void generatesThumbnailAndPreviewAndBroadcastsUrls() throws Exception {
+        byte[] png = png(3000, 1500);
+        storage.store("images/photo.png", new ByteArrayInputStream(png), png.length, "image/png");
+        ChatMessageDto message = imageMessage(storage.getUrl("images/photo.png"));
+        when(chatService.completeImageVariants(any(), any(), any())).thenReturn(true);
+
+        variantService.submit(message);
+
+        ArgumentCaptor<String> thumbnailUrl = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> previewUrl = ArgumentCaptor.forClass(String.class);
+        verify(chatService, timeout(10_000)).completeImageVariants(eq(message), thumbnailUrl.capture(), previewUrl.capture());
+
+        BufferedImage thumbnail = read(thumbnailUrl.getValue());
+        BufferedImage preview = read(previewUrl.getValue());
+        assertThat(storage.getKey(thumbnailUrl.getValue())).isEqualTo("variants/photo_thumb.jpg");
+        assertThat(thumbnail.getWidth()).isEqualTo(240);
+        assertThat(thumbnail.getHeight()).isEqualTo(120);
+        assertThat(preview.getWidth()).isEqualTo(1080);
+        assertThat(preview.getHeight()).isEqualTo(540);
+    }
+
+    @Test
+    void keepsSmallImagesAtOriginalSize() throws Exception {
+        byte[] png = png(100, 50);
+        storage.store("images/small.png", new ByteArrayInputStream(png), png.length, "image/png");
+        when(chatService.completeImageVariants(any(), any(), any())).thenReturn(true);
+
+        variantService.submit(imageMessage(storage.getUrl("images/small.png")));
+
+        ArgumentCaptor<String> thumbnailUrl = ArgumentCaptor.forClass(String.class);
+        verify(chatService, timeout(10_000)).completeImageVariants(any(), thumbnailUrl.capture(), any());
+        assertThat(read(thumbnailUrl.getValue()).getWidth()).isEqualTo(100);
+    }
+
+    @Test
+    void skipsUnsupportedFormatsAndForeignUrls() throws Exception {
+        byte[] notAnImage = "hello".getBytes(StandardCharsets.UTF_8);
+        storage.store("images/a.heic", new ByteArrayInputStream(notAnImage), notAnImage.length, "image/heic");
+
+        variantService.submit(imageMessage(storage.getUrl("images/a.heic")));
+        variantService.submit(imageMessage("https://elsewhere.test/images/b.png"));
+
+        verify(chatService, after(500).never()).completeImageVariants(any(), any(), any());
+        assertThat(variantService.getSkippedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesCompletionOffTheVariantWorkers() throws Exception {
+        byte[] png = png(100, 50);
+        storage.store("images/photo.png", new ByteArrayInputStream(png), png.length, "image/png");
+        List<String> threads = new CopyOnWriteArrayList<>();
+        // write-behind 모드: 처음 두 번은 메시지가 아직 저장되지 않음
+        when(chatService.completeImageVariants(any(), any(), any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return threads.size() > 2;
+        });
+
+        variantService.submit(imageMessage(storage.getUrl("images/photo.png")));
+
+        verify(chatService, timeout(10_000).times(3)).completeImageVariants(any(), any(), any());
+        assertThat(threads.get(0)).startsWith("image-variant-").isNotEqualTo("image-variant-retry");
+        assertThat(threads.subList(1, 3)).containsOnly("image-variant-retry");
+    }
+
+    @Test
+    void variantKeysFollowOriginalKey() {
+        assertThat(ImageVariantService.variantBaseKey("images/abc.png")).isEqualTo("variants/abc");
+        assertThat(ImageVariantService.variantBaseKey("images/noext")).isEqualTo("variants/noext");
+    }
+
+    private BufferedImage read(String url) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(storage.get(storage.getKey(url))));
+    }
+
+    private static ChatMessageDto imageMessage(String imageUrl) {
+        return ChatMessageDto.builder()
+                .id(1L)
+                .roomId("room-1")
+                .type(MessageType.IMAGE)
+                .imageUrl(imageUrl)
+                .uploadStatus(UploadStatus.COMPLETED)
+                .build();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y += 10) {
+            for (int x = 0; x < width; x += 10) {
+                image.setRGB(x, y, 0x80ff0000 | (x * 31 + y) & 0xffff);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
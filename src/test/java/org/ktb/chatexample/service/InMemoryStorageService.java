@@ -0,0 +1,109 @@
+package org.ktb.chatexample.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 테스트용 메모리 저장소
+ * block()을 호출하면 release() 전까지 store가 대기해 업로드 중 상태를 확인할 수 있다.
+ * failOnce()는 다음 store 한 번만 실패시킨다.
+ */
+class InMemoryStorageService implements StorageService {
+
+    static final String BASE_URL = "https://storage.test/";
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private volatile IOException failure;
+    private final AtomicReference<IOException> nextFailure = new AtomicReference<>();
+
+    @Override
+    public String store(String key, InputStream content, long contentLength, String contentType) throws IOException {
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        IOException once = nextFailure.getAndSet(null);
+        if (once != null) {
+            throw once;
+        }
+        byte[] bytes = content.readAllBytes();
+        if (bytes.length != contentLength) {
+            throw new IOException("length mismatch: " + bytes.length + " != " + contentLength);
+        }
+        objects.put(key, bytes);
+        return getUrl(key);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        byte[] bytes = objects.get(key);
+        if (bytes == null) {
+            throw new FileNotFoundException(key);
+        }
+        return new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public void delete(String key) {
+        objects.remove(key);
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return BASE_URL + key;
+    }
+
+    @Override
+    public String getKey(String url) {
+        return url != null && url.startsWith(BASE_URL) ? url.substring(BASE_URL.length()) : null;
+    }
+
+    @Override
+    public UploadTarget createUploadUrl(String key, String contentType, Duration expiry) {
+        return new UploadTarget(getUrl(key) + "?upload", Map.of("Content-Type", contentType));
+    }
+
+    @Override
+    public OptionalLong getSize(String key) {
+        byte[] bytes = objects.get(key);
+        return bytes != null ? OptionalLong.of(bytes.length) : OptionalLong.empty();
+    }
+
+    byte[] get(String key) {
+        return objects.get(key);
+    }
+
+    int size() {
+        return objects.size();
+    }
+
+    void block() {
+        gate = new CountDownLatch(1);
+    }
+
+    void release() {
+        gate.countDown();
+    }
+
+    void failWith(IOException failure) {
+        this.failure = failure;
+    }
+
+    void failOnce(IOException failure) {
+        nextFailure.set(failure);
+    }
+}
@@ -0,0 +1,89 @@
+package org.ktb.chatexample.service;
+
+import org.ktb.chatexample.entity.StoredObject;
+import org.ktb.chatexample.entity.StoredObjectReference;
+import org.ktb.chatexample.repository.StoredObjectReferenceRepository;
+import org.ktb.chatexample.repository.StoredObjectRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// stored_objects / stored_object_refs 테이블을 맵으로 흉내 내는 테스트용 저장소
+class InMemoryStoredObjects {
+
+    final Map<String, StoredObject> rows = new ConcurrentHashMap<>();
+    final StoredObjectRepository repository = mock(StoredObjectRepository.class);
+    // 참조 ID -> hash
+    final Map<String, String> references = new ConcurrentHashMap<>();
+    final StoredObjectReferenceRepository referenceRepository = mock(StoredObjectReferenceRepository.class);
+
+    InMemoryStoredObjects() {
+        when(repository.incrementRefCount(anyString())).thenAnswer(invocation -> {
+            StoredObject row = rows.get(invocation.<String>getArgument(0));
+            if (row == null || !row.isStored()) {
+                return 0;
+            }
+            row.setRefCount(row.getRefCount() + 1);
+            return 1;
+        });
+        when(repository.claim(anyString(), anyString(), anyLong(), any())).thenAnswer(invocation -> {
+            String hash = invocation.getArgument(0);
+            StoredObject existing = rows.putIfAbsent(hash, StoredObject.builder()
+                    .hash(hash)
+                    .storageKey(invocation.getArgument(1))
+                    .size(invocation.getArgument(2))
+                    .contentType(invocation.getArgument(3))
+                    .refCount(1)
+                    .build());
+            if (existing == null) {
+                return 1;
+            }
+            existing.setRefCount(existing.getRefCount() + 1);
+            return 2;
+        });
+        when(repository.markStored(anyString())).thenAnswer(invocation -> {
+            StoredObject row = rows.get(invocation.<String>getArgument(0));
+            if (row == null) {
+                return 0;
+            }
+            row.setStored(true);
+            return 1;
+        });
+        when(repository.findStoredByHash(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.<String>getArgument(0))).map(StoredObject::isStored));
+        when(repository.findForUpdate(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> rows.remove(invocation.<StoredObject>getArgument(0).getHash()))
+                .when(repository).delete(any(StoredObject.class));
+
+        when(referenceRepository.save(any(StoredObjectReference.class))).thenAnswer(invocation -> {
+            StoredObjectReference reference = invocation.getArgument(0);
+            references.put(reference.getReferenceId(), reference.getHash());
+            return reference;
+        });
+        when(referenceRepository.deleteByReferenceIdAndHash(anyString(), anyString())).thenAnswer(invocation ->
+                references.remove(invocation.<String>getArgument(0), invocation.<String>getArgument(1)) ? 1 : 0);
+    }
+
+    long refCount(String hash) {
+        StoredObject row = rows.get(hash);
+        return row != null ? row.getRefCount() : 0;
+    }
+
+    ContentStore contentStore(StorageService storage, Path indexFile) {
+        // 트랜잭션 관리자는 아무 일도 하지 않는 mock (콜백만 실행된다)
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        return new ContentStore(storage, repository, referenceRepository, new ContentHashIndex(indexFile, 1000), transactionTemplate);
+    }
+}
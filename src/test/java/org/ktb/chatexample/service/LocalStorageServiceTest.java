@@ -0,0 +1,121 @@
+package org.ktb.chatexample.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalStorageServiceTest {
+
+    @TempDir
+    Path root;
+
+    private LocalStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalStorageService(root, "/api/files/objects/", false, "secret");
+    }
+
+    @Test
+    void storesIntoShardedDirectoryAndReadsBack() throws Exception {
+        String url = store("images/cat.png", "image-bytes", "image/png");
+
+        assertThat(url).isEqualTo("/api/files/objects/images/cat.png");
+        assertThat(storage.getKey(url)).isEqualTo("images/cat.png");
+        Path path = storage.resolve("images/cat.png");
+        assertThat(root.relativize(path).toString().replace('\\', '/')).matches("images/[0-9a-f]{2}/[0-9a-f]{2}/cat.png");
+        assertThat(storage.getSize("images/cat.png")).hasValue(11);
+        try (var content = storage.open("images/cat.png")) {
+            assertThat(new String(content.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("image-bytes");
+        }
+
+        LocalStorageService.StoredFile file = storage.find("images/cat.png").orElseThrow();
+        assertThat(file.size()).isEqualTo(11);
+        assertThat(file.contentType()).isEqualTo("image/png");
+        assertThat(file.etag()).startsWith("\"").endsWith("\"");
+    }
+
+    @Test
+    void leavesNoFileWhenContentIsShorterThanDeclared() throws Exception {
+        assertThatThrownBy(() -> storage.store("images/short.png",
+                new ByteArrayInputStream(new byte[3]), 10, "image/png"))
+                .isInstanceOf(IOException.class);
+
+        assertThat(storage.getSize("images/short.png")).isEmpty();
+        try (var files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void deletesAndReportsMissingFiles() throws Exception {
+        store("images/a.png", "a", "image/png");
+
+        storage.delete("images/a.png");
+        storage.delete("images/a.png");
+
+        assertThat(storage.find("images/a.png")).isEmpty();
+        assertThatThrownBy(() -> storage.open("images/a.png")).isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    void rejectsKeysOutsideRoot() throws Exception {
+        assertThat(storage.getKey("/api/files/objects/../secret")).isNull();
+        assertThat(storage.getKey("https://elsewhere.test/images/a.png")).isNull();
+        assertThat(storage.find("images/../../etc/passwd")).isEmpty();
+        assertThatThrownBy(() -> store("/absolute", "x", "text/plain")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void transfersRequestedRange() throws Exception {
+        store("files/doc.txt", "0123456789", "text/plain");
+        LocalStorageService.StoredFile file = storage.find("files/doc.txt").orElseThrow();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        storage.transferTo(file, 2, 5, Channels.newChannel(out));
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("23456");
+    }
+
+    @Test
+    void verifiesSignedUploadUrl() {
+        StorageService.UploadTarget target = storage.createUploadUrl("images/up.png", "image/png", Duration.ofMinutes(5));
+        Map<String, String> query = UriComponentsBuilder.fromUriString(target.url()).build(true)
+                .getQueryParams().toSingleValueMap();
+        long expires = Long.parseLong(query.get("expires"));
+        String signature = query.get("signature");
+
+        assertThat(target.url()).startsWith("/api/files/objects/images/up.png?");
+        assertThat(target.headers()).containsEntry("Content-Type", "image/png");
+        assertThat(storage.verifyUpload("images/up.png", "image/png", expires, signature)).isTrue();
+        assertThat(storage.verifyUpload("images/other.png", "image/png", expires, signature)).isFalse();
+        assertThat(storage.verifyUpload("images/up.png", "text/html", expires, signature)).isFalse();
+        assertThat(storage.verifyUpload("images/up.png", "image/png", expires + 1, signature)).isFalse();
+
+        StorageService.UploadTarget expired = storage.createUploadUrl("images/up.png", "image/png", Duration.ofSeconds(-1));
+        Map<String, String> expiredQuery = UriComponentsBuilder.fromUriString(expired.url()).build(true)
+                .getQueryParams().toSingleValueMap();
+        assertThat(storage.verifyUpload("images/up.png", "image/png",
+                Long.parseLong(expiredQuery.get("expires")), expiredQuery.get("signature"))).isFalse();
+    }
+
+    private String store(String key, String content, String contentType) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return storage.store(key, new ByteArrayInputStream(bytes), bytes.length, contentType);
+    }
+}
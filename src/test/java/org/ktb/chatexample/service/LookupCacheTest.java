@@ -0,0 +1,154 @@
+package org.ktb.chatexample.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.dto.CacheStatsDto;
+import org.ktb.chatexample.entity.ChatRoom;
+import org.ktb.chatexample.entity.User;
+import org.ktb.chatexample.repository.ChatRoomRepository;
+import org.ktb.chatexample.repository.UserRepository;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LookupCacheTest {
+
+    private final ChatRoomRepository chatRoomRepository = mock(ChatRoomRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ClusterTransport clusterTransport = mock(ClusterTransport.class);
+    private final LookupCache cache = new LookupCache(chatRoomRepository, userRepository, clusterTransport, 100, 100, 600);
+
+    private final User owner = User.builder().id(1L).username("owner").build();
+    private final User requester = User.builder().id(2L).username("requester").build();
+
+    @Test
+    void loadsRoomOnceAndCountsHitsAndMisses() {
+        when(chatRoomRepository.findByRoomId("room-1")).thenReturn(Optional.of(room(10L, "room-1")));
+
+        LookupCache.CachedRoom first = cache.getRoom("room-1");
+        LookupCache.CachedRoom second = cache.getRoom("room-1");
+
+        assertThat(first).isEqualTo(new LookupCache.CachedRoom(10L, "room-1", 1L, 2L));
+        assertThat(second).isSameAs(first);
+        verify(chatRoomRepository, times(1)).findByRoomId("room-1");
+        CacheStatsDto stats = stats("rooms");
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheMissingEntities() {
+        when(chatRoomRepository.findByRoomId(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findById(3L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> cache.getRoom("missing")).isInstanceOf(EntityNotFoundException.class);
+        assertThatThrownBy(() -> cache.getRoom("missing")).isInstanceOf(EntityNotFoundException.class);
+        assertThatThrownBy(() -> cache.getUser(3L)).isInstanceOf(EntityNotFoundException.class);
+
+        verify(chatRoomRepository, times(2)).findByRoomId("missing");
+        assertThat(stats("rooms").getSize()).isZero();
+    }
+
+    @Test
+    void bulkLookupReadsOnlyMissingKeys() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(userRepository.findAllById(List.of(2L))).thenReturn(List.of(requester));
+        cache.getUser(1L);
+
+        Map<Long, LookupCache.CachedUser> users = cache.getUsers(List.of(1L, 2L));
+
+        assertThat(users).containsOnlyKeys(1L, 2L);
+        assertThat(users.get(2L).username()).isEqualTo("requester");
+        verify(userRepository).findAllById(List.of(2L));
+    }
+
+    @Test
+    void evictRoomReloadsOnNextLookup() {
+        when(chatRoomRepository.findByRoomId("room-1")).thenReturn(Optional.of(room(10L, "room-1")));
+        cache.getRoom("room-1");
+
+        cache.evictRoom("room-1");
+        cache.getRoom("room-1");
+
+        verify(chatRoomRepository, times(2)).findByRoomId("room-1");
+    }
+
+    @Test
+    void evictUserAlsoDropsRoomsTheUserTakesPartIn() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(requester));
+        when(chatRoomRepository.findByRoomId("room-1")).thenReturn(Optional.of(room(10L, "room-1")));
+        User other = User.builder().id(3L).username("other").build();
+        when(chatRoomRepository.findByRoomId("room-2")).thenReturn(Optional.of(ChatRoom.builder()
+                .id(20L).roomId("room-2").user1(owner).user2(other).build()));
+        cache.getUser(2L);
+        cache.getRoom("room-1");
+        cache.getRoom("room-2");
+
+        cache.evictUser(2L);
+        cache.getUser(2L);
+        cache.getRoom("room-1");
+        cache.getRoom("room-2");
+
+        verify(userRepository, times(2)).findById(2L);
+        verify(chatRoomRepository, times(2)).findByRoomId("room-1");
+        verify(chatRoomRepository, times(1)).findByRoomId("room-2");
+    }
+
+    @Test
+    void relaysInvalidationToOtherNodes() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<ClusterMessage>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterTransport).registerHandler(eq("lookup-evict"), handler.capture());
+        when(chatRoomRepository.findByRoomId("room-1")).thenReturn(Optional.of(room(10L, "room-1")));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(requester));
+        cache.getRoom("room-1");
+        cache.getUser(2L);
+
+        cache.evictRoom("room-1");
+        cache.evictUser(2L);
+        verify(clusterTransport).publish(eq("lookup-evict"), eq("room:room-1"), any());
+        verify(clusterTransport).publish(eq("lookup-evict"), eq("user:2"), any());
+
+        // 다른 노드에서 온 무효화
+        cache.getRoom("room-1");
+        cache.getUser(2L);
+        handler.getValue().accept(new ClusterMessage("lookup-evict", "node-b", "room:room-1", new byte[0]));
+        handler.getValue().accept(new ClusterMessage("lookup-evict", "node-b", "user:2", new byte[0]));
+        cache.getRoom("room-1");
+        cache.getUser(2L);
+
+        verify(chatRoomRepository, times(3)).findByRoomId("room-1");
+        verify(userRepository, times(3)).findById(2L);
+    }
+
+    private ChatRoom room(Long id, String roomId) {
+        return ChatRoom.builder()
+                .id(id)
+                .roomId(roomId)
+                .user1(owner)
+                .user2(requester)
+                .build();
+    }
+
+    private CacheStatsDto stats(String name) {
+        return cache.getStats().stream()
+                .filter(stats -> stats.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,132 @@
+package org.ktb.chatexample.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.entity.Post;
+import org.ktb.chatexample.repository.PostRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostSearchIndexTest {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final ClusterTransport clusterTransport = mock(ClusterTransport.class);
+    private final PostSearchIndex index = new PostSearchIndex(postRepository, clusterTransport);
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+    }
+
+    @Test
+    void tokenizesIntoBigramsPerLetterRun() {
+        assertThat(PostSearchIndex.tokenize("채팅 서버")).containsExactly("채팅", "서버");
+        assertThat(PostSearchIndex.tokenize("Spring부트!")).containsExactly("sp", "pr", "ri", "in", "ng", "g부", "부트");
+        assertThat(PostSearchIndex.tokenize("a, 가 ab")).containsExactly("a", "가", "ab");
+        assertThat(PostSearchIndex.tokenize("ＡＢ")).containsExactly("ab"); // 전각 문자는 NFKC로 정규화
+        assertThat(PostSearchIndex.tokenize(null)).isEmpty();
+        assertThat(PostSearchIndex.tokenize("!?")).isEmpty();
+    }
+
+    @Test
+    void matchesAllTermsAndRanksTitleHitsFirst() {
+        index.index(1L, "일반 글", "채팅 서버 만들기");
+        index.index(2L, "채팅 서버", "본문");
+        index.index(3L, "채팅", "다른 이야기");
+
+        PostSearchIndex.SearchResult result = index.search("채팅 서버", 0, 10);
+
+        assertThat(result.postIds()).containsExactly(2L, 1L);
+        assertThat(result.totalHits()).isEqualTo(2);
+        assertThat(index.search("채팅 서버", 1, 10).postIds()).containsExactly(1L);
+        assertThat(index.search("없는말", 0, 10).totalHits()).isZero();
+        assertThat(index.search("!!", 0, 10).totalHits()).isZero();
+    }
+
+    @Test
+    void singleCharacterQueryMatchesAnyTermWithThatCharacter() {
+        index.index(1L, "채팅", "");
+        index.index(2L, "팅", "");
+        index.index(3L, "서버", "");
+
+        assertThat(index.search("팅", 0, 10).postIds()).containsExactlyInAnyOrder(1L, 2L);
+
+        index.remove(1L);
+        assertThat(index.search("팅", 0, 10).postIds()).containsExactly(2L);
+        assertThat(index.search("채", 0, 10).totalHits()).isZero();
+    }
+
+    @Test
+    void reindexReplacesOldTerms() {
+        index.index(1L, "채팅", "");
+        index.index(1L, "서버", "");
+
+        assertThat(index.search("채팅", 0, 10).totalHits()).isZero();
+        assertThat(index.search("서버", 0, 10).postIds()).containsExactly(1L);
+    }
+
+    @Test
+    void rebuildDoesNotResurrectPostsChangedWhileItRuns() {
+        index.index(9L, "오래된", ""); // 재구성 전부터 있던 항목은 그대로 둔다
+        when(postRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // 재구성이 첫 배치를 읽은 뒤 1은 삭제되고 2는 수정됨
+                    index.remove(1L);
+                    index.index(2L, "새 제목", "");
+                    return List.of(post(1L, "채팅"), post(2L, "옛 제목"));
+                })
+                .thenReturn(List.of());
+
+        assertThat(index.isReady()).isFalse();
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("채팅", 0, 10).totalHits()).isZero();
+        assertThat(index.search("옛", 0, 10).totalHits()).isZero();
+        assertThat(index.search("제목", 0, 10).postIds()).containsExactly(2L);
+
+        // 재구성이 끝나면 다시 평소처럼 덮어쓴다
+        index.index(1L, "채팅", "");
+        assertThat(index.search("채팅", 0, 10).postIds()).containsExactly(1L);
+    }
+
+    @Test
+    void notifiesOtherNodesAndRefreshesFromDatabase() {
+        index.index(1L, "채팅", "");
+        verify(clusterTransport).publish(eq("post-index"), eq("1"), any());
+
+        // 다른 노드에서 수정/삭제된 게시글
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post(1L, "서버")));
+        when(postRepository.findById(2L)).thenReturn(Optional.empty());
+        index.index(2L, "채팅", "");
+
+        index.refresh(1L);
+        index.refresh(2L);
+
+        assertThat(index.search("채팅", 0, 10).totalHits()).isZero();
+        assertThat(index.search("서버", 0, 10).postIds()).containsExactly(1L);
+        verify(clusterTransport).registerHandler(eq("post-index"), any());
+        verify(clusterTransport).publish(anyString(), eq("2"), any());
+    }
+
+    private static Post post(Long id, String title) {
+        return Post.builder()
+                .id(id)
+                .title(title)
+                .content("")
+                .author("작성자")
+                .build();
+    }
+}
@@ -0,0 +1,208 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.LoopbackClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.dto.PresenceDiffDto;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PresenceServiceTest {
+
+    private static final String DESTINATION = "/topic/chat/room-1/presence";
+
+    private final SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+    private final ClusterTransport clusterTransport = mock(ClusterTransport.class);
+    private final RoomOwnership roomOwnership = mock(RoomOwnership.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PresenceService presence;
+
+    @BeforeEach
+    void setUp() {
+        when(clusterTransport.getPeerNodeIds()).thenReturn(Set.of());
+        when(clusterTransport.getLocalNodeId()).thenReturn("node-a");
+        when(roomOwnership.isLocal(anyString())).thenReturn(true);
+        presence = new PresenceService(messagingTemplate, objectMapper, clusterTransport, roomOwnership, 4, 250, 5_000);
+    }
+
+    @Test
+    void sendsOneDiffPerRoomPerTick() throws Exception {
+        presence.join("s1", "room-1", 1L);
+        presence.join("s2", "room-1", 2L);
+        presence.join("s3", "room-1", 1L); // 같은 사용자의 두 번째 탭
+
+        PresenceDiffDto diff = publishAndCapture();
+
+        assertThat(diff.getJoined()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(diff.getLeft()).isEmpty();
+        assertThat(presence.getPresence("room-1").getOnline()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void reconnectWithinTickSendsNothing() throws Exception {
+        presence.join("s1", "room-1", 1L);
+        publishAndCapture();
+
+        presence.onDisconnect(disconnect("s1"));
+        presence.join("s2", "room-1", 1L);
+        presence.publishDiffs(System.currentTimeMillis());
+
+        verify(messagingTemplate, never()).send(anyString(), any());
+        assertThat(presence.getPresence("room-1").getOnline()).containsExactly(1L);
+    }
+
+    @Test
+    void userLeavesWhenLastSessionCloses() throws Exception {
+        presence.join("s1", "room-1", 1L);
+        presence.join("s2", "room-1", 1L);
+        publishAndCapture();
+
+        presence.leave("s1", "room-1", 1L);
+        presence.publishDiffs(System.currentTimeMillis());
+        verify(messagingTemplate, never()).send(anyString(), any());
+
+        presence.onDisconnect(disconnect("s2"));
+        PresenceDiffDto diff = publishAndCapture();
+
+        assertThat(diff.getLeft()).containsExactly(1L);
+        assertThat(presence.getPresence("room-1").getOnline()).isEmpty();
+    }
+
+    @Test
+    void typingExpiresWithoutRefresh() throws Exception {
+        presence.join("s1", "room-1", 1L);
+        publishAndCapture();
+
+        presence.typing("s1", "room-1", 1L, true);
+        presence.typing("s1", "room-1", 1L, true);
+        presence.typing("other-session", "room-1", 2L, true); // 입장하지 않은 세션은 무시
+        PresenceDiffDto started = publishAndCapture();
+        assertThat(started.getTyping()).containsExactly(1L);
+
+        PresenceDiffDto stopped = publishAndCapture(System.currentTimeMillis() + 10_000);
+        assertThat(stopped.getStoppedTyping()).containsExactly(1L);
+        assertThat(stopped.getJoined()).isEmpty();
+    }
+
+    @Test
+    void userWithTabsOnTwoNodesStaysOnlineUntilBothClose() throws Exception {
+        try (TwoNodes nodes = new TwoNodes()) {
+            nodes.other.join("s1", "room-1", 1L);
+            nodes.owner.join("s2", "room-1", 1L);
+            nodes.other.join("s3", "room-1", 2L);
+            waitUntil(() -> nodes.owner.getPresence("room-1").getOnline().equals(List.of(1L, 2L)));
+            nodes.owner.publishDiffs(System.currentTimeMillis());
+            // 다른 노드도 소유 노드에서 받은 상태로 조회한다
+            waitUntil(() -> nodes.other.getPresence("room-1").getOnline().equals(List.of(1L, 2L)));
+            verify(nodes.otherTemplate, timeout(5_000)).send(eq(DESTINATION), any());
+            clearInvocations(nodes.ownerTemplate);
+
+            // 사용자 1의 다른 노드 탭이 닫혀도 소유 노드의 탭이 남아 있다
+            nodes.other.onDisconnect(disconnect("s1"));
+            nodes.other.onDisconnect(disconnect("s3"));
+            waitUntil(() -> nodes.owner.getPresence("room-1").getOnline().equals(List.of(1L)));
+            PresenceDiffDto diff = publishAndCapture(nodes.owner, nodes.ownerTemplate, System.currentTimeMillis());
+
+            assertThat(diff.getLeft()).containsExactly(2L);
+            assertThat(diff.getJoined()).isEmpty();
+        }
+    }
+
+    @Test
+    void ownerDropsSessionsOfNodeThatLeftTheCluster() throws Exception {
+        try (TwoNodes nodes = new TwoNodes()) {
+            nodes.other.join("s1", "room-1", 3L);
+            waitUntil(() -> nodes.owner.getPresence("room-1").getOnline().equals(List.of(3L)));
+            nodes.owner.publishDiffs(System.currentTimeMillis());
+            clearInvocations(nodes.ownerTemplate);
+
+            nodes.otherTransport.close();
+            PresenceDiffDto diff = publishAndCapture(nodes.owner, nodes.ownerTemplate, System.currentTimeMillis());
+
+            assertThat(diff.getLeft()).containsExactly(3L);
+        }
+    }
+
+    // 같은 Hub를 쓰는 두 노드, owner가 room-1의 소유 노드
+    private final class TwoNodes implements AutoCloseable {
+        final SimpMessageSendingOperations ownerTemplate = mock(SimpMessageSendingOperations.class);
+        final SimpMessageSendingOperations otherTemplate = mock(SimpMessageSendingOperations.class);
+        final LoopbackClusterTransport ownerTransport;
+        final LoopbackClusterTransport otherTransport;
+        final PresenceService owner;
+        final PresenceService other;
+
+        TwoNodes() {
+            LoopbackClusterTransport.Hub hub = new LoopbackClusterTransport.Hub();
+            LoopbackClusterTransport a = new LoopbackClusterTransport("a", hub);
+            LoopbackClusterTransport b = new LoopbackClusterTransport("b", hub);
+            RoomOwnership ownershipA = new RoomOwnership(a, 100);
+            RoomOwnership ownershipB = new RoomOwnership(b, 100);
+            boolean aOwns = ownershipA.isLocal("room-1");
+            ownerTransport = aOwns ? a : b;
+            otherTransport = aOwns ? b : a;
+            owner = new PresenceService(ownerTemplate, objectMapper, ownerTransport, aOwns ? ownershipA : ownershipB, 4, 250, 5_000);
+            other = new PresenceService(otherTemplate, objectMapper, otherTransport, aOwns ? ownershipB : ownershipA, 4, 250, 5_000);
+        }
+
+        @Override
+        public void close() {
+            ownerTransport.close();
+            otherTransport.close();
+        }
+    }
+
+    private PresenceDiffDto publishAndCapture() throws Exception {
+        return publishAndCapture(System.currentTimeMillis());
+    }
+
+    private PresenceDiffDto publishAndCapture(long now) throws Exception {
+        return publishAndCapture(presence, messagingTemplate, now);
+    }
+
+    @SuppressWarnings("unchecked")
+    private PresenceDiffDto publishAndCapture(PresenceService presence, SimpMessageSendingOperations messagingTemplate,
+                                              long now) throws Exception {
+        presence.publishDiffs(now);
+        ArgumentCaptor<Message<byte[]>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq(DESTINATION), sent.capture());
+        clearInvocations(messagingTemplate);
+        List<Message<byte[]>> messages = sent.getAllValues();
+        return objectMapper.readValue(messages.get(messages.size() - 1).getPayload(), PresenceDiffDto.class);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("조건을 기다리다 시간 초과").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static SessionDisconnectEvent disconnect(String sessionId) {
+        return new SessionDisconnectEvent(new Object(), mock(Message.class), sessionId, CloseStatus.NORMAL);
+    }
+}
@@ -0,0 +1,129 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.ReadReceiptDto;
+import org.ktb.chatexample.entity.ChatMessage;
+import org.ktb.chatexample.entity.User;
+import org.ktb.chatexample.repository.ChatMessageRepository;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadReceiptServiceTest {
+
+    private static final LookupCache.CachedRoom ROOM = new LookupCache.CachedRoom(10L, "room-1", 1L, 2L);
+
+    private final LookupCache lookupCache = mock(LookupCache.class);
+    private final UnreadCounters unreadCounters = mock(UnreadCounters.class);
+    private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+    private final ChatMessageBatchWriter chatMessageBatchWriter = mock(ChatMessageBatchWriter.class);
+    private final ClusterTransport clusterTransport = mock(ClusterTransport.class);
+    private final RoomOwnership roomOwnership = mock(RoomOwnership.class);
+
+    private ReadReceiptService service;
+
+    @BeforeEach
+    void setUp() {
+        when(lookupCache.getRoom("room-1")).thenReturn(ROOM);
+        when(roomOwnership.isLocal(anyString())).thenReturn(true);
+        service = create(clusterTransport);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void rejectsNonParticipant() {
+        assertThatThrownBy(() -> service.markRead(new ReadReceiptDto("room-1", 3L, 100L)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void countsSavedAndWriteBehindMessagesAfterReadPosition() {
+        when(unreadCounters.getLatestMessageId(10L)).thenReturn(105L);
+        when(chatMessageRepository.findUnreadIdsAfter(eq(10L), eq(100L), eq(2L), any())).thenReturn(List.of(101L, 102L));
+        when(chatMessageBatchWriter.isEnabled()).thenReturn(true);
+        when(chatMessageBatchWriter.getPendingMessages(10L)).thenReturn(List.of(
+                message(100L, 1L, MessageType.CHAT),  // 이미 읽음
+                message(103L, 2L, MessageType.CHAT),  // 내가 보낸 메시지
+                message(104L, 1L, MessageType.JOIN),
+                message(105L, 1L, MessageType.IMAGE)));
+
+        service.markRead(new ReadReceiptDto("room-1", 2L, 100L));
+
+        verify(unreadCounters).markRead(10L, 2L, 100L, 3, 105L);
+    }
+
+    @Test
+    void skipsLookupWhenReadPositionIsLatest() {
+        when(unreadCounters.getLatestMessageId(10L)).thenReturn(100L);
+
+        service.markRead(new ReadReceiptDto("room-1", 2L, 100L));
+
+        verify(unreadCounters).markRead(10L, 2L, 100L, 0, 100L);
+        verify(chatMessageRepository, never()).findUnreadIdsAfter(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void appliesReadOnRoomOwner() throws Exception {
+        ClusterTransport ownerTransport = mock(ClusterTransport.class);
+        ReadReceiptService owner = create(ownerTransport);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<ClusterMessage>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(ownerTransport).registerHandler(eq(ReadReceiptService.CLUSTER_MARK_TYPE), handler.capture());
+
+        when(roomOwnership.isLocal("room-1")).thenReturn(false);
+        when(roomOwnership.ownerOf("room-1")).thenReturn("node-b");
+        when(unreadCounters.getLatestMessageId(10L)).thenReturn(100L);
+        service.markRead(new ReadReceiptDto("room-1", 2L, 100L));
+
+        ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        verify(clusterTransport).send(eq("node-b"), eq(ReadReceiptService.CLUSTER_MARK_TYPE), eq("room-1"), payload.capture());
+        verify(unreadCounters, never()).markRead(anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+
+        try {
+            handler.getValue().accept(new ClusterMessage(ReadReceiptService.CLUSTER_MARK_TYPE, "node-a", "room-1", payload.getValue()));
+            verify(unreadCounters, timeout(5_000)).markRead(10L, 2L, 100L, 0, 100L);
+        } finally {
+            owner.stop();
+        }
+    }
+
+    private ReadReceiptService create(ClusterTransport transport) {
+        ReadReceiptService readReceiptService = new ReadReceiptService(lookupCache, unreadCounters, chatMessageRepository,
+                chatMessageBatchWriter, mock(SimpMessageSendingOperations.class), new ObjectMapper(), transport,
+                roomOwnership, 60_000);
+        readReceiptService.start();
+        return readReceiptService;
+    }
+
+    private static ChatMessage message(long id, long senderId, MessageType type) {
+        return ChatMessage.builder()
+                .id(id)
+                .sender(User.builder().id(senderId).build())
+                .type(type)
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.UploadStatus;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecentMessageCacheTest {
+
+    private static final String ROOM = "room-1";
+
+    private final ClusterTransport clusterTransport = mock(ClusterTransport.class);
+    private final RoomOwnership roomOwnership = mock(RoomOwnership.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final RecentMessageCache cache = new RecentMessageCache(5, 1000, 60_000, clusterTransport, roomOwnership, objectMapper);
+
+    @BeforeEach
+    void setUp() {
+        when(roomOwnership.isLocal(ROOM)).thenReturn(true);
+    }
+
+    @Test
+    void answersLatestBeforeAndAfterPagesFromBuffer() {
+        Supplier<List<ChatMessageDto>> loader = () -> messages(6, 10); // 채팅방에 더 오래된 메시지가 있다
+
+        assertThat(ids(cache.find(ROOM, null, null, 3, loader))).containsExactly(8L, 9L, 10L);
+        assertThat(ids(cache.find(ROOM, 9L, null, 2, loader))).containsExactly(7L, 8L);
+        assertThat(ids(cache.find(ROOM, null, 7L, 2, loader))).containsExactly(8L, 9L);
+        assertThat(ids(cache.find(ROOM, null, 6L, 10, loader))).containsExactly(7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void missesWhenPageReachesPastIncompleteBuffer() {
+        Supplier<List<ChatMessageDto>> loader = () -> messages(6, 10);
+
+        assertThat(cache.find(ROOM, 8L, null, 3, loader)).isEmpty(); // 6, 7 뿐이고 그 이전은 DB에만 있다
+        assertThat(cache.find(ROOM, null, 4L, 3, loader)).isEmpty(); // 5가 버퍼에 없다
+        assertThat(cache.find(ROOM, null, null, 6, loader)).isEmpty();
+        assertThat(cache.getStats().getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    void completeRoomAnswersShortPages() {
+        Supplier<List<ChatMessageDto>> loader = () -> messages(1, 3); // 버퍼보다 적으면 채팅방 전체
+
+        assertThat(ids(cache.find(ROOM, 2L, null, 10, loader))).containsExactly(1L);
+        assertThat(ids(cache.find(ROOM, null, 3L, 10, loader))).isEmpty();
+        assertThat(ids(cache.find(ROOM, null, null, 10, loader))).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void loadsOnceAndAppendsInIdOrder() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<ChatMessageDto>> loader = () -> {
+            loads.incrementAndGet();
+            return messages(1, 2);
+        };
+        cache.find(ROOM, null, null, 1, loader);
+
+        cache.append(message(4));
+        cache.append(message(3)); // 동시 커밋으로 늦게 들어온 메시지
+        cache.append(message(4)); // 중복은 무시
+
+        assertThat(ids(cache.find(ROOM, null, null, 10, loader))).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void dropsOldestWhenFullAndStopsAnsweringForWholeRoom() {
+        Supplier<List<ChatMessageDto>> loader = () -> messages(1, 4);
+        assertThat(ids(cache.find(ROOM, null, null, 10, loader))).containsExactly(1L, 2L, 3L, 4L);
+
+        cache.append(message(5));
+        cache.append(message(6));
+
+        assertThat(ids(cache.find(ROOM, null, null, 5, loader))).containsExactly(2L, 3L, 4L, 5L, 6L);
+        assertThat(cache.find(ROOM, null, null, 10, loader)).isEmpty();
+        assertThat(cache.find(ROOM, 3L, null, 2, loader)).isEmpty();
+    }
+
+    @Test
+    void keepsMessagesAppendedWhileLoading() {
+        Supplier<List<ChatMessageDto>> loader = () -> {
+            cache.append(message(3)); // 로딩 중에 커밋된 메시지
+            return messages(1, 2);
+        };
+
+        assertThat(ids(cache.find(ROOM, null, null, 10, loader))).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void replacesMessageWithSameId() {
+        cache.find(ROOM, null, null, 1, () -> messages(1, 2));
+
+        cache.replace(message(2).toBuilder().uploadStatus(UploadStatus.COMPLETED).build());
+
+        List<ChatMessageDto> page = cache.find(ROOM, null, null, 2, List::of).orElseThrow();
+        assertThat(page.get(1).getUploadStatus()).isEqualTo(UploadStatus.COMPLETED);
+    }
+
+    @Test
+    void ignoresAppendsForRoomsWithoutBuffer() {
+        cache.append(message(1));
+
+        assertThat(ids(cache.find(ROOM, null, null, 10, List::of))).isEmpty();
+    }
+
+    @Test
+    void relaysWritesFromOtherNodesToOwner() throws Exception {
+        when(roomOwnership.isLocal(ROOM)).thenReturn(false);
+        when(roomOwnership.ownerOf(ROOM)).thenReturn("owner");
+
+        cache.append(message(1));
+        cache.replace(message(1).toBuilder().uploadStatus(UploadStatus.FAILED).build());
+
+        ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        verify(clusterTransport).send(eq("owner"), eq("recent-messages-append"), eq(ROOM), payload.capture());
+        verify(clusterTransport).send(eq("owner"), eq("recent-messages-replace"), eq(ROOM), any());
+        assertThat(objectMapper.readValue(payload.getValue(), ChatMessageDto.class).getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void ownerAppliesRelayedMessages() throws Exception {
+        cache.find(ROOM, null, null, 1, () -> messages(1, 2));
+
+        receive("recent-messages-append", message(3));
+        receive("recent-messages-replace", message(2).toBuilder().uploadStatus(UploadStatus.COMPLETED).build());
+
+        List<ChatMessageDto> page = cache.find(ROOM, null, null, 10, List::of).orElseThrow();
+        assertThat(page).extracting(ChatMessageDto::getId).containsExactly(1L, 2L, 3L);
+        assertThat(page.get(1).getUploadStatus()).isEqualTo(UploadStatus.COMPLETED);
+        verify(clusterTransport, never()).send(any(), any(), any(), any());
+    }
+
+    @Test
+    void keepsRelayedMessagesUntilBufferIsLoaded() throws Exception {
+        // 보낸 노드의 write-behind 대기열에만 있어 DB에서는 읽히지 않는 메시지
+        receive("recent-messages-append", message(3));
+        receive("recent-messages-replace", message(3).toBuilder().uploadStatus(UploadStatus.COMPLETED).build());
+        receive("recent-messages-replace", message(4)); // 받은 적 없는 메시지의 교체는 무시
+
+        List<ChatMessageDto> page = cache.find(ROOM, null, null, 10, () -> messages(1, 2)).orElseThrow();
+
+        assertThat(page).extracting(ChatMessageDto::getId).containsExactly(1L, 2L, 3L);
+        assertThat(page.get(2).getUploadStatus()).isEqualTo(UploadStatus.COMPLETED);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receive(String type, ChatMessageDto message) throws Exception {
+        ArgumentCaptor<Consumer<ClusterMessage>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterTransport).registerHandler(eq(type), handler.capture());
+        handler.getValue().accept(new ClusterMessage(type, "other", ROOM, objectMapper.writeValueAsBytes(message)));
+    }
+
+    private static List<Long> ids(Optional<List<ChatMessageDto>> page) {
+        return page.orElseThrow().stream().map(ChatMessageDto::getId).toList();
+    }
+
+    private static List<ChatMessageDto> messages(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId).mapToObj(RecentMessageCacheTest::message).toList();
+    }
+
+    private static ChatMessageDto message(long id) {
+        return ChatMessageDto.builder()
+                .id(id)
+                .roomId(ROOM)
+                .senderId(1L)
+                .content("메시지 " + id)
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.ktb.chatexample.config.ExecutionConfig;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoomMessageRouterTest {
+
+    private final ChatService chatService = mock(ChatService.class);
+    private final RoomOwnership roomOwnership = mock(RoomOwnership.class);
+    private final ClusterTransport clusterTransport = mock(ClusterTransport.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private RoomMessageRouter router;
+
+    @BeforeEach
+    void setUp() {
+        when(clusterTransport.getLocalNodeId()).thenReturn("node-a");
+        when(roomOwnership.ownerOf(any())).thenReturn("node-a");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        router.stop();
+    }
+
+    @Test
+    void processesOwnedRoomOnCallerThreadAndPropagatesFailure() {
+        router = create(1, "platform");
+        AtomicReference<Thread> handledOn = new AtomicReference<>();
+        doAnswer(invocation -> {
+            handledOn.set(Thread.currentThread());
+            return null;
+        }).when(chatService).joinRoom(any());
+        doThrow(new IllegalArgumentException("존재하지 않는 채팅방입니다."))
+                .when(chatService).sendMessage(any());
+
+        router.route(message(MessageType.JOIN));
+        assertThat(handledOn.get()).isSameAs(Thread.currentThread());
+
+        assertThatThrownBy(() -> router.route(message(MessageType.CHAT)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRelayedMessagesWhenLaneIsFull() throws Exception {
+        router = create(1, "platform");
+        Consumer<ClusterMessage> handler = capturedHandler();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(chatService).sendMessage(any());
+
+        handler.accept(relayed(message(MessageType.CHAT)));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        handler.accept(relayed(message(MessageType.CHAT)));  // 대기열에 들어감
+        handler.accept(relayed(message(MessageType.CHAT)));  // 가득 차 버려짐
+
+        assertThat(router.getRejectedCount()).isEqualTo(1);
+        release.countDown();
+        verify(chatService, timeout(5_000).times(2)).sendMessage(any());
+    }
+
+    @Test
+    void relayedMessagesRunOnVirtualThreadsInVirtualMode() throws Exception {
+        router = create(10, ExecutionConfig.VIRTUAL);
+        Consumer<ClusterMessage> handler = capturedHandler();
+        AtomicBoolean virtual = new AtomicBoolean();
+        CountDownLatch handled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            virtual.set(Thread.currentThread().isVirtual());
+            handled.countDown();
+            return null;
+        }).when(chatService).sendMessage(any());
+
+        handler.accept(relayed(message(MessageType.CHAT)));
+
+        assertThat(handled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(virtual.get()).isTrue();
+        verify(chatService, times(1)).sendMessage(any());
+    }
+
+    private RoomMessageRouter create(int laneCapacity, String executionMode) {
+        return new RoomMessageRouter(chatService, roomOwnership, clusterTransport, objectMapper,
+                4, laneCapacity, 2, executionMode);
+    }
+
+    private Consumer<ClusterMessage> capturedHandler() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<ClusterMessage>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterTransport).registerHandler(eq(RoomMessageRouter.CLUSTER_MESSAGE_TYPE), handler.capture());
+        return handler.getValue();
+    }
+
+    private ClusterMessage relayed(ChatMessageDto messageDto) throws Exception {
+        return new ClusterMessage(RoomMessageRouter.CLUSTER_MESSAGE_TYPE, "node-b", messageDto.getRoomId(),
+                objectMapper.writeValueAsBytes(messageDto));
+    }
+
+    private static ChatMessageDto message(MessageType type) {
+        return ChatMessageDto.builder()
+                .roomId("room-1")
+                .senderId(1L)
+                .senderName("user1")
+                .content("hello")
+                .type(type)
+                .build();
+    }
+}
@@ -0,0 +1,178 @@
+package org.ktb.chatexample.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.cluster.ClusterMessage;
+import org.ktb.chatexample.cluster.ClusterTransport;
+import org.ktb.chatexample.cluster.RoomOwnership;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UnreadCountersTest {
+
+    private static final LookupCache.CachedRoom ROOM = new LookupCache.CachedRoom(10L, "room-1", 1L, 2L);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final RoomOwnership roomOwnership = mock(RoomOwnership.class);
+    private final ClusterTransport clusterTransport = mock(ClusterTransport.class);
+
+    private UnreadCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        when(roomOwnership.isLocal(anyString())).thenReturn(true);
+        counters = create(clusterTransport);
+    }
+
+    @Test
+    void countsMessagesForRecipientOnly() {
+        counters.onMessage(ROOM, 1L, 100L);
+        counters.onMessage(ROOM, 1L, 101L);
+
+        assertThat(counters.overlay(10L, 2L, 3)).isEqualTo(5);
+        assertThat(counters.overlay(10L, 1L, 3)).isEqualTo(3);
+        assertThat(counters.getLatestMessageId(10L)).isEqualTo(101L);
+    }
+
+    @Test
+    void readReplacesPersistedCountAndIgnoresStaleReads() {
+        counters.onMessage(ROOM, 1L, 100L);
+        counters.onMessage(ROOM, 1L, 101L);
+
+        assertThat(counters.markRead(10L, 2L, 101L, 0, 101L)).isTrue();
+        assertThat(counters.markRead(10L, 2L, 100L, 1, 101L)).isFalse();
+        counters.onMessage(ROOM, 1L, 102L);
+
+        assertThat(counters.overlay(10L, 2L, 7)).isEqualTo(1);
+    }
+
+    @Test
+    void flushesCoalescedChangesInOneBatch() {
+        counters.onMessage(ROOM, 1L, 100L);
+        counters.onMessage(ROOM, 1L, 101L);
+        counters.onMessage(ROOM, 2L, 102L);
+        counters.markRead(10L, 1L, 102L, 0, 102L);
+
+        counters.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> additions = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> reads = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("THEN VALUES(unread_count) ELSE 0"), additions.capture());
+        verify(jdbcTemplate).batchUpdate(contains("GREATEST"), reads.capture());
+        assertThat(additions.getValue()).hasSize(1);
+        assertThat(additions.getValue().get(0)).startsWith(10L, 2L, 2L);
+        assertThat(reads.getValue()).hasSize(1);
+        assertThat(reads.getValue().get(0)).startsWith(10L, 1L, 102L, 0L);
+        assertThat(counters.getFlushedCount()).isEqualTo(2);
+
+        // 반영된 뒤에는 DB 값을 그대로 쓴다
+        assertThat(counters.overlay(10L, 2L, 2)).isEqualTo(2);
+        counters.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("INSERT"), anyList());
+    }
+
+    @Test
+    void keepsChangesForNextFlushWhenWriteFails() {
+        when(jdbcTemplate.batchUpdate(contains("INSERT"), anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[]{1});
+        counters.onMessage(ROOM, 1L, 100L);
+
+        counters.flush();
+        counters.onMessage(ROOM, 1L, 101L);
+
+        assertThat(counters.getFailedFlushCount()).isEqualTo(1);
+        assertThat(counters.overlay(10L, 2L, 0)).isEqualTo(2);
+
+        counters.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> additions = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("INSERT"), additions.capture());
+        assertThat(additions.getValue().get(0)).startsWith(10L, 2L, 2L);
+        verify(jdbcTemplate, never()).batchUpdate(contains("GREATEST"), anyList());
+    }
+
+    @Test
+    void readKeepsOnlyMessagesAfterWhatItCountedAndIgnoresLateOnes() {
+        counters.onMessage(ROOM, 1L, 100L);
+        counters.onMessage(ROOM, 1L, 101L);
+        counters.onMessage(ROOM, 1L, 102L);
+
+        // 100까지 읽음, 조회한 남은 수(1)에 101까지 포함됨
+        counters.markRead(10L, 2L, 100L, 1, 101L);
+        assertThat(counters.overlay(10L, 2L, 7)).isEqualTo(2);
+
+        // 남은 수에 이미 포함된 메시지가 늦게 도착해도 다시 세지 않는다
+        counters.onMessage(ROOM, 1L, 101L);
+        assertThat(counters.overlay(10L, 2L, 7)).isEqualTo(2);
+        counters.onMessage(ROOM, 1L, 103L);
+        assertThat(counters.overlay(10L, 2L, 7)).isEqualTo(3);
+
+        counters.flush();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> reads = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("GREATEST"), reads.capture());
+        assertThat(reads.getValue().get(0)).startsWith(10L, 2L, 100L, 3L);
+    }
+
+    @Test
+    void relaysMessagesToRoomOwner() throws Exception {
+        ClusterTransport ownerTransport = mock(ClusterTransport.class);
+        UnreadCounters owner = create(ownerTransport);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<ClusterMessage>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(ownerTransport).registerHandler(eq(UnreadCounters.CLUSTER_MESSAGE_TYPE), handler.capture());
+
+        when(roomOwnership.isLocal("room-1")).thenReturn(false);
+        when(roomOwnership.ownerOf("room-1")).thenReturn("node-b");
+        counters.onMessage(ROOM, 1L, 100L);
+
+        ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        verify(clusterTransport).send(eq("node-b"), eq(UnreadCounters.CLUSTER_MESSAGE_TYPE), eq("room-1"), payload.capture());
+        assertThat(counters.overlay(10L, 2L, 0)).isZero();
+
+        handler.getValue().accept(new ClusterMessage(UnreadCounters.CLUSTER_MESSAGE_TYPE, "node-a", "room-1", payload.getValue()));
+        assertThat(owner.overlay(10L, 2L, 0)).isEqualTo(1);
+        assertThat(owner.getLatestMessageId(10L)).isEqualTo(100L);
+    }
+
+    @Test
+    void countsLocallyWhenOwnerIsUnreachable() {
+        when(roomOwnership.isLocal("room-1")).thenReturn(false);
+        when(roomOwnership.ownerOf("room-1")).thenReturn("node-b");
+        doThrow(new IllegalArgumentException("알 수 없는 노드"))
+                .when(clusterTransport).send(anyString(), anyString(), anyString(), any());
+
+        counters.onMessage(ROOM, 1L, 100L);
+
+        assertThat(counters.overlay(10L, 2L, 0)).isEqualTo(1);
+    }
+
+    private UnreadCounters create(ClusterTransport transport) {
+        return new UnreadCounters(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                roomOwnership, transport, new ObjectMapper(), 4, 1000, 1000);
+    }
+}
@@ -0,0 +1,118 @@
+package org.ktb.chatexample.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void idsAreStrictlyIncreasing() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 50_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(threads * perThread);
+    }
+
+    @Test
+    void encodesTimestampAndNodeId() {
+        long now = SnowflakeIdGenerator.DEFAULT_EPOCH + 123_456L;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(42, SnowflakeIdGenerator.DEFAULT_EPOCH, () -> now);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertThat(generator.extractTimestamp(first)).isEqualTo(now);
+        assertThat(SnowflakeIdGenerator.extractNodeId(first)).isEqualTo(42);
+        assertThat(SnowflakeIdGenerator.extractSequence(first)).isZero();
+        assertThat(SnowflakeIdGenerator.extractSequence(second)).isEqualTo(1);
+    }
+
+    @Test
+    void sequenceOverflowMovesToNextMillisecond() {
+        long now = SnowflakeIdGenerator.DEFAULT_EPOCH + 1_000L;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, SnowflakeIdGenerator.DEFAULT_EPOCH, () -> now);
+
+        long last = 0;
+        for (int i = 0; i < 4096; i++) {
+            last = generator.nextId();
+        }
+        long overflowed = generator.nextId();
+
+        assertThat(SnowflakeIdGenerator.extractSequence(last)).isEqualTo(4095);
+        assertThat(overflowed).isGreaterThan(last);
+        assertThat(generator.extractTimestamp(overflowed)).isEqualTo(now + 1);
+        assertThat(SnowflakeIdGenerator.extractSequence(overflowed)).isZero();
+        assertThat(SnowflakeIdGenerator.extractNodeId(overflowed)).isEqualTo(3);
+    }
+
+    @Test
+    void staysMonotonicWhenClockMovesBackwards() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.DEFAULT_EPOCH + 10_000L);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, SnowflakeIdGenerator.DEFAULT_EPOCH, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-5_000L);
+        long after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+    }
+
+    @Test
+    void differentNodesNeverCollide() {
+        long now = SnowflakeIdGenerator.DEFAULT_EPOCH + 500L;
+        SnowflakeIdGenerator node1 = new SnowflakeIdGenerator(1, SnowflakeIdGenerator.DEFAULT_EPOCH, () -> now);
+        SnowflakeIdGenerator node2 = new SnowflakeIdGenerator(2, SnowflakeIdGenerator.DEFAULT_EPOCH, () -> now);
+
+        assertThat(node1.nextId()).isNotEqualTo(node2.nextId());
+    }
+
+    @Test
+    void rejectsOutOfRangeNodeId() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,75 @@
+package org.ktb.chatexample.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.dto.ChatMessageDto;
+import org.ktb.chatexample.dto.MessageType;
+import org.ktb.chatexample.dto.UploadStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatMessageBinaryCodecTest {
+
+    @Test
+    void roundTripsAllFields() {
+        ChatMessageDto message = ChatMessageDto.builder()
+                .id(7_312_345_678_901_234_567L)
+                .roomId("3f2b8c1e-4d5a-4b6c-9e7f-0a1b2c3d4e5f")
+                .senderId(42L)
+                .senderName("홍길동")
+                .content("안녕하세요 👋 오늘 회의는 3시입니다.")
+                .imageUrl("https://bucket.s3.amazonaws.com/chat/a.png")
+                .type(MessageType.IMAGE)
+                .createdAt(LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000))
+                .uploadStatus(UploadStatus.COMPLETED)
+                .thumbnailUrl("https://bucket.s3.amazonaws.com/variants/a_thumb.jpg")
+                .previewUrl("https://bucket.s3.amazonaws.com/variants/a_preview.jpg")
+                .build();
+
+        assertThat(ChatMessageBinaryCodec.decode(ChatMessageBinaryCodec.encode(message))).isEqualTo(message);
+    }
+
+    @Test
+    void omitsNullFields() {
+        ChatMessageDto message = ChatMessageDto.builder()
+                .roomId("room-1")
+                .content("hi")
+                .build();
+
+        byte[] bytes = ChatMessageBinaryCodec.encode(message);
+
+        assertThat(ChatMessageBinaryCodec.decode(bytes)).isEqualTo(message);
+        assertThat(bytes).hasSize(1 + 1 + 7 + 3);
+    }
+
+    @Test
+    void keepsNonCanonicalUuidRoomIdAsString() {
+        ChatMessageDto message = ChatMessageDto.builder()
+                .roomId("3F2B8C1E-4D5A-4B6C-9E7F-0A1B2C3D4E5F")
+                .build();
+
+        assertThat(ChatMessageBinaryCodec.decode(ChatMessageBinaryCodec.encode(message)).getRoomId())
+                .isEqualTo(message.getRoomId());
+    }
+
+    @Test
+    void truncatesCreatedAtToMicroseconds() {
+        ChatMessageDto message = ChatMessageDto.builder()
+                .createdAt(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999))
+                .build();
+
+        assertThat(ChatMessageBinaryCodec.decode(ChatMessageBinaryCodec.encode(message)).getCreatedAt())
+                .isEqualTo(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000));
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        byte[] bytes = ChatMessageBinaryCodec.encode(ChatMessageDto.builder().id(1L).content("hello").build());
+
+        assertThatThrownBy(() -> ChatMessageBinaryCodec.decode(Arrays.copyOf(bytes, bytes.length - 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,37 @@
+package org.ktb.chatexample.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerMessageDeflateFilterTest {
+
+    private static final String BROWSER_OFFER = "permessage-deflate; client_max_window_bits";
+
+    @Test
+    void removesDeflateOfferWhenDisabled() {
+        PerMessageDeflateFilter filter = new PerMessageDeflateFilter(false, true, true);
+
+        assertThat(filter.rewrite(List.of(BROWSER_OFFER + ", x-webkit-deflate-frame"))).containsExactly("x-webkit-deflate-frame");
+        assertThat(filter.rewrite(List.of(BROWSER_OFFER))).isEmpty();
+    }
+
+    @Test
+    void addsNoContextTakeoverParameters() {
+        PerMessageDeflateFilter filter = new PerMessageDeflateFilter(true, false, false);
+
+        assertThat(filter.rewrite(List.of(BROWSER_OFFER)))
+                .containsExactly(BROWSER_OFFER + "; server_no_context_takeover; client_no_context_takeover");
+    }
+
+    @Test
+    void doesNotDuplicateParametersAlreadyOffered() {
+        PerMessageDeflateFilter filter = new PerMessageDeflateFilter(true, false, true);
+
+        assertThat(filter.rewrite(List.of("permessage-deflate; server_no_context_takeover", "permessage-deflate")))
+                .containsExactly("permessage-deflate; server_no_context_takeover",
+                        "permessage-deflate; server_no_context_takeover");
+    }
+}
@@ -0,0 +1,185 @@
+package org.ktb.chatexample.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.ktb.chatexample.dto.WebSocketStatsDto;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketFlowControlTest {
+
+    private static final String SESSION_ID = "session-1";
+    private static final String CHAT = "/topic/chat/room-1";
+    private static final String TYPING = "/topic/chat/room-1/typing";
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+
+    @Test
+    void framesPassWhileUnderLimit() throws Exception {
+        WebSocketFlowControl flowControl = flowControl(SlowConsumerPolicy.DROP);
+        connect(flowControl);
+
+        assertThat(flowControl.preSend(message(CHAT, "1"), channel)).isNotNull();
+        assertThat(flowControl.preSend(message(TYPING, "2"), channel)).isNotNull();
+        assertThat(flowControl.getStats().getPendingFrames()).isEqualTo(2);
+    }
+
+    @Test
+    void dropPolicyDropsOnlyNonEssentialFrames() throws Exception {
+        WebSocketFlowControl flowControl = flowControl(SlowConsumerPolicy.DROP);
+        connect(flowControl);
+        fill(flowControl, 2);
+
+        assertThat(flowControl.preSend(message(TYPING, "typing"), channel)).isNull();
+        assertThat(flowControl.preSend(message(CHAT, "chat"), channel)).isNotNull();
+
+        WebSocketStatsDto stats = flowControl.getStats();
+        assertThat(stats.getDroppedFrames()).isEqualTo(1);
+        assertThat(stats.getSlowestSessions().get(0).getPendingFrames()).isEqualTo(3);
+    }
+
+    @Test
+    void coalescePolicyKeepsLatestFrameAndSendsItWhenQueueDrains() throws Exception {
+        WebSocketFlowControl flowControl = flowControl(SlowConsumerPolicy.COALESCE);
+        WebSocketSession countingSession = connect(flowControl);
+        fill(flowControl, 2);
+
+        Message<byte[]> older = message(TYPING, "older");
+        Message<byte[]> latest = message(TYPING, "latest");
+        assertThat(flowControl.preSend(older, channel)).isNull();
+        assertThat(flowControl.preSend(latest, channel)).isNull();
+        verify(channel, never()).send(any());
+
+        // 대기 프레임이 한도의 절반 이하로 줄면 최신 프레임만 다시 보낸다
+        countingSession.sendMessage(new TextMessage("a"));
+        countingSession.sendMessage(new TextMessage("b"));
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(channel).send(sent.capture());
+        assertThat(sent.getAllValues()).containsExactly(latest);
+        assertThat(flowControl.getStats().getCoalescedFrames()).isEqualTo(2);
+    }
+
+    @Test
+    void disconnectPolicyClosesSlowSession() throws Exception {
+        WebSocketFlowControl flowControl = flowControl(SlowConsumerPolicy.DISCONNECT);
+        connect(flowControl);
+        fill(flowControl, 2);
+
+        assertThat(flowControl.preSend(message(CHAT, "chat"), channel)).isNull();
+
+        verify(session, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(flowControl.getStats().getSlowConsumerDisconnects()).isEqualTo(1);
+    }
+
+    @Test
+    void hardLimitDisconnectsEvenEssentialTraffic() throws Exception {
+        WebSocketFlowControl flowControl = flowControl(SlowConsumerPolicy.DROP);
+        connect(flowControl);
+        fill(flowControl, 4);
+
+        assertThat(flowControl.preSend(message(CHAT, "chat"), channel)).isNull();
+
+        verify(session, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void framesRejectedByOutboundExecutorNoLongerCountAsPending() throws Exception {
+        WebSocketFlowControl flowControl = flowControl(SlowConsumerPolicy.DROP);
+        connect(flowControl);
+        fill(flowControl, 2);
+
+        // 출력 채널 대기열이 가득 차 두 프레임 모두 버려짐
+        for (int i = 0; i < 2; i++) {
+            Message<byte[]> message = message(CHAT, "fill-" + i);
+            flowControl.getOutboundRejectionHandler().rejectedExecution(task(message), mock(ThreadPoolExecutor.class));
+        }
+
+        WebSocketStatsDto stats = flowControl.getStats();
+        assertThat(stats.getPendingFrames()).isZero();
+        assertThat(stats.getOutboundRejected()).isEqualTo(2);
+        assertThat(flowControl.preSend(message(TYPING, "typing"), channel)).isNotNull();
+    }
+
+    @Test
+    void closedSessionIsForgotten() throws Exception {
+        WebSocketFlowControl flowControl = flowControl(SlowConsumerPolicy.DROP);
+        WebSocketHandler decorated = flowControl.decorate(mock(WebSocketHandler.class));
+        when(session.getId()).thenReturn(SESSION_ID);
+        decorated.afterConnectionEstablished(session);
+
+        decorated.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        assertThat(flowControl.getStats().getSessions()).isZero();
+    }
+
+    private WebSocketFlowControl flowControl(SlowConsumerPolicy policy) {
+        return new WebSocketFlowControl(policy, 2, 4, List.of("/topic/chat/*/typing"));
+    }
+
+    // 세션을 등록하고 하위 핸들러가 받은 (쓰기를 집계하는) 세션을 반환
+    private WebSocketSession connect(WebSocketFlowControl flowControl) throws Exception {
+        when(session.getId()).thenReturn(SESSION_ID);
+        WebSocketHandler delegate = mock(WebSocketHandler.class);
+        flowControl.decorate(delegate).afterConnectionEstablished(session);
+
+        ArgumentCaptor<WebSocketSession> captor = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(delegate).afterConnectionEstablished(captor.capture());
+        return captor.getValue();
+    }
+
+    private void fill(WebSocketFlowControl flowControl, int frames) {
+        for (int i = 0; i < frames; i++) {
+            assertThat(flowControl.preSend(message(CHAT, "fill-" + i), channel)).isNotNull();
+        }
+    }
+
+    // ExecutorSubscribableChannel이 실행기에 넘기는 작업과 같은 형태
+    private static MessageHandlingRunnable task(Message<?> message) {
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return mock(MessageHandler.class);
+            }
+
+            @Override
+            public void run() {
+            }
+        };
+    }
+
+    private static Message<byte[]> message(String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}